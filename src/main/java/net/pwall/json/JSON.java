@@ -2,7 +2,7 @@
  * @(#) JSON.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2017, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2017, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -33,6 +33,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.math.BigDecimal;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import net.pwall.util.CharMapper;
 import net.pwall.util.CharUnmapper;
@@ -67,12 +68,18 @@ public class JSON {
     public static final String NOT_AN_ARRAY = "Not a JSON array";
     public static final String NOT_AN_OBJECT = "Not a JSON object";
     public static final String MAX_DEPTH_EXCEEDED = "Maximum nesting depth exceeded";
+    public static final String FROZEN = "Attempt to modify frozen JSON value";
 
     public static final String MAX_INTEGER_STRING = "2147483647";
     public static final String MIN_INTEGER_STRING = "-2147483648";
     public static final String MAX_LONG_STRING = "9223372036854775807";
     public static final String MIN_LONG_STRING = "-9223372036854775808";
 
+    /** System property to set the lowest value in the {@link JSONInteger} and {@link JSONLong} caches. */
+    public static final String CACHE_LOW_PROPERTY = "net.pwall.json.cache.low";
+    /** System property to set the highest value in the {@link JSONInteger} and {@link JSONLong} caches. */
+    public static final String CACHE_HIGH_PROPERTY = "net.pwall.json.cache.high";
+
     private static int maxDepth = 1000;
 
     /**
@@ -522,6 +529,48 @@ public class JSON {
         return (JSONObject)parse(cs);
     }
 
+    /**
+     * Parse a {@link CharSequence} (e.g. a {@link String}) as a JSON value, validating it
+     * against a {@link JSONSchema} as it is parsed.  Each value is checked as soon as it is
+     * complete (and an object property that the schema does not allow is rejected before its
+     * value is parsed), so invalid input is rejected without building the rest of the tree.
+     *
+     * @param   cs      the {@link CharSequence}
+     * @param   schema  the {@link JSONSchema}
+     * @return          the JSON value
+     * @throws  JSONException if the sequence does not contain a valid JSON value
+     * @throws  JSONSchema.ValidationException if the value is not valid according to the schema
+     *          (the exception identifies the location of the failing value)
+     */
+    public static JSONValue parse(CharSequence cs, JSONSchema schema) {
+        return parse(cs, schema, false);
+    }
+
+    /**
+     * Parse a {@link CharSequence} (e.g. a {@link String}) as a JSON value, validating it
+     * against a {@link JSONSchema} as it is parsed, and optionally skipping object properties
+     * not declared by the schema.  Skipped properties are checked for JSON syntax, but their
+     * values are not created (duplicate keys among the skipped properties are not detected).
+     * Properties are skipped only in objects for which the schema declares properties (using
+     * {@code properties} or {@code patternProperties}) and does not constrain the set of
+     * properties as a whole; see {@link JSONSchema}.
+     *
+     * @param   cs      the {@link CharSequence}
+     * @param   schema  the {@link JSONSchema}
+     * @param   prune   if {@code true}, skip properties not declared by the schema
+     * @return          the JSON value
+     * @throws  JSONException if the sequence does not contain a valid JSON value
+     * @throws  JSONSchema.ValidationException if the value is not valid according to the schema
+     *          (the exception identifies the location of the failing value)
+     */
+    public static JSONValue parse(CharSequence cs, JSONSchema schema, boolean prune) {
+        ParseText p = new ParseText(cs);
+        JSONValue result = parse(p, null, 0, null, schema.parseNode(prune));
+        if (!p.skipSpaces().isExhausted())
+            throw new JSONException(EXCESS_CHARS);
+        return result;
+    }
+
     /**
      * Parse a JSON value from a {@link ParseText} object.  The index of the {@link ParseText}
      * is left positioned after the JSON value.
@@ -531,10 +580,35 @@ public class JSON {
      * @throws  JSONException if the text in the {@link ParseText} is not a valid JSON value
      */
     public static JSONValue parse(ParseText p) {
-        return parse(p, "", 0);
+        return parse(p, null, 0);
+    }
+
+    /**
+     * Parse a JSON value at a given location and nesting depth (for use by other parsers in the
+     * package when they encounter a nested value).
+     *
+     * @param   p           the {@link ParseText} object
+     * @param   location    the location of the value (for error messages)
+     * @param   depth       the current nesting depth
+     * @return              the JSON value
+     * @throws  JSONException if the text in the {@link ParseText} is not a valid JSON value
+     */
+    static JSONValue parse(ParseText p, JSONPointer.Location location, int depth) {
+        return parse(p, location, depth, null, null);
+    }
+
+    private static JSONValue parse(ParseText p, JSONPointer.Location location, int depth, JSONShape shape,
+            JSONSchema.ParseNode node) {
+        if (node == null)
+            return parseValue(p, location, depth, shape, null);
+        node.checkAllowed(location);
+        JSONValue value = parseValue(p, location, depth, shape, node);
+        node.check(value, location);
+        return value;
     }
 
-    private static JSONValue parse(ParseText p, String pointer, int depth) {
+    private static JSONValue parseValue(ParseText p, JSONPointer.Location location, int depth,
+            JSONShape shape, JSONSchema.ParseNode node) {
         if (depth > maxDepth)
             throw new JSONException(MAX_DEPTH_EXCEEDED);
 
@@ -543,45 +617,23 @@ public class JSON {
         // check for object
 
         if (p.match('{')) {
-            JSONObject object = new JSONObject();
-            if (!p.skipSpaces().match('}')) {
-                for (;;) {
-                    if (!p.match('"'))
-                        throw new JSONException(pointerMessage(ILLEGAL_KEY, pointer));
-                    String key = decodeString(p, pointer);
-                    if (object.containsKey(key))
-                        throw new JSONException(pointerMessage(DUPLICATE_KEY + ": \"" + key + '"', pointer));
-                    if (!p.skipSpaces().match(':'))
-                        throw new JSONException(pointerMessage(MISSING_COLON, pointer));
-                    object.put(key, parse(p, pointer + '/' + key, depth + 1));
-                    if (!p.skipSpaces().match(','))
-                        break;
-                    p.skipSpaces();
-                }
-                if (!p.match('}'))
-                    throw new JSONException(pointerMessage(MISSING_CLOSING_BRACE, pointer));
-            }
-            return object;
+            if (p.skipSpaces().match('}'))
+                return new JSONObject();
+            return parseObjectContents(p, location, depth, shape, node);
         }
 
         // check for array
 
         if (p.match('[')) {
-            JSONArray array = new JSONArray();
-            if (!p.skipSpaces().match(']')) {
-                do {
-                    array.add(parse(p, pointer + '/' + array.size(), depth + 1));
-                } while (p.skipSpaces().match(','));
-                if (!p.match(']'))
-                    throw new JSONException(pointerMessage(MISSING_CLOSING_BRACKET, pointer));
-            }
-            return array;
+            if (p.skipSpaces().match(']'))
+                return new JSONArray();
+            return parseArrayContents(p, location, depth, node);
         }
 
         // check for string
 
         if (p.match('"')) {
-            return new JSONString(decodeString(p, pointer));
+            return JSONString.valueOf(decodeString(p, location));
         }
 
         // check for number
@@ -592,42 +644,35 @@ public class JSON {
             boolean zero = false;
             if (p.getResultChar() == '0') {
                 if (p.getResultLength() > 1)
-                    throw new JSONException(pointerMessage(ILLEGAL_NUMBER, pointer));
+                    throw new JSONException(pointerMessage(ILLEGAL_NUMBER, location));
                 zero = true;
             }
             boolean floating = false;
             if (p.match('.')) {
                 floating = true;
                 if (!p.matchDec())
-                    throw new JSONException(pointerMessage(ILLEGAL_NUMBER, pointer));
+                    throw new JSONException(pointerMessage(ILLEGAL_NUMBER, location));
             }
             if (p.matchIgnoreCase('e')) {
                 floating = true;
                 p.matchAnyOf("-+"); // ignore the result, just step the index
                 if (!p.matchDec())
-                    throw new JSONException(pointerMessage(ILLEGAL_NUMBER, pointer));
+                    throw new JSONException(pointerMessage(ILLEGAL_NUMBER, location));
             }
             int numberEnd = p.getIndex();
-            String numberString = p.getString(numberStart, numberEnd);
             if (!floating) {
                 if (zero)
                     return JSONZero.ZERO;
-                if (numberString.length() < 10) // optimise the most common case
-                    return new JSONInteger(Integer.parseInt(numberString));
-                String unsignedNumber = numberString.charAt(0) == '-' ? numberString.substring(1) : numberString;
-                if (unsignedNumber.length() < 10 ||
-                        unsignedNumber.length() == 10 && unsignedNumber.compareTo(MAX_INTEGER_STRING) <= 0 ||
-                        numberString.equals(MIN_INTEGER_STRING))
-                    return new JSONInteger(Integer.parseInt(numberString));
-                if (unsignedNumber.length() < 19 ||
-                        unsignedNumber.length() == 19 && unsignedNumber.compareTo(MAX_LONG_STRING) <= 0 ||
-                        numberString.equals(MIN_LONG_STRING))
-                    return new JSONLong(Long.parseLong(numberString));
+                if (numberEnd - numberStart < 10) { // optimise the most common case
+                    boolean negative = p.charAt(numberStart) == '-';
+                    int value = p.getInt(negative ? numberStart + 1 : numberStart, numberEnd);
+                    return JSONInteger.valueOf(negative ? -value : value);
+                }
             }
-            return new JSONDecimal(numberString);
+            return numberValue(p.getString(numberStart, numberEnd), floating);
         }
         if (p.getIndex() > numberStart)
-            throw new JSONException(pointerMessage(ILLEGAL_NUMBER, pointer)); // minus sign without digits
+            throw new JSONException(pointerMessage(ILLEGAL_NUMBER, location)); // minus sign without digits
 
         // check for keywords (true, false, null)
 
@@ -640,11 +685,45 @@ public class JSON {
 
         // error
 
-        throw new JSONException(pointerMessage(ILLEGAL_SYNTAX, pointer));
+        throw new JSONException(pointerMessage(ILLEGAL_SYNTAX, location));
+    }
+
+    /**
+     * Create a number value from a string that has already been checked for JSON number
+     * syntax.  Integer values are returned as {@link JSONZero}, {@link JSONInteger} or
+     * {@link JSONLong} if they fit, and all other values as {@link JSONDecimal}.
+     *
+     * @param   numberString    the number in string form
+     * @param   floating        {@code true} if the number has a fraction or exponent part
+     * @return  the number value
+     */
+    static JSONValue numberValue(String numberString, boolean floating) {
+        if (!floating) {
+            String unsignedNumber = numberString.charAt(0) == '-' ? numberString.substring(1) : numberString;
+            if (unsignedNumber.equals("0"))
+                return JSONZero.ZERO;
+            if (unsignedNumber.length() < 10 ||
+                    unsignedNumber.length() == 10 && unsignedNumber.compareTo(MAX_INTEGER_STRING) <= 0 ||
+                    numberString.equals(MIN_INTEGER_STRING))
+                return JSONInteger.valueOf(Integer.parseInt(numberString));
+            if (unsignedNumber.length() < 19 ||
+                    unsignedNumber.length() == 19 && unsignedNumber.compareTo(MAX_LONG_STRING) <= 0 ||
+                    numberString.equals(MIN_LONG_STRING))
+                return JSONLong.valueOf(Long.parseLong(numberString));
+        }
+        return new JSONDecimal(numberString);
     }
 
-    private static String pointerMessage(String message, String pointer) {
-        return (pointer.length() == 0 ? message : message + " at " + pointer);
+    /**
+     * Create an error message, adding the location of the error if it is not the root of the
+     * document.
+     *
+     * @param   message     the message
+     * @param   location    the location ({@code null} for the root)
+     * @return  the complete message
+     */
+    static String pointerMessage(String message, JSONPointer.Location location) {
+        return location == null ? message : message + " at " + location.toPointer();
     }
 
     /**
@@ -673,35 +752,249 @@ public class JSON {
         return (JSONObject)parse(p);
     }
 
+    /**
+     * Parse the contents of a JSON object (the opening brace has already been matched, and the
+     * object is known not to be empty).  If a {@link JSONShape} is supplied (the shape of the
+     * previous object in an array), the keys are compared with the keys of the shape as they are
+     * read, and if they match the resulting object will share the shape.
+     *
+     * @param   p       the {@link ParseText}
+     * @param   location    the location of the object (for error messages)
+     * @param   depth   the current nesting depth
+     * @param   shape   the expected {@link JSONShape} (may be {@code null})
+     * @param   node    the schema for the object (may be {@code null})
+     * @return  the object
+     * @throws  JSONException if the JSON is invalid
+     */
+    private static JSONObject parseObjectContents(ParseText p, JSONPointer.Location location, int depth,
+            JSONShape shape, JSONSchema.ParseNode node) {
+        String[] shapeKeys = shape == null ? null : shape.keys;
+        JSONValue[] values = shape == null ? null : new JSONValue[shapeKeys.length];
+        JSONObject object = shape == null ? new JSONObject() : null;
+        int count = 0;
+        JSONPointer.Location child = new JSONPointer.Location(location);
+        for (;;) {
+            if (!p.match('"'))
+                throw new JSONException(pointerMessage(ILLEGAL_KEY, location));
+            String key = decodeString(p, location);
+            JSONSchema.ParseNode childNode = node == null ? null : node.property(key);
+            if (childNode == JSONSchema.ParseNode.SKIP) {
+                if (!p.skipSpaces().match(':'))
+                    throw new JSONException(pointerMessage(MISSING_COLON, location));
+                skipValue(p, child.key(key), depth + 1);
+                if (!p.skipSpaces().match(','))
+                    break;
+                p.skipSpaces();
+                continue;
+            }
+            if (object == null) {
+                if (count < shapeKeys.length && key.equals(shapeKeys[count]))
+                    key = shapeKeys[count];
+                else {
+                    object = new JSONObject(shapeKeys.length);
+                    for (int i = 0; i < count; i++)
+                        object.put(shapeKeys[i], values[i]);
+                }
+            }
+            if (object != null && object.containsKey(key))
+                throw new JSONException(pointerMessage(DUPLICATE_KEY + ": \"" + key + '"', location));
+            if (!p.skipSpaces().match(':'))
+                throw new JSONException(pointerMessage(MISSING_COLON, location));
+            JSONValue value = parse(p, child.key(key), depth + 1, null, childNode);
+            if (object == null)
+                values[count++] = value;
+            else
+                object.put(key, value);
+            if (!p.skipSpaces().match(','))
+                break;
+            p.skipSpaces();
+        }
+        if (!p.match('}'))
+            throw new JSONException(pointerMessage(MISSING_CLOSING_BRACE, location));
+        if (object != null)
+            return object;
+        if (count == shapeKeys.length)
+            return new JSONObject(shape, values);
+        object = new JSONObject(count);
+        for (int i = 0; i < count; i++)
+            object.put(shapeKeys[i], values[i]);
+        return object;
+    }
+
+    /**
+     * Parse the contents of a JSON array (the opening bracket has already been matched).  While
+     * the array contains only integer values they are accumulated in an array of {@code long},
+     * and if that is the case for the whole array the result is a {@link JSONIntArray} or a
+     * {@link JSONLongArray}; otherwise the result is a standard {@link JSONArray}.
+     *
+     * @param   p       the {@link ParseText}
+     * @param   location    the location of the array (for error messages)
+     * @param   depth   the current nesting depth
+     * @param   node    the schema for the array (may be {@code null})
+     * @return  the array
+     * @throws  JSONException if the JSON is invalid
+     */
+    private static JSONArray parseArrayContents(ParseText p, JSONPointer.Location location, int depth,
+            JSONSchema.ParseNode node) {
+        JSONArray array = null;
+        long[] numbers = null;
+        int count = 0;
+        boolean ints = true;
+        JSONShape shape = null;
+        JSONObject previous = null;
+        JSONPointer.Location child = new JSONPointer.Location(location);
+        do {
+            int index = array == null ? count : array.size();
+            JSONValue value = parse(p, child.index(index), depth + 1, shape,
+                    node == null ? null : node.item(index));
+            if (value instanceof JSONObject) {
+                // a shape is created only when two consecutive objects have the same keys
+                JSONObject object = (JSONObject)value;
+                if (shape == null || object.currentShape() != shape) {
+                    if (previous != null && !object.isEmpty() && object.hasSameKeys(previous)) {
+                        shape = previous.shape();
+                        object.useShape(shape);
+                        previous = null;
+                    }
+                    else {
+                        shape = null;
+                        previous = object;
+                    }
+                }
+            }
+            if (array != null)
+                array.add(value);
+            else if (value instanceof JSONInteger || value instanceof JSONLong ||
+                    value instanceof JSONZero) {
+                if (numbers == null)
+                    numbers = new long[8];
+                else if (count == numbers.length)
+                    numbers = Arrays.copyOf(numbers, count * 2);
+                numbers[count++] = ((JSONNumberValue)value).longValue();
+                if (value instanceof JSONLong)
+                    ints = false;
+            }
+            else {
+                array = new JSONArray(count + 8);
+                for (int i = 0; i < count; i++) {
+                    long number = numbers[i];
+                    array.add(number == 0 ? JSONZero.ZERO : number == (int)number ?
+                            JSONInteger.valueOf((int)number) : JSONLong.valueOf(number));
+                }
+                array.add(value);
+            }
+        } while (p.skipSpaces().match(','));
+        if (!p.match(']'))
+            throw new JSONException(pointerMessage(MISSING_CLOSING_BRACKET, location));
+        if (array != null)
+            return array;
+        if (!ints)
+            return new JSONLongArray(numbers, count);
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = (int)numbers[i];
+        return new JSONIntArray(values, count);
+    }
+
+    /**
+     * Skip a JSON value, checking the syntax but not creating the value (used for properties
+     * not declared by a schema).
+     *
+     * @param   p           the {@link ParseText}
+     * @param   location    the location of the value (for error messages)
+     * @param   depth       the current nesting depth
+     * @throws  JSONException if the JSON is invalid
+     */
+    private static void skipValue(ParseText p, JSONPointer.Location location, int depth) {
+        if (depth > maxDepth)
+            throw new JSONException(MAX_DEPTH_EXCEEDED);
+        p.skipSpaces();
+        if (p.match('{')) {
+            if (p.skipSpaces().match('}'))
+                return;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            for (;;) {
+                if (!p.match('"'))
+                    throw new JSONException(pointerMessage(ILLEGAL_KEY, location));
+                String key = decodeString(p, location);
+                if (!p.skipSpaces().match(':'))
+                    throw new JSONException(pointerMessage(MISSING_COLON, location));
+                skipValue(p, child.key(key), depth + 1);
+                if (!p.skipSpaces().match(','))
+                    break;
+                p.skipSpaces();
+            }
+            if (!p.match('}'))
+                throw new JSONException(pointerMessage(MISSING_CLOSING_BRACE, location));
+            return;
+        }
+        if (p.match('[')) {
+            if (p.skipSpaces().match(']'))
+                return;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            int count = 0;
+            do {
+                skipValue(p, child.index(count++), depth + 1);
+            } while (p.skipSpaces().match(','));
+            if (!p.match(']'))
+                throw new JSONException(pointerMessage(MISSING_CLOSING_BRACKET, location));
+            return;
+        }
+        if (p.match('"')) {
+            for (;;) {
+                if (p.isExhausted())
+                    throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, location));
+                char ch = p.getChar();
+                if (ch == '"')
+                    return;
+                if (ch == '\\') {
+                    if (p.isExhausted())
+                        throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, location));
+                    ch = p.getChar();
+                    if (ch == 'u') {
+                        if (!p.matchHexFixed(4))
+                            throw new JSONException(pointerMessage(ILLEGAL_STRING_UNICODE, location));
+                    }
+                    else if ("\"\\/bfnrt".indexOf(ch) < 0)
+                        throw new JSONException(pointerMessage(ILLEGAL_STRING_ESCAPE, location));
+                }
+                else if (ch < 0x20)
+                    throw new JSONException(pointerMessage(ILLEGAL_STRING_CHAR, location));
+            }
+        }
+        parse(p, location, depth); // numbers and keywords
+    }
+
     /**
      * Decode a JSON string, interpreting backslash sequences.  The {@link ParseText} is
      * assumed to be positioned just after the opening quote, and it is left positioned after
      * the closing quote.  This method does not check for UTF-16 surrogate sequences;
      * well-formed UTF-16 will pass through correctly, but so will incorrect data.
      *
-     * @param   p   the {@link ParseText}
+     * @param   p           the {@link ParseText}
+     * @param   location    the location of the string (for error messages)
      * @return  the string
      * @throws  JSONException if the string is not valid, or not properly terminated
      */
-    private static String decodeString(ParseText p, String pointer) {
+    static String decodeString(ParseText p, JSONPointer.Location location) {
         // start by assuming we can take a substring from the input
         int start = p.getIndex();
         for (;;) {
             if (p.isExhausted())
-                throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, pointer));
+                throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, location));
             char ch = p.getChar();
             if (ch == '"')
                 return p.getString(start, p.getStart());
             if (ch == '\\')
                 break;
             if (ch < 0x20)
-                throw new JSONException(pointerMessage(ILLEGAL_STRING_CHAR, pointer));
+                throw new JSONException(pointerMessage(ILLEGAL_STRING_CHAR, location));
         }
         // found a backslash, so we need to build a new string
         StringBuilder sb = new StringBuilder(p.getString(start, p.getStart()));
         for (;;) {
             if (p.isExhausted())
-                throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, pointer));
+                throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, location));
             char ch = p.getChar();
             if (ch == '"')
                 sb.append('"');
@@ -721,21 +1014,21 @@ public class JSON {
                 sb.append('\t');
             else if (ch == 'u') {
                 if (!p.matchHexFixed(4))
-                    throw new JSONException(pointerMessage(ILLEGAL_STRING_UNICODE, pointer));
+                    throw new JSONException(pointerMessage(ILLEGAL_STRING_UNICODE, location));
                 sb.append((char)p.getResultHexInt());
             }
             else
-                throw new JSONException(pointerMessage(ILLEGAL_STRING_ESCAPE, pointer));
+                throw new JSONException(pointerMessage(ILLEGAL_STRING_ESCAPE, location));
             for (;;) {
                 if (p.isExhausted())
-                    throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, pointer));
+                    throw new JSONException(pointerMessage(ILLEGAL_STRING_TERM, location));
                 ch = p.getChar();
                 if (ch == '"')
                     return sb.toString();
                 if (ch == '\\')
                     break;
                 if (ch < 0x20)
-                    throw new JSONException(pointerMessage(ILLEGAL_STRING_CHAR, pointer));
+                    throw new JSONException(pointerMessage(ILLEGAL_STRING_CHAR, location));
                 sb.append(ch);
             }
         }
@@ -767,6 +1060,95 @@ public class JSON {
             value.appendJSON(a);
     }
 
+    /**
+     * Convenience method to get the length of the JSON string for a value, for cases where the
+     * value may be {@code null}.
+     *
+     * @param   value   the {@link JSONValue}
+     * @return  the length of the JSON string for this value
+     * @see     JSONValue#jsonLength()
+     */
+    public static int jsonLength(JSONValue value) {
+        return value == null ? 4 : value.jsonLength();
+    }
+
+    /**
+     * Get the length of a string in its JSON form, including the enclosing quotes and any
+     * escape sequences.  The result is consistent with both {@link JSONString#appendJSON(Appendable)}
+     * and {@link Strings#appendEscaped(Appendable, CharSequence, CharMapper)} using
+     * {@link #charMapper}.
+     *
+     * @param   cs      the string
+     * @return  the length of the string in JSON form
+     */
+    static int stringLength(CharSequence cs) {
+        int n = cs.length();
+        int result = n + 2;
+        for (int i = 0; i < n; i++) {
+            char ch = cs.charAt(i);
+            if (ch == '"' || ch == '\\' || ch == '\b' || ch == '\f' || ch == '\n' || ch == '\r' ||
+                    ch == '\t')
+                result++;
+            else if (ch < 0x20 || ch >= 0x7F)
+                result += 5;
+        }
+        return result;
+    }
+
+    /**
+     * Get a cache limit from a system property, using a default value if the property is not
+     * set or is not a valid integer, and constraining the result to the given range.
+     *
+     * @param   property        the property name
+     * @param   defaultValue    the default value
+     * @param   min             the minimum value
+     * @param   max             the maximum value
+     * @return  the limit
+     */
+    static int cacheLimit(String property, int defaultValue, int min, int max) {
+        int result;
+        try {
+            result = Integer.getInteger(property, defaultValue);
+        }
+        catch (SecurityException e) {
+            result = defaultValue;
+        }
+        return Math.max(min, Math.min(max, result));
+    }
+
+    /**
+     * Get the number of characters in the decimal representation of an {@code int}.
+     *
+     * @param   i       the {@code int}
+     * @return  the number of characters
+     */
+    static int intLength(int i) {
+        if (i < 0)
+            return i == Integer.MIN_VALUE ? 11 : positiveLongLength(-i) + 1;
+        return positiveLongLength(i);
+    }
+
+    /**
+     * Get the number of characters in the decimal representation of a {@code long}.
+     *
+     * @param   n       the {@code long}
+     * @return  the number of characters
+     */
+    static int longLength(long n) {
+        if (n < 0)
+            return n == Long.MIN_VALUE ? 20 : positiveLongLength(-n) + 1;
+        return positiveLongLength(n);
+    }
+
+    private static int positiveLongLength(long n) {
+        int result = 1;
+        while (n >= 10) {
+            n /= 10;
+            result++;
+        }
+        return result;
+    }
+
     /**
      * Get a {@link String} from a {@link JSONValue}.  Return {@code null} if the
      * {@link JSONValue} is {@code null}.
@@ -2,7 +2,7 @@
  * @(#) JSONArray.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2016, 2017, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2016, 2017, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -25,10 +25,15 @@
 
 package net.pwall.json;
 
+import java.io.ObjectStreamException;
 import java.math.BigDecimal;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 
 /**
  * A JSON array.
@@ -39,6 +44,10 @@ public class JSONArray extends JSONSequence<JSONValue> {
 
     private static final long serialVersionUID = -6963671812529472759L;
 
+    private static final JSONArrayIndex[] NO_INDEXES = {};
+
+    private transient JSONArrayIndex[] indexes;
+
     /**
      * Construct an empty {@code JSONArray}.
      */
@@ -83,7 +92,7 @@ public class JSONArray extends JSONSequence<JSONValue> {
      * @throws  NullPointerException if the value is {@code null}
      */
     public JSONArray addValue(CharSequence cs) {
-        add(new JSONString(cs));
+        add(JSONString.valueOf(cs));
         return this;
     }
 
@@ -96,7 +105,7 @@ public class JSONArray extends JSONSequence<JSONValue> {
      * @return          {@code this} (for chaining)
      */
     public JSONArray addAlways(CharSequence cs) {
-        add(new JSONString(cs == null ? null : new JSONString(cs)));
+        add(cs == null ? null : JSONString.valueOf(cs));
         return this;
     }
 
@@ -110,7 +119,7 @@ public class JSONArray extends JSONSequence<JSONValue> {
      */
     public JSONArray addNonNull(CharSequence cs) {
         if (cs != null)
-            add(new JSONString(new JSONString(cs)));
+            add(JSONString.valueOf(cs));
         return this;
     }
 
@@ -263,6 +272,190 @@ public class JSONArray extends JSONSequence<JSONValue> {
         return this;
     }
 
+    @Override
+    public boolean add(JSONValue value) {
+        if (indexes == null)
+            return super.add(value);
+        int before = modCount;
+        super.add(value);
+        for (JSONArrayIndex index : indexes)
+            index.added(value, before);
+        return true;
+    }
+
+    @Override
+    public void add(int index, JSONValue value) {
+        if (indexes == null) {
+            super.add(index, value);
+            return;
+        }
+        int before = modCount;
+        super.add(index, value);
+        for (JSONArrayIndex arrayIndex : indexes)
+            arrayIndex.added(value, before);
+    }
+
+    @Override
+    public JSONValue set(int index, JSONValue value) {
+        JSONValue result = super.set(index, value);
+        replaced(result, value);
+        return result;
+    }
+
+    @Override
+    public JSONValue remove(int index) {
+        if (indexes == null)
+            return super.remove(index);
+        int before = modCount;
+        JSONValue result = super.remove(index);
+        for (JSONArrayIndex arrayIndex : indexes)
+            arrayIndex.removed(result, before);
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (indexes == null)
+            return super.remove(o);
+        int index = indexOf(o);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (indexes == null) {
+            super.clear();
+            return;
+        }
+        int before = modCount;
+        super.clear();
+        for (JSONArrayIndex index : indexes)
+            index.cleared(before);
+    }
+
+    /**
+     * Get a view of a portion of the array.  Elements replaced using the {@code set} method of
+     * the view are notified to any synchronized {@link JSONArrayIndex}, as for
+     * {@link #set(int, JSONValue)}.
+     *
+     * @param   fromIndex   the start index (inclusive)
+     * @param   toIndex     the end index (exclusive)
+     * @return  the view
+     */
+    @Override
+    public List<JSONValue> subList(int fromIndex, int toIndex) {
+        List<JSONValue> subList = super.subList(fromIndex, toIndex);
+        return isFrozen() ? subList : new SubList(subList);
+    }
+
+    /**
+     * Notify any synchronized {@link JSONArrayIndex} that an element has been replaced (the
+     * {@code set} operation does not change the modification count).
+     *
+     * @param   oldValue    the old value
+     * @param   newValue    the new value
+     */
+    void replaced(JSONValue oldValue, JSONValue newValue) {
+        if (indexes != null)
+            for (JSONArrayIndex index : indexes)
+                index.replaced(oldValue, newValue, modCount);
+    }
+
+    /**
+     * Get the modification count of the {@code JSONArray} (for {@link JSONArrayIndex}).
+     *
+     * @return  the modification count
+     */
+    int modificationCount() {
+        return modCount;
+    }
+
+    /**
+     * Add a {@link JSONArrayIndex} to be kept in sync with modifications to the array.
+     *
+     * @param   index   the index
+     */
+    void addIndex(JSONArrayIndex index) {
+        JSONArrayIndex[] current = indexes == null ? NO_INDEXES : indexes;
+        JSONArrayIndex[] newIndexes = Arrays.copyOf(current, current.length + 1);
+        newIndexes[current.length] = index;
+        indexes = newIndexes;
+    }
+
+    /**
+     * Remove a {@link JSONArrayIndex} from the indexes kept in sync with the array.
+     *
+     * @param   index   the index
+     */
+    void removeIndex(JSONArrayIndex index) {
+        if (indexes != null) {
+            for (int i = 0, n = indexes.length; i < n; i++) {
+                if (indexes[i] == index) {
+                    if (n == 1)
+                        indexes = null;
+                    else {
+                        JSONArrayIndex[] newIndexes = new JSONArrayIndex[n - 1];
+                        System.arraycopy(indexes, 0, newIndexes, 0, i);
+                        System.arraycopy(indexes, i + 1, newIndexes, i, n - i - 1);
+                        indexes = newIndexes;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Freeze the {@code JSONArray}, and all composites nested within it.
+     *
+     * @return  {@code this} (for chaining)
+     * @see     JSONComposite#freeze()
+     */
+    @Override
+    public JSONArray freeze() {
+        super.freeze();
+        return this;
+    }
+
+    /**
+     * Create a shallow copy of the {@code JSONArray}.  The copy is not frozen, even if the
+     * original is.
+     *
+     * @return  the copy
+     */
+    @Override
+    public JSONArray clone() {
+        JSONArray result = (JSONArray)super.clone();
+        result.indexes = null;
+        return result;
+    }
+
+    /**
+     * Create a deep copy of the {@code JSONArray}.  Nested composites are copied, but
+     * immutable values are shared.
+     *
+     * @return  the copy
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONArray deepCopy() {
+        return (JSONArray)super.deepCopy();
+    }
+
+    /**
+     * Replace the {@code JSONArray} (including the
+     * primitive array classes) with a compact serialized form (see {@link JSONSerialForm}).
+     *
+     * @return  the object to be serialized
+     * @throws  ObjectStreamException if the replacement can not be created
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return JSONSerialForm.replace(this);
+    }
+
     /**
      * Convenience method to create a {@code JSONArray}.  Supports the idiom:
      * <pre>
@@ -275,4 +468,54 @@ public class JSONArray extends JSONSequence<JSONValue> {
         return new JSONArray();
     }
 
+    /**
+     * A view of a portion of the array, wrapping the view provided by {@link ArrayList} (which
+     * applies structural modifications using the methods of the array itself, but stores
+     * replacement elements directly).
+     */
+    private class SubList extends AbstractList<JSONValue> implements RandomAccess {
+
+        private final List<JSONValue> list;
+
+        private SubList(List<JSONValue> list) {
+            this.list = list;
+        }
+
+        @Override
+        public JSONValue get(int index) {
+            return list.get(index);
+        }
+
+        @Override
+        public JSONValue set(int index, JSONValue value) {
+            JSONValue result = list.set(index, value);
+            replaced(result, value);
+            return result;
+        }
+
+        @Override
+        public void add(int index, JSONValue value) {
+            list.add(index, value);
+            modCount++;
+        }
+
+        @Override
+        public JSONValue remove(int index) {
+            JSONValue result = list.remove(index);
+            modCount++;
+            return result;
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public List<JSONValue> subList(int fromIndex, int toIndex) {
+            return new SubList(list.subList(fromIndex, toIndex));
+        }
+
+    }
+
 }
@@ -0,0 +1,512 @@
+/*
+ * @(#) JSONArrayIndex.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A secondary index over a {@link JSONArray} (typically an array of {@link JSONObject}s),
+ * allowing the elements to be found by the value of a field (or a combination of fields), each
+ * field being identified by a {@link JSONPointer}.  A hash index (created by
+ * {@link #build(JSONArray, String...)}) allows elements to be found by key in constant time;
+ * a sorted index on a numeric field (created by {@link #buildSorted(JSONArray, String)}) also
+ * allows range queries, in logarithmic time.
+ *
+ * <p>Elements for which any of the key fields is missing or {@code null} are not indexed (and
+ * in the case of a sorted index, elements for which the field is not a number).  Keys are
+ * compared using {@link JSONValue} equality, except that numbers are compared by value (in a
+ * hash index, each number is converted to a {@code Long} where it is an integer within the
+ * range of {@code long}, or to a {@link BigDecimal} with trailing zeros removed otherwise, so
+ * that equal numbers of different types have the same hash code).  Where more
+ * than one element has the same key, they are returned in the order in which they were added
+ * to the index.</p>
+ *
+ * <p>An index is created as a snapshot of the array; if {@link #sync()} is called, it is kept
+ * in sync with subsequent modifications to the array.  Elements added, removed or replaced
+ * using the individual {@code add}, {@code set} and {@code remove} methods (including those
+ * of a {@link java.util.List#subList subList} view, and removal using an
+ * {@link java.util.Iterator Iterator}), or removed by {@code clear}, are applied to the index
+ * incrementally; any other modification to the array (for example, {@code addAll},
+ * {@code removeIf} or {@code sort}) is detected at the next lookup, and causes the index to be
+ * rebuilt.  Modifications to the elements themselves are not detected; {@link #rebuild()} must
+ * be called after a key field of an indexed element has been modified.  Like the array itself,
+ * an index is not thread-safe if the array is modified.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONArrayIndex {
+
+    public static final String NO_KEYS = "Index must have at least one key";
+    public static final String KEY_MISMATCH = "Key does not match index";
+    public static final String NOT_SORTED = "Range query requires a sorted index";
+
+    private static final Comparator<Object> numberComparator =
+            (a, b) -> compareNumbers((JSONNumberValue)a, (JSONNumberValue)b);
+
+    private final JSONArray array;
+    private final JSONPointer[] pointers;
+    private final boolean sorted;
+    private Map<Object, Object> map;
+    private int size;
+    private boolean synced;
+    private int expectedModCount;
+
+    private JSONArrayIndex(JSONArray array, JSONPointer[] pointers, boolean sorted) {
+        this.array = array;
+        this.pointers = pointers;
+        this.sorted = sorted;
+        rebuild();
+    }
+
+    /**
+     * Build a hash index over a {@link JSONArray}.  If more than one pointer is supplied, the
+     * index uses a composite key.
+     *
+     * @param   array       the array
+     * @param   pointers    the {@link JSONPointer}s to the key fields, in string form
+     * @return  the index
+     * @throws  JSONException if no pointers are supplied, or a pointer is not valid
+     */
+    public static JSONArrayIndex build(JSONArray array, String ... pointers) {
+        if (pointers.length == 0)
+            throw new JSONException(NO_KEYS);
+        JSONPointer[] compiled = new JSONPointer[pointers.length];
+        for (int i = 0; i < pointers.length; i++)
+            compiled[i] = JSONPointer.compile(pointers[i]);
+        return new JSONArrayIndex(Objects.requireNonNull(array), compiled, false);
+    }
+
+    /**
+     * Build a sorted index over a {@link JSONArray}, on a numeric field.
+     *
+     * @param   array       the array
+     * @param   pointer     the {@link JSONPointer} to the key field, in string form
+     * @return  the index
+     * @throws  JSONException if the pointer is not valid
+     */
+    public static JSONArrayIndex buildSorted(JSONArray array, String pointer) {
+        return new JSONArrayIndex(Objects.requireNonNull(array),
+                new JSONPointer[] { JSONPointer.compile(pointer) }, true);
+    }
+
+    /**
+     * Get the array over which the index was built.
+     *
+     * @return  the array
+     */
+    public JSONArray getArray() {
+        return array;
+    }
+
+    /**
+     * Test whether the index is a sorted index.
+     *
+     * @return  {@code true} if the index is sorted
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Test whether the index is kept in sync with modifications to the array.
+     *
+     * @return  {@code true} if the index is kept in sync
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Keep the index in sync with subsequent modifications to the array (if the array has been
+     * modified since the index was built, the index is rebuilt).
+     *
+     * @return  {@code this} (for chaining)
+     */
+    public JSONArrayIndex sync() {
+        if (!synced) {
+            if (array.modificationCount() != expectedModCount)
+                rebuild();
+            array.addIndex(this);
+            synced = true;
+        }
+        return this;
+    }
+
+    /**
+     * Stop keeping the index in sync with modifications to the array.  The index remains usable
+     * as a snapshot.
+     *
+     * @return  {@code this} (for chaining)
+     */
+    public JSONArrayIndex unsync() {
+        if (synced) {
+            array.removeIndex(this);
+            synced = false;
+        }
+        return this;
+    }
+
+    /**
+     * Rebuild the index from the current contents of the array.
+     */
+    public void rebuild() {
+        int n = array.size();
+        map = sorted ? new TreeMap<>(numberComparator) : new HashMap<>(Math.max(16, n * 4 / 3 + 1));
+        size = 0;
+        for (int i = 0; i < n; i++)
+            add(array.get(i));
+        expectedModCount = array.modificationCount();
+    }
+
+    /**
+     * Get the number of elements in the index.
+     *
+     * @return  the number of elements
+     */
+    public int size() {
+        refresh();
+        return size;
+    }
+
+    /**
+     * Get the first element with the given key.
+     *
+     * @param   key     the key (one value for each key field)
+     * @return  the element, or {@code null} if there is none
+     * @throws  JSONException if the number of values does not match the index
+     */
+    public JSONValue get(JSONValue ... key) {
+        Object entry = entry(key);
+        return entry instanceof Bucket ? ((Bucket)entry).get(0) : (JSONValue)entry;
+    }
+
+    /**
+     * Get all the elements with the given key.
+     *
+     * @param   key     the key (one value for each key field)
+     * @return  the elements (an empty list if there are none)
+     * @throws  JSONException if the number of values does not match the index
+     */
+    public List<JSONValue> getAll(JSONValue ... key) {
+        Object entry = entry(key);
+        if (entry == null)
+            return Collections.emptyList();
+        if (entry instanceof Bucket)
+            return new ArrayList<>((Bucket)entry);
+        return Collections.singletonList((JSONValue)entry);
+    }
+
+    /**
+     * Get the elements of a sorted index with keys in the given range, in key order.
+     *
+     * @param   from            the lower bound ({@code null} for no lower bound)
+     * @param   fromInclusive   {@code true} if the lower bound is inclusive
+     * @param   to              the upper bound ({@code null} for no upper bound)
+     * @param   toInclusive     {@code true} if the upper bound is inclusive
+     * @return  the elements
+     * @throws  UnsupportedOperationException if the index is not sorted
+     */
+    public List<JSONValue> range(JSONNumberValue from, boolean fromInclusive, JSONNumberValue to,
+            boolean toInclusive) {
+        if (!sorted)
+            throw new UnsupportedOperationException(NOT_SORTED);
+        refresh();
+        NavigableMap<Object, Object> subMap = (NavigableMap<Object, Object>)map;
+        if (from != null && to != null && compareNumbers(from, to) > 0)
+            return Collections.emptyList();
+        if (from != null)
+            subMap = subMap.tailMap(from, fromInclusive);
+        if (to != null)
+            subMap = subMap.headMap(to, toInclusive);
+        List<JSONValue> result = new ArrayList<>();
+        for (Object entry : subMap.values()) {
+            if (entry instanceof Bucket)
+                result.addAll((Bucket)entry);
+            else
+                result.add((JSONValue)entry);
+        }
+        return result;
+    }
+
+    private Object entry(JSONValue[] key) {
+        if (key.length != pointers.length)
+            throw new JSONException(KEY_MISMATCH);
+        refresh();
+        if (key.length == 1) {
+            JSONValue value = key[0];
+            if (value == null)
+                return null;
+            if (sorted)
+                return value instanceof JSONNumberValue ? map.get(value) : null;
+            return map.get(hashKey(value));
+        }
+        Object[] values = new Object[key.length];
+        for (int i = 0; i < key.length; i++)
+            if ((values[i] = hashKey(key[i])) == null)
+                return null;
+        return map.get(new CompositeKey(values));
+    }
+
+    private void refresh() {
+        if (synced && array.modificationCount() != expectedModCount)
+            rebuild();
+    }
+
+    private Object key(JSONValue element) {
+        if (pointers.length == 1) {
+            JSONValue value = pointers[0].find(element);
+            if (sorted)
+                return value instanceof JSONNumberValue ? value : null;
+            return hashKey(value);
+        }
+        Object[] values = new Object[pointers.length];
+        for (int i = 0; i < values.length; i++)
+            if ((values[i] = hashKey(pointers[i].find(element))) == null)
+                return null;
+        return new CompositeKey(values);
+    }
+
+    /**
+     * Convert a key value to the form used in a hash index: a number is converted to a
+     * {@code Long} if it is an integer within the range of {@code long}, or to a
+     * {@link BigDecimal} with trailing zeros removed; other values are used unchanged.
+     *
+     * @param   value   the value (may be {@code null})
+     * @return  the key
+     */
+    private static Object hashKey(JSONValue value) {
+        if (!(value instanceof JSONNumberValue))
+            return value;
+        JSONNumberValue number = (JSONNumberValue)value;
+        if (isIntegral(number))
+            return number.longValue();
+        if (!(number instanceof JSONDecimal)) {
+            double d = number.doubleValue();
+            if (d == Math.rint(d) && d >= -0x1p63 && d < 0x1p63)
+                return (long)d;
+        }
+        BigDecimal decimal = decimalValue(number).stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() <= 19) {
+            try {
+                return decimal.longValueExact();
+            }
+            catch (ArithmeticException ignore) {
+                // outside the range of long
+            }
+        }
+        return decimal;
+    }
+
+    private void add(JSONValue element) {
+        Object key = key(element);
+        if (key == null)
+            return;
+        Object existing = map.get(key);
+        if (existing == null)
+            map.put(key, element);
+        else if (existing instanceof Bucket)
+            ((Bucket)existing).add(element);
+        else
+            map.put(key, new Bucket((JSONValue)existing, element));
+        size++;
+    }
+
+    private void remove(JSONValue element) {
+        Object key = key(element);
+        if (key == null)
+            return;
+        Object existing = map.get(key);
+        if (existing == null)
+            return;
+        if (existing instanceof Bucket) {
+            Bucket bucket = (Bucket)existing;
+            if (!bucket.removeElement(element))
+                return;
+            if (bucket.size() == 1)
+                map.put(key, bucket.get(0));
+        }
+        else if (existing == element || existing.equals(element))
+            map.remove(key);
+        else
+            return;
+        size--;
+    }
+
+    /**
+     * Notification from the array that an element has been added.
+     *
+     * @param   element         the element
+     * @param   modCountBefore  the modification count of the array before the change
+     */
+    void added(JSONValue element, int modCountBefore) {
+        if (expectedModCount == modCountBefore) {
+            add(element);
+            expectedModCount = array.modificationCount();
+        }
+    }
+
+    /**
+     * Notification from the array that an element has been removed.
+     *
+     * @param   element         the element
+     * @param   modCountBefore  the modification count of the array before the change
+     */
+    void removed(JSONValue element, int modCountBefore) {
+        if (expectedModCount == modCountBefore) {
+            remove(element);
+            expectedModCount = array.modificationCount();
+        }
+    }
+
+    /**
+     * Notification from the array that an element has been replaced.
+     *
+     * @param   oldElement      the old element
+     * @param   newElement      the new element
+     * @param   modCountBefore  the modification count of the array before the change
+     */
+    void replaced(JSONValue oldElement, JSONValue newElement, int modCountBefore) {
+        if (expectedModCount == modCountBefore) {
+            remove(oldElement);
+            add(newElement);
+            expectedModCount = array.modificationCount();
+        }
+    }
+
+    /**
+     * Notification from the array that it has been cleared.
+     *
+     * @param   modCountBefore  the modification count of the array before the change
+     */
+    void cleared(int modCountBefore) {
+        if (expectedModCount == modCountBefore) {
+            map.clear();
+            size = 0;
+            expectedModCount = array.modificationCount();
+        }
+    }
+
+    /**
+     * Compare two numbers by value.
+     *
+     * @param   a       the first number
+     * @param   b       the second number
+     * @return  a negative number, zero or a positive number as the first number is less than,
+     *          equal to or greater than the second
+     */
+    static int compareNumbers(JSONNumberValue a, JSONNumberValue b) {
+        if (isIntegral(a) && isIntegral(b))
+            return Long.compare(a.longValue(), b.longValue());
+        if (!(a instanceof JSONDecimal || b instanceof JSONDecimal)) {
+            double da = a.doubleValue();
+            double db = b.doubleValue();
+            if (Math.abs(da) < 0x1p53 && Math.abs(db) < 0x1p53)
+                return Double.compare(da, db) == 0 ? 0 : da < db ? -1 : 1;
+        }
+        return decimalValue(a).compareTo(decimalValue(b));
+    }
+
+    private static boolean isIntegral(JSONNumberValue number) {
+        return number instanceof JSONInteger || number instanceof JSONLong || number instanceof JSONZero;
+    }
+
+    private static BigDecimal decimalValue(JSONNumberValue number) {
+        if (number instanceof JSONDecimal)
+            return ((JSONDecimal)number).getValue();
+        if (isIntegral(number))
+            return BigDecimal.valueOf(number.longValue());
+        return BigDecimal.valueOf(number.doubleValue());
+    }
+
+    /**
+     * A list of the elements with the same key.
+     */
+    private static final class Bucket extends ArrayList<JSONValue> {
+
+        private static final long serialVersionUID = 1L;
+
+        Bucket(JSONValue first, JSONValue second) {
+            super(4);
+            add(first);
+            add(second);
+        }
+
+        /**
+         * Remove an element, preferring the identical object (the array may hold more than one
+         * equal element, and the compact primitive arrays create a new object each time a value
+         * is retrieved).
+         *
+         * @param   element the element
+         * @return  {@code true} if the element was removed
+         */
+        boolean removeElement(JSONValue element) {
+            for (int i = 0, n = size(); i < n; i++) {
+                if (get(i) == element) {
+                    remove(i);
+                    return true;
+                }
+            }
+            return remove(element);
+        }
+
+    }
+
+    /**
+     * A composite key.
+     */
+    private static final class CompositeKey {
+
+        private final Object[] values;
+        private final int hash;
+
+        CompositeKey(Object[] values) {
+            this.values = values;
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof CompositeKey && Arrays.equals(values, ((CompositeKey)other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONBoolean.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -75,6 +75,11 @@ public class JSONBoolean implements JSONValue {
         a.append(toJSON());
     }
 
+    @Override
+    public int jsonLength() {
+        return value ? 4 : 5;
+    }
+
     @Override
     public String toString() {
         return toJSON();
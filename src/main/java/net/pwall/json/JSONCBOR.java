@@ -0,0 +1,607 @@
+/*
+ * @(#) JSONCBOR.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Encoding and decoding of {@link JSONValue} trees in CBOR (Concise Binary Object
+ * Representation, RFC 8949).
+ *
+ * <p>The value classes are encoded as follows:</p>
+ * <ul>
+ *   <li>{@link JSONInteger}, {@link JSONLong} and {@link JSONZero}: unsigned or negative
+ *   integer</li>
+ *   <li>{@link JSONDecimal}: decimal fraction (tag 4), with a bignum mantissa (tag 2 or 3) if
+ *   required</li>
+ *   <li>{@link JSONDouble}: double-precision float</li>
+ *   <li>{@link JSONFloat}: single-precision float</li>
+ *   <li>{@link JSONBoolean} and {@code null}: the simple values {@code true}, {@code false}
+ *   and {@code null}</li>
+ *   <li>{@link JSONString}: text string</li>
+ *   <li>{@link JSONArray} and {@link JSONObject}: array and map of definite length</li>
+ * </ul>
+ *
+ * <p>Decoding accepts the above, along with indefinite-length strings, arrays and maps,
+ * half-precision floats, bignums (decoded as {@link JSONDecimal} if too large for a
+ * {@code long}), and other tags (which are ignored).  Byte strings, and simple values other than
+ * {@code true}, {@code false} and {@code null}, have no JSON equivalent and are rejected.</p>
+ *
+ * <p>A {@link JSONDecimal} is decoded from its mantissa and exponent, so the value is
+ * preserved but the JSON text may differ from the original (for example, {@code 1.5e3} is
+ * decoded as {@code 1.5E+3}).</p>
+ *
+ * @author Peter Wall
+ */
+public class JSONCBOR {
+
+    public static final String INVALID_CBOR = "Invalid CBOR data";
+    public static final String UNSUPPORTED_CBOR = "Unsupported CBOR data item";
+    public static final String UNEXPECTED_END = "Unexpected end of CBOR data";
+    public static final String UNSUPPORTED_VALUE = "Unsupported JSON value for CBOR";
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1 << 5;
+    private static final int MAJOR_BYTES = 2 << 5;
+    private static final int MAJOR_TEXT = 3 << 5;
+    private static final int MAJOR_ARRAY = 4 << 5;
+    private static final int MAJOR_MAP = 5 << 5;
+    private static final int MAJOR_TAG = 6 << 5;
+    private static final int MAJOR_SIMPLE = 7 << 5;
+
+    private static final int FALSE = MAJOR_SIMPLE | 20;
+    private static final int TRUE = MAJOR_SIMPLE | 21;
+    private static final int NULL = MAJOR_SIMPLE | 22;
+    private static final int HALF = MAJOR_SIMPLE | 25;
+    private static final int SINGLE = MAJOR_SIMPLE | 26;
+    private static final int DOUBLE = MAJOR_SIMPLE | 27;
+    private static final int BREAK = 0xFF;
+    private static final int INDEFINITE = 31;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private JSONCBOR() {
+    }
+
+    /**
+     * Encode a {@link JSONValue} as CBOR.
+     *
+     * @param   value   the {@link JSONValue} (may be {@code null})
+     * @return  the CBOR bytes
+     * @throws  JSONException if the value contains an unsupported {@link JSONValue} class
+     */
+    public static byte[] encode(JSONValue value) {
+        Encoder encoder = new Encoder(null, 256);
+        try {
+            encoder.encode(value);
+        }
+        catch (IOException e) {
+            throw new JSONException("Unexpected exception encoding CBOR", e);
+        }
+        return Arrays.copyOf(encoder.buffer, encoder.index);
+    }
+
+    /**
+     * Encode a {@link JSONValue} as CBOR to an {@link OutputStream}.
+     *
+     * @param   value   the {@link JSONValue} (may be {@code null})
+     * @param   os      the {@link OutputStream}
+     * @throws  JSONException if the value contains an unsupported {@link JSONValue} class
+     * @throws  IOException on any I/O errors
+     */
+    public static void encode(JSONValue value, OutputStream os) throws IOException {
+        Encoder encoder = new Encoder(os, BUFFER_SIZE);
+        encoder.encode(value);
+        encoder.flush();
+    }
+
+    /**
+     * Decode a {@link JSONValue} from CBOR.
+     *
+     * @param   bytes   the CBOR bytes
+     * @return  the {@link JSONValue} (may be {@code null})
+     * @throws  JSONException if the data is invalid or unsupported, or there are excess bytes
+     *          after the value
+     */
+    public static JSONValue decode(byte[] bytes) {
+        Decoder decoder = new Decoder(null, bytes, bytes.length);
+        try {
+            JSONValue result = decoder.decode(0);
+            if (decoder.index < decoder.limit)
+                throw new JSONException(JSON.EXCESS_CHARS);
+            return result;
+        }
+        catch (IOException e) {
+            throw new JSONException("Unexpected exception decoding CBOR", e);
+        }
+    }
+
+    /**
+     * Decode a {@link JSONValue} from CBOR read from an {@link InputStream}.  The stream is read
+     * in blocks, so it may be left positioned after the end of the value.
+     *
+     * @param   is      the {@link InputStream}
+     * @return  the {@link JSONValue} (may be {@code null})
+     * @throws  JSONException if the data is invalid or unsupported
+     * @throws  IOException on any I/O errors
+     */
+    public static JSONValue decode(InputStream is) throws IOException {
+        return new Decoder(is, new byte[BUFFER_SIZE], 0).decode(0);
+    }
+
+    /**
+     * CBOR encoder, writing to a byte array which is either enlarged as required or flushed to
+     * an {@link OutputStream}.
+     */
+    private static class Encoder {
+
+        private final OutputStream os;
+        private byte[] buffer;
+        private int index;
+
+        private Encoder(OutputStream os, int size) {
+            this.os = os;
+            buffer = new byte[size];
+            index = 0;
+        }
+
+        private void ensureSpace(int n) throws IOException {
+            if (index + n > buffer.length) {
+                if (os != null) {
+                    flush();
+                    if (n <= buffer.length)
+                        return;
+                }
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, index + n));
+            }
+        }
+
+        private void flush() throws IOException {
+            if (index > 0) {
+                os.write(buffer, 0, index);
+                index = 0;
+            }
+        }
+
+        private void writeHead(int major, long n) throws IOException {
+            ensureSpace(9);
+            byte[] b = buffer;
+            if (n >= 0 && n < 24)
+                b[index++] = (byte)(major | n);
+            else if (n >= 0 && n <= 0xFF) {
+                b[index++] = (byte)(major | 24);
+                b[index++] = (byte)n;
+            }
+            else if (n >= 0 && n <= 0xFFFF) {
+                b[index++] = (byte)(major | 25);
+                b[index++] = (byte)(n >> 8);
+                b[index++] = (byte)n;
+            }
+            else if (n >= 0 && n <= 0xFFFFFFFFL) {
+                b[index++] = (byte)(major | 26);
+                writeRaw32((int)n);
+            }
+            else { // includes values above Long.MAX_VALUE (n negative), treated as unsigned
+                b[index++] = (byte)(major | 27);
+                writeRaw64(n);
+            }
+        }
+
+        private void writeRaw32(int n) {
+            byte[] b = buffer;
+            b[index++] = (byte)(n >> 24);
+            b[index++] = (byte)(n >> 16);
+            b[index++] = (byte)(n >> 8);
+            b[index++] = (byte)n;
+        }
+
+        private void writeRaw64(long n) {
+            writeRaw32((int)(n >> 32));
+            writeRaw32((int)n);
+        }
+
+        private void writeLong(long n) throws IOException {
+            if (n >= 0)
+                writeHead(MAJOR_UNSIGNED, n);
+            else
+                writeHead(MAJOR_NEGATIVE, -1 - n);
+        }
+
+        private void writeBigInteger(BigInteger n) throws IOException {
+            if (n.compareTo(LONG_MIN) >= 0 && n.compareTo(LONG_MAX) <= 0)
+                writeLong(n.longValue());
+            else {
+                boolean negative = n.signum() < 0;
+                writeHead(MAJOR_TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM);
+                byte[] bytes = (negative ? n.negate().subtract(BigInteger.ONE) : n).toByteArray();
+                int offset = bytes[0] == 0 ? 1 : 0;
+                int length = bytes.length - offset;
+                writeHead(MAJOR_BYTES, length);
+                ensureSpace(length);
+                System.arraycopy(bytes, offset, buffer, index, length);
+                index += length;
+            }
+        }
+
+        private void writeText(String s) throws IOException {
+            int n = s.length();
+            boolean ascii = true;
+            for (int i = 0; i < n; i++) {
+                if (s.charAt(i) >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+            }
+            if (ascii) {
+                writeHead(MAJOR_TEXT, n);
+                ensureSpace(n);
+                byte[] b = buffer;
+                for (int i = 0; i < n; i++)
+                    b[index++] = (byte)s.charAt(i);
+            }
+            else {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                writeHead(MAJOR_TEXT, bytes.length);
+                ensureSpace(bytes.length);
+                System.arraycopy(bytes, 0, buffer, index, bytes.length);
+                index += bytes.length;
+            }
+        }
+
+        private void writeSimple(int b) throws IOException {
+            ensureSpace(1);
+            buffer[index++] = (byte)b;
+        }
+
+        private void encode(JSONValue value) throws IOException {
+            if (value == null)
+                writeSimple(NULL);
+            else if (value instanceof JSONString)
+                writeText(((JSONString)value).getValue());
+            else if (value instanceof JSONInteger || value instanceof JSONLong ||
+                    value instanceof JSONZero)
+                writeLong(((JSONNumberValue)value).longValue());
+            else if (value instanceof JSONBoolean)
+                writeSimple(((JSONBoolean)value).booleanValue() ? TRUE : FALSE);
+            else if (value instanceof JSONDouble) {
+                writeSimple(DOUBLE);
+                ensureSpace(8);
+                writeRaw64(Double.doubleToLongBits(((JSONDouble)value).doubleValue()));
+            }
+            else if (value instanceof JSONFloat) {
+                writeSimple(SINGLE);
+                ensureSpace(4);
+                writeRaw32(Float.floatToIntBits(((JSONFloat)value).floatValue()));
+            }
+            else if (value instanceof JSONNumberValue) {
+                BigDecimal decimal = ((JSONNumberValue)value).bigDecimalValue();
+                writeHead(MAJOR_TAG, TAG_DECIMAL_FRACTION);
+                writeHead(MAJOR_ARRAY, 2);
+                writeLong(-decimal.scale());
+                writeBigInteger(decimal.unscaledValue());
+            }
+            else if (value instanceof JSONSequence) {
+                JSONSequence<?> sequence = (JSONSequence<?>)value;
+                int n = sequence.size();
+                writeHead(MAJOR_ARRAY, n);
+                for (int i = 0; i < n; i++)
+                    encode(sequence.get(i));
+            }
+            else if (value instanceof JSONMapping) {
+                JSONMapping<?> mapping = (JSONMapping<?>)value;
+                int n = mapping.size();
+                writeHead(MAJOR_MAP, n);
+                for (int i = 0; i < n; i++) {
+                    writeText(mapping.keyAt(i));
+                    encode(mapping.valueAt(i));
+                }
+            }
+            else if (value instanceof JSONPersistentArray) {
+                JSONPersistentArray array = (JSONPersistentArray)value;
+                writeHead(MAJOR_ARRAY, array.size());
+                for (JSONValue item : array)
+                    encode(item);
+            }
+            else if (value instanceof JSONPersistentObject) {
+                JSONPersistentObject object = (JSONPersistentObject)value;
+                writeHead(MAJOR_MAP, object.size());
+                for (Map.Entry<String, JSONValue> entry : object.entrySet()) {
+                    writeText(entry.getKey());
+                    encode(entry.getValue());
+                }
+            }
+            else
+                throw new JSONException(UNSUPPORTED_VALUE + ": " + value.getClass().getName());
+        }
+
+    }
+
+    /**
+     * CBOR decoder, reading from a byte array which is either complete or refilled from an
+     * {@link InputStream}.
+     */
+    private static class Decoder {
+
+        private final InputStream is;
+        private final byte[] buffer;
+        private int index;
+        private int limit;
+
+        private Decoder(InputStream is, byte[] buffer, int limit) {
+            this.is = is;
+            this.buffer = buffer;
+            index = 0;
+            this.limit = limit;
+        }
+
+        private int readByte() throws IOException {
+            if (index >= limit && !fill())
+                throw new JSONException(UNEXPECTED_END);
+            return buffer[index++] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            if (is == null)
+                return false;
+            for (;;) {
+                int n = is.read(buffer, 0, buffer.length);
+                if (n < 0)
+                    return false;
+                if (n > 0) {
+                    index = 0;
+                    limit = n;
+                    return true;
+                }
+            }
+        }
+
+        private void readBytes(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (index >= limit && !fill())
+                    throw new JSONException(UNEXPECTED_END);
+                int n = Math.min(length, limit - index);
+                System.arraycopy(buffer, index, bytes, offset, n);
+                index += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        /**
+         * Read the argument following an initial byte.
+         *
+         * @param   initial the initial byte
+         * @return  the argument (values above {@link Long#MAX_VALUE} are returned as negative)
+         * @throws  JSONException if the additional information is invalid
+         * @throws  IOException on any I/O errors
+         */
+        private long readArgument(int initial) throws IOException {
+            int info = initial & 0x1F;
+            if (info < 24)
+                return info;
+            switch (info) {
+            case 24:
+                return readByte();
+            case 25:
+                return (readByte() << 8) | readByte();
+            case 26:
+                return readRaw32() & 0xFFFFFFFFL;
+            case 27:
+                return ((long)readRaw32() << 32) | (readRaw32() & 0xFFFFFFFFL);
+            default:
+                throw new JSONException(INVALID_CBOR);
+            }
+        }
+
+        private int readRaw32() throws IOException {
+            return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        }
+
+        private int readLength(int initial) throws IOException {
+            long n = readArgument(initial);
+            if (n < 0 || n > Integer.MAX_VALUE)
+                throw new JSONException(UNSUPPORTED_CBOR);
+            return (int)n;
+        }
+
+        private String readText(int initial) throws IOException {
+            if ((initial & 0x1F) == INDEFINITE) {
+                StringBuilder sb = new StringBuilder();
+                for (;;) {
+                    int chunk = readByte();
+                    if (chunk == BREAK)
+                        return sb.toString();
+                    if ((chunk & 0xE0) != MAJOR_TEXT || (chunk & 0x1F) == INDEFINITE)
+                        throw new JSONException(INVALID_CBOR);
+                    sb.append(readText(chunk));
+                }
+            }
+            int n = readLength(initial);
+            if (limit - index >= n) {
+                String result = new String(buffer, index, n, StandardCharsets.UTF_8);
+                index += n;
+                return result;
+            }
+            byte[] bytes = new byte[n];
+            readBytes(bytes, 0, n);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private byte[] readByteString(int initial) throws IOException {
+            if ((initial & 0xE0) != MAJOR_BYTES || (initial & 0x1F) == INDEFINITE)
+                throw new JSONException(UNSUPPORTED_CBOR);
+            int n = readLength(initial);
+            byte[] bytes = new byte[n];
+            readBytes(bytes, 0, n);
+            return bytes;
+        }
+
+        private static JSONValue integer(long n) {
+            if (n == 0)
+                return JSONZero.ZERO;
+            return n == (int)n ? JSONInteger.valueOf((int)n) : JSONLong.valueOf(n);
+        }
+
+        private static JSONValue integer(BigInteger n) {
+            if (n.compareTo(LONG_MIN) >= 0 && n.compareTo(LONG_MAX) <= 0)
+                return integer(n.longValue());
+            return new JSONDecimal(new BigDecimal(n));
+        }
+
+        private static BigInteger unsigned(long n) {
+            BigInteger result = BigInteger.valueOf(n & Long.MAX_VALUE);
+            return n < 0 ? result.setBit(63) : result;
+        }
+
+        private JSONValue decode(int depth) throws IOException {
+            if (depth > JSON.getMaxDepth())
+                throw new JSONException(JSON.MAX_DEPTH_EXCEEDED);
+            int initial = readByte();
+            switch (initial & 0xE0) {
+            case MAJOR_UNSIGNED: {
+                long n = readArgument(initial);
+                return n >= 0 ? integer(n) : integer(unsigned(n));
+            }
+            case MAJOR_NEGATIVE: {
+                long n = readArgument(initial);
+                return n >= 0 ? integer(-1 - n) : integer(unsigned(n).not());
+            }
+            case MAJOR_TEXT:
+                return JSONString.valueOf(readText(initial));
+            case MAJOR_ARRAY: {
+                if ((initial & 0x1F) == INDEFINITE) {
+                    JSONArray array = new JSONArray();
+                    while (!matchBreak())
+                        array.add(decode(depth + 1));
+                    return array;
+                }
+                int n = readLength(initial);
+                JSONArray array = new JSONArray(Math.min(n, BUFFER_SIZE));
+                for (int i = 0; i < n; i++)
+                    array.add(decode(depth + 1));
+                return array;
+            }
+            case MAJOR_MAP: {
+                boolean indefinite = (initial & 0x1F) == INDEFINITE;
+                int n = indefinite ? -1 : readLength(initial);
+                JSONObject object = new JSONObject(indefinite ? 0 : Math.min(n, BUFFER_SIZE));
+                for (int i = 0; indefinite ? !matchBreak() : i < n; i++) {
+                    int keyInitial = readByte();
+                    if ((keyInitial & 0xE0) != MAJOR_TEXT)
+                        throw new JSONException(UNSUPPORTED_CBOR);
+                    String key = readText(keyInitial);
+                    if (object.containsKey(key))
+                        throw new JSONException(JSON.DUPLICATE_KEY + ": \"" + key + '"');
+                    object.put(key, decode(depth + 1));
+                }
+                return object;
+            }
+            case MAJOR_TAG:
+                return decodeTagged(readArgument(initial), depth);
+            case MAJOR_SIMPLE:
+                switch (initial) {
+                case FALSE:
+                    return JSONBoolean.FALSE;
+                case TRUE:
+                    return JSONBoolean.TRUE;
+                case NULL:
+                    return null;
+                case HALF:
+                    return JSONFloat.valueOf(halfToFloat((readByte() << 8) | readByte()));
+                case SINGLE:
+                    return JSONFloat.valueOf(Float.intBitsToFloat(readRaw32()));
+                case DOUBLE:
+                    return JSONDouble.valueOf(Double.longBitsToDouble(readArgument(initial)));
+                default:
+                    throw new JSONException(UNSUPPORTED_CBOR);
+                }
+            default: // byte string
+                throw new JSONException(UNSUPPORTED_CBOR);
+            }
+        }
+
+        private JSONValue decodeTagged(long tag, int depth) throws IOException {
+            if (tag == TAG_POSITIVE_BIGNUM)
+                return integer(new BigInteger(1, readByteString(readByte())));
+            if (tag == TAG_NEGATIVE_BIGNUM)
+                return integer(new BigInteger(1, readByteString(readByte())).not());
+            if (tag == TAG_DECIMAL_FRACTION) {
+                int initial = readByte();
+                if (initial != (MAJOR_ARRAY | 2))
+                    throw new JSONException(INVALID_CBOR);
+                JSONValue exponent = decode(depth + 1);
+                JSONValue mantissa = decode(depth + 1);
+                if (!(exponent instanceof JSONInteger || exponent instanceof JSONZero) ||
+                        !(mantissa instanceof JSONNumberValue) || mantissa instanceof JSONDouble ||
+                        mantissa instanceof JSONFloat ||
+                        ((JSONNumberValue)mantissa).bigDecimalValue().scale() > 0)
+                    throw new JSONException(INVALID_CBOR);
+                return new JSONDecimal(new BigDecimal(
+                        ((JSONNumberValue)mantissa).bigIntegerValue(),
+                        -((JSONNumberValue)exponent).intValue()));
+            }
+            return decode(depth + 1); // other tags are ignored (but count towards the depth)
+        }
+
+        private boolean matchBreak() throws IOException {
+            if (index >= limit && !fill())
+                throw new JSONException(UNEXPECTED_END);
+            if ((buffer[index] & 0xFF) != BREAK)
+                return false;
+            index++;
+            return true;
+        }
+
+        private static float halfToFloat(int half) {
+            int exponent = (half >> 10) & 0x1F;
+            int mantissa = half & 0x3FF;
+            float result;
+            if (exponent == 0)
+                result = mantissa * 0x1p-24F;
+            else if (exponent == 31)
+                result = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+            else
+                result = (mantissa + 1024) * (float)Math.pow(2, exponent - 25);
+            return (half & 0x8000) != 0 ? -result : result;
+        }
+
+    }
+
+}
@@ -0,0 +1,498 @@
+/*
+ * @(#) JSONCanonical.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Canonical JSON output, as specified by the JSON Canonicalization Scheme (JCS, RFC 8785), for
+ * use when JSON is to be signed or hashed.  The output is UTF-8, with no whitespace, with the
+ * properties of each object sorted by name (comparing UTF-16 code units), with strings escaped
+ * only where required, and with numbers formatted according to the ECMAScript rules for
+ * {@code Number.prototype.toString()}.
+ *
+ * <p>JCS treats every number as an IEEE 754 double, so a number is output as the
+ * {@code double} nearest to its JSON representation (as it would be read by a recipient of the
+ * JSON); this means that integers beyond 2<sup>53</sup>, and decimals with more than 17
+ * significant digits, may lose precision.  A {@code NaN} or infinite value, or a string that
+ * contains an unpaired surrogate character, can not be represented, and will cause a
+ * {@link JSONException}.</p>
+ *
+ * <p>The output is written directly to bytes, and objects are not copied in order to sort
+ * their properties: the sort order is calculated as an array of indices, and it is cached on
+ * the {@link JSONShape} shared by objects parsed from an array of records, on frozen objects
+ * and on persistent objects.</p>
+ *
+ * @author Peter Wall
+ */
+public class JSONCanonical {
+
+    public static final String NON_FINITE_NUMBER = "Non-finite number can not be canonicalized";
+    public static final String UNPAIRED_SURROGATE =
+            "String containing unpaired surrogate can not be canonicalized";
+    public static final String UNSUPPORTED_VALUE = "Unsupported JSON value for canonicalization";
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int INSERTION_SORT_LIMIT = 12;
+
+    private static final double INTEGER_LIMIT = 0x1p53;
+    private static final double EXACT_LIMIT = 0x1p50;
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    private static final double[] powersOfTen = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+            1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16 };
+
+    private static final byte[] hexDigits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] nullBytes = { 'n', 'u', 'l', 'l' };
+    private static final byte[] trueBytes = { 't', 'r', 'u', 'e' };
+    private static final byte[] falseBytes = { 'f', 'a', 'l', 's', 'e' };
+
+    private JSONCanonical() {
+    }
+
+    /**
+     * Create the canonical form of a {@link JSONValue}, as UTF-8 bytes.
+     *
+     * @param   value   the {@link JSONValue} (may be {@code null})
+     * @return  the canonical JSON bytes
+     * @throws  JSONException if the value can not be canonicalized
+     */
+    public static byte[] toBytes(JSONValue value) {
+        Writer writer = new Writer(null, 256);
+        try {
+            writer.write(value);
+        }
+        catch (IOException e) {
+            throw new JSONException("Unexpected exception canonicalizing JSON", e);
+        }
+        return Arrays.copyOf(writer.buffer, writer.index);
+    }
+
+    /**
+     * Create the canonical form of a {@link JSONValue}, as a string.
+     *
+     * @param   value   the {@link JSONValue} (may be {@code null})
+     * @return  the canonical JSON string
+     * @throws  JSONException if the value can not be canonicalized
+     */
+    public static String toJSON(JSONValue value) {
+        return new String(toBytes(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write the canonical form of a {@link JSONValue}, as UTF-8 bytes, to an
+     * {@link OutputStream}.
+     *
+     * @param   value   the {@link JSONValue} (may be {@code null})
+     * @param   os      the {@link OutputStream}
+     * @throws  JSONException if the value can not be canonicalized
+     * @throws  IOException on any I/O errors
+     */
+    public static void write(JSONValue value, OutputStream os) throws IOException {
+        Writer writer = new Writer(os, BUFFER_SIZE);
+        writer.write(value);
+        writer.flush();
+    }
+
+    /**
+     * Sort an array of keys (which must be unique), returning the indices of the keys in sorted
+     * order.  The keys are compared by UTF-16 code units ({@link String#compareTo(String)}), as
+     * required by JCS.
+     *
+     * @param   keys    the keys
+     * @return  the indices of the keys in sorted order
+     */
+    static int[] sortedOrder(String[] keys) {
+        int n = keys.length;
+        int[] order = new int[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            if (i > 0 && keys[i - 1].compareTo(keys[i]) > 0)
+                sorted = false;
+        }
+        if (!sorted)
+            sort(keys, order, new int[n], 0, n);
+        return order;
+    }
+
+    private static void sort(String[] keys, int[] order, int[] work, int from, int to) {
+        if (to - from <= INSERTION_SORT_LIMIT) {
+            for (int i = from + 1; i < to; i++) {
+                int x = order[i];
+                String key = keys[x];
+                int j = i;
+                for (; j > from && keys[order[j - 1]].compareTo(key) > 0; j--)
+                    order[j] = order[j - 1];
+                order[j] = x;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(keys, order, work, from, mid);
+        sort(keys, order, work, mid, to);
+        if (keys[order[mid - 1]].compareTo(keys[order[mid]]) < 0)
+            return;
+        System.arraycopy(order, from, work, from, to - from);
+        for (int i = from, a = from, b = mid; i < to; i++)
+            order[i] = b >= to || a < mid && keys[work[a]].compareTo(keys[work[b]]) < 0 ?
+                    work[a++] : work[b++];
+    }
+
+    /**
+     * Canonical JSON writer, writing to a byte array which is either enlarged as required or
+     * flushed to an {@link OutputStream}.
+     */
+    private static class Writer {
+
+        private final OutputStream os;
+        private byte[] buffer;
+        private int index;
+
+        private Writer(OutputStream os, int size) {
+            this.os = os;
+            buffer = new byte[size];
+            index = 0;
+        }
+
+        private void ensureSpace(int n) throws IOException {
+            if (index + n > buffer.length) {
+                if (os != null) {
+                    flush();
+                    if (n <= buffer.length)
+                        return;
+                }
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, index + n));
+            }
+        }
+
+        private void flush() throws IOException {
+            if (index > 0) {
+                os.write(buffer, 0, index);
+                index = 0;
+            }
+        }
+
+        private void writeByte(int b) throws IOException {
+            ensureSpace(1);
+            buffer[index++] = (byte)b;
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            ensureSpace(bytes.length);
+            System.arraycopy(bytes, 0, buffer, index, bytes.length);
+            index += bytes.length;
+        }
+
+        private void writeASCII(String s) throws IOException {
+            int n = s.length();
+            ensureSpace(n);
+            byte[] b = buffer;
+            for (int i = 0; i < n; i++)
+                b[index++] = (byte)s.charAt(i);
+        }
+
+        private void writeString(String s) throws IOException {
+            writeByte('"');
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char ch = s.charAt(i);
+                ensureSpace(6);
+                byte[] b = buffer;
+                if (ch >= 0x20 && ch < 0x80) {
+                    if (ch == '"' || ch == '\\')
+                        b[index++] = '\\';
+                    b[index++] = (byte)ch;
+                }
+                else if (ch < 0x20) {
+                    b[index++] = '\\';
+                    switch (ch) {
+                    case '\b':
+                        b[index++] = 'b';
+                        break;
+                    case '\t':
+                        b[index++] = 't';
+                        break;
+                    case '\n':
+                        b[index++] = 'n';
+                        break;
+                    case '\f':
+                        b[index++] = 'f';
+                        break;
+                    case '\r':
+                        b[index++] = 'r';
+                        break;
+                    default:
+                        b[index++] = 'u';
+                        b[index++] = '0';
+                        b[index++] = '0';
+                        b[index++] = hexDigits[ch >> 4];
+                        b[index++] = hexDigits[ch & 0xF];
+                    }
+                }
+                else if (ch < 0x800) {
+                    b[index++] = (byte)(0xC0 | ch >> 6);
+                    b[index++] = (byte)(0x80 | ch & 0x3F);
+                }
+                else if (Character.isSurrogate(ch)) {
+                    char low;
+                    if (!Character.isHighSurrogate(ch) || i + 1 >= n ||
+                            !Character.isLowSurrogate(low = s.charAt(i + 1)))
+                        throw new JSONException(UNPAIRED_SURROGATE);
+                    int cp = Character.toCodePoint(ch, low);
+                    i++;
+                    b[index++] = (byte)(0xF0 | cp >> 18);
+                    b[index++] = (byte)(0x80 | cp >> 12 & 0x3F);
+                    b[index++] = (byte)(0x80 | cp >> 6 & 0x3F);
+                    b[index++] = (byte)(0x80 | cp & 0x3F);
+                }
+                else {
+                    b[index++] = (byte)(0xE0 | ch >> 12);
+                    b[index++] = (byte)(0x80 | ch >> 6 & 0x3F);
+                    b[index++] = (byte)(0x80 | ch & 0x3F);
+                }
+            }
+            writeByte('"');
+        }
+
+        private void writeLong(long n) throws IOException {
+            if (n >= -INTEGER_LIMIT && n <= INTEGER_LIMIT)
+                writeASCII(Long.toString(n));
+            else
+                writeDouble(n);
+        }
+
+        /**
+         * Write a {@code double} using the ECMAScript {@code Number.prototype.toString()} rules:
+         * the shortest decimal that converts back to the same value, in plain notation if the
+         * decimal exponent is between -7 and 21, otherwise in exponential notation.
+         *
+         * @param   d       the value
+         * @throws  IOException if thrown by the {@link OutputStream}
+         */
+        private void writeDouble(double d) throws IOException {
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                throw new JSONException(NON_FINITE_NUMBER);
+            if (d == 0) {
+                writeByte('0');
+                return;
+            }
+            if (d < 0) {
+                writeByte('-');
+                d = -d;
+            }
+            if (d == Math.rint(d) && d <= INTEGER_LIMIT) {
+                writeASCII(Long.toString((long)d));
+                return;
+            }
+            String digits = null;
+            int scale = 0;
+            for (int i = 1; i < powersOfTen.length; i++) {
+                double power = powersOfTen[i];
+                double unscaled = Math.rint(d * power);
+                if (unscaled >= EXACT_LIMIT)
+                    break;
+                if (unscaled / power == d) {
+                    digits = Long.toString((long)unscaled);
+                    scale = i;
+                    break;
+                }
+            }
+            if (digits == null) {
+                // the loop above finds any decimal of up to 15 digits in the range 0.01 to 2^50
+                BigDecimal shortest = shortest(d, d >= 0.01 && d < EXACT_LIMIT ? 16 : 1);
+                digits = shortest.unscaledValue().toString();
+                scale = shortest.scale();
+            }
+            writeDigits(digits, digits.length() - scale);
+        }
+
+        /**
+         * Find the shortest decimal that converts to a given {@code double}, by finding the
+         * smallest number of significant digits for which a decimal lies within the rounding
+         * interval of the {@code double} (found by binary search, since if a given number of
+         * digits lies within the interval, any larger number will too).  For each number of
+         * digits, the nearest decimal is tried first, followed by the decimals either side of
+         * the exact value, since the interval is not symmetrical when the {@code double} is a
+         * power of two.
+         *
+         * @param   d       the value (positive)
+         * @param   low     the minimum possible number of digits
+         * @return  the decimal, with trailing zeros removed
+         */
+        private static BigDecimal shortest(double d, int low) {
+            BigDecimal exact = new BigDecimal(d);
+            BigDecimal lowerBound = exact.subtract(new BigDecimal(d - Math.nextDown(d)).multiply(HALF));
+            BigDecimal upperBound = exact.add(new BigDecimal(Math.ulp(d)).multiply(HALF));
+            boolean inclusive = (Double.doubleToRawLongBits(d) & 1) == 0; // ties round to even
+            int high = 17;
+            BigDecimal result = null;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                BigDecimal candidate = exact.round(new MathContext(mid, RoundingMode.HALF_EVEN));
+                if (!inInterval(candidate, lowerBound, upperBound, inclusive)) {
+                    RoundingMode other = candidate.compareTo(exact) < 0 ? RoundingMode.CEILING :
+                            RoundingMode.FLOOR;
+                    candidate = exact.round(new MathContext(mid, other));
+                    if (!inInterval(candidate, lowerBound, upperBound, inclusive))
+                        candidate = null;
+                }
+                if (candidate != null) {
+                    result = candidate;
+                    high = mid - 1;
+                }
+                else
+                    low = mid + 1;
+            }
+            return result.stripTrailingZeros();
+        }
+
+        private static boolean inInterval(BigDecimal value, BigDecimal lowerBound, BigDecimal upperBound,
+                boolean inclusive) {
+            int lowerComparison = value.compareTo(lowerBound);
+            int upperComparison = value.compareTo(upperBound);
+            return inclusive ? lowerComparison >= 0 && upperComparison <= 0 :
+                    lowerComparison > 0 && upperComparison < 0;
+        }
+
+        /**
+         * Write a number, given its significant digits and the position of the decimal point
+         * relative to the start of the digits.
+         *
+         * @param   digits  the digits (with no leading or trailing zeros)
+         * @param   n       the decimal point position
+         * @throws  IOException if thrown by the {@link OutputStream}
+         */
+        private void writeDigits(String digits, int n) throws IOException {
+            int k = digits.length();
+            if (k <= n && n <= 21) {
+                writeASCII(digits);
+                ensureSpace(n - k);
+                for (int i = k; i < n; i++)
+                    buffer[index++] = '0';
+            }
+            else if (0 < n && n <= 21) {
+                writeASCII(digits.substring(0, n));
+                writeByte('.');
+                writeASCII(digits.substring(n));
+            }
+            else if (-6 < n && n <= 0) {
+                ensureSpace(2 - n);
+                buffer[index++] = '0';
+                buffer[index++] = '.';
+                for (int i = n; i < 0; i++)
+                    buffer[index++] = '0';
+                writeASCII(digits);
+            }
+            else {
+                writeByte(digits.charAt(0));
+                if (k > 1) {
+                    writeByte('.');
+                    writeASCII(digits.substring(1));
+                }
+                writeByte('e');
+                writeByte(n > 0 ? '+' : '-');
+                writeASCII(Integer.toString(Math.abs(n - 1)));
+            }
+        }
+
+        private void write(JSONValue value) throws IOException {
+            if (value == null)
+                writeBytes(nullBytes);
+            else if (value instanceof JSONString)
+                writeString(((JSONString)value).getValue());
+            else if (value instanceof JSONMapping) {
+                JSONMapping<?> mapping = (JSONMapping<?>)value;
+                int[] order = mapping.sortedOrder();
+                writeByte('{');
+                for (int i = 0, n = order.length; i < n; i++) {
+                    if (i > 0)
+                        writeByte(',');
+                    writeString(mapping.keyAt(order[i]));
+                    writeByte(':');
+                    write(mapping.valueAt(order[i]));
+                }
+                writeByte('}');
+            }
+            else if (value instanceof JSONSequence) {
+                JSONSequence<?> sequence = (JSONSequence<?>)value;
+                writeByte('[');
+                for (int i = 0, n = sequence.size(); i < n; i++) {
+                    if (i > 0)
+                        writeByte(',');
+                    write(sequence.get(i));
+                }
+                writeByte(']');
+            }
+            else if (value instanceof JSONInteger || value instanceof JSONLong ||
+                    value instanceof JSONZero)
+                writeLong(((JSONNumberValue)value).longValue());
+            else if (value instanceof JSONDouble)
+                writeDouble(((JSONDouble)value).doubleValue());
+            else if (value instanceof JSONFloat) // use the value as represented in JSON
+                writeDouble(Double.parseDouble(Float.toString(((JSONFloat)value).floatValue())));
+            else if (value instanceof JSONNumberValue)
+                writeDouble(((JSONNumberValue)value).bigDecimalValue().doubleValue());
+            else if (value instanceof JSONBoolean)
+                writeBytes(((JSONBoolean)value).booleanValue() ? trueBytes : falseBytes);
+            else if (value instanceof JSONPersistentObject) {
+                writeByte('{');
+                boolean continuation = false;
+                for (Map.Entry<String, JSONValue> entry :
+                        ((JSONPersistentObject)value).sortedEntries()) {
+                    if (continuation)
+                        writeByte(',');
+                    writeString(entry.getKey());
+                    writeByte(':');
+                    write(entry.getValue());
+                    continuation = true;
+                }
+                writeByte('}');
+            }
+            else if (value instanceof JSONPersistentArray) {
+                writeByte('[');
+                boolean continuation = false;
+                for (JSONValue item : (JSONPersistentArray)value) {
+                    if (continuation)
+                        writeByte(',');
+                    write(item);
+                    continuation = true;
+                }
+                writeByte(']');
+            }
+            else
+                throw new JSONException(UNSUPPORTED_VALUE + ": " + value.getClass().getName());
+        }
+
+    }
+
+}
@@ -0,0 +1,1283 @@
+/*
+ * @(#) JSONColumns.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import net.pwall.util.ParseText;
+
+/**
+ * A columnar form of an array of JSON objects (a "struct of arrays").  Each member name found
+ * in any of the objects becomes a {@link Column}, holding the values of that member for all
+ * rows; a column of numbers is held as an array of {@code int}, {@code long} or
+ * {@code double}, a column of booleans as a bitmap, and a column of strings as an array of
+ * codes into a dictionary of the distinct strings.  A column with any other combination of
+ * values (including nested arrays and objects) holds the {@link JSONValue}s themselves.  Nulls
+ * and missing members are recorded in bitmaps, so that aggregate operations on a column (see
+ * {@link Column#sumDouble()}) are simple scans of a primitive array.
+ *
+ * <p>The columns are created from a {@link JSONArray} by {@link #from(List)}, or directly from
+ * JSON text by {@link #parse(CharSequence)}, without creating the intermediate objects.  The
+ * rows may be read individually using a {@link Row}, or converted back to a {@link JSONArray}
+ * by {@link #toJSONArray()}.</p>
+ *
+ * <p>Integers are held as {@code int} while all of the values in a column fit, and as
+ * {@code long} otherwise.  Numbers with a fraction or exponent are held as {@code double} when
+ * they have no more than {@value #MAX_EXACT_DIGITS} significant digits and the {@code double}
+ * converts back to the same decimal value, and integers in the same column are converted to
+ * {@code double} while they may be represented exactly; numbers that do not meet these
+ * conditions cause the column to hold {@link JSONValue}s.  The values returned from a column
+ * will compare equal to the originals, but they may not be of the same class, and a number with
+ * a fraction or exponent will not necessarily be output in its original form.  The members of
+ * the objects returned from the columns are in column order (the order in which the names were
+ * first encountered).</p>
+ *
+ * <p>A {@code JSONColumns} is not modifiable once created.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONColumns implements Iterable<JSONColumns.Row> {
+
+    /** The type of the values held in a {@link Column}. */
+    public enum Type { INT, LONG, DOUBLE, BOOLEAN, STRING, VALUE }
+
+    /** The maximum number of significant digits in a number to be held as {@code double}. */
+    public static final int MAX_EXACT_DIGITS = 15;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
+    private final List<Column> columns;
+    private final Map<String, Column> columnMap;
+    private final int initialCapacity;
+    private int rows;
+    private JSONShape shape;
+
+    private JSONColumns(int initialCapacity) {
+        columns = new ArrayList<>();
+        columnMap = new HashMap<>();
+        this.initialCapacity = initialCapacity;
+        rows = 0;
+    }
+
+    /**
+     * Get the number of rows.
+     *
+     * @return  the number of rows
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Get the columns, in the order in which the member names were first encountered.
+     *
+     * @return  an unmodifiable list of the columns
+     */
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    /**
+     * Get a column by name.
+     *
+     * @param   name    the member name
+     * @return  the column, or {@code null} if no object in the array has a member of that name
+     */
+    public Column getColumn(String name) {
+        return columnMap.get(name);
+    }
+
+    /**
+     * Get a read-only view of a row.
+     *
+     * @param   index   the row index
+     * @return  the {@link Row}
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    public Row getRow(int index) {
+        checkIndex(index, rows);
+        return new Row(index);
+    }
+
+    /**
+     * Get an {@link Iterator} over the rows.
+     *
+     * @return  the {@link Iterator}
+     */
+    @Override
+    public Iterator<Row> iterator() {
+        return new Iterator<Row>() {
+            private int index = 0;
+            @Override
+            public boolean hasNext() {
+                return index < rows;
+            }
+            @Override
+            public Row next() {
+                if (index >= rows)
+                    throw new NoSuchElementException();
+                return new Row(index++);
+            }
+        };
+    }
+
+    /**
+     * Convert the columns back to a {@link JSONArray} of {@link JSONObject}s.  Rows which have
+     * a value (possibly {@code null}) for every column share a single {@link JSONShape}.
+     *
+     * @return  the {@link JSONArray}
+     */
+    public JSONArray toJSONArray() {
+        JSONArray array = new JSONArray(rows);
+        for (int i = 0; i < rows; i++)
+            array.add(toJSONObject(i));
+        return array;
+    }
+
+    private JSONObject toJSONObject(int row) {
+        int n = columns.size();
+        if (n == 0)
+            return new JSONObject();
+        JSONValue[] values = new JSONValue[n];
+        boolean complete = true;
+        for (int i = 0; i < n; i++) {
+            Column column = columns.get(i);
+            if (column.isPresent(row))
+                values[i] = column.get(row);
+            else
+                complete = false;
+        }
+        if (complete) {
+            if (shape == null) {
+                String[] keys = new String[n];
+                for (int i = 0; i < n; i++)
+                    keys[i] = columns.get(i).name;
+                shape = new JSONShape(keys);
+            }
+            return new JSONObject(shape, values);
+        }
+        JSONObject object = new JSONObject(n);
+        for (int i = 0; i < n; i++) {
+            Column column = columns.get(i);
+            if (column.isPresent(row))
+                object.put(column.name, values[i]);
+        }
+        return object;
+    }
+
+    /**
+     * Create a {@code JSONColumns} from a list (usually a {@link JSONArray}) of objects.  The
+     * objects may be {@link JSONMapping}s, or any other form of {@link Map} (for example,
+     * {@link JSONPersistentObject}).
+     *
+     * @param   array   the list of objects
+     * @return  the {@code JSONColumns}
+     * @throws  JSONException if any element of the list is not an object
+     */
+    public static JSONColumns from(List<? extends JSONValue> array) {
+        int n = array.size();
+        JSONColumns result = new JSONColumns(n > 0 ? n : INITIAL_CAPACITY);
+        JSONShape lastShape = null;
+        Column[] lastColumns = null;
+        for (int i = 0; i < n; i++) {
+            JSONValue element = array.get(i);
+            if (element instanceof JSONMapping) {
+                JSONMapping<?> mapping = (JSONMapping<?>)element;
+                JSONShape elementShape = mapping.currentShape();
+                if (elementShape != null && lastShape != null &&
+                        (elementShape == lastShape || Arrays.equals(elementShape.keys, lastShape.keys))) {
+                    for (int j = 0, m = lastColumns.length; j < m; j++)
+                        lastColumns[j].appendValue(mapping.valueAt(j));
+                }
+                else {
+                    int m = mapping.size();
+                    Column[] elementColumns = new Column[m];
+                    int expected = 0;
+                    for (int j = 0; j < m; j++) {
+                        Column column = result.column(mapping.keyAt(j), expected);
+                        column.appendValue(mapping.valueAt(j));
+                        elementColumns[j] = column;
+                        expected = column.position + 1;
+                    }
+                    lastColumns = elementColumns;
+                }
+                lastShape = elementShape;
+            }
+            else if (element instanceof Map) {
+                int expected = 0;
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>)element).entrySet()) {
+                    Column column = result.column((String)entry.getKey(), expected);
+                    column.appendValue((JSONValue)entry.getValue());
+                    expected = column.position + 1;
+                }
+            }
+            else
+                throw new JSONException(JSON.NOT_AN_OBJECT + " at /" + i);
+            result.endRow();
+        }
+        result.finish();
+        return result;
+    }
+
+    /**
+     * Parse a {@link CharSequence} (e.g. a {@link String}) containing a JSON array of objects
+     * directly to a {@code JSONColumns}.
+     *
+     * @param   cs      the {@link CharSequence}
+     * @return  the {@code JSONColumns}
+     * @throws  JSONException if the sequence does not contain a valid JSON array of objects
+     */
+    public static JSONColumns parse(CharSequence cs) {
+        ParseText p = new ParseText(cs);
+        JSONColumns result = parse(p);
+        if (!p.skipSpaces().isExhausted())
+            throw new JSONException(JSON.EXCESS_CHARS);
+        return result;
+    }
+
+    /**
+     * Parse a JSON array of objects from a {@link ParseText} object directly to a
+     * {@code JSONColumns}.  The index of the {@link ParseText} is left positioned after the
+     * array.
+     *
+     * @param   p       the {@link ParseText} object
+     * @return  the {@code JSONColumns}
+     * @throws  JSONException if the text is not a valid JSON array of objects
+     */
+    public static JSONColumns parse(ParseText p) {
+        if (!p.skipSpaces().match('['))
+            throw new JSONException(JSON.NOT_AN_ARRAY);
+        JSONColumns result = new JSONColumns(INITIAL_CAPACITY);
+        if (!p.skipSpaces().match(']')) {
+            JSONPointer.Location location = new JSONPointer.Location(null);
+            do {
+                location.index(result.rows);
+                if (!p.skipSpaces().match('{'))
+                    throw new JSONException(JSON.pointerMessage(JSON.NOT_AN_OBJECT, location));
+                result.parseRow(p, location);
+            } while (p.skipSpaces().match(','));
+            if (!p.match(']'))
+                throw new JSONException(JSON.MISSING_CLOSING_BRACKET);
+        }
+        result.finish();
+        return result;
+    }
+
+    private void parseRow(ParseText p, JSONPointer.Location location) {
+        if (!p.skipSpaces().match('}')) {
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            int expected = 0;
+            for (;;) {
+                if (!p.match('"'))
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_KEY, location));
+                String key = JSON.decodeString(p, location);
+                Column column = column(key, expected);
+                if (column.count > rows)
+                    throw new JSONException(JSON.pointerMessage(JSON.DUPLICATE_KEY + ": \"" + key + '"',
+                            location));
+                if (!p.skipSpaces().match(':'))
+                    throw new JSONException(JSON.pointerMessage(JSON.MISSING_COLON, location));
+                parseValue(p, child.key(key), column);
+                expected = column.position + 1;
+                if (!p.skipSpaces().match(','))
+                    break;
+                p.skipSpaces();
+            }
+            if (!p.match('}'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACE, location));
+        }
+        endRow();
+    }
+
+    /**
+     * Parse a member value into a column, without creating a {@link JSONValue} for numbers,
+     * strings or booleans (nested arrays and objects are parsed as usual).
+     *
+     * @param   p           the {@link ParseText}
+     * @param   location    the location of the value (for error messages)
+     * @param   column      the {@link Column}
+     */
+    private static void parseValue(ParseText p, JSONPointer.Location location, Column column) {
+        p.skipSpaces();
+        if (p.match('"')) {
+            column.appendString(JSON.decodeString(p, location));
+            return;
+        }
+        int numberStart = p.getIndex();
+        boolean negative = p.match('-');
+        if (p.matchDec()) {
+            int digits = p.getResultLength();
+            if (p.getResultChar() == '0' && digits > 1)
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+            boolean floating = false;
+            if (p.match('.')) {
+                floating = true;
+                if (!p.matchDec())
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+            }
+            int mantissaEnd = p.getIndex();
+            if (p.matchIgnoreCase('e')) {
+                floating = true;
+                p.matchAnyOf("-+"); // ignore the result, just step the index
+                if (!p.matchDec())
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+            }
+            int numberEnd = p.getIndex();
+            if (!floating) {
+                if (digits < 19) {
+                    long value = p.getLong(negative ? numberStart + 1 : numberStart, numberEnd);
+                    column.appendLong(negative ? -value : value);
+                }
+                else
+                    column.appendValue(JSON.numberValue(p.getString(numberStart, numberEnd), false));
+                return;
+            }
+            String number = p.getString(numberStart, numberEnd);
+            int significant = significantDigits(p, numberStart, mantissaEnd);
+            if (significant <= MAX_EXACT_DIGITS) {
+                double value = Double.parseDouble(number);
+                if (significant == 0 || isNormal(value) && convertsBack(value, new BigDecimal(number))) {
+                    column.appendDouble(value);
+                    return;
+                }
+            }
+            column.appendGeneric(new JSONDecimal(number));
+            return;
+        }
+        if (p.getIndex() > numberStart)
+            throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+        if (p.matchName("true"))
+            column.appendBoolean(true);
+        else if (p.matchName("false"))
+            column.appendBoolean(false);
+        else if (p.matchName("null"))
+            column.appendNull(false);
+        else
+            column.appendValue(JSON.parse(p, location, 2)); // arrays and objects, or error
+    }
+
+    private static int significantDigits(ParseText p, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char ch = p.charAt(i);
+            if (ch >= '1' && ch <= '9' || ch == '0' && result > 0)
+                result++;
+        }
+        return result;
+    }
+
+    private static boolean isNormal(double value) {
+        double abs = Math.abs(value);
+        return abs >= Double.MIN_NORMAL && abs <= Double.MAX_VALUE;
+    }
+
+    private static boolean convertsBack(double value, BigDecimal decimal) {
+        // Double.toString() is not always the shortest form (before JDK 19), e.g. 1e23
+        return BigDecimal.valueOf(value).compareTo(decimal) == 0;
+    }
+
+    /**
+     * Find the column for a member name, creating it if necessary.  The column at the expected
+     * position (following the previous member of the row) is checked first, since the members
+     * of the objects in an array are usually in the same order.
+     *
+     * @param   name        the member name
+     * @param   expected    the expected position of the column
+     * @return  the {@link Column}
+     */
+    private Column column(String name, int expected) {
+        if (expected < columns.size()) {
+            Column column = columns.get(expected);
+            if (column.name.equals(name))
+                return column;
+        }
+        Column column = columnMap.get(name);
+        if (column == null) {
+            column = new Column(name, columns.size(), Math.max(initialCapacity, rows + INITIAL_CAPACITY));
+            for (int i = 0; i < rows; i++)
+                column.appendNull(true);
+            columns.add(column);
+            columnMap.put(name, column);
+        }
+        return column;
+    }
+
+    private void endRow() {
+        rows++;
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            Column column = columns.get(i);
+            if (column.count < rows)
+                column.appendNull(true);
+        }
+    }
+
+    private void finish() {
+        for (int i = 0, n = columns.size(); i < n; i++)
+            columns.get(i).finish();
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private static boolean bit(long[] bits, int index) {
+        return bits != null && (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    private static long[] setBit(long[] bits, int index, int capacity) {
+        if (bits == null)
+            bits = new long[(capacity + 63) >>> 6];
+        bits[index >>> 6] |= 1L << index;
+        return bits;
+    }
+
+    /**
+     * A column, holding the values of a single member for all rows.
+     */
+    public static final class Column {
+
+        private final String name;
+        private final int position;
+        private Type type;
+        private int count;
+        private int capacity;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private long[] booleans;
+        private int[] codes;
+        private JSONString[] dictionary;
+        private int dictionarySize;
+        private Map<String, Integer> dictionaryMap;
+        private JSONValue[] values;
+        private long[] nulls;
+        private long[] absent;
+
+        private Column(String name, int position, int capacity) {
+            this.name = name;
+            this.position = position;
+            this.capacity = capacity;
+        }
+
+        /**
+         * Get the column name (the member name).
+         *
+         * @return  the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Get the type of the values held in the column.  A column holding only {@code null}
+         * values has type {@link Type#VALUE}.
+         *
+         * @return  the {@link Type}
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Get the number of values in the column (the number of rows).
+         *
+         * @return  the number of values
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Test whether the member is present in the given row (its value may be {@code null}).
+         *
+         * @param   row     the row index
+         * @return  {@code true} if the member is present
+         */
+        public boolean isPresent(int row) {
+            checkIndex(row, count);
+            return !bit(absent, row);
+        }
+
+        /**
+         * Test whether the value in the given row is {@code null} (or the member is not present).
+         *
+         * @param   row     the row index
+         * @return  {@code true} if the value is {@code null}
+         */
+        public boolean isNull(int row) {
+            checkIndex(row, count);
+            return bit(nulls, row);
+        }
+
+        /**
+         * Get the value in the given row as a {@link JSONValue}.
+         *
+         * @param   row     the row index
+         * @return  the value ({@code null} if the value is {@code null} or the member is not
+         *                  present)
+         */
+        public JSONValue get(int row) {
+            return isNull(row) ? null : valueAt(row);
+        }
+
+        private JSONValue valueAt(int row) {
+            switch (type) {
+            case INT:
+                int i = ints[row];
+                return i == 0 ? JSONZero.ZERO : JSONInteger.valueOf(i);
+            case LONG:
+                long n = longs[row];
+                return n == 0 ? JSONZero.ZERO : n == (int)n ? JSONInteger.valueOf((int)n) :
+                        JSONLong.valueOf(n);
+            case DOUBLE:
+                return JSONDouble.valueOf(doubles[row]);
+            case BOOLEAN:
+                return JSONBoolean.valueOf(bit(booleans, row));
+            case STRING:
+                return dictionary[codes[row]];
+            default:
+                return values[row];
+            }
+        }
+
+        /**
+         * Get the value in the given row as an {@code int}.
+         *
+         * @param   row     the row index
+         * @return  the value, or {@code 0} if the value is {@code null}
+         * @throws  JSONException if the value is not a number
+         */
+        public int getInt(int row) {
+            checkIndex(row, count);
+            switch (type) {
+            case INT:
+                return ints[row];
+            case LONG:
+                return (int)longs[row];
+            case DOUBLE:
+                return (int)doubles[row];
+            default:
+                return JSON.getInt(get(row));
+            }
+        }
+
+        /**
+         * Get the value in the given row as a {@code long}.
+         *
+         * @param   row     the row index
+         * @return  the value, or {@code 0} if the value is {@code null}
+         * @throws  JSONException if the value is not a number
+         */
+        public long getLong(int row) {
+            checkIndex(row, count);
+            switch (type) {
+            case INT:
+                return ints[row];
+            case LONG:
+                return longs[row];
+            case DOUBLE:
+                return (long)doubles[row];
+            default:
+                return JSON.getLong(get(row));
+            }
+        }
+
+        /**
+         * Get the value in the given row as a {@code double}.
+         *
+         * @param   row     the row index
+         * @return  the value, or {@code 0} if the value is {@code null}
+         * @throws  JSONException if the value is not a number
+         */
+        public double getDouble(int row) {
+            checkIndex(row, count);
+            switch (type) {
+            case INT:
+                return ints[row];
+            case LONG:
+                return longs[row];
+            case DOUBLE:
+                return doubles[row];
+            default:
+                return JSON.getDouble(get(row));
+            }
+        }
+
+        /**
+         * Get the value in the given row as a {@code boolean}.
+         *
+         * @param   row     the row index
+         * @return  the value, or {@code false} if the value is {@code null}
+         * @throws  JSONException if the value is not a boolean
+         */
+        public boolean getBoolean(int row) {
+            checkIndex(row, count);
+            return type == Type.BOOLEAN ? bit(booleans, row) : JSON.getBoolean(get(row));
+        }
+
+        /**
+         * Get the value in the given row as a {@link String}.
+         *
+         * @param   row     the row index
+         * @return  the value, or {@code null} if the value is {@code null}
+         * @throws  JSONException if the value is not a string
+         */
+        public String getString(int row) {
+            return JSON.getString(get(row));
+        }
+
+        /**
+         * Get the dictionary code of the value in the given row of a {@link Type#STRING} column
+         * (the index of the value in the list returned by {@link #getDictionary()}).
+         *
+         * @param   row     the row index
+         * @return  the code, or {@code -1} if the value is {@code null} or the column is not a
+         *                  string column
+         */
+        public int getCode(int row) {
+            return type != Type.STRING || isNull(row) ? -1 : codes[row];
+        }
+
+        /**
+         * Get the dictionary of distinct values of a {@link Type#STRING} column, in the order in
+         * which they were first encountered.
+         *
+         * @return  a copy of the dictionary (empty if the column is not a string column)
+         */
+        public List<String> getDictionary() {
+            List<String> result = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++)
+                result.add(dictionary[i].toString());
+            return result;
+        }
+
+        /**
+         * Get the number of non-null values in the column.
+         *
+         * @return  the number of values
+         */
+        public int count() {
+            int result = count;
+            if (nulls != null)
+                for (long word : nulls)
+                    result -= Long.bitCount(word);
+            return result;
+        }
+
+        /**
+         * Get the sum of the values in the column as a {@code long} (as returned by
+         * {@link #getLong(int)}, ignoring {@code null} values).  Overflow is not detected.
+         *
+         * @return  the sum
+         * @throws  JSONException if any value is not a number
+         */
+        public long sumLong() {
+            long result = 0;
+            switch (type) {
+            case INT:
+                for (int i = 0, n = count; i < n; i++) // null slots hold zero
+                    result += ints[i];
+                return result;
+            case LONG:
+                for (int i = 0, n = count; i < n; i++)
+                    result += longs[i];
+                return result;
+            default:
+                for (int i = 0, n = count; i < n; i++)
+                    result += getLong(i);
+                return result;
+            }
+        }
+
+        /**
+         * Get the sum of the values in the column as a {@code double} (ignoring {@code null}
+         * values).
+         *
+         * @return  the sum
+         * @throws  JSONException if any value is not a number
+         */
+        public double sumDouble() {
+            double result = 0;
+            switch (type) {
+            case INT:
+                long sum = 0;
+                for (int i = 0, n = count; i < n; i++) // null slots hold zero
+                    sum += ints[i];
+                return sum;
+            case LONG:
+                for (int i = 0, n = count; i < n; i++)
+                    result += longs[i];
+                return result;
+            case DOUBLE:
+                for (int i = 0, n = count; i < n; i++)
+                    result += doubles[i];
+                return result;
+            default:
+                for (int i = 0, n = count; i < n; i++)
+                    result += getDouble(i);
+                return result;
+            }
+        }
+
+        /**
+         * Get the minimum of the values in the column (ignoring {@code null} values).
+         *
+         * @return  the minimum, or {@link Double#NaN} if there are no values
+         * @throws  JSONException if any value is not a number
+         */
+        public double min() {
+            return extreme(false);
+        }
+
+        /**
+         * Get the maximum of the values in the column (ignoring {@code null} values).
+         *
+         * @return  the maximum, or {@link Double#NaN} if there are no values
+         * @throws  JSONException if any value is not a number
+         */
+        public double max() {
+            return extreme(true);
+        }
+
+        private double extreme(boolean max) {
+            int n = count;
+            if (type == Type.INT && nulls == null && n > 0) {
+                int[] array = ints;
+                int result = array[0];
+                for (int i = 1; i < n; i++) {
+                    int value = array[i];
+                    if (max ? value > result : value < result)
+                        result = value;
+                }
+                return result;
+            }
+            if (type == Type.DOUBLE && nulls == null && n > 0) {
+                double[] array = doubles;
+                double result = array[0];
+                for (int i = 1; i < n; i++) {
+                    double value = array[i];
+                    if (max ? value > result : value < result)
+                        result = value;
+                }
+                return result;
+            }
+            double result = Double.NaN;
+            for (int i = 0; i < n; i++) {
+                if (!bit(nulls, i)) {
+                    double value = getDouble(i);
+                    if (Double.isNaN(result) || (max ? value > result : value < result))
+                        result = value;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Get the values of the column as a {@link JSONArray}.  If the column holds numbers of
+         * type {@link Type#INT}, {@link Type#LONG} or {@link Type#DOUBLE} with no nulls, the
+         * result will be the corresponding compact form (see {@link JSONPrimitiveArray}).
+         *
+         * @return  the values
+         */
+        public JSONArray toJSONArray() {
+            if (nulls == null) {
+                switch (type) {
+                case INT:
+                    return new JSONIntArray(Arrays.copyOf(ints, count), count);
+                case LONG:
+                    return new JSONLongArray(Arrays.copyOf(longs, count), count);
+                case DOUBLE:
+                    return new JSONDoubleArray(Arrays.copyOf(doubles, count), count);
+                default:
+                    break;
+                }
+            }
+            JSONArray result = new JSONArray(count);
+            for (int i = 0; i < count; i++)
+                result.add(get(i));
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + type + '[' + count + ']';
+        }
+
+        // methods used while building the column
+
+        private void ensureCapacity() {
+            if (count == capacity) {
+                capacity = capacity + (capacity >> 1) + INITIAL_CAPACITY;
+                if (ints != null)
+                    ints = Arrays.copyOf(ints, capacity);
+                if (longs != null)
+                    longs = Arrays.copyOf(longs, capacity);
+                if (doubles != null)
+                    doubles = Arrays.copyOf(doubles, capacity);
+                if (codes != null)
+                    codes = Arrays.copyOf(codes, capacity);
+                if (values != null)
+                    values = Arrays.copyOf(values, capacity);
+                int words = (capacity + 63) >>> 6;
+                if (booleans != null)
+                    booleans = Arrays.copyOf(booleans, words);
+                if (nulls != null)
+                    nulls = Arrays.copyOf(nulls, words);
+                if (absent != null)
+                    absent = Arrays.copyOf(absent, words);
+            }
+        }
+
+        private void appendNull(boolean missing) {
+            ensureCapacity();
+            nulls = setBit(nulls, count, capacity);
+            if (missing)
+                absent = setBit(absent, count, capacity);
+            count++;
+        }
+
+        private void appendLong(long value) {
+            if (value == (int)value) {
+                appendInt((int)value);
+                return;
+            }
+            ensureCapacity();
+            if (type == null) {
+                type = Type.LONG;
+                longs = new long[capacity];
+            }
+            else if (type == Type.INT)
+                toLongs();
+            else if (type == Type.DOUBLE && (value > MAX_EXACT_LONG || value < -MAX_EXACT_LONG))
+                toValues();
+            switch (type) {
+            case LONG:
+                longs[count++] = value;
+                break;
+            case DOUBLE:
+                doubles[count++] = value;
+                break;
+            default:
+                appendGeneric(JSONLong.valueOf(value));
+                break;
+            }
+        }
+
+        private void appendInt(int value) {
+            ensureCapacity();
+            if (type == null) {
+                type = Type.INT;
+                ints = new int[capacity];
+            }
+            switch (type) {
+            case INT:
+                ints[count++] = value;
+                break;
+            case LONG:
+                longs[count++] = value;
+                break;
+            case DOUBLE:
+                doubles[count++] = value;
+                break;
+            default:
+                appendGeneric(value == 0 ? JSONZero.ZERO : JSONInteger.valueOf(value));
+                break;
+            }
+        }
+
+        private void appendDouble(double value) {
+            ensureCapacity();
+            if (type == null) {
+                type = Type.DOUBLE;
+                doubles = new double[capacity];
+            }
+            else if (type == Type.INT || type == Type.LONG)
+                toDoubles();
+            if (type == Type.DOUBLE)
+                doubles[count++] = value;
+            else
+                appendGeneric(JSONDouble.valueOf(value));
+        }
+
+        private void appendBoolean(boolean value) {
+            ensureCapacity();
+            if (type == null) {
+                type = Type.BOOLEAN;
+                booleans = new long[(capacity + 63) >>> 6];
+            }
+            if (type == Type.BOOLEAN) {
+                if (value)
+                    booleans = setBit(booleans, count, capacity);
+                count++;
+            }
+            else
+                appendGeneric(JSONBoolean.valueOf(value));
+        }
+
+        private void appendString(String value) {
+            ensureCapacity();
+            if (type == null) {
+                type = Type.STRING;
+                codes = new int[capacity];
+                dictionary = new JSONString[INITIAL_CAPACITY];
+                dictionaryMap = new HashMap<>();
+            }
+            if (type == Type.STRING) {
+                Integer code = dictionaryMap.get(value);
+                if (code == null) {
+                    code = dictionarySize;
+                    if (dictionarySize == dictionary.length)
+                        dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+                    dictionary[dictionarySize++] = JSONString.valueOf(value);
+                    dictionaryMap.put(value, code);
+                }
+                codes[count++] = code;
+            }
+            else
+                appendGeneric(JSONString.valueOf(value));
+        }
+
+        private void appendValue(JSONValue value) {
+            if (value == null)
+                appendNull(false);
+            else if (value instanceof JSONInteger)
+                appendInt(((JSONInteger)value).intValue());
+            else if (value instanceof JSONZero)
+                appendInt(0);
+            else if (value instanceof JSONLong)
+                appendLong(((JSONLong)value).longValue());
+            else if (value instanceof JSONDouble || value instanceof JSONFloat)
+                appendDouble(((JSONNumberValue)value).doubleValue());
+            else if (value instanceof JSONDecimal) {
+                BigDecimal decimal = ((JSONDecimal)value).bigDecimalValue();
+                if (decimal.signum() == 0)
+                    appendDouble(0);
+                else {
+                    double d = decimal.doubleValue();
+                    if (decimal.precision() <= MAX_EXACT_DIGITS && isNormal(d) && convertsBack(d, decimal))
+                        appendDouble(d);
+                    else
+                        appendGeneric(value);
+                }
+            }
+            else if (value instanceof JSONString)
+                appendString(value.toString());
+            else if (value instanceof JSONBoolean)
+                appendBoolean(((JSONBoolean)value).booleanValue());
+            else
+                appendGeneric(value);
+        }
+
+        private void appendGeneric(JSONValue value) {
+            ensureCapacity();
+            if (type != Type.VALUE)
+                toValues();
+            values[count++] = value;
+        }
+
+        private void toLongs() {
+            longs = new long[capacity];
+            for (int i = 0; i < count; i++)
+                longs[i] = ints[i];
+            ints = null;
+            type = Type.LONG;
+        }
+
+        private void toDoubles() {
+            doubles = new double[capacity];
+            if (type == Type.INT) {
+                for (int i = 0; i < count; i++)
+                    doubles[i] = ints[i];
+                ints = null;
+            }
+            else {
+                for (int i = 0; i < count; i++) {
+                    long value = longs[i];
+                    if (value > MAX_EXACT_LONG || value < -MAX_EXACT_LONG) {
+                        doubles = null;
+                        toValues();
+                        return;
+                    }
+                    doubles[i] = value;
+                }
+                longs = null;
+            }
+            type = Type.DOUBLE;
+        }
+
+        private void toValues() {
+            JSONValue[] newValues = new JSONValue[capacity];
+            if (type != null)
+                for (int i = 0; i < count; i++)
+                    newValues[i] = bit(nulls, i) ? null : valueAt(i);
+            type = Type.VALUE;
+            values = newValues;
+            ints = null;
+            longs = null;
+            doubles = null;
+            booleans = null;
+            codes = null;
+            dictionary = null;
+            dictionarySize = 0;
+            dictionaryMap = null;
+        }
+
+        private void finish() {
+            if (type == null) {
+                type = Type.VALUE;
+                values = new JSONValue[count];
+                capacity = count;
+            }
+            else if (capacity - count > count >>> 3) {
+                capacity = count;
+                if (ints != null)
+                    ints = Arrays.copyOf(ints, count);
+                if (longs != null)
+                    longs = Arrays.copyOf(longs, count);
+                if (doubles != null)
+                    doubles = Arrays.copyOf(doubles, count);
+                if (codes != null)
+                    codes = Arrays.copyOf(codes, count);
+                if (values != null)
+                    values = Arrays.copyOf(values, count);
+            }
+            if (dictionary != null)
+                dictionary = Arrays.copyOf(dictionary, dictionarySize);
+            dictionaryMap = null;
+        }
+
+    }
+
+    /**
+     * A read-only view of a single row, as a {@link Map} of member name to value.  In addition
+     * to the {@link Map} read operations, the typed accessors of {@link JSONMapping} are
+     * provided, reading the values directly from the columns.
+     */
+    public final class Row extends AbstractMap<String, JSONValue> {
+
+        private final int index;
+        private Set<Map.Entry<String, JSONValue>> entrySet;
+
+        private Row(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Get the row index.
+         *
+         * @return  the index
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public int size() {
+            int result = 0;
+            for (int i = 0, n = columns.size(); i < n; i++)
+                if (!bit(columns.get(i).absent, index))
+                    result++;
+            return result;
+        }
+
+        @Override
+        public JSONValue get(Object key) {
+            Column column = columnMap.get(key);
+            return column == null ? null : column.get(index);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Column column = columnMap.get(key);
+            return column != null && !bit(column.absent, index);
+        }
+
+        @Override
+        public Set<Map.Entry<String, JSONValue>> entrySet() {
+            if (entrySet == null) {
+                entrySet = new AbstractSet<Map.Entry<String, JSONValue>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, JSONValue>> iterator() {
+                        return new EntryIterator();
+                    }
+                    @Override
+                    public int size() {
+                        return Row.this.size();
+                    }
+                };
+            }
+            return entrySet;
+        }
+
+        /**
+         * Get a value from the row as a {@link String}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code null} if not found
+         * @throws  JSONException if the value is found but is not a string
+         */
+        public String getString(String key) {
+            Column column = columnMap.get(key);
+            return column == null ? null : column.getString(index);
+        }
+
+        /**
+         * Get a value from the row as an {@code int}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code 0} if not found
+         * @throws  JSONException if the value is found but is not a number
+         */
+        public int getInt(String key) {
+            Column column = columnMap.get(key);
+            return column == null ? 0 : column.getInt(index);
+        }
+
+        /**
+         * Get a value from the row as a {@code long}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code 0} if not found
+         * @throws  JSONException if the value is found but is not a number
+         */
+        public long getLong(String key) {
+            Column column = columnMap.get(key);
+            return column == null ? 0 : column.getLong(index);
+        }
+
+        /**
+         * Get a value from the row as a {@code double}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code 0} if not found
+         * @throws  JSONException if the value is found but is not a number
+         */
+        public double getDouble(String key) {
+            Column column = columnMap.get(key);
+            return column == null ? 0 : column.getDouble(index);
+        }
+
+        /**
+         * Get a value from the row as a {@link BigDecimal}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code 0} if not found
+         * @throws  JSONException if the value is found but is not a number
+         */
+        public BigDecimal getDecimal(String key) {
+            return JSON.getDecimal(get(key));
+        }
+
+        /**
+         * Get a value from the row as a {@code boolean}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code false} if not found
+         * @throws  JSONException if the value is found but is not a boolean
+         */
+        public boolean getBoolean(String key) {
+            Column column = columnMap.get(key);
+            return column != null && column.getBoolean(index);
+        }
+
+        /**
+         * Get a value from the row as a {@link JSONArray}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code null} if not found
+         * @throws  JSONException if the value is found but is not an array
+         */
+        public JSONArray getArray(String key) {
+            return JSON.getArray(get(key));
+        }
+
+        /**
+         * Get a value from the row as a {@link JSONObject}.
+         *
+         * @param   key     the member name
+         * @return          the value, or {@code null} if not found
+         * @throws  JSONException if the value is found but is not an object
+         */
+        public JSONObject getObject(String key) {
+            return JSON.getObject(get(key));
+        }
+
+        /**
+         * Convert the row to a {@link JSONObject}.
+         *
+         * @return  the {@link JSONObject}
+         */
+        public JSONObject toJSONObject() {
+            return JSONColumns.this.toJSONObject(index);
+        }
+
+        @Override
+        public String toString() {
+            return toJSONObject().toJSON();
+        }
+
+        private class EntryIterator implements Iterator<Map.Entry<String, JSONValue>> {
+
+            private int next = advance(0);
+
+            private int advance(int i) {
+                while (i < columns.size() && bit(columns.get(i).absent, index))
+                    i++;
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < columns.size();
+            }
+
+            @Override
+            public Map.Entry<String, JSONValue> next() {
+                if (next >= columns.size())
+                    throw new NoSuchElementException();
+                Column column = columns.get(next);
+                next = advance(next + 1);
+                return new SimpleImmutableEntry<>(column.name, column.get(index));
+            }
+
+        }
+
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONComposite.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015 Peter Wall
+ * Copyright (c) 2014, 2015, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -40,4 +40,46 @@ public interface JSONComposite extends JSONValue {
      */
     boolean isSimple();
 
+    /**
+     * Make the composite, and all composites nested within it, immutable.  Any subsequent
+     * attempt to modify a frozen composite will cause an {@link UnsupportedOperationException}.
+     * A frozen composite may cache its hash code and its JSON representation, making it
+     * suitable for shared reference data that is hashed, compared or serialized repeatedly.
+     *
+     * <p>The freeze is performed in place (no copy is made), so any other references to the
+     * composite or to any of its nested composites will also see the frozen form.  The default
+     * implementation throws {@link UnsupportedOperationException}.</p>
+     *
+     * @return  {@code this} (for chaining)
+     */
+    default JSONComposite freeze() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Test whether the composite has been frozen (see {@link #freeze()}).
+     *
+     * @return  {@code true} if the composite is frozen
+     */
+    default boolean isFrozen() {
+        return false;
+    }
+
+    /**
+     * Create a deep copy of the composite.  The copy, and every composite nested within it, is
+     * a new mutable (unfrozen) composite of the same class as the original, so that the copy
+     * may be modified without affecting the original.  Immutable values ({@link JSONString},
+     * the number classes, {@link JSONBoolean} and the persistent composites) are shared, not
+     * copied.
+     *
+     * <p>The default implementation parses the JSON representation of the composite, so the
+     * copy is a {@link JSONObject} or a {@link JSONArray} (or one of its compact forms), and no
+     * values are shared; implementations should override it to preserve the class.</p>
+     *
+     * @return  the copy
+     */
+    default JSONComposite deepCopy() {
+        return (JSONComposite)JSON.parse(toJSON());
+    }
+
 }
@@ -2,7 +2,7 @@
  * @(#) JSONDecimal.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2020 Peter Wall
+ * Copyright (c) 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -111,6 +111,11 @@ public class JSONDecimal extends JSONNumberValue {
         a.append(toJSON());
     }
 
+    @Override
+    public int jsonLength() {
+        return string.length();
+    }
+
     @Override
     public String toString() {
         return toJSON();
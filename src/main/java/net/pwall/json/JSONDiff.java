@@ -0,0 +1,329 @@
+/*
+ * @(#) JSONDiff.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural comparison of two JSON trees, producing a {@link JSONPatch} (RFC 6902) that will
+ * convert the first tree to the second.
+ *
+ * <p>Subtrees are compared by hash code before they are compared for equality, and identical
+ * subtrees are not examined further.  The hash code of each subtree is calculated once per
+ * comparison (bottom-up, so the total cost is proportional to the size of the trees), or taken
+ * from the cached value in the case of frozen and persistent composites, so unchanged parts of
+ * a pair of snapshots that share structure are skipped in constant time.</p>
+ *
+ * <p>Objects are compared property by property.  Arrays are compared by first removing any
+ * common prefix and suffix, and then finding the longest common subsequence of the remaining
+ * elements (or, if the product of the remaining lengths exceeds {@value #LCS_LIMIT}, by
+ * matching identical elements by hash code and taking the longest increasing sequence of the
+ * matches); elements that are removed and inserted at the same position are compared
+ * recursively, so that a change within an element of an array results in a change to that
+ * element rather than its replacement.</p>
+ *
+ * @author Peter Wall
+ */
+public class JSONDiff {
+
+    /** The maximum product of array lengths for which the full LCS comparison is used. */
+    public static final int LCS_LIMIT = 1 << 20;
+
+    private static final int[] NO_MATCHES = {};
+
+    private final JSONPatch.Builder builder;
+    private final Map<JSONValue, Integer> hashes;
+
+    private JSONDiff() {
+        builder = new JSONPatch.Builder();
+        hashes = new IdentityHashMap<>();
+    }
+
+    /**
+     * Create a {@link JSONPatch} that will convert one JSON tree to another.
+     *
+     * @param   a       the original tree
+     * @param   b       the new tree
+     * @return  the patch (with no operations if the trees are equal)
+     */
+    public static JSONPatch diff(JSONValue a, JSONValue b) {
+        JSONDiff diff = new JSONDiff();
+        if (!diff.same(a, b))
+            diff.diffDifferent(JSONPointer.ROOT, a, b);
+        return diff.builder.build();
+    }
+
+    /**
+     * Compare two values that are known to differ.
+     */
+    private void diffDifferent(JSONPointer path, JSONValue a, JSONValue b) {
+        if (a instanceof Map && b instanceof Map)
+            diffObjects(path, (Map<?, ?>)a, (Map<?, ?>)b);
+        else if (a instanceof List && b instanceof List)
+            diffArrays(path, (List<?>)a, (List<?>)b);
+        else
+            builder.replace(path, b);
+    }
+
+    private void diffObjects(JSONPointer path, Map<?, ?> a, Map<?, ?> b) {
+        if (a instanceof JSONMapping && b instanceof JSONMapping) {
+            JSONMapping<?> mappingA = (JSONMapping<?>)a;
+            JSONMapping<?> mappingB = (JSONMapping<?>)b;
+            if (mappingA.sharesShape(mappingB)) {
+                for (int i = 0, n = mappingA.size(); i < n; i++)
+                    diffMember(path, mappingA.keyAt(i), mappingA.valueAt(i), mappingB.valueAt(i));
+                return;
+            }
+            for (int i = 0, n = mappingA.size(); i < n; i++) {
+                String key = mappingA.keyAt(i);
+                if (!mappingB.containsKey(key))
+                    builder.remove(path.child(key));
+            }
+            for (int i = 0, n = mappingB.size(); i < n; i++) {
+                String key = mappingB.keyAt(i);
+                JSONValue value = mappingB.valueAt(i);
+                if (mappingA.containsKey(key))
+                    diffMember(path, key, mappingA.get(key), value);
+                else
+                    builder.add(path.child(key), value);
+            }
+            return;
+        }
+        for (Object key : a.keySet())
+            if (!b.containsKey(key))
+                builder.remove(path.child((String)key));
+        for (Map.Entry<?, ?> entry : b.entrySet()) {
+            String key = (String)entry.getKey();
+            JSONValue value = (JSONValue)entry.getValue();
+            if (a.containsKey(key))
+                diffMember(path, key, (JSONValue)a.get(key), value);
+            else
+                builder.add(path.child(key), value);
+        }
+    }
+
+    private void diffMember(JSONPointer path, String key, JSONValue a, JSONValue b) {
+        if (!same(a, b))
+            diffDifferent(path.child(key), a, b);
+    }
+
+    private void diffArrays(JSONPointer path, List<?> a, List<?> b) {
+        int m = a.size();
+        int n = b.size();
+        int start = 0;
+        while (start < m && start < n && same(element(a, start), element(b, start)))
+            start++;
+        int endA = m;
+        int endB = n;
+        while (endA > start && endB > start && same(element(a, endA - 1), element(b, endB - 1))) {
+            endA--;
+            endB--;
+        }
+        int[] matches = match(a, start, endA, b, start, endB);
+        int i = start;
+        int j = start;
+        int k = start; // the index in the array as modified by the operations so far
+        for (int p = 0; p <= matches.length; p += 2) {
+            int nextA = p < matches.length ? matches[p] : endA;
+            int nextB = p < matches.length ? matches[p + 1] : endB;
+            int deletions = nextA - i;
+            int insertions = nextB - j;
+            int paired = Math.min(deletions, insertions);
+            for (int q = 0; q < paired; q++) {
+                JSONValue elementA = element(a, i + q);
+                JSONValue elementB = element(b, j + q);
+                if (!same(elementA, elementB))
+                    diffDifferent(path.child(k), elementA, elementB);
+                k++;
+            }
+            for (int q = paired; q < deletions; q++)
+                builder.remove(path.child(k));
+            for (int q = paired; q < insertions; q++)
+                builder.add(path.child(k++), element(b, j + q));
+            k++; // the matched element (or past the end, after the last run)
+            i = nextA + 1;
+            j = nextB + 1;
+        }
+    }
+
+    /**
+     * Find a set of matching elements in sections of two arrays, in increasing order in both
+     * arrays.
+     *
+     * @return  the indices of the matching elements, as pairs (index in {@code a}, index in
+     *          {@code b})
+     */
+    private int[] match(List<?> a, int startA, int endA, List<?> b, int startB, int endB) {
+        int m = endA - startA;
+        int n = endB - startB;
+        if (m == 0 || n == 0)
+            return NO_MATCHES;
+        int[] hashA = new int[m];
+        for (int i = 0; i < m; i++)
+            hashA[i] = hash(element(a, startA + i));
+        int[] hashB = new int[n];
+        for (int j = 0; j < n; j++)
+            hashB[j] = hash(element(b, startB + j));
+        return (long)m * n <= LCS_LIMIT ? lcs(a, startA, hashA, b, startB, hashB) :
+                keyedMatch(a, startA, hashA, b, startB, hashB);
+    }
+
+    private int[] lcs(List<?> a, int startA, int[] hashA, List<?> b, int startB, int[] hashB) {
+        int m = hashA.length;
+        int n = hashB.length;
+        int width = n + 1;
+        int[] lengths = new int[(m + 1) * width]; // lengths[i * width + j] = LCS of a[i..], b[j..]
+        for (int i = m - 1; i >= 0; i--) {
+            for (int j = n - 1; j >= 0; j--) {
+                lengths[i * width + j] = hashA[i] == hashB[j] &&
+                        same(element(a, startA + i), element(b, startB + j)) ?
+                        lengths[(i + 1) * width + j + 1] + 1 :
+                        Math.max(lengths[(i + 1) * width + j], lengths[i * width + j + 1]);
+            }
+        }
+        int[] result = new int[lengths[0] * 2];
+        int p = 0;
+        int i = 0;
+        int j = 0;
+        while (i < m && j < n) {
+            if (hashA[i] == hashB[j] && lengths[i * width + j] == lengths[(i + 1) * width + j + 1] + 1 &&
+                    same(element(a, startA + i), element(b, startB + j))) {
+                result[p++] = startA + i++;
+                result[p++] = startB + j++;
+            }
+            else if (lengths[(i + 1) * width + j] >= lengths[i * width + j + 1])
+                i++;
+            else
+                j++;
+        }
+        return result;
+    }
+
+    private int[] keyedMatch(List<?> a, int startA, int[] hashA, List<?> b, int startB, int[] hashB) {
+        Map<Integer, List<Integer>> candidates = new HashMap<>();
+        for (int i = 0; i < hashA.length; i++)
+            candidates.computeIfAbsent(hashA[i], h -> new ArrayList<>(1)).add(i);
+        int n = hashB.length;
+        int[] matchA = new int[n]; // for each element of b, the matching element of a, or -1
+        for (int j = 0; j < n; j++) {
+            matchA[j] = -1;
+            List<Integer> list = candidates.get(hashB[j]);
+            if (list != null) {
+                for (int q = 0; q < list.size(); q++) {
+                    int i = list.get(q);
+                    if (same(element(a, startA + i), element(b, startB + j))) {
+                        matchA[j] = i;
+                        list.remove(q);
+                        break;
+                    }
+                }
+            }
+        }
+        // longest increasing subsequence of matchA (ignoring unmatched elements)
+        int[] tails = new int[n]; // index in b of the last element of each increasing run
+        int[] previous = new int[n];
+        int length = 0;
+        for (int j = 0; j < n; j++) {
+            int i = matchA[j];
+            if (i < 0)
+                continue;
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (matchA[tails[mid]] < i)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+            previous[j] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = j;
+            if (low == length)
+                length++;
+        }
+        int[] result = new int[length * 2];
+        for (int p = length - 1, j = length > 0 ? tails[length - 1] : -1; p >= 0; p--) {
+            result[p * 2] = startA + matchA[j];
+            result[p * 2 + 1] = startB + j;
+            j = previous[j];
+        }
+        return result;
+    }
+
+    /**
+     * Test whether two values are equal, comparing hash codes first.
+     */
+    private boolean same(JSONValue a, JSONValue b) {
+        if (a == b)
+            return true;
+        if (a == null || b == null)
+            return false;
+        if (!(a instanceof JSONComposite) || !(b instanceof JSONComposite))
+            return a.equals(b);
+        return hash(a) == hash(b) && a.equals(b);
+    }
+
+    /**
+     * Get the hash code of a value (the same value as {@link Object#hashCode()}), using the
+     * cached value for frozen composites, and calculating and caching the value (along with the
+     * values for all nested composites) for other composites.
+     */
+    private int hash(JSONValue value) {
+        if (value == null)
+            return 0;
+        if (!(value instanceof JSONComposite) || ((JSONComposite)value).isFrozen())
+            return value.hashCode();
+        Integer cached = hashes.get(value);
+        if (cached != null)
+            return cached;
+        int result = 0;
+        if (value instanceof JSONMapping) {
+            JSONMapping<?> mapping = (JSONMapping<?>)value;
+            for (int i = 0, n = mapping.size(); i < n; i++) // same as Objects.hash(key, value)
+                result ^= (31 + mapping.keyAt(i).hashCode()) * 31 + hash(mapping.valueAt(i));
+        }
+        else if (value instanceof JSONPrimitiveArray && ((JSONPrimitiveArray)value).isPrimitive())
+            result = value.hashCode();
+        else if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            for (int i = 0, n = list.size(); i < n; i++)
+                result ^= hash(element(list, i));
+        }
+        else
+            result = value.hashCode();
+        hashes.put(value, result);
+        return result;
+    }
+
+    private static JSONValue element(List<?> list, int index) {
+        return (JSONValue)list.get(index);
+    }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * @(#) JSONDoubleArray.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A compact form of {@link JSONArray} holding {@link JSONDouble} values in an array of
+ * {@code double}.  The values are returned as {@link JSONDouble} objects, created as required.
+ * If any other type of value is stored in the array, it converts itself to the standard form (see
+ * {@link JSONPrimitiveArray}).
+ *
+ * @author Peter Wall
+ */
+public class JSONDoubleArray extends JSONPrimitiveArray {
+
+    private static final long serialVersionUID = -812335602871946415L;
+
+    private static final double[] EMPTY = {};
+
+    private double[] values;
+
+    /**
+     * Construct an empty {@code JSONDoubleArray}.
+     */
+    public JSONDoubleArray() {
+        this(EMPTY, 0);
+    }
+
+    /**
+     * Construct a {@code JSONDoubleArray} holding a copy of the supplied values.
+     *
+     * @param   values  the values
+     */
+    public JSONDoubleArray(double ... values) {
+        this(values.clone(), values.length);
+    }
+
+    /**
+     * Construct a {@code JSONDoubleArray} using the supplied array (not copied) as storage.
+     *
+     * @param   values  the array
+     * @param   count   the number of values in use
+     */
+    JSONDoubleArray(double[] values, int count) {
+        super(count);
+        this.values = values;
+    }
+
+    @Override
+    public boolean isPrimitive() {
+        return values != null;
+    }
+
+    @Override
+    protected JSONValue primitiveGet(int index) {
+        return JSONDouble.valueOf(values[index]);
+    }
+
+    @Override
+    protected boolean accepts(JSONValue value) {
+        return value instanceof JSONDouble;
+    }
+
+    @Override
+    protected void primitiveSet(int index, JSONValue value) {
+        values[index] = ((Number)value).doubleValue();
+    }
+
+    @Override
+    protected void primitiveOpen(int index) {
+        if (count == values.length)
+            values = Arrays.copyOf(values, count + (count >> 1) + 4);
+        System.arraycopy(values, index, values, index + 1, count - index);
+    }
+
+    @Override
+    protected void primitiveClose(int index) {
+        System.arraycopy(values, index + 1, values, index, count - index - 1);
+    }
+
+    @Override
+    protected void release() {
+        values = null;
+    }
+
+    /**
+     * Add a {@code double} value to the {@code JSONDoubleArray} (without creating a
+     * {@link JSONDouble}, if the array is still in primitive form).
+     *
+     * @param   value   the value
+     * @return          {@code this} (for chaining)
+     */
+    @Override
+    public JSONDoubleArray addValue(double value) {
+        checkMutable();
+        if (isPrimitive()) {
+            primitiveOpen(count);
+            values[count++] = value;
+            modCount++;
+        }
+        else
+            super.addValue(value);
+        return this;
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if (!isPrimitive())
+            return super.getDouble(index);
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    long sumLong(int from, int to) {
+        if (!isPrimitive())
+            return super.sumLong(from, to);
+        double[] array = values;
+        long result = 0;
+        for (int i = from; i < to; i++)
+            result += (long)array[i];
+        return result;
+    }
+
+    @Override
+    void summarize(int from, int to, Summary summary) {
+        if (!isPrimitive() || from >= to) {
+            super.summarize(from, to, summary);
+            return;
+        }
+        double[] array = values;
+        double sum = 0;
+        double min = summary.min;
+        double max = summary.max;
+        for (int i = from; i < to; i++) {
+            double value = array[i];
+            sum += value;
+            if (value < min)
+                min = value;
+            if (value > max)
+                max = value;
+        }
+        summary.count += to - from;
+        summary.sum += sum;
+        summary.min = min;
+        summary.max = max;
+    }
+
+    @Override
+    void histogram(int from, int to, double min, double max, int[] counts) {
+        if (!isPrimitive()) {
+            super.histogram(from, to, min, max, counts);
+            return;
+        }
+        double[] array = values;
+        for (int i = from; i < to; i++)
+            addToHistogram(array[i], min, max, counts);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+        return isPrimitive() ? Arrays.copyOf(values, count) : super.toDoubleArray();
+    }
+
+    @Override
+    public void trimToSize() {
+        if (isPrimitive())
+            values = Arrays.copyOf(values, count);
+        else
+            super.trimToSize();
+    }
+
+    @Override
+    public void appendJSON(Appendable a) throws IOException {
+        if (!isPrimitive() || isFrozen()) {
+            super.appendJSON(a);
+            return;
+        }
+        a.append('[');
+        for (int i = 0, n = count; i < n; i++) {
+            if (i > 0)
+                a.append(',');
+            a.append(String.valueOf(values[i]));
+        }
+        a.append(']');
+    }
+
+    @Override
+    public int jsonLength() {
+        if (!isPrimitive() || isFrozen())
+            return super.jsonLength();
+        int n = count;
+        int result = n > 0 ? n + 1 : 2;
+        for (int i = 0; i < n; i++)
+            result += String.valueOf(values[i]).length();
+        return result;
+    }
+
+    /**
+     * Create a shallow copy of the {@code JSONDoubleArray}.  The copy is not frozen, even if the
+     * original is.
+     *
+     * @return  the copy
+     */
+    @Override
+    public JSONDoubleArray clone() {
+        JSONDoubleArray result = (JSONDoubleArray)super.clone();
+        if (values != null)
+            result.values = Arrays.copyOf(values, count);
+        return result;
+    }
+
+    /**
+     * Create a deep copy of the {@code JSONDoubleArray}.  The copy is not frozen, even if the
+     * original is.
+     *
+     * @return  the copy
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONDoubleArray deepCopy() {
+        return (JSONDoubleArray)super.deepCopy();
+    }
+
+}
@@ -0,0 +1,339 @@
+/*
+ * @(#) JSONFingerprint.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Content fingerprints for JSON trees.  A fingerprint is a 64-bit value calculated from the
+ * content of a {@link JSONValue}, such that values that are equal (by
+ * {@link Object#equals(Object) equals()}) have the same fingerprint, and values that are not
+ * equal are extremely unlikely to.  Unlike the hash code, the fingerprint of an array depends
+ * on the order of the elements, and the fingerprint of a number depends on its numeric value
+ * only, so that for example {@code JSONInteger(1)}, {@code JSONDouble(1.0)} and
+ * {@code JSONDecimal("1.00")} all have the same fingerprint (following the rules of
+ * {@link JSONNumberValue#valueEquals(BigDecimal) valueEquals()}; a {@code double} is treated as
+ * the shortest decimal that converts to it).  The fingerprint of an object does not depend on
+ * the order of the properties.
+ *
+ * <p>The fingerprint is stable &ndash; it does not depend on the JVM, the platform or the
+ * identity of any object &ndash; so it may be stored or shared between systems, for example as
+ * a cache key.  It is not a cryptographic hash, and it should not be relied on where an
+ * adversary may construct colliding inputs.</p>
+ *
+ * <p>The fingerprint of a composite is calculated from the fingerprints of its members, and
+ * frozen and persistent composites cache their fingerprint (the persistent object also caches
+ * the fingerprint of each property, and the persistent array the fingerprint of each block of
+ * {@value #BLOCK_SIZE} elements).  A new version of a persistent composite (or a mutable
+ * composite holding frozen members) shares the cached fingerprints of its unchanged members,
+ * so re-calculating the fingerprint after a change visits only the changed path.  The
+ * fingerprint of a mutable composite is not cached, because a change to a nested composite
+ * is not visible to the composite that contains it.</p>
+ *
+ * @author Peter Wall
+ */
+public class JSONFingerprint {
+
+    /** The number of array elements combined into each intermediate fingerprint. */
+    static final int BLOCK_SIZE = 32;
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    private static final long NULL_SEED = P4;
+    private static final long FALSE_SEED = P4 + P1;
+    private static final long TRUE_SEED = P4 + 2 * P1;
+    private static final long STRING_SEED = P4 + 3 * P1;
+    private static final long INTEGER_SEED = P4 + 4 * P1;
+    private static final long DECIMAL_SEED = P4 + 5 * P1;
+    private static final long DOUBLE_SEED = P4 + 6 * P1;
+    private static final long ARRAY_SEED = P4 + 7 * P1;
+    private static final long OBJECT_SEED = P4 + 8 * P1;
+    private static final long ENTRY_SEED = P4 + 9 * P1;
+    private static final long OTHER_SEED = P4 + 10 * P1;
+    private static final long BLOCK_SEED = P4 + 11 * P1;
+
+    private static final long NULL_FINGERPRINT = avalanche(NULL_SEED);
+    private static final long FALSE_FINGERPRINT = avalanche(FALSE_SEED);
+    private static final long TRUE_FINGERPRINT = avalanche(TRUE_SEED);
+
+    private static final double LONG_LIMIT = 0x1p63;
+    private static final double EXACT_LIMIT = 0x1p50;
+
+    private static final double[] powersOfTen = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+            1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16 };
+
+    private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+    private JSONFingerprint() {
+    }
+
+    /**
+     * Get the fingerprint of a {@link JSONValue}.
+     *
+     * @param   value   the value (may be {@code null})
+     * @return  the fingerprint
+     */
+    public static long of(JSONValue value) {
+        if (value == null)
+            return NULL_FINGERPRINT;
+        if (value instanceof JSONString)
+            return ofString(((JSONString)value).getValue());
+        if (value instanceof JSONMapping<?>)
+            return ((JSONMapping<?>)value).fingerprint();
+        if (value instanceof JSONSequence<?>)
+            return ((JSONSequence<?>)value).fingerprint();
+        if (value instanceof JSONPersistentObject)
+            return ((JSONPersistentObject)value).fingerprint();
+        if (value instanceof JSONPersistentArray)
+            return ((JSONPersistentArray)value).fingerprint();
+        if (value instanceof JSONInteger || value instanceof JSONLong || value instanceof JSONZero)
+            return ofLong(((JSONNumberValue)value).longValue());
+        if (value instanceof JSONDouble || value instanceof JSONFloat)
+            return ofDouble(((JSONNumberValue)value).doubleValue());
+        if (value instanceof JSONDecimal)
+            return ofDecimal(((JSONDecimal)value).getValue());
+        if (value instanceof JSONBoolean)
+            return ((JSONBoolean)value).booleanValue() ? TRUE_FINGERPRINT : FALSE_FINGERPRINT;
+        return avalanche(round(OTHER_SEED, ofString(value.toJSON())));
+    }
+
+    /**
+     * Convert a fingerprint to a string of 16 hexadecimal digits.
+     *
+     * @param   fingerprint the fingerprint
+     * @return  the string
+     */
+    public static String toHex(long fingerprint) {
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = hexDigits[(int)fingerprint & 0xF];
+            fingerprint >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Get the fingerprint of a {@link JSONSequence}.  The elements are combined in blocks of
+     * {@value #BLOCK_SIZE} (see {@link #ofBlock(List, int, int)}), and the block fingerprints
+     * are then combined in order (see {@link #ofArray(long[], int)}).
+     *
+     * @param   list    the array
+     * @return  the fingerprint
+     */
+    static long ofArray(List<? extends JSONValue> list) {
+        int n = list.size();
+        long result = ARRAY_SEED + n * P5;
+        for (int i = 0; i < n; i += BLOCK_SIZE)
+            result = round(result, ofBlock(list, i, Math.min(i + BLOCK_SIZE, n)));
+        return avalanche(result);
+    }
+
+    /**
+     * Get the fingerprint of an array, given the fingerprints of the blocks of
+     * {@value #BLOCK_SIZE} elements.  This allows a persistent array to cache the fingerprint
+     * of each block, so that a change to one element requires the re-calculation of only one
+     * block.
+     *
+     * @param   blocks  the block fingerprints
+     * @param   size    the number of elements in the array
+     * @return  the fingerprint
+     */
+    static long ofArray(long[] blocks, int size) {
+        long result = ARRAY_SEED + size * P5;
+        for (long block : blocks)
+            result = round(result, block);
+        return avalanche(result);
+    }
+
+    /**
+     * Get the fingerprint of a block of elements of a {@link List}.
+     *
+     * @param   list    the list
+     * @param   from    the index of the first element
+     * @param   to      the index after the last element
+     * @return  the fingerprint
+     */
+    static long ofBlock(List<? extends JSONValue> list, int from, int to) {
+        long result = BLOCK_SEED;
+        if (list instanceof JSONPrimitiveArray && ((JSONPrimitiveArray)list).isPrimitive()) {
+            JSONPrimitiveArray array = (JSONPrimitiveArray)list;
+            if (array instanceof JSONDoubleArray) {
+                for (int i = from; i < to; i++)
+                    result = round(result, ofDouble(array.getDouble(i)));
+            }
+            else {
+                for (int i = from; i < to; i++)
+                    result = round(result, ofLong(array.getLong(i)));
+            }
+        }
+        else {
+            for (int i = from; i < to; i++)
+                result = round(result, of(list.get(i)));
+        }
+        return avalanche(result);
+    }
+
+    /**
+     * Get the fingerprint of a block of elements held in an array.
+     *
+     * @param   block   the array
+     * @param   count   the number of elements
+     * @return  the fingerprint
+     */
+    static long ofBlock(Object[] block, int count) {
+        long result = BLOCK_SEED;
+        for (int i = 0; i < count; i++)
+            result = round(result, of((JSONValue)block[i]));
+        return avalanche(result);
+    }
+
+    /**
+     * Get the fingerprint of a property of an object.  The fingerprint of the object is
+     * calculated from the sum of the fingerprints of its properties (see
+     * {@link #ofObject(long, int)}).
+     *
+     * @param   key     the property name
+     * @param   value   the property value
+     * @return  the fingerprint
+     */
+    static long ofEntry(String key, JSONValue value) {
+        return avalanche(round(round(ENTRY_SEED, ofString(key)), of(value)));
+    }
+
+    /**
+     * Get the fingerprint of an object, given the sum of the fingerprints of its properties
+     * (the addition makes the result independent of the order of the properties).
+     *
+     * @param   sum     the sum of the property fingerprints
+     * @param   size    the number of properties
+     * @return  the fingerprint
+     */
+    static long ofObject(long sum, int size) {
+        return avalanche(round(OBJECT_SEED + size * P5, sum));
+    }
+
+    private static long ofString(String string) {
+        int n = string.length();
+        long result = STRING_SEED + n * P5;
+        int i = 0;
+        for (int m = n - 3; i < m; i += 4)
+            result = round(result, string.charAt(i) | (long)string.charAt(i + 1) << 16 |
+                    (long)string.charAt(i + 2) << 32 | (long)string.charAt(i + 3) << 48);
+        if (i < n) {
+            long tail = 0;
+            for (int shift = 0; i < n; i++, shift += 16)
+                tail |= (long)string.charAt(i) << shift;
+            result = round(result, tail);
+        }
+        return avalanche(result);
+    }
+
+    private static long ofLong(long value) {
+        return avalanche(round(INTEGER_SEED, value));
+    }
+
+    private static long ofDouble(double value) {
+        // every integral double in the range of long converts exactly (as used by valueEquals(long))
+        if (value == Math.rint(value) && value >= -LONG_LIMIT && value < LONG_LIMIT)
+            return ofLong((long)value);
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return avalanche(round(DOUBLE_SEED, Double.doubleToLongBits(value)));
+        // find the shortest decimal that converts to the same double (as used by valueEquals)
+        for (int scale = 1; scale < powersOfTen.length; scale++) {
+            double power = powersOfTen[scale];
+            double unscaled = Math.rint(value * power);
+            if (Math.abs(unscaled) >= EXACT_LIMIT)
+                break;
+            if (unscaled / power == value)
+                return ofScaled((long)unscaled, scale);
+        }
+        return ofDecimal(BigDecimal.valueOf(value));
+    }
+
+    private static long ofDecimal(BigDecimal value) {
+        if (value.signum() == 0)
+            return ofLong(0);
+        BigInteger unscaled = value.unscaledValue();
+        int scale = value.scale();
+        if (unscaled.bitLength() >= 64) {
+            value = value.stripTrailingZeros();
+            unscaled = value.unscaledValue();
+            scale = value.scale();
+            if (unscaled.bitLength() >= 64) {
+                long result = round(DECIMAL_SEED, scale);
+                byte[] bytes = unscaled.toByteArray();
+                for (int i = 0, n = bytes.length; i < n; i += 8) {
+                    long word = 0;
+                    for (int j = i, m = Math.min(i + 8, n); j < m; j++)
+                        word = word << 8 | (bytes[j] & 0xFF);
+                    result = round(result, word);
+                }
+                return avalanche(round(result, bytes.length));
+            }
+        }
+        long longUnscaled = unscaled.longValue();
+        while (longUnscaled % 10 == 0) {
+            longUnscaled /= 10;
+            scale--;
+        }
+        return ofScaled(longUnscaled, scale);
+    }
+
+    private static long ofScaled(long unscaled, int scale) {
+        if (scale <= 0) {
+            long integer = unscaled;
+            int i = scale;
+            while (i < 0 && integer <= Long.MAX_VALUE / 10 && integer >= Long.MIN_VALUE / 10) {
+                integer *= 10;
+                i++;
+            }
+            if (i == 0)
+                return ofLong(integer);
+        }
+        return avalanche(round(round(DECIMAL_SEED, scale), unscaled));
+    }
+
+    private static long round(long accumulator, long value) {
+        accumulator += value * P2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * P1;
+    }
+
+    private static long avalanche(long value) {
+        value ^= value >>> 33;
+        value *= P2;
+        value ^= value >>> 29;
+        value *= P3;
+        return value ^ value >>> 32;
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONFloat.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -104,6 +104,15 @@ public class JSONFloat extends JSONNumberValue {
         a.append(toJSON());
     }
 
+    @Override
+    public int jsonLength() {
+        // integral values below 10^7 are output as the digits followed by ".0"
+        if (value == Math.rint(value) && Math.abs(value) < 1e7)
+            return JSON.longLength((long)value) +
+                    (value == 0 && Float.floatToRawIntBits(value) < 0 ? 3 : 2);
+        return toJSON().length();
+    }
+
     @Override
     public String toString() {
         return toJSON();
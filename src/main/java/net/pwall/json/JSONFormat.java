@@ -2,7 +2,7 @@
  * @(#) JSONFormat.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -26,11 +26,23 @@
 package net.pwall.json;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Set;
 
 import net.pwall.util.Strings;
 
 /**
  * Class to hold formatting options for JSON output.
+ *
+ * <p>As well as formatting a {@link JSONValue}, this class can reformat JSON text directly from
+ * a {@link Reader} or {@link InputStream} (see {@link #reformat(Reader, Appendable)} and
+ * {@link #minify(Reader, Appendable)}).  In this case the input is processed token by token,
+ * without building a tree of {@link JSONValue} objects, so the memory required does not depend
+ * on the size of the input.</p>
  */
 public class JSONFormat {
 
@@ -84,7 +96,7 @@ public class JSONFormat {
     }
 
     public String format(JSONValue value) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(length(value));
         try {
             appendTo(sb, value);
         }
@@ -100,6 +112,275 @@ public class JSONFormat {
             a.append(LINE_TERMINATOR);
     }
 
+    /**
+     * Get the length of the formatted representation of a {@link JSONValue}, as it would be
+     * output by {@link #appendTo(Appendable, JSONValue)}.
+     *
+     * @param   value   the {@link JSONValue}
+     * @return  the length of the formatted representation
+     */
+    public int length(JSONValue value) {
+        int result = length(value, currentIndentation, currentIndentation);
+        if (newlineRequired)
+            result += LINE_TERMINATOR.length();
+        return result;
+    }
+
+    private int length(JSONValue value, int indent, int initialIndex) {
+        int result = initialIndex;
+        if (value instanceof JSONMapping) {
+            JSONMapping<? extends JSONValue> mapping = (JSONMapping<? extends JSONValue>)value;
+            int n = mapping.size();
+            result += 2;
+            if (n > 0) {
+                indent += indentationIncrement;
+                result += (n + 1) * LINE_TERMINATOR.length() + n * (indent + 1) + n - 1 +
+                        indent - indentationIncrement;
+                for (int i = 0; i < n; i++)
+                    result += JSON.stringLength(mapping.keyAt(i)) +
+                            length(mapping.valueAt(i), indent, 1);
+            }
+        }
+        else if (value instanceof JSONSequence) {
+            JSONSequence<? extends JSONValue> sequence = (JSONSequence<? extends JSONValue>)value;
+            int n = sequence.size();
+            result += 2;
+            if (n > 0) {
+                indent += indentationIncrement;
+                result += (n + 1) * LINE_TERMINATOR.length() + n - 1 +
+                        indent - indentationIncrement;
+                for (int i = 0; i < n; i++)
+                    result += length(sequence.get(i), indent, indent);
+            }
+        }
+        else
+            result += JSON.jsonLength(value);
+        return result;
+    }
+
+    /**
+     * Reformat JSON text read from a {@link Reader}, appending the result in the layout
+     * described by this {@code JSONFormat} to an {@link Appendable}.  The input is checked for
+     * validity as it is read, and any errors are reported using the same messages as
+     * {@link JSON#parse(CharSequence)}; in that case the output will be incomplete.  String
+     * values and numbers are copied unchanged from the input.
+     *
+     * @param   rdr     the {@link Reader}
+     * @param   a       the {@link Appendable}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     */
+    public void reformat(Reader rdr, Appendable a) throws IOException {
+        JSONReader reader = new JSONReader(rdr);
+        copyValue(reader, a, null, 0, currentIndentation, currentIndentation, true,
+                new StringBuilder());
+        if (!reader.skipSpaces().isExhausted())
+            throw new JSONException(JSON.EXCESS_CHARS);
+        if (newlineRequired)
+            a.append(LINE_TERMINATOR);
+    }
+
+    /**
+     * Reformat JSON text read from an {@link InputStream}, appending the result in the layout
+     * described by this {@code JSONFormat} to an {@link Appendable}.
+     *
+     * @param   is      the {@link InputStream}
+     * @param   a       the {@link Appendable}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     * @see     #reformat(Reader, Appendable)
+     */
+    public void reformat(InputStream is, Appendable a) throws IOException {
+        try (Reader rdr = new InputStreamReader(is)) {
+            reformat(rdr, a);
+        }
+    }
+
+    /**
+     * Reformat JSON text read from an {@link InputStream}, specifying the character set, and
+     * append the result in the layout described by this {@code JSONFormat} to an
+     * {@link Appendable}.
+     *
+     * @param   is      the {@link InputStream}
+     * @param   charSet the character set
+     * @param   a       the {@link Appendable}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     * @see     #reformat(Reader, Appendable)
+     */
+    public void reformat(InputStream is, Charset charSet, Appendable a) throws IOException {
+        try (Reader rdr = new InputStreamReader(is, charSet)) {
+            reformat(rdr, a);
+        }
+    }
+
+    /**
+     * Copy JSON text read from a {@link Reader} to an {@link Appendable}, removing all
+     * insignificant whitespace.  The result is the same as the output of
+     * {@link JSONValue#toJSON()}, except that string values and numbers are copied unchanged
+     * from the input.  The input is checked for validity as it is read, and any errors are
+     * reported using the same messages as {@link JSON#parse(CharSequence)}.
+     *
+     * @param   rdr     the {@link Reader}
+     * @param   a       the {@link Appendable}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     */
+    public static void minify(Reader rdr, Appendable a) throws IOException {
+        JSONReader reader = new JSONReader(rdr);
+        instance.copyValue(reader, a, null, 0, 0, 0, false, new StringBuilder());
+        if (!reader.skipSpaces().isExhausted())
+            throw new JSONException(JSON.EXCESS_CHARS);
+    }
+
+    /**
+     * Copy JSON text read from an {@link InputStream} to an {@link Appendable}, removing all
+     * insignificant whitespace.
+     *
+     * @param   is      the {@link InputStream}
+     * @param   a       the {@link Appendable}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     * @see     #minify(Reader, Appendable)
+     */
+    public static void minify(InputStream is, Appendable a) throws IOException {
+        try (Reader rdr = new InputStreamReader(is)) {
+            minify(rdr, a);
+        }
+    }
+
+    /**
+     * Copy JSON text read from an {@link InputStream}, specifying the character set, to an
+     * {@link Appendable}, removing all insignificant whitespace.
+     *
+     * @param   is      the {@link InputStream}
+     * @param   charSet the character set
+     * @param   a       the {@link Appendable}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     * @see     #minify(Reader, Appendable)
+     */
+    public static void minify(InputStream is, Charset charSet, Appendable a) throws IOException {
+        try (Reader rdr = new InputStreamReader(is, charSet)) {
+            minify(rdr, a);
+        }
+    }
+
+    private void copyValue(JSONReader reader, Appendable a, JSONPointer.Location location, int depth,
+            int indent, int initialIndex, boolean pretty, StringBuilder sb) throws IOException {
+        if (depth > JSON.getMaxDepth())
+            throw new JSONException(JSON.MAX_DEPTH_EXCEEDED);
+        reader.skipSpaces();
+        if (pretty)
+            for (int i = initialIndex; i > 0; --i)
+                a.append(' ');
+
+        // check for object
+
+        if (reader.match('{')) {
+            a.append('{');
+            if (!reader.skipSpaces().match('}')) {
+                indent += indentationIncrement;
+                newLine(a, pretty);
+                Set<String> keys = new HashSet<>();
+                JSONPointer.Location child = new JSONPointer.Location(location);
+                for (;;) {
+                    if (!reader.match('"'))
+                        throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_KEY, location));
+                    if (pretty)
+                        for (int j = indent; j > 0; --j)
+                            a.append(' ');
+                    sb.setLength(0);
+                    reader.copyString(a, sb, location);
+                    String key = sb.toString();
+                    if (!keys.add(key))
+                        throw new JSONException(JSON.pointerMessage(JSON.DUPLICATE_KEY + ": \"" +
+                                key + '"', location));
+                    if (!reader.skipSpaces().match(':'))
+                        throw new JSONException(JSON.pointerMessage(JSON.MISSING_COLON, location));
+                    a.append(':');
+                    copyValue(reader, a, child.key(key), depth + 1, indent, 1, pretty, sb);
+                    if (!reader.skipSpaces().match(','))
+                        break;
+                    a.append(',');
+                    newLine(a, pretty);
+                    reader.skipSpaces();
+                }
+                if (!reader.match('}'))
+                    throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACE,
+                            location));
+                newLine(a, pretty);
+                indent -= indentationIncrement;
+                if (pretty)
+                    for (int j = indent; j > 0; --j)
+                        a.append(' ');
+            }
+            a.append('}');
+            return;
+        }
+
+        // check for array
+
+        if (reader.match('[')) {
+            a.append('[');
+            if (!reader.skipSpaces().match(']')) {
+                indent += indentationIncrement;
+                newLine(a, pretty);
+                int i = 0;
+                JSONPointer.Location child = new JSONPointer.Location(location);
+                for (;;) {
+                    copyValue(reader, a, child.index(i++), depth + 1, indent, indent, pretty,
+                            sb);
+                    if (!reader.skipSpaces().match(','))
+                        break;
+                    a.append(',');
+                    newLine(a, pretty);
+                }
+                if (!reader.match(']'))
+                    throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACKET,
+                            location));
+                newLine(a, pretty);
+                indent -= indentationIncrement;
+                if (pretty)
+                    for (int j = indent; j > 0; --j)
+                        a.append(' ');
+            }
+            a.append(']');
+            return;
+        }
+
+        // check for string
+
+        if (reader.match('"')) {
+            reader.copyString(a, null, location);
+            return;
+        }
+
+        // check for number
+
+        sb.setLength(0);
+        if (reader.readNumber(sb, location)) {
+            a.append(sb);
+            return;
+        }
+
+        // check for keywords (true, false, null)
+
+        if (reader.matchName("true"))
+            a.append("true");
+        else if (reader.matchName("false"))
+            a.append("false");
+        else if (reader.matchName("null"))
+            a.append("null");
+        else
+            throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_SYNTAX, location));
+    }
+
+    private static void newLine(Appendable a, boolean pretty) throws IOException {
+        if (pretty)
+            a.append(LINE_TERMINATOR);
+    }
+
     private void appendTo(Appendable a, JSONValue value, int indent, int initialIndex)
             throws IOException {
         for (int i = initialIndex; i > 0; --i)
@@ -114,13 +395,12 @@ public class JSONFormat {
                 a.append(LINE_TERMINATOR);
                 int i = 0;
                 for (;;) {
-                    JSONMapping.Entry<String, ? extends JSONValue> entry = mapping.getEntry(i++);
                     for (int j = indent; j > 0; --j)
                         a.append(' ');
                     a.append('"');
-                    Strings.appendEscaped(a, entry.getKey(), JSON.charMapper);
+                    Strings.appendEscaped(a, mapping.keyAt(i), JSON.charMapper);
                     a.append('"').append(':');
-                    appendTo(a, entry.getValue(), indent, 1);
+                    appendTo(a, mapping.valueAt(i++), indent, 1);
                     if (i >= mapping.size())
                         break;
                     a.append(',');
@@ -0,0 +1,48 @@
+/*
+ * @(#) JSONFrozenCache.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.Serializable;
+
+/**
+ * The values cached by a frozen {@link JSONMapping} or {@link JSONSequence}.  The caches are
+ * held in a separate object, allocated only when the composite is frozen, so that they do not
+ * add to the size of mutable composites; a composite is frozen if and only if it has a
+ * {@code JSONFrozenCache}.  The cached values are not serialized.
+ *
+ * @author Peter Wall
+ */
+final class JSONFrozenCache implements Serializable {
+
+    private static final long serialVersionUID = 5617285083342907817L;
+
+    transient int hash;
+    transient long fingerprint;
+    transient int length;
+    transient String json;
+    transient int[] sortedOrder;
+
+}
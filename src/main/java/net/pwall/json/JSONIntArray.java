@@ -0,0 +1,268 @@
+/*
+ * @(#) JSONIntArray.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.pwall.util.Strings;
+
+/**
+ * A compact form of {@link JSONArray} holding {@link JSONInteger} values in an array of
+ * {@code int}.  The values are returned as {@link JSONInteger} objects, created as required.
+ * If any other type of value is stored in the array, it converts itself to the standard form (see
+ * {@link JSONPrimitiveArray}).
+ *
+ * @author Peter Wall
+ */
+public class JSONIntArray extends JSONPrimitiveArray {
+
+    private static final long serialVersionUID = -3324416097508738471L;
+
+    private static final int[] EMPTY = {};
+
+    private int[] values;
+
+    /**
+     * Construct an empty {@code JSONIntArray}.
+     */
+    public JSONIntArray() {
+        this(EMPTY, 0);
+    }
+
+    /**
+     * Construct a {@code JSONIntArray} holding a copy of the supplied values.
+     *
+     * @param   values  the values
+     */
+    public JSONIntArray(int ... values) {
+        this(values.clone(), values.length);
+    }
+
+    /**
+     * Construct a {@code JSONIntArray} using the supplied array (not copied) as storage.
+     *
+     * @param   values  the array
+     * @param   count   the number of values in use
+     */
+    JSONIntArray(int[] values, int count) {
+        super(count);
+        this.values = values;
+    }
+
+    @Override
+    public boolean isPrimitive() {
+        return values != null;
+    }
+
+    @Override
+    protected JSONValue primitiveGet(int index) {
+        return JSONInteger.valueOf(values[index]);
+    }
+
+    @Override
+    protected boolean accepts(JSONValue value) {
+        return value instanceof JSONInteger || value instanceof JSONZero;
+    }
+
+    @Override
+    protected void primitiveSet(int index, JSONValue value) {
+        values[index] = ((Number)value).intValue();
+    }
+
+    @Override
+    protected void primitiveOpen(int index) {
+        if (count == values.length)
+            values = Arrays.copyOf(values, count + (count >> 1) + 4);
+        System.arraycopy(values, index, values, index + 1, count - index);
+    }
+
+    @Override
+    protected void primitiveClose(int index) {
+        System.arraycopy(values, index + 1, values, index, count - index - 1);
+    }
+
+    @Override
+    protected void release() {
+        values = null;
+    }
+
+    /**
+     * Add an {@code int} value to the {@code JSONIntArray} (without creating a
+     * {@link JSONInteger}, if the array is still in primitive form).
+     *
+     * @param   value   the value
+     * @return          {@code this} (for chaining)
+     */
+    @Override
+    public JSONIntArray addValue(int value) {
+        checkMutable();
+        if (isPrimitive()) {
+            primitiveOpen(count);
+            values[count++] = value;
+            modCount++;
+        }
+        else
+            super.addValue(value);
+        return this;
+    }
+
+    @Override
+    public int getInt(int index) {
+        if (!isPrimitive())
+            return super.getInt(index);
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public long getLong(int index) {
+        if (!isPrimitive())
+            return super.getLong(index);
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    public double getDouble(int index) {
+        if (!isPrimitive())
+            return super.getDouble(index);
+        checkIndex(index);
+        return values[index];
+    }
+
+    @Override
+    long sumLong(int from, int to) {
+        if (!isPrimitive())
+            return super.sumLong(from, to);
+        int[] array = values;
+        long result = 0;
+        for (int i = from; i < to; i++)
+            result += array[i];
+        return result;
+    }
+
+    @Override
+    void summarize(int from, int to, Summary summary) {
+        if (!isPrimitive() || from >= to) {
+            super.summarize(from, to, summary);
+            return;
+        }
+        int[] array = values;
+        long sum = 0;
+        int min = array[from];
+        int max = min;
+        for (int i = from; i < to; i++) {
+            int value = array[i];
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        summary.count += to - from;
+        summary.sum += sum;
+        if (min < summary.min)
+            summary.min = min;
+        if (max > summary.max)
+            summary.max = max;
+    }
+
+    @Override
+    void histogram(int from, int to, double min, double max, int[] counts) {
+        if (!isPrimitive()) {
+            super.histogram(from, to, min, max, counts);
+            return;
+        }
+        int[] array = values;
+        for (int i = from; i < to; i++)
+            addToHistogram(array[i], min, max, counts);
+    }
+
+    @Override
+    public int[] toIntArray() {
+        return isPrimitive() ? Arrays.copyOf(values, count) : super.toIntArray();
+    }
+
+    @Override
+    public void trimToSize() {
+        if (isPrimitive())
+            values = Arrays.copyOf(values, count);
+        else
+            super.trimToSize();
+    }
+
+    @Override
+    public void appendJSON(Appendable a) throws IOException {
+        if (!isPrimitive() || isFrozen()) {
+            super.appendJSON(a);
+            return;
+        }
+        a.append('[');
+        for (int i = 0, n = count; i < n; i++) {
+            if (i > 0)
+                a.append(',');
+            Strings.appendInt(a, values[i]);
+        }
+        a.append(']');
+    }
+
+    @Override
+    public int jsonLength() {
+        if (!isPrimitive() || isFrozen())
+            return super.jsonLength();
+        int n = count;
+        int result = n > 0 ? n + 1 : 2;
+        for (int i = 0; i < n; i++)
+            result += JSON.intLength(values[i]);
+        return result;
+    }
+
+    /**
+     * Create a shallow copy of the {@code JSONIntArray}.  The copy is not frozen, even if the
+     * original is.
+     *
+     * @return  the copy
+     */
+    @Override
+    public JSONIntArray clone() {
+        JSONIntArray result = (JSONIntArray)super.clone();
+        if (values != null)
+            result.values = Arrays.copyOf(values, count);
+        return result;
+    }
+
+    /**
+     * Create a deep copy of the {@code JSONIntArray}.  The copy is not frozen, even if the
+     * original is.
+     *
+     * @return  the copy
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONIntArray deepCopy() {
+        return (JSONIntArray)super.deepCopy();
+    }
+
+}
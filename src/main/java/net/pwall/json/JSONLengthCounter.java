@@ -0,0 +1,73 @@
+/*
+ * @(#) JSONLengthCounter.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+/**
+ * An {@link Appendable} that simply counts the characters appended to it.  Used to determine
+ * the length of the JSON representation of a value when the value does not provide a direct
+ * calculation.
+ *
+ * @author Peter Wall
+ */
+class JSONLengthCounter implements Appendable {
+
+    private int length;
+
+    /**
+     * Construct a {@code JSONLengthCounter}.
+     */
+    JSONLengthCounter() {
+        length = 0;
+    }
+
+    /**
+     * Get the number of characters appended.
+     *
+     * @return  the length
+     */
+    int getLength() {
+        return length;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        length += csq == null ? 4 : csq.length();
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        length += end - start;
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        length++;
+        return this;
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONLong.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2016, 2017, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2016, 2017, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -92,6 +92,11 @@ public class JSONLong extends JSONNumberValue {
         Strings.appendLong(a, value);
     }
 
+    @Override
+    public int jsonLength() {
+        return JSON.longLength(value);
+    }
+
     @Override
     public String toString() {
         return toJSON();
@@ -138,8 +143,18 @@ public class JSONLong extends JSONNumberValue {
         return other.compareTo(BigDecimal.valueOf(value)) == 0;
     }
 
+    /**
+     * Get a {@code JSONLong} for the given value.  Values in the range set by the system properties
+     * {@value JSON#CACHE_LOW_PROPERTY} and {@value JSON#CACHE_HIGH_PROPERTY} (default
+     * -128 to 1023) are returned from a cache of preallocated instances.
+     *
+     * @param   value   the value
+     * @return  the {@code JSONLong}
+     */
     public static JSONLong valueOf(long value) {
-        return value == 0 ? ZERO : new JSONLong(value);
+        if (value >= Cache.low && value <= Cache.high)
+            return Cache.values[(int)value - Cache.low];
+        return new JSONLong(value);
     }
 
     public static JSONLong valueOf(String string) {
@@ -151,4 +166,20 @@ public class JSONLong extends JSONNumberValue {
         }
     }
 
+    /**
+     * The cache of preallocated instances (initialised on first use).
+     */
+    private static class Cache {
+
+        static final int low = JSON.cacheLimit(JSON.CACHE_LOW_PROPERTY, -128, -65536, 0);
+        static final int high = JSON.cacheLimit(JSON.CACHE_HIGH_PROPERTY, 1023, 0, 65535);
+        static final JSONLong[] values = new JSONLong[high - low + 1];
+
+        static {
+            for (int i = low; i <= high; i++)
+                values[i - low] = i == 0 ? ZERO : new JSONLong(i);
+        }
+
+    }
+
 }
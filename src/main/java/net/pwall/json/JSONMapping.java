@@ -2,7 +2,7 @@
  * @(#) JSONMapping.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2017, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2017, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -27,9 +27,17 @@ package net.pwall.json;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
 
 import net.pwall.util.ListMap;
 import net.pwall.util.Strings;
@@ -37,6 +45,20 @@ import net.pwall.util.Strings;
 /**
  * A JSON mapping (the base for {@link JSONObject}, and possibly other similar collections).
  *
+ * <p>A mapping with no more than {@value #COMPACT_LIMIT} members is held in a compact form,
+ * as parallel arrays of keys and values, without the list of {@link ListMap.Entry} objects used
+ * by {@link ListMap}.  The mapping converts itself to the {@link ListMap} form when it grows
+ * beyond that size; the conversion is not visible to users of the class.</p>
+ *
+ * <p>Mappings created by the parser from an array of objects with identical sets of keys share
+ * a single {@link JSONShape} holding the keys, and each mapping holds only its values (the
+ * size limit on the compact form does not apply in this case).  A mapping takes a private copy
+ * of the keys when its set of keys is modified.</p>
+ *
+ * <p>A mapping in the {@link ListMap} form with more than {@value #INDEX_THRESHOLD} members
+ * also keeps a hash index from key to entry (built when first needed), so that lookup,
+ * replacement and addition do not need to search the list.</p>
+ *
  * @author Peter Wall
  */
 public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
@@ -44,10 +66,27 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
 
     private static final long serialVersionUID = 4424892153019501302L;
 
+    /** The maximum number of members held in the compact form. */
+    public static final int COMPACT_LIMIT = 8;
+
+    /** The size above which a mapping in {@link ListMap} form keeps a hash index. */
+    public static final int INDEX_THRESHOLD = 32;
+
+    private static final String[] EMPTY_KEYS = {};
+    private static final Object[] EMPTY_VALUES = {};
+
+    private String[] keys;
+    private Object[] values;
+    private int count;
+    private JSONShape shape;
+    private JSONFrozenCache frozen;
+    private transient Map<String, Entry<String, V>> index;
+
     /**
      * Construct an empty {@code JSONMapping}.
      */
     public JSONMapping() {
+        this(0);
     }
 
     /**
@@ -56,16 +95,46 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      * @param   capacity    the initial capacity
      */
     public JSONMapping(int capacity) {
-        super(capacity);
+        super(capacity > COMPACT_LIMIT ? capacity : 0);
+        if (capacity <= COMPACT_LIMIT) {
+            // every ListMap constructor creates a list; a zero-capacity ArrayList has no backing array
+            list = null;
+            keys = capacity == 0 ? EMPTY_KEYS : new String[capacity];
+            values = capacity == 0 ? EMPTY_VALUES : new Object[capacity];
+        }
     }
 
     /**
-     * Construct a {@code JSONMapping}, copying the contents of another object.
+     * Construct a {@code JSONMapping}, copying the contents of another object.  If the other
+     * object shares a {@link JSONShape}, the copy will share the same shape.
      *
      * @param   other   the other {@code JSONMapping}
      */
     public JSONMapping(JSONMapping<V> other) {
-        super(other);
+        this(other.shape != null ? 0 : other.size());
+        if (other.shape != null) {
+            shape = other.shape;
+            keys = shape.keys;
+            values = Arrays.copyOf(other.values, other.count);
+            count = other.count;
+        }
+        else
+            putAll(other);
+    }
+
+    /**
+     * Construct a {@code JSONMapping} with the given shape and values.  The values array is not
+     * copied.
+     *
+     * @param   shape   the {@link JSONShape}
+     * @param   values  the values, in the order of the keys in the shape
+     */
+    JSONMapping(JSONShape shape, Object[] values) {
+        this(0);
+        this.shape = shape;
+        keys = shape.keys;
+        this.values = values;
+        count = values.length;
     }
 
     /**
@@ -74,7 +143,8 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      * @param   map     the {@code Map}
      */
     public JSONMapping(Map<String, ? extends V> map) {
-        super(map);
+        this(map.size());
+        putAll(map);
     }
 
     /**
@@ -84,12 +154,10 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      */
     @Override
     public Map<String, Object> toSimpleValue() {
-        int n = list.size();
+        int n = size();
         ListMap<String, Object> map = new ListMap<>(n);
-        for (int i = 0; i < n; i++) {
-            ListMap.Entry<String, V> entry = list.get(i);
-            map.put(entry.getKey(), JSONValue.simpleValue(entry.getValue()));
-        }
+        for (int i = 0; i < n; i++)
+            map.put(keyAt(i), JSONValue.simpleValue(valueAt(i)));
         return map;
     }
 
@@ -203,6 +271,525 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
         return keySet().iterator();
     }
 
+    /**
+     * Freeze the {@code JSONMapping}, and all composites nested within it.
+     *
+     * @return  {@code this} (for chaining)
+     * @see     JSONComposite#freeze()
+     */
+    @Override
+    public JSONMapping<V> freeze() {
+        if (frozen == null) {
+            frozen = new JSONFrozenCache();
+            index = null;
+            for (int i = 0, n = size(); i < n; i++) {
+                V value = valueAt(i);
+                if (list != null)
+                    list.set(i, new FrozenEntry<>(keyAt(i), value));
+                if (value instanceof JSONComposite)
+                    ((JSONComposite)value).freeze();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Create a deep copy of the {@code JSONMapping}.  Nested composites are copied, but
+     * immutable values are shared, and if the mapping shares a {@link JSONShape} the copy will
+     * share the same shape.
+     *
+     * @return  the copy
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONMapping<V> deepCopy() {
+        JSONMapping<V> result = new JSONMapping<>(this);
+        result.copyNested();
+        return result;
+    }
+
+    /**
+     * Replace each nested composite value with a deep copy (for use by {@link #deepCopy()}
+     * implementations after creating a shallow copy).
+     */
+    @SuppressWarnings("unchecked")
+    protected void copyNested() {
+        for (int i = 0, n = size(); i < n; i++) {
+            V value = valueAt(i);
+            if (value instanceof JSONComposite) {
+                V copy = (V)((JSONComposite)value).deepCopy();
+                if (list == null)
+                    values[i] = copy;
+                else
+                    list.get(i).setValue(copy);
+            }
+        }
+    }
+
+    /**
+     * Test whether the {@code JSONMapping} has been frozen.
+     *
+     * @return  {@code true} if the mapping is frozen
+     * @see     JSONComposite#isFrozen()
+     */
+    @Override
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    /**
+     * Check that the {@code JSONMapping} may be modified.
+     *
+     * @throws  UnsupportedOperationException if the mapping is frozen
+     */
+    protected void checkMutable() {
+        if (frozen != null)
+            throw new UnsupportedOperationException(JSON.FROZEN);
+    }
+
+    /**
+     * Test whether the {@code JSONMapping} is currently held in the compact form.
+     *
+     * @return  {@code true} if the mapping is in compact form
+     */
+    public boolean isCompact() {
+        return list == null;
+    }
+
+    /**
+     * Get the key at the given position in the {@code JSONMapping} (the index is not checked).
+     *
+     * @param   index   the index
+     * @return  the key
+     */
+    String keyAt(int index) {
+        return list == null ? keys[index] : list.get(index).getKey();
+    }
+
+    /**
+     * Get the value at the given position in the {@code JSONMapping} (the index is not checked).
+     *
+     * @param   index   the index
+     * @return  the value
+     */
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+        return list == null ? (V)values[index] : list.get(index).getValue();
+    }
+
+    /**
+     * Get the {@link JSONShape} of the {@code JSONMapping}, creating one if necessary.  If a new
+     * shape is created, the mapping is converted to share it.
+     *
+     * @return  the shape
+     */
+    JSONShape shape() {
+        if (shape == null) {
+            int n = size();
+            String[] newKeys = new String[n];
+            for (int i = 0; i < n; i++)
+                newKeys[i] = keyAt(i);
+            useShape(new JSONShape(newKeys));
+        }
+        return shape;
+    }
+
+    /**
+     * Convert the {@code JSONMapping} to share the given {@link JSONShape}.  The keys of the shape
+     * must be the same as the keys of the mapping, in the same order (see {@link #hasSameKeys}).
+     *
+     * @param   newShape    the {@link JSONShape}
+     */
+    void useShape(JSONShape newShape) {
+        int n = size();
+        Object[] newValues = new Object[n];
+        for (int i = 0; i < n; i++)
+            newValues[i] = valueAt(i);
+        shape = newShape;
+        list = null;
+        index = null;
+        keys = newShape.keys;
+        values = newValues;
+        count = n;
+    }
+
+    /**
+     * Test whether another {@code JSONMapping} has the same keys as this one, in the same order.
+     *
+     * @param   other   the other {@code JSONMapping}
+     * @return          {@code true} if the keys are the same
+     */
+    boolean hasSameKeys(JSONMapping<?> other) {
+        if (sharesShape(other))
+            return true;
+        int n = size();
+        if (other.size() != n)
+            return false;
+        for (int i = 0; i < n; i++)
+            if (!keyAt(i).equals(other.keyAt(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * Get the {@link JSONShape} of the {@code JSONMapping} if it has one, without creating one.
+     *
+     * @return  the shape, or {@code null}
+     */
+    JSONShape currentShape() {
+        return shape;
+    }
+
+    /**
+     * Get the indices of the entries of the {@code JSONMapping} in order of key (for
+     * {@link JSONCanonical}).  The order is cached in the {@link JSONShape} if the mapping
+     * shares one, or in the mapping itself if it is frozen.
+     *
+     * @return  the indices of the entries in key order (must not be modified)
+     */
+    int[] sortedOrder() {
+        if (shape != null)
+            return shape.sortedOrder();
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.sortedOrder != null)
+            return cache.sortedOrder;
+        int n = size();
+        String[] sortKeys = new String[n];
+        for (int i = 0; i < n; i++)
+            sortKeys[i] = keyAt(i);
+        int[] result = JSONCanonical.sortedOrder(sortKeys);
+        if (cache != null)
+            cache.sortedOrder = result;
+        return result;
+    }
+
+    /**
+     * Test whether the {@code JSONMapping} shares its keys with other mappings (through a
+     * {@link JSONShape}).
+     *
+     * @param   other   another {@code JSONMapping}
+     * @return  {@code true} if the mappings share the same shape
+     */
+    boolean sharesShape(JSONMapping<?> other) {
+        return shape != null && shape == other.shape;
+    }
+
+    /**
+     * Take a private copy of the keys of a {@code JSONMapping} that shares a {@link JSONShape},
+     * before modifying the set of keys.
+     */
+    private void unshare() {
+        if (shape != null) {
+            keys = Arrays.copyOf(keys, count);
+            shape = null;
+        }
+    }
+
+    /**
+     * Convert the {@code JSONMapping} from the compact form to the {@link ListMap} form.
+     */
+    private void expand() {
+        List<Entry<String, V>> newList = new ArrayList<>(count * 2);
+        for (int i = 0; i < count; i++)
+            newList.add(new Entry<>(keys[i], valueAt(i)));
+        list = newList;
+        keys = null;
+        values = null;
+        count = 0;
+        shape = null;
+    }
+
+    /**
+     * Get the hash index of a mapping in {@link ListMap} form, building it if the mapping is
+     * large enough to need one.
+     *
+     * @return  the index, or {@code null} if the mapping is too small to need one
+     */
+    private Map<String, Entry<String, V>> index() {
+        Map<String, Entry<String, V>> result = index;
+        if (result == null && list.size() > INDEX_THRESHOLD) {
+            result = new HashMap<>(list.size() * 2);
+            for (Entry<String, V> entry : list)
+                result.put(entry.getKey(), entry);
+            index = result;
+        }
+        return result;
+    }
+
+    /**
+     * Find the position of an entry in the list (by identity).
+     *
+     * @param   entry   the entry
+     * @return  the index
+     */
+    private int positionOf(Entry<String, V> entry) {
+        List<Entry<String, V>> l = list;
+        int i = 0;
+        while (l.get(i) != entry)
+            i++;
+        return i;
+    }
+
+    @Override
+    protected int findIndex(Object key) {
+        if (list != null) {
+            Map<String, Entry<String, V>> map = index();
+            if (map == null)
+                return super.findIndex(key);
+            Entry<String, V> entry = map.get(key);
+            return entry == null ? -1 : positionOf(entry);
+        }
+        if (shape != null)
+            return shape.indexOf(key);
+        String[] k = keys;
+        for (int i = 0, n = count; i < n; i++)
+            if (k[i] == key || k[i].equals(key))
+                return i;
+        return -1;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (list != null) {
+            Map<String, Entry<String, V>> map = index();
+            if (map == null)
+                return super.get(key);
+            Entry<String, V> entry = map.get(Objects.requireNonNull(key));
+            return entry == null ? null : entry.getValue();
+        }
+        int index = findIndex(Objects.requireNonNull(key));
+        return index < 0 ? null : valueAt(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (list != null) {
+            Map<String, Entry<String, V>> map = index();
+            return map == null ? super.containsKey(key) : map.containsKey(Objects.requireNonNull(key));
+        }
+        return findIndex(Objects.requireNonNull(key)) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (list != null)
+            return super.containsValue(value);
+        for (int i = 0, n = count; i < n; i++)
+            if (Objects.equals(values[i], value))
+                return true;
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return list == null ? count : list.size();
+    }
+
+    @Override
+    public V put(String key, V value) {
+        checkMutable();
+        if (list != null) {
+            Map<String, Entry<String, V>> map = index();
+            if (map == null)
+                return super.put(key, value);
+            Entry<String, V> entry = map.get(Objects.requireNonNull(key));
+            if (entry != null)
+                return entry.setValue(value);
+            entry = new Entry<>(key, value);
+            list.add(entry);
+            map.put(key, entry);
+            return null;
+        }
+        int index = findIndex(Objects.requireNonNull(key));
+        if (index >= 0) {
+            V result = valueAt(index);
+            values[index] = value;
+            return result;
+        }
+        int n = count;
+        if (n >= COMPACT_LIMIT) {
+            expand();
+            return super.put(key, value);
+        }
+        unshare();
+        if (n == keys.length) {
+            int newLength = n == 0 ? 4 : Math.min(n * 2, COMPACT_LIMIT);
+            keys = Arrays.copyOf(keys, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+        keys[n] = key;
+        values[n] = value;
+        count = n + 1;
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        checkMutable();
+        if (list != null) {
+            Map<String, Entry<String, V>> map = index();
+            if (map == null)
+                return super.remove(key);
+            Entry<String, V> entry = map.remove(Objects.requireNonNull(key));
+            if (entry == null)
+                return null;
+            list.remove(positionOf(entry));
+            return entry.getValue();
+        }
+        int index = findIndex(Objects.requireNonNull(key));
+        if (index < 0)
+            return null;
+        return removeAt(index);
+    }
+
+    /**
+     * Remove the entry at the given position in the {@code JSONMapping} (the index is not
+     * checked).
+     *
+     * @param   index   the index
+     * @return  the value that was removed
+     * @throws  UnsupportedOperationException if the mapping is frozen
+     */
+    V removeAt(int index) {
+        checkMutable();
+        if (list != null) {
+            Entry<String, V> entry = list.remove(index);
+            if (this.index != null)
+                this.index.remove(entry.getKey());
+            return entry.getValue();
+        }
+        V result = valueAt(index);
+        unshare();
+        int n = --count;
+        System.arraycopy(keys, index + 1, keys, index, n - index);
+        System.arraycopy(values, index + 1, values, index, n - index);
+        keys[n] = null;
+        values[n] = null;
+        return result;
+    }
+
+    /**
+     * Replace the value at the given position in the {@code JSONMapping} (the index is not
+     * checked).
+     *
+     * @param   index   the index
+     * @param   value   the new value
+     * @return  the previous value
+     * @throws  UnsupportedOperationException if the mapping is frozen
+     */
+    V setValueAt(int index, V value) {
+        checkMutable();
+        if (list != null)
+            return list.get(index).setValue(value);
+        V result = valueAt(index);
+        values[index] = value;
+        return result;
+    }
+
+    /**
+     * Insert an entry at the given position in the {@code JSONMapping}.  The key must not
+     * already be present, and the index is not checked.
+     *
+     * @param   index   the index
+     * @param   key     the key
+     * @param   value   the value
+     * @throws  UnsupportedOperationException if the mapping is frozen
+     */
+    void insert(int index, String key, V value) {
+        checkMutable();
+        if (list == null && count >= COMPACT_LIMIT)
+            expand();
+        if (list != null) {
+            Entry<String, V> entry = new Entry<>(key, value);
+            list.add(index, entry);
+            if (this.index != null)
+                this.index.put(key, entry);
+            return;
+        }
+        unshare();
+        int n = count;
+        if (n == keys.length) {
+            int newLength = n == 0 ? 4 : Math.min(n * 2, COMPACT_LIMIT);
+            keys = Arrays.copyOf(keys, newLength);
+            values = Arrays.copyOf(values, newLength);
+        }
+        System.arraycopy(keys, index, keys, index + 1, n - index);
+        System.arraycopy(values, index, values, index + 1, n - index);
+        keys[index] = key;
+        values[index] = value;
+        count = n + 1;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> map) {
+        checkMutable();
+        super.putAll(map);
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        if (list != null) {
+            super.clear();
+            index = null;
+        }
+        else if (shape != null) {
+            shape = null;
+            keys = EMPTY_KEYS;
+            values = EMPTY_VALUES;
+            count = 0;
+        }
+        else {
+            Arrays.fill(keys, 0, count, null);
+            Arrays.fill(values, 0, count, null);
+            count = 0;
+        }
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return list != null ? super.keySet() : new CompactKeySet();
+    }
+
+    @Override
+    public Collection<V> values() {
+        return list != null ? super.values() : new CompactValues();
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return list != null ? super.entrySet() : new CompactEntrySet();
+    }
+
+    @Override
+    public Entry<String, V> getEntry(int index) {
+        if (list != null)
+            return super.getEntry(index);
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        return new CompactEntry(index);
+    }
+
+    /**
+     * Create the JSON representation for this JSON object.  If the mapping is frozen, the
+     * result is cached.
+     *
+     * @return  the JSON string
+     * @see     JSONValue#toJSON()
+     */
+    @Override
+    public String toJSON() {
+        JSONFrozenCache cache = frozen;
+        if (cache == null)
+            return JSONComposite.super.toJSON();
+        String result = cache.json;
+        if (result == null) {
+            result = JSONComposite.super.toJSON();
+            cache.json = result;
+        }
+        return result;
+    }
+
     /**
      * Append the external representation for this JSON object to a given {@link Appendable}.
      *
@@ -212,16 +799,20 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      */
     @Override
     public void appendJSON(Appendable a) throws IOException {
+        String cached = frozen == null ? null : frozen.json;
+        if (cached != null) {
+            a.append(cached);
+            return;
+        }
         a.append('{');
-        int n = list.size();
+        int n = size();
         if (n > 0) {
             int i = 0;
             for (;;) {
-                Entry<String, V> entry = list.get(i++);
                 a.append('"');
-                Strings.appendEscaped(a, entry.getKey(), JSON.charMapper);
+                Strings.appendEscaped(a, keyAt(i), JSON.charMapper);
                 a.append('"').append(':');
-                JSON.appendJSON(a, entry.getValue());
+                JSON.appendJSON(a, valueAt(i++));
                 if (i >= n)
                     break;
                 a.append(',');
@@ -230,6 +821,26 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
         a.append('}');
     }
 
+    /**
+     * Get the length of the external representation for this JSON object.
+     *
+     * @return  the length of the JSON representation
+     * @see     JSONValue#jsonLength()
+     */
+    @Override
+    public int jsonLength() {
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.length > 0)
+            return cache.length;
+        int n = size();
+        int result = n > 0 ? n + 1 : 2;
+        for (int i = 0; i < n; i++)
+            result += JSON.stringLength(keyAt(i)) + 1 + JSON.jsonLength(valueAt(i));
+        if (cache != null)
+            cache.length = result;
+        return result;
+    }
+
     /**
      * Test whether the composite is "simple", i.e.&nbsp;it contains only non-composite values
      * (to assist with formatting).
@@ -239,8 +850,8 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      */
     @Override
     public boolean isSimple() {
-        for (int i = 0, n = list.size(); i < n; i++)
-            if (list.get(i).getValue() instanceof JSONComposite)
+        for (int i = 0, n = size(); i < n; i++)
+            if (valueAt(i) instanceof JSONComposite)
                 return false;
         return true;
     }
@@ -264,9 +875,34 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      */
     @Override
     public int hashCode() {
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.hash != 0)
+            return cache.hash;
         int result = 0;
-        for (int i = 0, n = list.size(); i < n; i++)
-            result ^= list.get(i).hashCode();
+        for (int i = 0, n = size(); i < n; i++)
+            result ^= entryHash(keyAt(i), valueAt(i));
+        if (cache != null)
+            cache.hash = result;
+        return result;
+    }
+
+    /**
+     * Get the content fingerprint for this {@code JSONMapping} (see {@link JSONFingerprint}).
+     * If the mapping is frozen, the fingerprint is cached.
+     *
+     * @return  the fingerprint
+     */
+    long fingerprint() {
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.fingerprint != 0)
+            return cache.fingerprint;
+        long sum = 0;
+        int n = size();
+        for (int i = 0; i < n; i++)
+            sum += JSONFingerprint.ofEntry(keyAt(i), valueAt(i));
+        long result = JSONFingerprint.ofObject(sum, n);
+        if (cache != null)
+            cache.fingerprint = result;
         return result;
     }
 
@@ -274,8 +910,8 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
      * Compare this {@code JSONMapping} with another object for equality.
      *
      * @param   other   the other object
-     * @return  {@code true} if the other object is a {@code JSONMapping} and has identical contents to
-     *          this object
+     * @return  {@code true} if the other object is a {@code JSONMapping} (or a {@link JSONPersistentObject}) and
+     *          has identical contents to this object
      * @see     Object#equals(Object)
      */
     @Override
@@ -283,14 +919,252 @@ public class JSONMapping<V extends JSONValue> extends ListMap<String, V>
         if (other == this)
             return true;
         if (!(other instanceof JSONMapping<?>))
-            return false;
+            return other instanceof JSONPersistentObject && other.equals(this);
         JSONMapping<?> otherMapping = (JSONMapping<?>)other;
-        if (list.size() != otherMapping.list.size())
+        int n = size();
+        if (n != otherMapping.size())
+            return false;
+        if (frozen != null && otherMapping.frozen != null && hashCode() != otherMapping.hashCode())
             return false;
-        for (Entry<String, V> entry : list)
-            if (!Objects.equals(entry.getValue(), otherMapping.get(entry.getKey())))
+        if (sharesShape(otherMapping)) {
+            for (int i = 0; i < n; i++)
+                if (!Objects.equals(values[i], otherMapping.values[i]))
+                    return false;
+            return true;
+        }
+        for (int i = 0; i < n; i++) {
+            String key = keyAt(i);
+            Object otherValue;
+            if (key.equals(otherMapping.keyAt(i)))
+                otherValue = otherMapping.valueAt(i); // keys in the same order - avoid lookup
+            else if ((otherValue = otherMapping.get(key)) == null && !otherMapping.containsKey(key))
+                return false;
+            if (!Objects.equals(valueAt(i), otherValue))
                 return false;
+        }
         return true;
     }
 
+    /**
+     * Calculate the hash code of an entry, using the same formula as {@link ListMap.Entry}.
+     *
+     * @param   key     the key
+     * @param   value   the value
+     * @return  the hash code
+     */
+    private static int entryHash(String key, Object value) {
+        return Objects.hash(key, value);
+    }
+
+    /**
+     * An entry in a {@code JSONMapping} in compact form.  Changes to the value are written
+     * through to the mapping (the entry remains valid if the mapping is subsequently converted
+     * to the {@link ListMap} form, but like any {@link Map.Entry} it is not valid after the
+     * mapping has been restructured by other means).
+     */
+    private class CompactEntry extends Entry<String, V> {
+
+        private static final long serialVersionUID = 5702270815766330183L;
+
+        private final int index;
+
+        private CompactEntry(int index) {
+            super(keyAt(index), null);
+            this.index = index;
+        }
+
+        @Override
+        public V getValue() {
+            return valueAt(index);
+        }
+
+        @Override
+        public V setValue(V value) {
+            checkMutable();
+            if (list != null)
+                return list.get(index).setValue(value);
+            V result = valueAt(index);
+            values[index] = value;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof Map.Entry<?, ?>))
+                return false;
+            Map.Entry<?, ?> otherEntry = (Map.Entry<?, ?>)other;
+            return Objects.equals(getKey(), otherEntry.getKey()) &&
+                    Objects.equals(getValue(), otherEntry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return entryHash(getKey(), getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+
+    }
+
+    /**
+     * Base class for iterators over a {@code JSONMapping} in compact form.
+     *
+     * @param   <T>     the iterator type
+     */
+    private abstract class CompactIterator<T> implements Iterator<T> {
+
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size();
+        }
+
+        @Override
+        public T next() {
+            if (index >= size())
+                throw new NoSuchElementException();
+            return get(index++);
+        }
+
+        protected abstract T get(int index);
+
+    }
+
+    /**
+     * Base class for the (read-only) views of a {@code JSONMapping} in compact form.  Like the
+     * views provided by {@link ListMap}, they are all implemented as sets, and they remain valid
+     * if the mapping is converted to the {@link ListMap} form.
+     *
+     * @param   <T>     the element type
+     */
+    private abstract class CompactView<T> extends AbstractSet<T> {
+
+        @Override
+        public int size() {
+            return JSONMapping.this.size();
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends T> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> c) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    /**
+     * The key set of a {@code JSONMapping} in compact form.
+     */
+    private class CompactKeySet extends CompactView<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new CompactIterator<String>() {
+                @Override
+                protected String get(int index) {
+                    return keyAt(index);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && containsKey(o);
+        }
+
+    }
+
+    /**
+     * The values collection of a {@code JSONMapping} in compact form.
+     */
+    private class CompactValues extends CompactView<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new CompactIterator<V>() {
+                @Override
+                protected V get(int index) {
+                    return valueAt(index);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return containsValue(o);
+        }
+
+    }
+
+    /**
+     * The entry set of a {@code JSONMapping} in compact form.
+     */
+    private class CompactEntrySet extends CompactView<Map.Entry<String, V>> {
+
+        @Override
+        public Iterator<Map.Entry<String, V>> iterator() {
+            return new CompactIterator<Map.Entry<String, V>>() {
+                @Override
+                protected Map.Entry<String, V> get(int index) {
+                    return new CompactEntry(index);
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry<?, ?>))
+                return false;
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
+            Object key = entry.getKey();
+            return key != null && containsKey(key) && Objects.equals(get(key), entry.getValue());
+        }
+
+    }
+
+    /**
+     * An entry in a frozen {@code JSONMapping}.
+     *
+     * @param   <VV>    the value type
+     */
+    private static class FrozenEntry<VV> extends Entry<String, VV> {
+
+        private static final long serialVersionUID = -3415213404898434101L;
+
+        public FrozenEntry(String key, VV value) {
+            super(key, value);
+        }
+
+        @Override
+        public VV setValue(VV value) {
+            throw new UnsupportedOperationException(JSON.FROZEN);
+        }
+
+    }
+
 }
@@ -0,0 +1,164 @@
+/*
+ * @(#) JSONMergePatch.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JSON Merge Patch (<a href="https://tools.ietf.org/html/rfc7396">RFC 7396</a>).
+ *
+ * <p>In a merge patch, a property with a {@code null} value means that the property is to be
+ * removed from the target.  A property of a {@link JSONObject} that is present with a
+ * {@code null} value (as stored by {@link JSONObject#putNull(String)} or
+ * {@link JSONObject#putAlways(String, CharSequence)}) is therefore treated as a removal when
+ * the object is used as a patch, and such a property can not be created by a merge patch;
+ * {@link #diff(JSONValue, JSONValue)} reports an error if it would be required.</p>
+ *
+ * @author Peter Wall
+ */
+public class JSONMergePatch {
+
+    public static final String NULL_NOT_REPRESENTABLE =
+            "Merge patch can not set a property to null";
+
+    /**
+     * Apply a merge patch to a target document.  If both the target and the patch are objects,
+     * the target is modified in place, in a single pass over the patch: nested objects in the
+     * target are also modified in place, and parts of the target not mentioned in the patch are
+     * not visited.  Values from the patch are copied before they are added to the target (with
+     * any {@code null} properties of nested objects removed, as the RFC requires).
+     *
+     * <p>A {@link JSONPersistentObject} target (or nested object) is not modified; a new
+     * version is created instead.</p>
+     *
+     * @param   target  the target document (may be {@code null})
+     * @param   patch   the patch (may be {@code null})
+     * @return  the result (this will be the target if both the target and the patch are
+     *          mutable objects)
+     * @throws  UnsupportedOperationException if an object to be modified is frozen (in that
+     *          case the changes made before the frozen object was reached are not reversed)
+     */
+    public static JSONValue apply(JSONValue target, JSONValue patch) {
+        if (!(patch instanceof Map))
+            return copy(patch);
+        if (target instanceof JSONPersistentObject)
+            return applyPersistent((JSONPersistentObject)target, patch);
+        JSONMapping<JSONValue> object = target instanceof JSONMapping ? mapping(target) :
+                new JSONObject();
+        if (patch instanceof JSONMapping) {
+            JSONMapping<?> patchMapping = (JSONMapping<?>)patch;
+            for (int i = 0, n = patchMapping.size(); i < n; i++)
+                applyMember(object, patchMapping.keyAt(i), patchMapping.valueAt(i));
+        }
+        else {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)patch).entrySet())
+                applyMember(object, (String)entry.getKey(), (JSONValue)entry.getValue());
+        }
+        return object;
+    }
+
+    private static void applyMember(JSONMapping<JSONValue> object, String key, JSONValue value) {
+        if (value == null)
+            object.remove(key);
+        else {
+            JSONValue existing = object.get(key);
+            JSONValue merged = apply(existing, value);
+            if (merged != existing || existing == null)
+                object.put(key, merged);
+        }
+    }
+
+    private static JSONValue applyPersistent(JSONPersistentObject target, JSONValue patch) {
+        JSONPersistentObject result = target;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>)patch).entrySet()) {
+            String key = (String)entry.getKey();
+            JSONValue value = (JSONValue)entry.getValue();
+            result = value == null ? result.without(key) : result.with(key, apply(result.get(key), value));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONMapping<JSONValue> mapping(JSONValue value) {
+        return (JSONMapping<JSONValue>)value;
+    }
+
+    private static JSONValue copy(JSONValue value) {
+        return value instanceof JSONComposite ? ((JSONComposite)value).deepCopy() : value;
+    }
+
+    /**
+     * Create the minimal merge patch that will convert one document to another.  The patch
+     * contains only the properties that differ; unchanged properties and nested objects are
+     * omitted, and properties removed from the first document are represented by
+     * {@code null}.  The patch may share values with the second document.
+     *
+     * @param   from    the original document
+     * @param   to      the target document
+     * @return  the patch (an object, or if the second document is not an object, the second
+     *          document itself)
+     * @throws  JSONException if the second document contains a property with a {@code null}
+     *          value that can not be created by a merge patch
+     */
+    public static JSONValue diff(JSONValue from, JSONValue to) {
+        if (!(to instanceof Map))
+            return to;
+        if (!(from instanceof Map)) {
+            checkNoNulls(to);
+            return to;
+        }
+        Map<?, ?> fromMap = (Map<?, ?>)from;
+        Map<?, ?> toMap = (Map<?, ?>)to;
+        JSONObject result = new JSONObject();
+        for (Object key : fromMap.keySet())
+            if (!toMap.containsKey(key))
+                result.putNull((String)key);
+        for (Map.Entry<?, ?> entry : toMap.entrySet()) {
+            String key = (String)entry.getKey();
+            JSONValue toValue = (JSONValue)entry.getValue();
+            boolean present = fromMap.containsKey(key);
+            JSONValue fromValue = (JSONValue)fromMap.get(key);
+            if (present && Objects.equals(fromValue, toValue))
+                continue;
+            if (toValue == null)
+                throw new JSONException(NULL_NOT_REPRESENTABLE + ": " + key);
+            result.put(key, diff(present ? fromValue : null, toValue));
+        }
+        return result;
+    }
+
+    private static void checkNoNulls(JSONValue value) {
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+            Object member = entry.getValue();
+            if (member == null)
+                throw new JSONException(NULL_NOT_REPRESENTABLE + ": " + entry.getKey());
+            if (member instanceof Map)
+                checkNoNulls((JSONValue)member);
+        }
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONObject.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2017, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2017, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -25,6 +25,7 @@
 
 package net.pwall.json;
 
+import java.io.ObjectStreamException;
 import java.math.BigDecimal;
 import java.util.Map;
 
@@ -70,6 +71,16 @@ public class JSONObject extends JSONMapping<JSONValue> {
         super(map);
     }
 
+    /**
+     * Construct a {@code JSONObject} sharing the given {@link JSONShape}.
+     *
+     * @param   shape   the {@link JSONShape}
+     * @param   values  the values, in the order of the keys in the shape (not copied)
+     */
+    JSONObject(JSONShape shape, JSONValue[] values) {
+        super(shape, values);
+    }
+
     /**
      * Add a {@link JSONString} representing the supplied {@link CharSequence} ({@link String},
      * {@link StringBuilder} etc.) to the {@code JSONObject}.
@@ -80,7 +91,7 @@ public class JSONObject extends JSONMapping<JSONValue> {
      * @throws          NullPointerException if key or value is {@code null}
      */
     public JSONObject putValue(String key, CharSequence value) {
-        put(key, new JSONString(value));
+        put(key, JSONString.valueOf(value));
         return this;
     }
 
@@ -95,7 +106,7 @@ public class JSONObject extends JSONMapping<JSONValue> {
      * @throws          NullPointerException if key is {@code null}
      */
     public JSONObject putAlways(String key, CharSequence value) {
-        put(key, value == null ? null : new JSONString(value));
+        put(key, value == null ? null : JSONString.valueOf(value));
         return this;
     }
 
@@ -111,7 +122,7 @@ public class JSONObject extends JSONMapping<JSONValue> {
      */
     public JSONObject putNonNull(String key, CharSequence value) {
         if (value != null)
-            put(key, new JSONString(value));
+            put(key, JSONString.valueOf(value));
         return this;
     }
 
@@ -225,6 +236,43 @@ public class JSONObject extends JSONMapping<JSONValue> {
         return this;
     }
 
+    /**
+     * Freeze the {@code JSONObject}, and all composites nested within it.
+     *
+     * @return  {@code this} (for chaining)
+     * @see     JSONComposite#freeze()
+     */
+    @Override
+    public JSONObject freeze() {
+        super.freeze();
+        return this;
+    }
+
+    /**
+     * Create a deep copy of the {@code JSONObject}.  Nested composites are copied, but
+     * immutable values are shared, and if the object shares a {@link JSONShape} the copy will
+     * share the same shape.
+     *
+     * @return  the copy
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONObject deepCopy() {
+        JSONObject result = new JSONObject(this);
+        result.copyNested();
+        return result;
+    }
+
+    /**
+     * Replace the {@code JSONObject} with a compact serialized form (see {@link JSONSerialForm}).
+     *
+     * @return  the object to be serialized
+     * @throws  ObjectStreamException if the replacement can not be created
+     */
+    protected Object writeReplace() throws ObjectStreamException {
+        return JSONSerialForm.replace(this);
+    }
+
     /**
      * Convenience method to create a {@code JSONObject}.  Supports the idiom:
      * <pre>
@@ -0,0 +1,630 @@
+/*
+ * @(#) JSONPatch.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A compiled JSON Patch (<a href="https://tools.ietf.org/html/rfc6902">RFC 6902</a>).  The
+ * patch document is validated and its pointers are compiled once, when the patch is created,
+ * and the patch may then be applied to any number of target documents.  A {@code JSONPatch} is
+ * immutable, and may be shared between threads.
+ *
+ * <p>The {@link #apply(JSONValue)} method modifies the target in place.  The patch is atomic:
+ * each change is recorded in an undo log as it is made, and if any operation fails the changes
+ * already made are reversed (in reverse order) before the exception is thrown, leaving the
+ * target exactly as it was, including the order of object properties.  This avoids the cost
+ * of copying the target before applying the patch.</p>
+ *
+ * <p>Values from the patch document are copied (see {@link JSONComposite#deepCopy()}) each
+ * time they are added to a target, so that targets never share mutable values with the patch
+ * or with each other.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONPatch {
+
+    public static final String INVALID_PATCH = "Invalid JSON Patch";
+    public static final String TEST_FAILED = "JSON Patch test failed";
+
+    private final Operation[] operations;
+
+    private JSONPatch(Operation[] operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Create a {@code JSONPatch} from a JSON Patch document (an array of operation objects).
+     *
+     * @param   patch   the patch document
+     * @return  the {@code JSONPatch}
+     * @throws  JSONException if the patch document is not valid
+     */
+    public static JSONPatch from(JSONSequence<?> patch) {
+        int n = patch.size();
+        Operation[] operations = new Operation[n];
+        for (int i = 0; i < n; i++) {
+            JSONValue item = patch.get(i);
+            if (!(item instanceof JSONMapping))
+                throw invalid(i, "operation is not an object");
+            operations[i] = operation(i, (JSONMapping<?>)item);
+        }
+        return new JSONPatch(operations);
+    }
+
+    /**
+     * Create a {@code JSONPatch} from a JSON Patch document in string form.
+     *
+     * @param   patch   the patch document
+     * @return  the {@code JSONPatch}
+     * @throws  JSONException if the string is not valid JSON, or is not a valid patch document
+     */
+    public static JSONPatch parse(String patch) {
+        JSONValue value = JSON.parse(patch);
+        if (!(value instanceof JSONSequence))
+            throw new JSONException(INVALID_PATCH + ": not an array");
+        return from((JSONSequence<?>)value);
+    }
+
+    private static Operation operation(int i, JSONMapping<?> object) {
+        String op = string(i, object, "op");
+        JSONPointer path = pointer(i, object, "path");
+        switch (op) {
+        case "add":
+            return new Add(path, value(i, object));
+        case "remove":
+            if (path.depth() == 0)
+                throw invalid(i, "can not remove root");
+            return new Remove(path);
+        case "replace":
+            return new Replace(path, value(i, object));
+        case "move":
+            JSONPointer from = pointer(i, object, "from");
+            if (from.depth() == 0 || from.isAncestorOf(path))
+                throw invalid(i, "can not move a value into itself");
+            return new Move(from, path);
+        case "copy":
+            return new Copy(pointer(i, object, "from"), path);
+        case "test":
+            return new Test(path, value(i, object));
+        default:
+            throw invalid(i, "unrecognised op \"" + op + '"');
+        }
+    }
+
+    private static String string(int i, JSONMapping<?> object, String name) {
+        JSONValue value = object.get(name);
+        if (!(value instanceof JSONString))
+            throw invalid(i, "missing or invalid \"" + name + '"');
+        return ((JSONString)value).getValue();
+    }
+
+    private static JSONPointer pointer(int i, JSONMapping<?> object, String name) {
+        String string = string(i, object, name);
+        try {
+            return JSONPointer.compile(string);
+        }
+        catch (JSONException e) {
+            throw invalid(i, "invalid pointer \"" + string + '"');
+        }
+    }
+
+    private static JSONValue value(int i, JSONMapping<?> object) {
+        if (!object.containsKey("value"))
+            throw invalid(i, "missing \"value\"");
+        JSONValue value = object.get("value");
+        return value instanceof JSONComposite ? ((JSONComposite)value).deepCopy() : value;
+    }
+
+    private static JSONException invalid(int i, String detail) {
+        return new JSONException(INVALID_PATCH + " at /" + i + ": " + detail);
+    }
+
+    /**
+     * Get the number of operations in the patch.
+     *
+     * @return  the number of operations
+     */
+    public int size() {
+        return operations.length;
+    }
+
+    /**
+     * Apply the patch to a target document, modifying it in place.  If any operation fails,
+     * all changes are reversed before the exception is thrown.
+     *
+     * @param   target  the target document
+     * @return  the root of the patched document (this will be the target unless the patch
+     *          replaces the root)
+     * @throws  JSONException if an operation fails (a pointer does not exist, or a test fails)
+     * @throws  UnsupportedOperationException if a value to be modified is frozen or immutable
+     */
+    public JSONValue apply(JSONValue target) {
+        List<Undo> log = new ArrayList<>();
+        JSONValue root = target;
+        try {
+            for (Operation operation : operations)
+                root = operation.apply(root, log);
+        }
+        catch (RuntimeException e) {
+            for (int i = log.size() - 1; i >= 0; i--)
+                log.get(i).undo();
+            throw e;
+        }
+        return root;
+    }
+
+    /**
+     * Apply the patch to a copy of a target document, leaving the target unchanged.
+     *
+     * @param   target  the target document
+     * @return  the patched copy
+     * @throws  JSONException if an operation fails
+     */
+    public JSONValue applyToCopy(JSONValue target) {
+        JSONValue root = copy(target);
+        for (Operation operation : operations)
+            root = operation.apply(root, null);
+        return root;
+    }
+
+    /**
+     * Convert the patch back to a JSON Patch document.
+     *
+     * @return  the patch document
+     */
+    public JSONArray toJSONArray() {
+        JSONArray result = new JSONArray(operations.length);
+        for (Operation operation : operations)
+            result.add(operation.toJSONObject());
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toJSONArray().toJSON();
+    }
+
+    private static JSONValue copy(JSONValue value) {
+        return value instanceof JSONComposite ? ((JSONComposite)value).deepCopy() : value;
+    }
+
+    private static JSONException notFound(JSONPointer pointer) {
+        return new JSONException(JSONPointer.NOT_FOUND + ": " + pointer);
+    }
+
+    /**
+     * Add a value at the location given by a pointer (replacing an existing object property, or
+     * inserting into an array), recording the change in the undo log.
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONValue add(JSONValue root, JSONPointer path, JSONValue value, List<Undo> log) {
+        int n = path.depth();
+        if (n == 0)
+            return value;
+        JSONValue parent = path.resolveParent(root);
+        String token = path.getToken(n - 1);
+        if (parent instanceof JSONMapping) {
+            JSONMapping<JSONValue> mapping = (JSONMapping<JSONValue>)parent;
+            int size = mapping.size();
+            JSONValue old = mapping.put(token, value);
+            if (log != null)
+                log.add(mapping.size() > size ? new Undo(Undo.MAP_REMOVE, mapping, token, size, null) :
+                        new Undo(Undo.MAP_PUT, mapping, token, -1, old));
+        }
+        else if (parent instanceof List) {
+            List<JSONValue> list = (List<JSONValue>)parent;
+            int index = path.getIndex(n - 1);
+            int size = list.size();
+            if (index == JSONPointer.END_INDEX)
+                index = size;
+            else if (index < 0 || index > size)
+                throw notFound(path);
+            list.add(index, value);
+            if (log != null)
+                log.add(new Undo(Undo.LIST_REMOVE, list, null, index, null));
+        }
+        else if (parent instanceof Map) {
+            Map<String, JSONValue> map = (Map<String, JSONValue>)parent;
+            boolean present = map.containsKey(token);
+            JSONValue old = map.put(token, value);
+            if (log != null)
+                log.add(new Undo(present ? Undo.MAP_PUT : Undo.MAP_REMOVE, map, token, -1, old));
+        }
+        else
+            throw notFound(path);
+        return root;
+    }
+
+    /**
+     * Remove the value at the location given by a pointer, recording the change in the undo
+     * log.
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONValue remove(JSONValue root, JSONPointer path, List<Undo> log) {
+        int n = path.depth();
+        JSONValue parent = path.resolveParent(root);
+        String token = path.getToken(n - 1);
+        if (parent instanceof JSONMapping) {
+            JSONMapping<JSONValue> mapping = (JSONMapping<JSONValue>)parent;
+            int index = mapping.findIndex(token);
+            if (index >= 0) {
+                JSONValue old = mapping.removeAt(index);
+                if (log != null)
+                    log.add(new Undo(Undo.MAP_INSERT, mapping, token, index, old));
+                return old;
+            }
+        }
+        else if (parent instanceof List) {
+            List<JSONValue> list = (List<JSONValue>)parent;
+            int index = path.getIndex(n - 1);
+            if (index >= 0 && index < list.size()) {
+                JSONValue old = list.remove(index);
+                if (log != null)
+                    log.add(new Undo(Undo.LIST_INSERT, list, null, index, old));
+                return old;
+            }
+        }
+        else if (parent instanceof Map) {
+            Map<String, JSONValue> map = (Map<String, JSONValue>)parent;
+            if (map.containsKey(token)) {
+                JSONValue old = map.remove(token);
+                if (log != null)
+                    log.add(new Undo(Undo.MAP_PUT, map, token, -1, old));
+                return old;
+            }
+        }
+        throw notFound(path);
+    }
+
+    /**
+     * Replace the value at the location given by a pointer (which must exist), recording the
+     * change in the undo log.
+     */
+    @SuppressWarnings("unchecked")
+    private static JSONValue replace(JSONValue root, JSONPointer path, JSONValue value,
+            List<Undo> log) {
+        int n = path.depth();
+        if (n == 0)
+            return value;
+        JSONValue parent = path.resolveParent(root);
+        String token = path.getToken(n - 1);
+        if (parent instanceof JSONMapping) {
+            JSONMapping<JSONValue> mapping = (JSONMapping<JSONValue>)parent;
+            int index = mapping.findIndex(token);
+            if (index >= 0) {
+                JSONValue old = mapping.setValueAt(index, value);
+                if (log != null)
+                    log.add(new Undo(Undo.MAP_PUT, mapping, token, index, old));
+                return root;
+            }
+        }
+        else if (parent instanceof Map) {
+            Map<String, JSONValue> map = (Map<String, JSONValue>)parent;
+            if (map.containsKey(token)) {
+                JSONValue old = map.put(token, value);
+                if (log != null)
+                    log.add(new Undo(Undo.MAP_PUT, map, token, -1, old));
+                return root;
+            }
+        }
+        else if (parent instanceof List) {
+            List<JSONValue> list = (List<JSONValue>)parent;
+            int index = path.getIndex(n - 1);
+            if (index >= 0 && index < list.size()) {
+                JSONValue old = list.set(index, value);
+                if (log != null)
+                    log.add(new Undo(Undo.LIST_SET, list, null, index, old));
+                return root;
+            }
+        }
+        throw notFound(path);
+    }
+
+    /**
+     * A builder for {@code JSONPatch} objects, for use by classes that generate patches (see
+     * {@link JSONDiff}).  Values are copied as they are added, so the patch does not share
+     * mutable values with the source of the values.
+     */
+    static final class Builder {
+
+        private final List<Operation> operations = new ArrayList<>();
+
+        Builder add(JSONPointer path, JSONValue value) {
+            operations.add(new Add(path, copy(value)));
+            return this;
+        }
+
+        Builder remove(JSONPointer path) {
+            operations.add(new Remove(path));
+            return this;
+        }
+
+        Builder replace(JSONPointer path, JSONValue value) {
+            operations.add(new Replace(path, copy(value)));
+            return this;
+        }
+
+        JSONPatch build() {
+            return new JSONPatch(operations.toArray(new Operation[0]));
+        }
+
+    }
+
+    /**
+     * A compiled patch operation.
+     */
+    private abstract static class Operation {
+
+        protected final JSONPointer path;
+
+        protected Operation(JSONPointer path) {
+            this.path = path;
+        }
+
+        /**
+         * Apply the operation.
+         *
+         * @param   root    the root of the document
+         * @param   log     the undo log ({@code null} if no undo is required)
+         * @return  the (possibly new) root of the document
+         */
+        abstract JSONValue apply(JSONValue root, List<Undo> log);
+
+        abstract String name();
+
+        JSONObject toJSONObject() {
+            return JSONObject.create().putValue("op", name()).putValue("path", path.toString());
+        }
+
+    }
+
+    private static final class Add extends Operation {
+
+        private final JSONValue value;
+
+        private Add(JSONPointer path, JSONValue value) {
+            super(path);
+            this.value = value;
+        }
+
+        @Override
+        JSONValue apply(JSONValue root, List<Undo> log) {
+            return add(root, path, copy(value), log);
+        }
+
+        @Override
+        String name() {
+            return "add";
+        }
+
+        @Override
+        JSONObject toJSONObject() {
+            return super.toJSONObject().putJSON("value", copy(value));
+        }
+
+    }
+
+    private static final class Remove extends Operation {
+
+        private Remove(JSONPointer path) {
+            super(path);
+        }
+
+        @Override
+        JSONValue apply(JSONValue root, List<Undo> log) {
+            remove(root, path, log);
+            return root;
+        }
+
+        @Override
+        String name() {
+            return "remove";
+        }
+
+    }
+
+    private static final class Replace extends Operation {
+
+        private final JSONValue value;
+
+        private Replace(JSONPointer path, JSONValue value) {
+            super(path);
+            this.value = value;
+        }
+
+        @Override
+        JSONValue apply(JSONValue root, List<Undo> log) {
+            return replace(root, path, copy(value), log);
+        }
+
+        @Override
+        String name() {
+            return "replace";
+        }
+
+        @Override
+        JSONObject toJSONObject() {
+            return super.toJSONObject().putJSON("value", copy(value));
+        }
+
+    }
+
+    private static final class Move extends Operation {
+
+        private final JSONPointer from;
+
+        private Move(JSONPointer from, JSONPointer path) {
+            super(path);
+            this.from = from;
+        }
+
+        @Override
+        JSONValue apply(JSONValue root, List<Undo> log) {
+            if (from.equals(path)) {
+                if (!from.exists(root))
+                    throw notFound(from);
+                return root;
+            }
+            return add(root, path, remove(root, from, log), log);
+        }
+
+        @Override
+        String name() {
+            return "move";
+        }
+
+        @Override
+        JSONObject toJSONObject() {
+            return super.toJSONObject().putValue("from", from.toString());
+        }
+
+    }
+
+    private static final class Copy extends Operation {
+
+        private final JSONPointer from;
+
+        private Copy(JSONPointer from, JSONPointer path) {
+            super(path);
+            this.from = from;
+        }
+
+        @Override
+        JSONValue apply(JSONValue root, List<Undo> log) {
+            if (!from.exists(root))
+                throw notFound(from);
+            return add(root, path, copy(from.find(root)), log);
+        }
+
+        @Override
+        String name() {
+            return "copy";
+        }
+
+        @Override
+        JSONObject toJSONObject() {
+            return super.toJSONObject().putValue("from", from.toString());
+        }
+
+    }
+
+    private static final class Test extends Operation {
+
+        private final JSONValue value;
+
+        private Test(JSONPointer path, JSONValue value) {
+            super(path);
+            this.value = value;
+        }
+
+        @Override
+        JSONValue apply(JSONValue root, List<Undo> log) {
+            if (!path.exists(root) || !Objects.equals(path.find(root), value))
+                throw new JSONException(TEST_FAILED + ": " + path);
+            return root;
+        }
+
+        @Override
+        String name() {
+            return "test";
+        }
+
+        @Override
+        JSONObject toJSONObject() {
+            return super.toJSONObject().putJSON("value", copy(value));
+        }
+
+    }
+
+    /**
+     * An entry in the undo log, recording how to reverse a single change.
+     */
+    private static final class Undo {
+
+        /** Restore a value that was replaced (or removed from a general map). */
+        static final int MAP_PUT = 0;
+        /** Remove a property that was added. */
+        static final int MAP_REMOVE = 1;
+        /** Re-insert a property that was removed, at its original position. */
+        static final int MAP_INSERT = 2;
+        /** Restore an array element that was replaced. */
+        static final int LIST_SET = 3;
+        /** Remove an array element that was inserted. */
+        static final int LIST_REMOVE = 4;
+        /** Re-insert an array element that was removed. */
+        static final int LIST_INSERT = 5;
+
+        private final int kind;
+        private final Object container;
+        private final String key;
+        private final int index;
+        private final JSONValue value;
+
+        private Undo(int kind, Object container, String key, int index, JSONValue value) {
+            this.kind = kind;
+            this.container = container;
+            this.key = key;
+            this.index = index;
+            this.value = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        void undo() {
+            switch (kind) {
+            case MAP_PUT:
+                if (index >= 0)
+                    ((JSONMapping<JSONValue>)container).setValueAt(index, value);
+                else
+                    ((Map<String, JSONValue>)container).put(key, value);
+                break;
+            case MAP_REMOVE:
+                if (container instanceof JSONMapping)
+                    ((JSONMapping<JSONValue>)container).removeAt(index);
+                else
+                    ((Map<String, JSONValue>)container).remove(key);
+                break;
+            case MAP_INSERT:
+                ((JSONMapping<JSONValue>)container).insert(index, key, value);
+                break;
+            case LIST_SET:
+                ((List<JSONValue>)container).set(index, value);
+                break;
+            case LIST_REMOVE:
+                ((List<JSONValue>)container).remove(index);
+                break;
+            default:
+                ((List<JSONValue>)container).add(index, value);
+                break;
+            }
+        }
+
+    }
+
+}
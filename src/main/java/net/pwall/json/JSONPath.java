@@ -0,0 +1,1242 @@
+/*
+ * @(#) JSONPath.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A compiled JSONPath expression.  The expression is parsed once, when it is compiled, into
+ * an evaluation plan (an array of steps), which may then be evaluated against any number of
+ * {@link JSONValue} trees.  Evaluation does not copy any part of the tree; the results are
+ * references to the matching values within the tree.  A {@code JSONPath} is immutable, and may
+ * be shared between threads.
+ *
+ * <p>The following syntax is supported:</p>
+ * <ul>
+ *     <li>{@code $} &ndash; the root</li>
+ *     <li>{@code .name} or {@code ['name']} &ndash; an object property</li>
+ *     <li>{@code [n]} &ndash; an array element (negative indices count from the end)</li>
+ *     <li>{@code .*} or {@code [*]} &ndash; all properties or elements</li>
+ *     <li>{@code [a,b]} &ndash; a union of names or indices</li>
+ *     <li>{@code [start:end:step]} &ndash; an array slice</li>
+ *     <li>{@code ..} &ndash; recursive descent (e.g. {@code $..name})</li>
+ *     <li>{@code [?(expression)]} &ndash; a filter, where the expression may compare
+ *         {@code @}-relative or {@code $}-absolute paths with each other or with literal
+ *         numbers, strings, {@code true}, {@code false} or {@code null}, using
+ *         {@code ==}, {@code !=}, {@code <}, {@code <=}, {@code >}, {@code >=}, {@code &&},
+ *         {@code ||}, {@code !} and parentheses; a path alone tests for existence</li>
+ * </ul>
+ *
+ * <p>Comparisons with literal values are compiled into type-specific tests; for example, a
+ * comparison with an integer literal compares {@code long} values directly when the value in
+ * the tree is an integer.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONPath {
+
+    public static final String INVALID_PATH = "Invalid JSONPath";
+
+    private final String expression;
+    private final Step[] steps;
+
+    private JSONPath(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * Compile a JSONPath expression.
+     *
+     * @param   expression  the expression
+     * @return  the {@code JSONPath}
+     * @throws  JSONException if the expression is not valid
+     * @throws  NullPointerException if the expression is {@code null}
+     */
+    public static JSONPath compile(String expression) {
+        return new JSONPath(expression, new Parser(expression).parsePath());
+    }
+
+    /**
+     * Evaluate the path against a JSON tree, returning a list of the matching values.
+     *
+     * @param   root    the root of the tree
+     * @return  the matching values (the list may contain {@code null} for matching properties
+     *          or elements with a {@code null} value)
+     */
+    public List<JSONValue> evaluate(JSONValue root) {
+        List<JSONValue> results = new ArrayList<>();
+        evaluate(root, results::add);
+        return results;
+    }
+
+    /**
+     * Evaluate the path against a JSON tree, passing each matching value to a
+     * {@link Consumer}.
+     *
+     * @param   root        the root of the tree
+     * @param   consumer    the {@link Consumer}
+     */
+    public void evaluate(JSONValue root, Consumer<? super JSONValue> consumer) {
+        select(0, root, root, consumer);
+    }
+
+    /**
+     * Evaluate the path against a JSON tree, returning the first matching value.
+     *
+     * @param   root    the root of the tree
+     * @return  the first matching value, or {@code null} if there is no match (or if the value
+     *          is {@code null})
+     */
+    public JSONValue first(JSONValue root) {
+        JSONValue[] result = new JSONValue[1];
+        try {
+            evaluate(root, value -> {
+                result[0] = value;
+                throw Found.INSTANCE;
+            });
+        }
+        catch (Found ignore) {
+            // first value found
+        }
+        return result[0];
+    }
+
+    /**
+     * Get the original expression.
+     *
+     * @return  the expression
+     */
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    /**
+     * Get the steps of the evaluation plan.
+     *
+     * @return  the steps
+     */
+    Step[] getSteps() {
+        return steps;
+    }
+
+    /**
+     * Test whether any filter in the path refers to the root of the tree (using {@code $}).
+     *
+     * @return  {@code true} if the path refers to the root
+     */
+    boolean refersToRoot() {
+        for (Step step : steps) {
+            Filter filter = step.getFilter();
+            if (filter != null && filter.refersToRoot())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Apply the steps of the plan from the given index to a node.
+     *
+     * @param   index       the index of the next step
+     * @param   node        the node
+     * @param   root        the root of the tree
+     * @param   consumer    the {@link Consumer} for matching values
+     */
+    void select(int index, JSONValue node, JSONValue root, Consumer<? super JSONValue> consumer) {
+        if (index == steps.length)
+            consumer.accept(node);
+        else
+            steps[index].select(this, index + 1, node, root, consumer);
+    }
+
+    /**
+     * Invoke the given step continuation for each child (property value or array element) of
+     * a node.
+     *
+     * @param   path        the path
+     * @param   next        the index of the next step
+     * @param   node        the node
+     * @param   root        the root of the tree
+     * @param   consumer    the {@link Consumer} for matching values
+     * @param   filter      a filter to apply to the children (may be {@code null})
+     */
+    private static void selectChildren(JSONPath path, int next, JSONValue node, JSONValue root,
+            Consumer<? super JSONValue> consumer, Filter filter) {
+        if (node instanceof JSONMapping) {
+            JSONMapping<?> mapping = (JSONMapping<?>)node;
+            for (int i = 0, n = mapping.size(); i < n; i++) {
+                JSONValue child = mapping.valueAt(i);
+                if (filter == null || filter.test(child, root))
+                    path.select(next, child, root, consumer);
+            }
+        }
+        else if (node instanceof List) {
+            List<?> list = (List<?>)node;
+            for (int i = 0, n = list.size(); i < n; i++) {
+                JSONValue child = (JSONValue)list.get(i);
+                if (filter == null || filter.test(child, root))
+                    path.select(next, child, root, consumer);
+            }
+        }
+        else if (node instanceof Map) {
+            for (Object value : ((Map<?, ?>)node).values()) {
+                JSONValue child = (JSONValue)value;
+                if (filter == null || filter.test(child, root))
+                    path.select(next, child, root, consumer);
+            }
+        }
+    }
+
+    /**
+     * Get a property from an object.
+     *
+     * @param   node    the node
+     * @param   name    the property name
+     * @return  the property value, or {@code null} if the node is not an object
+     */
+    private static JSONValue property(JSONValue node, String name) {
+        if (node instanceof JSONMapping)
+            return ((JSONMapping<?>)node).get(name);
+        if (node instanceof Map)
+            return (JSONValue)((Map<?, ?>)node).get(name);
+        return null;
+    }
+
+    /**
+     * A step in an evaluation plan.
+     */
+    abstract static class Step {
+
+        /**
+         * Apply the step to a node, and continue with the next step for each selected value.
+         *
+         * @param   path        the path
+         * @param   next        the index of the next step
+         * @param   node        the node
+         * @param   root        the root of the tree
+         * @param   consumer    the {@link Consumer} for matching values
+         */
+        abstract void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer);
+
+        /**
+         * Test whether the step selects the property with the given name (ignoring any
+         * filter).
+         *
+         * @param   name    the name
+         * @return  {@code true} if the property is selected
+         */
+        boolean selectsName(String name) {
+            return false;
+        }
+
+        /**
+         * Test whether the step selects the array element with the given index (ignoring any
+         * filter).  Steps that require the size of the array (negative indices and some slices)
+         * never select an element by this test.
+         *
+         * @param   index   the index
+         * @return  {@code true} if the element is selected
+         */
+        boolean selectsIndex(int index) {
+            return false;
+        }
+
+        /**
+         * Get the filter applied to the selected values.
+         *
+         * @return  the filter, or {@code null} if there is none
+         */
+        Filter getFilter() {
+            return null;
+        }
+
+        /**
+         * Test whether the step can be applied to the children of a node one at a time, as
+         * they are read from a stream, using {@link #selectsName(String)},
+         * {@link #selectsIndex(int)} and {@link #getFilter()}.  This is not possible for steps
+         * that need to know the size of an array.
+         *
+         * @return  {@code true} if the step can be applied to a stream
+         */
+        boolean isStreamable() {
+            return true;
+        }
+
+    }
+
+    /**
+     * A step selecting a named property.
+     */
+    static final class NameStep extends Step {
+
+        private final String name;
+
+        NameStep(String name) {
+            this.name = name;
+        }
+
+        @Override
+        void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer) {
+            if (node instanceof Map) {
+                JSONValue value = property(node, name);
+                if (value != null || ((Map<?, ?>)node).containsKey(name))
+                    path.select(next, value, root, consumer);
+            }
+        }
+
+        @Override
+        boolean selectsName(String name) {
+            return this.name.equals(name);
+        }
+
+    }
+
+    /**
+     * A step selecting an array element.
+     */
+    static final class IndexStep extends Step {
+
+        private final int index;
+
+        IndexStep(int index) {
+            this.index = index;
+        }
+
+        @Override
+        void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer) {
+            if (node instanceof List) {
+                List<?> list = (List<?>)node;
+                int i = index < 0 ? list.size() + index : index;
+                if (i >= 0 && i < list.size())
+                    path.select(next, (JSONValue)list.get(i), root, consumer);
+            }
+        }
+
+        @Override
+        boolean selectsIndex(int index) {
+            return index == this.index;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return index >= 0;
+        }
+
+    }
+
+    /**
+     * A step selecting a union of properties or array elements.
+     */
+    static final class UnionStep extends Step {
+
+        private final Step[] alternatives;
+
+        UnionStep(Step[] alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        @Override
+        void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer) {
+            for (Step alternative : alternatives)
+                alternative.select(path, next, node, root, consumer);
+        }
+
+        @Override
+        boolean selectsName(String name) {
+            for (Step alternative : alternatives)
+                if (alternative.selectsName(name))
+                    return true;
+            return false;
+        }
+
+        @Override
+        boolean selectsIndex(int index) {
+            for (Step alternative : alternatives)
+                if (alternative.selectsIndex(index))
+                    return true;
+            return false;
+        }
+
+        @Override
+        boolean isStreamable() {
+            for (Step alternative : alternatives)
+                if (!alternative.isStreamable())
+                    return false;
+            return true;
+        }
+
+    }
+
+    /**
+     * A step selecting all children, optionally filtered.
+     */
+    static final class WildcardStep extends Step {
+
+        private final Filter filter;
+
+        WildcardStep(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer) {
+            selectChildren(path, next, node, root, consumer, filter);
+        }
+
+        @Override
+        boolean selectsName(String name) {
+            return true;
+        }
+
+        @Override
+        boolean selectsIndex(int index) {
+            return true;
+        }
+
+        @Override
+        Filter getFilter() {
+            return filter;
+        }
+
+    }
+
+    /**
+     * A step selecting a slice of an array.
+     */
+    static final class SliceStep extends Step {
+
+        private final Integer start;
+        private final Integer end;
+        private final int step;
+
+        SliceStep(Integer start, Integer end, int step) {
+            this.start = start;
+            this.end = end;
+            this.step = step;
+        }
+
+        @Override
+        void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer) {
+            if (!(node instanceof List))
+                return;
+            List<?> list = (List<?>)node;
+            int n = list.size();
+            if (step > 0) {
+                int from = start == null ? 0 : bound(start, n);
+                int to = end == null ? n : bound(end, n);
+                for (int i = from; i < to; i += step)
+                    path.select(next, (JSONValue)list.get(i), root, consumer);
+            }
+            else {
+                int from = start == null ? n - 1 : reverseBound(start, n);
+                int to = end == null ? -1 : reverseBound(end, n);
+                for (int i = from; i > to; i += step)
+                    path.select(next, (JSONValue)list.get(i), root, consumer);
+            }
+        }
+
+        private static int bound(int index, int n) {
+            return index < 0 ? Math.max(n + index, 0) : Math.min(index, n);
+        }
+
+        private static int reverseBound(int index, int n) {
+            // RFC 9535 section 2.3.4.2.2: for a negative step the bounds are clamped to -1 .. n - 1
+            return index < 0 ? Math.max(n + index, -1) : Math.min(index, n - 1);
+        }
+
+        @Override
+        boolean selectsIndex(int index) {
+            if (!isStreamable())
+                return false;
+            int from = start == null ? 0 : start;
+            return index >= from && (end == null || index < end) && (index - from) % step == 0;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return step > 0 && (start == null || start >= 0) && (end == null || end >= 0);
+        }
+
+    }
+
+    /**
+     * A step applying another step to a node and to all of its descendants.
+     */
+    static final class DescendantStep extends Step {
+
+        private final Step step;
+
+        DescendantStep(Step step) {
+            this.step = step;
+        }
+
+        Step getStep() {
+            return step;
+        }
+
+        @Override
+        void select(JSONPath path, int next, JSONValue node, JSONValue root,
+                Consumer<? super JSONValue> consumer) {
+            step.select(path, next, node, root, consumer);
+            if (node instanceof JSONMapping) {
+                JSONMapping<?> mapping = (JSONMapping<?>)node;
+                for (int i = 0, n = mapping.size(); i < n; i++)
+                    select(path, next, mapping.valueAt(i), root, consumer);
+            }
+            else if (node instanceof List) {
+                List<?> list = (List<?>)node;
+                for (int i = 0, n = list.size(); i < n; i++)
+                    select(path, next, (JSONValue)list.get(i), root, consumer);
+            }
+            else if (node instanceof Map) {
+                for (Object value : ((Map<?, ?>)node).values())
+                    select(path, next, (JSONValue)value, root, consumer);
+            }
+        }
+
+        @Override
+        boolean selectsName(String name) {
+            return step.selectsName(name);
+        }
+
+        @Override
+        boolean selectsIndex(int index) {
+            return step.selectsIndex(index);
+        }
+
+        @Override
+        Filter getFilter() {
+            return step.getFilter();
+        }
+
+        @Override
+        boolean isStreamable() {
+            return step.isStreamable();
+        }
+
+    }
+
+    /**
+     * A filter predicate.
+     */
+    interface Filter {
+
+        /**
+         * Test a value.
+         *
+         * @param   node    the value (the {@code @} node)
+         * @param   root    the root of the tree (the {@code $} node)
+         * @return  {@code true} if the value passes the filter
+         */
+        boolean test(JSONValue node, JSONValue root);
+
+        /**
+         * Test whether the filter refers to the root of the tree.
+         *
+         * @return  {@code true} if the filter uses the {@code $} node
+         */
+        default boolean refersToRoot() {
+            return false;
+        }
+
+    }
+
+    /**
+     * An operand in a filter expression.
+     */
+    private abstract static class Operand {
+
+        abstract JSONValue value(JSONValue node, JSONValue root);
+
+        /**
+         * Test whether the operand is absent (as distinct from a {@code null} value), given that
+         * {@link #value(JSONValue, JSONValue)} has returned {@code null}.
+         *
+         * @param   node    the current node
+         * @param   root    the root node
+         * @return  {@code true} if the operand is absent
+         */
+        boolean absent(JSONValue node, JSONValue root) {
+            return false;
+        }
+
+        boolean refersToRoot() {
+            return false;
+        }
+
+    }
+
+    private static final class PathOperand extends Operand {
+
+        private final boolean absolute;
+        private final JSONPointer pointer;
+
+        private PathOperand(boolean absolute, JSONPointer pointer) {
+            this.absolute = absolute;
+            this.pointer = pointer;
+        }
+
+        @Override
+        JSONValue value(JSONValue node, JSONValue root) {
+            return pointer.find(absolute ? root : node);
+        }
+
+        boolean exists(JSONValue node, JSONValue root) {
+            return pointer.exists(absolute ? root : node);
+        }
+
+        @Override
+        boolean absent(JSONValue node, JSONValue root) {
+            return !exists(node, root);
+        }
+
+        @Override
+        boolean refersToRoot() {
+            return absolute;
+        }
+
+    }
+
+    private static final class LiteralOperand extends Operand {
+
+        private final JSONValue value;
+
+        private LiteralOperand(JSONValue value) {
+            this.value = value;
+        }
+
+        @Override
+        JSONValue value(JSONValue node, JSONValue root) {
+            return value;
+        }
+
+    }
+
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int LE = 3;
+    private static final int GT = 4;
+    private static final int GE = 5;
+
+    private static boolean result(int op, int comparison) {
+        switch (op) {
+        case EQ:
+            return comparison == 0;
+        case NE:
+            return comparison != 0;
+        case LT:
+            return comparison < 0;
+        case LE:
+            return comparison <= 0;
+        case GT:
+            return comparison > 0;
+        default:
+            return comparison >= 0;
+        }
+    }
+
+    /**
+     * Compare two number values.
+     *
+     * @param   a   the first value
+     * @param   b   the second value
+     * @return  negative, zero or positive as the first value is less than, equal to or greater
+     *          than the second
+     */
+    private static int compareNumbers(JSONNumberValue a, JSONNumberValue b) {
+        if (isIntegral(a) && isIntegral(b))
+            return Long.compare(a.longValue(), b.longValue());
+        if (a instanceof JSONDecimal || b instanceof JSONDecimal)
+            return a.bigDecimalValue().compareTo(b.bigDecimalValue());
+        return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+
+    private static boolean isIntegral(JSONValue value) {
+        return value instanceof JSONInteger || value instanceof JSONLong || value instanceof JSONZero;
+    }
+
+    /**
+     * A comparison between a path and a number literal, specialised by the type of the literal.
+     */
+    private static final class NumberComparison implements Filter {
+
+        private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+        private final PathOperand path;
+        private final int op;
+        private final boolean integral;
+        private final long longValue;
+        private final double doubleValue;
+        private final BigDecimal decimalValue;
+
+        private NumberComparison(PathOperand path, int op, JSONNumberValue literal) {
+            this.path = path;
+            this.op = op;
+            integral = isIntegral(literal);
+            longValue = literal.longValue();
+            doubleValue = literal.doubleValue();
+            decimalValue = literal.bigDecimalValue();
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return path.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            JSONValue value = path.value(node, root);
+            if (!(value instanceof JSONNumberValue))
+                return op == NE;
+            if (isIntegral(value)) {
+                long v = ((JSONNumberValue)value).longValue();
+                if (integral)
+                    return result(op, Long.compare(v, longValue));
+                if (v > -MAX_EXACT_DOUBLE && v < MAX_EXACT_DOUBLE)
+                    return result(op, Double.compare(v, doubleValue));
+            }
+            else if (value instanceof JSONDouble || value instanceof JSONFloat) {
+                double v = ((JSONNumberValue)value).doubleValue();
+                return result(op, v < doubleValue ? -1 : v > doubleValue ? 1 : 0);
+            }
+            return result(op, ((JSONNumberValue)value).bigDecimalValue().compareTo(decimalValue));
+        }
+
+    }
+
+    /**
+     * A comparison between a path and a string literal.
+     */
+    private static final class StringComparison implements Filter {
+
+        private final PathOperand path;
+        private final int op;
+        private final String literal;
+
+        private StringComparison(PathOperand path, int op, String literal) {
+            this.path = path;
+            this.op = op;
+            this.literal = literal;
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return path.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            JSONValue value = path.value(node, root);
+            if (!(value instanceof JSONString))
+                return op == NE;
+            String v = ((JSONString)value).getValue();
+            return op == EQ ? v.equals(literal) : op == NE ? !v.equals(literal) :
+                    result(op, v.compareTo(literal));
+        }
+
+    }
+
+    /**
+     * A comparison between any two operands.
+     */
+    private static final class GeneralComparison implements Filter {
+
+        private static final Object ABSENT = new Object();
+
+        private final Operand left;
+        private final int op;
+        private final Operand right;
+
+        private GeneralComparison(Operand left, int op, Operand right) {
+            this.left = left;
+            this.op = op;
+            this.right = right;
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return left.refersToRoot() || right.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            JSONValue a = left.value(node, root);
+            JSONValue b = right.value(node, root);
+            if (a instanceof JSONNumberValue && b instanceof JSONNumberValue)
+                return result(op, compareNumbers((JSONNumberValue)a, (JSONNumberValue)b));
+            if (a instanceof JSONString && b instanceof JSONString)
+                return result(op, ((JSONString)a).getValue().compareTo(((JSONString)b).getValue()));
+            if (op == EQ || op == NE) {
+                // an absent operand is equal only to another absent operand, not to null
+                Object x = a == null && left.absent(node, root) ? ABSENT : a;
+                Object y = b == null && right.absent(node, root) ? ABSENT : b;
+                return Objects.equals(x, y) == (op == EQ);
+            }
+            return false;
+        }
+
+    }
+
+    private static final class ExistsFilter implements Filter {
+
+        private final PathOperand path;
+
+        private ExistsFilter(PathOperand path) {
+            this.path = path;
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return path.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            return path.exists(node, root);
+        }
+
+    }
+
+    private static final class NotFilter implements Filter {
+
+        private final Filter filter;
+
+        private NotFilter(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return filter.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            return !filter.test(node, root);
+        }
+
+    }
+
+    private static final class AndFilter implements Filter {
+
+        private final Filter left;
+        private final Filter right;
+
+        private AndFilter(Filter left, Filter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return left.refersToRoot() || right.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            return left.test(node, root) && right.test(node, root);
+        }
+
+    }
+
+    private static final class OrFilter implements Filter {
+
+        private final Filter left;
+        private final Filter right;
+
+        private OrFilter(Filter left, Filter right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean refersToRoot() {
+            return left.refersToRoot() || right.refersToRoot();
+        }
+
+        @Override
+        public boolean test(JSONValue node, JSONValue root) {
+            return left.test(node, root) || right.test(node, root);
+        }
+
+    }
+
+    /**
+     * Exception used to terminate evaluation when the first result has been found.
+     */
+    private static final class Found extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final Found INSTANCE = new Found();
+
+        private Found() {
+            super(null, null, false, false);
+        }
+
+    }
+
+    /**
+     * JSONPath expression parser.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int index;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        private Step[] parsePath() {
+            skipSpaces();
+            if (!match('$'))
+                throw error();
+            List<Step> steps = new ArrayList<>();
+            for (;;) {
+                skipSpaces();
+                if (index >= text.length())
+                    break;
+                if (match("..")) {
+                    Step step;
+                    if (match('*'))
+                        step = new WildcardStep(null);
+                    else if (peek() == '[')
+                        step = parseBracket();
+                    else
+                        step = new NameStep(parseName());
+                    steps.add(new DescendantStep(step));
+                }
+                else if (match('.')) {
+                    if (match('*'))
+                        steps.add(new WildcardStep(null));
+                    else
+                        steps.add(new NameStep(parseName()));
+                }
+                else if (peek() == '[')
+                    steps.add(parseBracket());
+                else
+                    throw error();
+            }
+            return steps.toArray(new Step[0]);
+        }
+
+        private Step parseBracket() {
+            match('[');
+            skipSpaces();
+            Step result;
+            if (match('*'))
+                result = new WildcardStep(null);
+            else if (match('?')) {
+                skipSpaces();
+                if (!match('('))
+                    throw error();
+                Filter filter = parseOr();
+                skipSpaces();
+                if (!match(')'))
+                    throw error();
+                result = new WildcardStep(filter);
+            }
+            else {
+                List<Step> alternatives = new ArrayList<>();
+                do {
+                    skipSpaces();
+                    alternatives.add(parseSelector());
+                    skipSpaces();
+                } while (match(','));
+                result = alternatives.size() == 1 ? alternatives.get(0) :
+                        new UnionStep(alternatives.toArray(new Step[0]));
+            }
+            skipSpaces();
+            if (!match(']'))
+                throw error();
+            return result;
+        }
+
+        private Step parseSelector() {
+            char ch = peek();
+            if (ch == '\'' || ch == '"')
+                return new NameStep(parseString());
+            Integer start = parseOptionalInt();
+            skipSpaces();
+            if (!match(':')) {
+                if (start == null)
+                    throw error();
+                return new IndexStep(start);
+            }
+            skipSpaces();
+            Integer end = parseOptionalInt();
+            int step = 1;
+            skipSpaces();
+            if (match(':')) {
+                skipSpaces();
+                Integer stepValue = parseOptionalInt();
+                if (stepValue != null)
+                    step = stepValue;
+                if (step == 0)
+                    throw error();
+            }
+            return new SliceStep(start, end, step);
+        }
+
+        private Integer parseOptionalInt() {
+            int start = index;
+            match('-');
+            while (index < text.length() && Character.isDigit(text.charAt(index)))
+                index++;
+            if (index == start)
+                return null;
+            try {
+                return Integer.valueOf(text.substring(start, index));
+            }
+            catch (NumberFormatException e) {
+                index = start;
+                throw error();
+            }
+        }
+
+        private String parseName() {
+            int start = index;
+            while (index < text.length() && " \t.[]()!=<>&|,'\"".indexOf(text.charAt(index)) < 0)
+                index++;
+            if (index == start)
+                throw error();
+            return text.substring(start, index);
+        }
+
+        private String parseString() {
+            char quote = text.charAt(index++);
+            StringBuilder sb = new StringBuilder();
+            for (;;) {
+                if (index >= text.length())
+                    throw error();
+                char ch = text.charAt(index++);
+                if (ch == quote)
+                    return sb.toString();
+                if (ch == '\\') {
+                    if (index >= text.length())
+                        throw error();
+                    ch = text.charAt(index++);
+                    if (ch == 'n')
+                        ch = '\n';
+                    else if (ch == 't')
+                        ch = '\t';
+                    else if (ch == 'r')
+                        ch = '\r';
+                    else if (ch == 'b')
+                        ch = '\b';
+                    else if (ch == 'f')
+                        ch = '\f';
+                    else if (ch == 'u') {
+                        if (index + 4 > text.length())
+                            throw error();
+                        try {
+                            ch = (char)Integer.parseInt(text.substring(index, index + 4), 16);
+                        }
+                        catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        index += 4;
+                    }
+                }
+                sb.append(ch);
+            }
+        }
+
+        private Filter parseOr() {
+            Filter result = parseAnd();
+            for (;;) {
+                skipSpaces();
+                if (!match("||"))
+                    return result;
+                result = new OrFilter(result, parseAnd());
+            }
+        }
+
+        private Filter parseAnd() {
+            Filter result = parseUnary();
+            for (;;) {
+                skipSpaces();
+                if (!match("&&"))
+                    return result;
+                result = new AndFilter(result, parseUnary());
+            }
+        }
+
+        private Filter parseUnary() {
+            skipSpaces();
+            if (match('!') ) {
+                if (peek() == '=')
+                    throw error();
+                return new NotFilter(parseUnary());
+            }
+            if (match('(')) {
+                Filter result = parseOr();
+                skipSpaces();
+                if (!match(')'))
+                    throw error();
+                return result;
+            }
+            return parseComparison();
+        }
+
+        private Filter parseComparison() {
+            Operand left = parseOperand();
+            skipSpaces();
+            int op;
+            if (match("=="))
+                op = EQ;
+            else if (match("!="))
+                op = NE;
+            else if (match("<="))
+                op = LE;
+            else if (match(">="))
+                op = GE;
+            else if (match('<'))
+                op = LT;
+            else if (match('>'))
+                op = GT;
+            else {
+                if (!(left instanceof PathOperand))
+                    throw error();
+                return new ExistsFilter((PathOperand)left);
+            }
+            skipSpaces();
+            Operand right = parseOperand();
+            if (left instanceof LiteralOperand && right instanceof PathOperand) {
+                Operand swap = left;
+                left = right;
+                right = swap;
+                op = op == LT ? GT : op == LE ? GE : op == GT ? LT : op == GE ? LE : op;
+            }
+            if (left instanceof PathOperand && right instanceof LiteralOperand) {
+                JSONValue literal = ((LiteralOperand)right).value;
+                if (literal instanceof JSONNumberValue)
+                    return new NumberComparison((PathOperand)left, op, (JSONNumberValue)literal);
+                if (literal instanceof JSONString)
+                    return new StringComparison((PathOperand)left, op,
+                            ((JSONString)literal).getValue());
+            }
+            return new GeneralComparison(left, op, right);
+        }
+
+        private Operand parseOperand() {
+            char ch = peek();
+            if (ch == '@' || ch == '$') {
+                index++;
+                List<String> tokens = new ArrayList<>();
+                for (;;) {
+                    if (match('.'))
+                        tokens.add(parseName());
+                    else if (peek() == '[') {
+                        index++;
+                        skipSpaces();
+                        char quote = peek();
+                        if (quote == '\'' || quote == '"')
+                            tokens.add(parseString());
+                        else {
+                            Integer i = parseOptionalInt();
+                            if (i == null || i < 0)
+                                throw error();
+                            tokens.add(i.toString());
+                        }
+                        skipSpaces();
+                        if (!match(']'))
+                            throw error();
+                    }
+                    else
+                        break;
+                }
+                return new PathOperand(ch == '$', JSONPointer.of(tokens.toArray(new String[0])));
+            }
+            if (ch == '\'' || ch == '"')
+                return new LiteralOperand(new JSONString(parseString()));
+            if (match("true"))
+                return new LiteralOperand(JSONBoolean.TRUE);
+            if (match("false"))
+                return new LiteralOperand(JSONBoolean.FALSE);
+            if (match("null"))
+                return new LiteralOperand(null);
+            int start = index;
+            while (index < text.length() && "+-.0123456789eE".indexOf(text.charAt(index)) >= 0)
+                index++;
+            if (index == start)
+                throw error();
+            try {
+                JSONValue value = JSON.parse(text.substring(start, index));
+                if (value instanceof JSONNumberValue)
+                    return new LiteralOperand(value);
+            }
+            catch (JSONException ignore) {
+                // fall through
+            }
+            index = start;
+            throw error();
+        }
+
+        private char peek() {
+            return index < text.length() ? text.charAt(index) : 0;
+        }
+
+        private boolean match(char ch) {
+            if (peek() != ch)
+                return false;
+            index++;
+            return true;
+        }
+
+        private boolean match(String s) {
+            if (!text.startsWith(s, index))
+                return false;
+            index += s.length();
+            return true;
+        }
+
+        private void skipSpaces() {
+            while (index < text.length() && Character.isWhitespace(text.charAt(index)))
+                index++;
+        }
+
+        private JSONException error() {
+            return new JSONException(INVALID_PATH + " at " + index + ": " + text);
+        }
+
+    }
+
+}
@@ -0,0 +1,414 @@
+/*
+ * @(#) JSONPathScanner.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import net.pwall.json.JSONPath.Step;
+
+/**
+ * Evaluate one or more {@link JSONPath} expressions against JSON text read from a stream,
+ * without creating a tree for the entire document.  The input is read once, and only the values
+ * that match (or that must be examined to decide whether they match, for example the subjects
+ * of filter expressions) are created as {@link JSONValue} objects; everything else is checked
+ * for syntax and skipped.
+ *
+ * <p>Each expression is registered with a {@link Consumer} which receives the matching values.
+ * Values are delivered in document order, which may differ from the order of the results from
+ * {@link JSONPath#evaluate(JSONValue)} when the path contains a union or a reversed slice.
+ * Expressions with filters that refer to the root of the document ({@code $}) can not be
+ * evaluated on a stream.</p>
+ *
+ * <p>Duplicate keys are reported as errors only within the values that are created.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONPathScanner {
+
+    public static final String ROOT_REFERENCE =
+            "JSONPath filter refers to root; can not be evaluated on a stream";
+
+    private static final int FILTER_FLAG = 1 << 30;
+    private static final int PATH_SHIFT = 16;
+    private static final int STEP_MASK = (1 << PATH_SHIFT) - 1;
+
+    /** The maximum number of expressions in a {@code JSONPathScanner}. */
+    public static final int MAX_PATHS = FILTER_FLAG >>> PATH_SHIFT;
+
+    /** The maximum number of steps in an expression evaluated by a {@code JSONPathScanner}. */
+    public static final int MAX_STEPS = STEP_MASK;
+
+    private final List<JSONPath> paths;
+    private final List<Consumer<? super JSONValue>> consumers;
+
+    /**
+     * Construct a {@code JSONPathScanner} with no expressions.
+     */
+    public JSONPathScanner() {
+        paths = new ArrayList<>();
+        consumers = new ArrayList<>();
+    }
+
+    /**
+     * Add an expression to be evaluated, along with the {@link Consumer} to receive the
+     * matching values.
+     *
+     * @param   path        the {@link JSONPath}
+     * @param   consumer    the {@link Consumer}
+     * @return  {@code this} (for chaining)
+     * @throws  JSONException if the path contains a filter that refers to the root
+     * @throws  IllegalArgumentException if the path has more than {@link #MAX_STEPS} steps, or
+     *          the scanner already has {@link #MAX_PATHS} expressions
+     * @throws  NullPointerException if either argument is {@code null}
+     */
+    public JSONPathScanner add(JSONPath path, Consumer<? super JSONValue> consumer) {
+        if (path.refersToRoot())
+            throw new JSONException(ROOT_REFERENCE);
+        if (consumer == null)
+            throw new NullPointerException();
+        // the state of each path is packed into an int as the path index and the step index
+        if (path.getSteps().length > MAX_STEPS)
+            throw new IllegalArgumentException("Too many steps in JSONPath: " + path.getSteps().length);
+        if (paths.size() >= MAX_PATHS)
+            throw new IllegalArgumentException("Too many expressions in JSONPathScanner");
+        paths.add(path);
+        consumers.add(consumer);
+        return this;
+    }
+
+    /**
+     * Add an expression to be evaluated, compiling it from a string.
+     *
+     * @param   expression  the expression
+     * @param   consumer    the {@link Consumer}
+     * @return  {@code this} (for chaining)
+     * @throws  JSONException if the expression is not valid, or contains a filter that refers
+     *          to the root
+     * @throws  IllegalArgumentException if the expression has too many steps, or the scanner
+     *          has too many expressions
+     */
+    public JSONPathScanner add(String expression, Consumer<? super JSONValue> consumer) {
+        return add(JSONPath.compile(expression), consumer);
+    }
+
+    /**
+     * Scan JSON text read from a {@link Reader}, passing the values matched by each expression
+     * to its {@link Consumer}.  The input is checked for validity as it is read, and any errors
+     * are reported using the same messages as {@link JSON#parse(CharSequence)}; values matched
+     * before the error will already have been delivered.
+     *
+     * @param   rdr     the {@link Reader}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     */
+    public void scan(Reader rdr) throws IOException {
+        int n = paths.size();
+        int[] states = new int[n];
+        for (int i = 0; i < n; i++)
+            states[i] = i << PATH_SHIFT;
+        JSONReader reader = new JSONReader(rdr);
+        scanValue(reader, null, 0, states, n, new StringBuilder());
+        if (!reader.skipSpaces().isExhausted())
+            throw new JSONException(JSON.EXCESS_CHARS);
+    }
+
+    /**
+     * Scan JSON text read from an {@link InputStream}.
+     *
+     * @param   is      the {@link InputStream}
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     * @see     #scan(Reader)
+     */
+    public void scan(InputStream is) throws IOException {
+        try (Reader rdr = new InputStreamReader(is)) {
+            scan(rdr);
+        }
+    }
+
+    /**
+     * Scan JSON text read from an {@link InputStream}, specifying the character set.
+     *
+     * @param   is      the {@link InputStream}
+     * @param   charSet the character set
+     * @throws  JSONException if the input is not a valid JSON value
+     * @throws  IOException on any I/O errors
+     * @see     #scan(Reader)
+     */
+    public void scan(InputStream is, Charset charSet) throws IOException {
+        try (Reader rdr = new InputStreamReader(is, charSet)) {
+            scan(rdr);
+        }
+    }
+
+    /**
+     * Process a value with a set of active states.  Each state is the index of a path and the
+     * index of the next step in that path, with a flag to indicate that the filter of that step
+     * must be applied to the value before moving to the following step.  If any state requires
+     * the value itself (because the path is complete, a filter is to be applied, or the step can
+     * not be applied to a stream) the value is created and the remaining steps of all the
+     * states are evaluated against it; otherwise the children of the value are processed with
+     * the states derived from the steps, and children with no states are skipped.
+     */
+    private void scanValue(JSONReader reader, JSONPointer.Location location, int depth,
+            int[] states, int count, StringBuilder sb) throws IOException {
+        if (depth > JSON.getMaxDepth())
+            throw new JSONException(JSON.MAX_DEPTH_EXCEEDED);
+        if (count == 0) {
+            skipValue(reader, location, depth, sb);
+            return;
+        }
+        if (requiresValue(states, count)) {
+            JSONValue value = readValue(reader, location, depth, sb);
+            for (int i = 0; i < count; i++) {
+                int state = states[i];
+                int pathIndex = (state & ~FILTER_FLAG) >>> PATH_SHIFT;
+                JSONPath path = paths.get(pathIndex);
+                Consumer<? super JSONValue> consumer = consumers.get(pathIndex);
+                int step = state & STEP_MASK;
+                if ((state & FILTER_FLAG) == 0)
+                    path.select(step, value, null, consumer);
+                else if (path.getSteps()[step].getFilter().test(value, null))
+                    path.select(step + 1, value, null, consumer);
+            }
+            return;
+        }
+        reader.skipSpaces();
+        int[] childStates = new int[count * 2];
+        if (reader.match('{')) {
+            if (reader.skipSpaces().match('}'))
+                return;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            for (;;) {
+                if (!reader.match('"'))
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_KEY, location));
+                sb.setLength(0);
+                reader.copyString(null, sb, location);
+                String key = sb.toString();
+                if (!reader.skipSpaces().match(':'))
+                    throw new JSONException(JSON.pointerMessage(JSON.MISSING_COLON, location));
+                int childCount = 0;
+                for (int i = 0; i < count; i++) {
+                    Step step = step(states[i]);
+                    if (step instanceof JSONPath.DescendantStep)
+                        childStates = addState(childStates, childCount++, states[i]);
+                    if (step.selectsName(key))
+                        childStates = addState(childStates, childCount++, nextState(states[i], step));
+                }
+                scanValue(reader, child.key(key), depth + 1, childStates, childCount, sb);
+                if (!reader.skipSpaces().match(','))
+                    break;
+                reader.skipSpaces();
+            }
+            if (!reader.match('}'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACE, location));
+            return;
+        }
+        if (reader.match('[')) {
+            if (reader.skipSpaces().match(']'))
+                return;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            int index = 0;
+            do {
+                int childCount = 0;
+                for (int i = 0; i < count; i++) {
+                    Step step = step(states[i]);
+                    if (step instanceof JSONPath.DescendantStep)
+                        childStates = addState(childStates, childCount++, states[i]);
+                    if (step.selectsIndex(index))
+                        childStates = addState(childStates, childCount++, nextState(states[i], step));
+                }
+                scanValue(reader, child.index(index++), depth + 1, childStates, childCount, sb);
+            } while (reader.skipSpaces().match(','));
+            if (!reader.match(']'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACKET,
+                        location));
+            return;
+        }
+        skipValue(reader, location, depth, sb); // a primitive value has no children to select
+    }
+
+    private boolean requiresValue(int[] states, int count) {
+        for (int i = 0; i < count; i++) {
+            int state = states[i];
+            if ((state & FILTER_FLAG) != 0)
+                return true;
+            Step[] steps = paths.get(state >>> PATH_SHIFT).getSteps();
+            int step = state & STEP_MASK;
+            if (step == steps.length || !steps[step].isStreamable())
+                return true;
+        }
+        return false;
+    }
+
+    private Step step(int state) {
+        return paths.get(state >>> PATH_SHIFT).getSteps()[state & STEP_MASK];
+    }
+
+    private static int nextState(int state, Step step) {
+        return step.getFilter() == null ? state + 1 : state | FILTER_FLAG;
+    }
+
+    private static int[] addState(int[] states, int index, int state) {
+        if (index == states.length)
+            states = Arrays.copyOf(states, index * 2);
+        states[index] = state;
+        return states;
+    }
+
+    /**
+     * Read a value, creating the {@link JSONValue}.
+     */
+    private static JSONValue readValue(JSONReader reader, JSONPointer.Location location,
+            int depth, StringBuilder sb) throws IOException {
+        if (depth > JSON.getMaxDepth())
+            throw new JSONException(JSON.MAX_DEPTH_EXCEEDED);
+        reader.skipSpaces();
+        if (reader.match('{')) {
+            JSONObject object = new JSONObject();
+            if (reader.skipSpaces().match('}'))
+                return object;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            for (;;) {
+                if (!reader.match('"'))
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_KEY, location));
+                sb.setLength(0);
+                reader.copyString(null, sb, location);
+                String key = sb.toString();
+                if (object.containsKey(key))
+                    throw new JSONException(JSON.pointerMessage(JSON.DUPLICATE_KEY + ": \"" +
+                            key + '"', location));
+                if (!reader.skipSpaces().match(':'))
+                    throw new JSONException(JSON.pointerMessage(JSON.MISSING_COLON, location));
+                object.put(key, readValue(reader, child.key(key), depth + 1, sb));
+                if (!reader.skipSpaces().match(','))
+                    break;
+                reader.skipSpaces();
+            }
+            if (!reader.match('}'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACE, location));
+            return object;
+        }
+        if (reader.match('[')) {
+            JSONArray array = new JSONArray();
+            if (reader.skipSpaces().match(']'))
+                return array;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            do {
+                array.add(readValue(reader, child.index(array.size()), depth + 1, sb));
+            } while (reader.skipSpaces().match(','));
+            if (!reader.match(']'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACKET,
+                        location));
+            return array;
+        }
+        if (reader.match('"')) {
+            sb.setLength(0);
+            reader.copyString(null, sb, location);
+            return JSONString.valueOf(sb.toString());
+        }
+        sb.setLength(0);
+        if (reader.readNumber(sb, location)) {
+            boolean floating = false;
+            for (int i = 0, n = sb.length(); i < n; i++) {
+                char ch = sb.charAt(i);
+                if (ch == '.' || ch == 'e' || ch == 'E') {
+                    floating = true;
+                    break;
+                }
+            }
+            return JSON.numberValue(sb.toString(), floating);
+        }
+        if (reader.matchName("true"))
+            return JSONBoolean.TRUE;
+        if (reader.matchName("false"))
+            return JSONBoolean.FALSE;
+        if (reader.matchName("null"))
+            return null;
+        throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_SYNTAX, location));
+    }
+
+    /**
+     * Skip a value, checking its syntax.
+     */
+    private static void skipValue(JSONReader reader, JSONPointer.Location location, int depth,
+            StringBuilder sb) throws IOException {
+        if (depth > JSON.getMaxDepth())
+            throw new JSONException(JSON.MAX_DEPTH_EXCEEDED);
+        reader.skipSpaces();
+        if (reader.match('{')) {
+            if (reader.skipSpaces().match('}'))
+                return;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            for (;;) {
+                if (!reader.match('"'))
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_KEY, location));
+                sb.setLength(0);
+                reader.copyString(null, sb, location);
+                if (!reader.skipSpaces().match(':'))
+                    throw new JSONException(JSON.pointerMessage(JSON.MISSING_COLON, location));
+                skipValue(reader, child.key(sb.toString()), depth + 1, sb);
+                if (!reader.skipSpaces().match(','))
+                    break;
+                reader.skipSpaces();
+            }
+            if (!reader.match('}'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACE, location));
+            return;
+        }
+        if (reader.match('[')) {
+            if (reader.skipSpaces().match(']'))
+                return;
+            JSONPointer.Location child = new JSONPointer.Location(location);
+            int index = 0;
+            do {
+                skipValue(reader, child.index(index++), depth + 1, sb);
+            } while (reader.skipSpaces().match(','));
+            if (!reader.match(']'))
+                throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACKET,
+                        location));
+            return;
+        }
+        if (reader.match('"')) {
+            reader.copyString(null, null, location);
+            return;
+        }
+        sb.setLength(0);
+        if (reader.readNumber(sb, location))
+            return;
+        if (!reader.matchName("true") && !reader.matchName("false") && !reader.matchName("null"))
+            throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_SYNTAX, location));
+    }
+
+}
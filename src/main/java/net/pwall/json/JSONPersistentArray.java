@@ -0,0 +1,432 @@
+/*
+ * @(#) JSONPersistentArray.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A persistent JSON array.  A {@code JSONPersistentArray} is immutable; the operations
+ * {@link #with(int, JSONValue)}, {@link #append(JSONValue)} and {@link #withoutLast()} return a
+ * new version of the array, sharing all of the unchanged structure with the original (see
+ * {@link JSONVector}).  This makes it suitable for versioned data that is updated frequently,
+ * where copying a {@link JSONArray} for each change would be expensive.
+ *
+ * <p>Any composite value stored in a {@code JSONPersistentArray} is frozen (see
+ * {@link JSONComposite#freeze()}), so that the array as a whole is immutable.  The
+ * {@link List} read operations are supported; the {@link List} modifying operations throw
+ * {@link UnsupportedOperationException}.  A {@code JSONPersistentArray} is equal to a
+ * {@link JSONSequence} with the same contents.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONPersistentArray extends AbstractList<JSONValue>
+        implements JSONComposite, RandomAccess {
+
+    private static final long serialVersionUID = 6102485569174612315L;
+
+    private static final JSONPersistentArray EMPTY = new JSONPersistentArray(JSONVector.empty());
+
+    private final JSONVector<JSONValue> vector;
+    private transient int hash;
+    private transient long fingerprint;
+    private transient long[] blockFingerprints;
+    private transient int length;
+
+    private JSONPersistentArray(JSONVector<JSONValue> vector) {
+        this.vector = vector;
+    }
+
+    /**
+     * Get the value at the given index.
+     *
+     * @param   index   the index
+     * @return  the value
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    @Override
+    public JSONValue get(int index) {
+        return vector.get(index);
+    }
+
+    /**
+     * Get the number of values in the array.
+     *
+     * @return  the size
+     */
+    @Override
+    public int size() {
+        return vector.size();
+    }
+
+    /**
+     * Create a new version of the array with the value at the given index replaced.
+     *
+     * @param   index   the index
+     * @param   value   the new value (composite values will be frozen)
+     * @return  the new array
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    public JSONPersistentArray with(int index, JSONValue value) {
+        if (vector.get(index) == value)
+            return this;
+        JSONPersistentArray result = new JSONPersistentArray(vector.set(index, freeze(value)));
+        if (blockFingerprints != null) {
+            long[] blocks = blockFingerprints.clone();
+            blocks[index / JSONFingerprint.BLOCK_SIZE] = 0;
+            result.blockFingerprints = blocks;
+        }
+        return result;
+    }
+
+    /**
+     * Create a new version of the array with a value added at the end.
+     *
+     * @param   value   the new value (composite values will be frozen)
+     * @return  the new array
+     */
+    public JSONPersistentArray append(JSONValue value) {
+        JSONPersistentArray result = new JSONPersistentArray(vector.append(freeze(value)));
+        result.copyBlockFingerprints(blockFingerprints);
+        return result;
+    }
+
+    /**
+     * Create a new version of the array with the last value removed.
+     *
+     * @return  the new array
+     * @throws  NoSuchElementException if the array is empty
+     */
+    public JSONPersistentArray withoutLast() {
+        JSONVector<JSONValue> newVector = vector.pop();
+        if (newVector.size() == 0)
+            return EMPTY;
+        JSONPersistentArray result = new JSONPersistentArray(newVector);
+        result.copyBlockFingerprints(blockFingerprints);
+        return result;
+    }
+
+    /**
+     * Create a mutable {@link JSONArray} with the same contents as this array.  The nested
+     * composite values are shared (and remain frozen).
+     *
+     * @return  the new {@link JSONArray}
+     */
+    public JSONArray toJSONArray() {
+        JSONArray result = new JSONArray(size());
+        result.addAll(this);
+        return result;
+    }
+
+    /**
+     * Get an iterator over the values in the array.
+     *
+     * @return  the iterator
+     */
+    @Override
+    public Iterator<JSONValue> iterator() {
+        return new Iterator<JSONValue>() {
+            private int index;
+            private Object[] block;
+            @Override
+            public boolean hasNext() {
+                return index < vector.size();
+            }
+            @Override
+            public JSONValue next() {
+                if (index >= vector.size())
+                    throw new NoSuchElementException();
+                if ((index & 31) == 0 || block == null)
+                    block = vector.blockFor(index);
+                return (JSONValue)block[index++ & 31];
+            }
+        };
+    }
+
+    /**
+     * Convert to a simple representation.
+     *
+     * @return  the array as a List.
+     */
+    @Override
+    public List<Object> toSimpleValue() {
+        List<Object> list = new ArrayList<>(size());
+        for (JSONValue value : this)
+            list.add(JSONValue.simpleValue(value));
+        return list;
+    }
+
+    /**
+     * Append the external representation for this JSON array to a given {@link Appendable}.
+     *
+     * @param   a   the {@link Appendable}
+     * @throws  IOException     if thrown by the {@link Appendable}
+     * @see     JSONValue#appendJSON(Appendable)
+     */
+    @Override
+    public void appendJSON(Appendable a) throws IOException {
+        a.append('[');
+        Iterator<JSONValue> iterator = iterator();
+        if (iterator.hasNext()) {
+            for (;;) {
+                JSON.appendJSON(a, iterator.next());
+                if (!iterator.hasNext())
+                    break;
+                a.append(',');
+            }
+        }
+        a.append(']');
+    }
+
+    /**
+     * Get the length of the external representation for this JSON array.  The length is
+     * cached, because the array is immutable.
+     *
+     * @return  the length of the JSON representation
+     * @see     JSONValue#jsonLength()
+     */
+    @Override
+    public int jsonLength() {
+        int result = length;
+        if (result == 0) {
+            int n = size();
+            result = n > 0 ? n + 1 : 2;
+            for (JSONValue value : this)
+                result += JSON.jsonLength(value);
+            length = result;
+        }
+        return result;
+    }
+
+    /**
+     * Test whether the composite is "simple", i.e.&nbsp;it contains only non-composite values
+     * (to assist with formatting).
+     *
+     * @return  {@code true} if the composite is simple
+     * @see     JSONComposite#isSimple()
+     */
+    @Override
+    public boolean isSimple() {
+        for (JSONValue value : this)
+            if (value instanceof JSONComposite)
+                return false;
+        return true;
+    }
+
+    /**
+     * Make the composite immutable.  A {@code JSONPersistentArray} is always immutable, so
+     * this has no effect.
+     *
+     * @return  {@code this} (for chaining)
+     * @see     JSONComposite#freeze()
+     */
+    @Override
+    public JSONPersistentArray freeze() {
+        return this;
+    }
+
+    /**
+     * Create a deep copy of the composite.  A {@code JSONPersistentArray} is immutable, so the array
+     * itself is returned.
+     *
+     * @return  {@code this}
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONPersistentArray deepCopy() {
+        return this;
+    }
+
+    /**
+     * Test whether the composite has been frozen.  A {@code JSONPersistentArray} is always
+     * immutable, so this always returns {@code true}.
+     *
+     * @return  {@code true}
+     * @see     JSONComposite#isFrozen()
+     */
+    @Override
+    public boolean isFrozen() {
+        return true;
+    }
+
+    /**
+     * Get the hash code for this {@code JSONPersistentArray}, using the same formula as
+     * {@link JSONSequence#hashCode()}.
+     *
+     * @return  the hash code
+     * @see     Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            for (JSONValue value : this)
+                result ^= Objects.hashCode(value);
+            hash = result;
+        }
+        return result;
+    }
+
+    /**
+     * Get the content fingerprint for this {@code JSONPersistentArray} (see
+     * {@link JSONFingerprint}).  The fingerprint is cached, as are the fingerprints of each
+     * block of elements, and the block fingerprints are passed on to new versions of the array
+     * (except for the changed block), so a change to a single element of a long array requires
+     * the calculation of only one block.
+     *
+     * @return  the fingerprint
+     */
+    long fingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            int n = size();
+            int blockSize = JSONFingerprint.BLOCK_SIZE;
+            long[] blocks = blockFingerprints;
+            if (blocks == null)
+                blocks = new long[(n + blockSize - 1) / blockSize];
+            for (int i = 0; i < blocks.length; i++)
+                if (blocks[i] == 0)
+                    blocks[i] = JSONFingerprint.ofBlock(vector.blockFor(i * blockSize),
+                            Math.min(n - i * blockSize, blockSize));
+            blockFingerprints = blocks;
+            result = JSONFingerprint.ofArray(blocks, n);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Copy the cached block fingerprints of a previous version of the array (if any) to a new
+     * version that differs only in the last element, discarding the fingerprint of the last
+     * block.
+     *
+     * @param   blocks  the block fingerprints of the previous version, or {@code null}
+     */
+    private void copyBlockFingerprints(long[] blocks) {
+        if (blocks != null) {
+            int blockSize = JSONFingerprint.BLOCK_SIZE;
+            int n = (size() + blockSize - 1) / blockSize;
+            blocks = Arrays.copyOf(blocks, n);
+            blocks[n - 1] = 0;
+            blockFingerprints = blocks;
+        }
+    }
+
+    /**
+     * Compare this {@code JSONPersistentArray} with another object for equality.
+     *
+     * @param   other   the other object
+     * @return  {@code true} if the other object is a {@code JSONPersistentArray} or a
+     *          {@link JSONSequence} and has identical contents to this object
+     * @see     Object#equals(Object)
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other == this)
+            return true;
+        if (!(other instanceof JSONPersistentArray || other instanceof JSONSequence<?>))
+            return false;
+        List<?> otherList = (List<?>)other;
+        int n = size();
+        if (n != otherList.size())
+            return false;
+        if (other instanceof JSONPersistentArray && hashCode() != other.hashCode())
+            return false;
+        for (int i = 0; i < n; i++)
+            if (!Objects.equals(get(i), otherList.get(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * Get the {@link String} representation of this {@code JSONPersistentArray}.
+     *
+     * @return  the string representation for this array
+     * @see     Object#toString()
+     */
+    @Override
+    public String toString() {
+        return toJSON();
+    }
+
+    /**
+     * Get the empty {@code JSONPersistentArray}.
+     *
+     * @return  the empty array
+     */
+    public static JSONPersistentArray empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a {@code JSONPersistentArray} containing the given values.
+     *
+     * @param   values  the values (composite values will be frozen)
+     * @return  the new array
+     */
+    public static JSONPersistentArray of(JSONValue ... values) {
+        JSONVector<JSONValue> vector = JSONVector.empty();
+        for (JSONValue value : values)
+            vector = vector.append(freeze(value));
+        return values.length == 0 ? EMPTY : new JSONPersistentArray(vector);
+    }
+
+    /**
+     * Create a {@code JSONPersistentArray} containing the values of a {@link Collection}.
+     *
+     * @param   collection  the {@link Collection} (composite values will be frozen)
+     * @return  the new array
+     */
+    public static JSONPersistentArray from(Collection<? extends JSONValue> collection) {
+        if (collection instanceof JSONPersistentArray)
+            return (JSONPersistentArray)collection;
+        JSONVector<JSONValue> vector = JSONVector.empty();
+        for (JSONValue value : collection)
+            vector = vector.append(freeze(value));
+        return vector.size() == 0 ? EMPTY : new JSONPersistentArray(vector);
+    }
+
+    /**
+     * Freeze a value before it is stored in a persistent composite.
+     *
+     * @param   value   the value
+     * @return  the value
+     */
+    static JSONValue freeze(JSONValue value) {
+        if (value instanceof JSONComposite)
+            ((JSONComposite)value).freeze();
+        return value;
+    }
+
+}
@@ -0,0 +1,805 @@
+/*
+ * @(#) JSONPersistentObject.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import net.pwall.util.ListMap;
+import net.pwall.util.Strings;
+
+/**
+ * A persistent JSON object.  A {@code JSONPersistentObject} is immutable; the operations
+ * {@link #with(String, JSONValue)} and {@link #without(String)} return a new version of the
+ * object in O(log n) time, sharing all of the unchanged structure with the original.  This
+ * makes it suitable for versioned data that is updated frequently, where copying a
+ * {@link JSONObject} for each change would be expensive.
+ *
+ * <p>The entries are held in a hash array mapped trie (for lookup by key), and also in a
+ * {@link JSONVector} (to preserve insertion order, like {@link JSONObject}).  Replacing the
+ * value for an existing key leaves the entry in its original position.  The slots of removed
+ * entries are left empty in the order vector until they make up more than half of it, at
+ * which point the object is rebuilt.</p>
+ *
+ * <p>Any composite value stored in a {@code JSONPersistentObject} is frozen (see
+ * {@link JSONComposite#freeze()}), so that the object as a whole is immutable.  The
+ * {@link Map} read operations are supported; the {@link Map} modifying operations throw
+ * {@link UnsupportedOperationException}.  A {@code JSONPersistentObject} is equal to a
+ * {@link JSONMapping} with the same contents.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONPersistentObject extends AbstractMap<String, JSONValue>
+        implements JSONComposite {
+
+    private static final long serialVersionUID = -5532301318218577384L;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MIN_COMPACT = 32;
+
+    private static final JSONPersistentObject EMPTY =
+            new JSONPersistentObject(null, JSONVector.empty(), 0);
+
+    private final Object root;
+    private final JSONVector<Entry> order;
+    private final int count;
+    private transient int hash;
+    private transient long fingerprint;
+    private transient EntrySum entrySum;
+    private transient int length;
+    private transient List<Map.Entry<String, JSONValue>> sortedEntries;
+    private transient Set<Map.Entry<String, JSONValue>> entrySet;
+
+    private JSONPersistentObject(Object root, JSONVector<Entry> order, int count) {
+        this.root = root;
+        this.order = order;
+        this.count = count;
+    }
+
+    /**
+     * Get the number of entries in the object.
+     *
+     * @return  the size
+     */
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Get the value for the given key.
+     *
+     * @param   key     the key
+     * @return  the value, or {@code null} if the key is not present
+     */
+    @Override
+    public JSONValue get(Object key) {
+        Entry entry = find(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Test whether the object contains the given key.
+     *
+     * @param   key     the key
+     * @return  {@code true} if the key is present
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Create a new version of the object with the given key set to the given value.  If the key
+     * is already present, the entry keeps its position in the object.
+     *
+     * @param   key     the key
+     * @param   value   the value (composite values will be frozen)
+     * @return  the new object
+     * @throws  NullPointerException if the key is {@code null}
+     */
+    public JSONPersistentObject with(String key, JSONValue value) {
+        Objects.requireNonNull(key);
+        int h = hash(key);
+        Entry existing = find(key, h);
+        if (existing != null) {
+            if (existing.value == value)
+                return this;
+            Entry entry = new Entry(key, JSONPersistentArray.freeze(value), h, existing.ordinal);
+            JSONPersistentObject result = new JSONPersistentObject(put(root, 0, entry),
+                    order.set(entry.ordinal, entry), count);
+            result.entrySum = carryEntrySum(existing, entry);
+            return result;
+        }
+        Entry entry = new Entry(key, JSONPersistentArray.freeze(value), h, order.size());
+        JSONPersistentObject result = new JSONPersistentObject(put(root, 0, entry), order.append(entry),
+                count + 1);
+        result.entrySum = carryEntrySum(null, entry);
+        return result;
+    }
+
+    /**
+     * Create a new version of the object with the given key removed.
+     *
+     * @param   key     the key
+     * @return  the new object, or {@code this} if the key is not present
+     */
+    public JSONPersistentObject without(String key) {
+        int h = key == null ? 0 : hash(key);
+        Entry existing = find(key, h);
+        if (existing == null)
+            return this;
+        if (count == 1)
+            return EMPTY;
+        JSONVector<Entry> newOrder = existing.ordinal == order.size() - 1 ? order.pop() :
+                order.set(existing.ordinal, null);
+        JSONPersistentObject result = new JSONPersistentObject(remove(root, 0, h, key), newOrder,
+                count - 1);
+        result.entrySum = carryEntrySum(existing, null);
+        return newOrder.size() > MIN_COMPACT && newOrder.size() > result.count * 2 ?
+                copy(result) : result;
+    }
+
+    /**
+     * Create a mutable {@link JSONObject} with the same contents as this object.  The nested
+     * composite values are shared (and remain frozen).
+     *
+     * @return  the new {@link JSONObject}
+     */
+    public JSONObject toJSONObject() {
+        JSONObject result = new JSONObject(count);
+        for (Entry entry : entries())
+            result.put(entry.key, entry.value);
+        return result;
+    }
+
+    /**
+     * Get a {@link Set} view of the entries in the object.  The set may not be modified.
+     *
+     * @return  the entry set
+     */
+    @Override
+    public Set<Map.Entry<String, JSONValue>> entrySet() {
+        Set<Map.Entry<String, JSONValue>> result = entrySet;
+        if (result == null) {
+            result = new AbstractSet<Map.Entry<String, JSONValue>>() {
+                @Override
+                public Iterator<Map.Entry<String, JSONValue>> iterator() {
+                    return new EntryIterator<>();
+                }
+                @Override
+                public int size() {
+                    return count;
+                }
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry<?, ?>))
+                        return false;
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>)o;
+                    Entry found = find(entry.getKey());
+                    return found != null && Objects.equals(found.value, entry.getValue());
+                }
+            };
+            entrySet = result;
+        }
+        return result;
+    }
+
+    /**
+     * Get the entries of the {@code JSONPersistentObject} in order of key (for
+     * {@link JSONCanonical}).  The list is cached.
+     *
+     * @return  the entries in key order
+     */
+    List<Map.Entry<String, JSONValue>> sortedEntries() {
+        List<Map.Entry<String, JSONValue>> result = sortedEntries;
+        if (result == null) {
+            Entry[] array = new Entry[count];
+            int i = 0;
+            for (Entry entry : entries())
+                array[i++] = entry;
+            Arrays.sort(array, (a, b) -> a.key.compareTo(b.key));
+            result = Collections.unmodifiableList(Arrays.asList(array));
+            sortedEntries = result;
+        }
+        return result;
+    }
+
+    private Iterable<Entry> entries() {
+        return EntryIterator::new;
+    }
+
+    /**
+     * Convert to a simple representation.
+     *
+     * @return  the object as a Map.
+     */
+    @Override
+    public Map<String, Object> toSimpleValue() {
+        ListMap<String, Object> map = new ListMap<>(count);
+        for (Entry entry : entries())
+            map.put(entry.key, JSONValue.simpleValue(entry.value));
+        return map;
+    }
+
+    /**
+     * Append the external representation for this JSON object to a given {@link Appendable}.
+     *
+     * @param   a   the {@link Appendable}
+     * @throws  IOException     if thrown by the {@link Appendable}
+     * @see     JSONValue#appendJSON(Appendable)
+     */
+    @Override
+    public void appendJSON(Appendable a) throws IOException {
+        a.append('{');
+        boolean continuation = false;
+        for (Entry entry : entries()) {
+            if (continuation)
+                a.append(',');
+            a.append('"');
+            Strings.appendEscaped(a, entry.key, JSON.charMapper);
+            a.append('"').append(':');
+            JSON.appendJSON(a, entry.value);
+            continuation = true;
+        }
+        a.append('}');
+    }
+
+    /**
+     * Get the length of the external representation for this JSON object.  The length is
+     * cached, because the object is immutable.
+     *
+     * @return  the length of the JSON representation
+     * @see     JSONValue#jsonLength()
+     */
+    @Override
+    public int jsonLength() {
+        int result = length;
+        if (result == 0) {
+            result = count > 0 ? count + 1 : 2;
+            for (Entry entry : entries())
+                result += JSON.stringLength(entry.key) + 1 + JSON.jsonLength(entry.value);
+            length = result;
+        }
+        return result;
+    }
+
+    /**
+     * Test whether the composite is "simple", i.e.&nbsp;it contains only non-composite values
+     * (to assist with formatting).
+     *
+     * @return  {@code true} if the composite is simple
+     * @see     JSONComposite#isSimple()
+     */
+    @Override
+    public boolean isSimple() {
+        for (Entry entry : entries())
+            if (entry.value instanceof JSONComposite)
+                return false;
+        return true;
+    }
+
+    /**
+     * Make the composite immutable.  A {@code JSONPersistentObject} is always immutable, so
+     * this has no effect.
+     *
+     * @return  {@code this} (for chaining)
+     * @see     JSONComposite#freeze()
+     */
+    @Override
+    public JSONPersistentObject freeze() {
+        return this;
+    }
+
+    /**
+     * Create a deep copy of the composite.  A {@code JSONPersistentObject} is immutable, so the object
+     * itself is returned.
+     *
+     * @return  {@code this}
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONPersistentObject deepCopy() {
+        return this;
+    }
+
+    /**
+     * Test whether the composite has been frozen.  A {@code JSONPersistentObject} is always
+     * immutable, so this always returns {@code true}.
+     *
+     * @return  {@code true}
+     * @see     JSONComposite#isFrozen()
+     */
+    @Override
+    public boolean isFrozen() {
+        return true;
+    }
+
+    /**
+     * Get the hash code for this {@code JSONPersistentObject}, using the same formula as
+     * {@link JSONMapping#hashCode()}.
+     *
+     * @return  the hash code
+     * @see     Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            for (Entry entry : entries())
+                result ^= entry.hashCode();
+            hash = result;
+        }
+        return result;
+    }
+
+    /**
+     * Get the content fingerprint for this {@code JSONPersistentObject} (see
+     * {@link JSONFingerprint}).  The fingerprint is cached, as is the fingerprint of each
+     * entry, and the sum of the entry fingerprints is passed on to new versions, so the
+     * fingerprint of a new version created by {@link #with(String, JSONValue)} or
+     * {@link #without(String)} requires the calculation of the changed entry only.
+     *
+     * @return  the fingerprint
+     */
+    long fingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            EntrySum sum = entrySum;
+            if (sum == null || sum.pending != null) {
+                sum = new EntrySum(sum == null ? sumEntries() : sum.total(), null);
+                if (this != EMPTY) // otherwise every object built from empty would carry the sum
+                    entrySum = sum;
+            }
+            result = JSONFingerprint.ofObject(sum.sum, count);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    private long sumEntries() {
+        long sum = 0;
+        for (Entry entry : entries())
+            sum += entry.fingerprint();
+        return sum;
+    }
+
+    /**
+     * Derive the sum of the entry fingerprints for a new version of the object, if the sum for
+     * this version is known.  The fingerprint of the added entry is not calculated until needed.
+     *
+     * @param   removed the entry removed or replaced (may be {@code null})
+     * @param   added   the entry added (may be {@code null})
+     * @return  the sum for the new version, or {@code null} if not known
+     */
+    private EntrySum carryEntrySum(Entry removed, Entry added) {
+        EntrySum previous = entrySum;
+        if (previous == null)
+            return null;
+        long sum = previous.sum;
+        if (previous.pending == removed)
+            removed = null;
+        else if (previous.pending != null)
+            sum += previous.pending.fingerprint();
+        if (removed != null)
+            sum -= removed.fingerprint();
+        return new EntrySum(sum, added);
+    }
+
+    /**
+     * Compare this {@code JSONPersistentObject} with another object for equality.
+     *
+     * @param   other   the other object
+     * @return  {@code true} if the other object is a {@code JSONPersistentObject} or a
+     *          {@link JSONMapping} and has identical contents to this object
+     * @see     Object#equals(Object)
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (other == this)
+            return true;
+        if (!(other instanceof JSONPersistentObject || other instanceof JSONMapping<?>))
+            return false;
+        Map<?, ?> otherMap = (Map<?, ?>)other;
+        if (count != otherMap.size())
+            return false;
+        if (other instanceof JSONPersistentObject && hashCode() != other.hashCode())
+            return false;
+        for (Entry entry : entries())
+            if (!Objects.equals(entry.value, otherMap.get(entry.key)))
+                return false;
+        return true;
+    }
+
+    /**
+     * Get the {@link String} representation of this {@code JSONPersistentObject}.
+     *
+     * @return  the string representation for this object
+     * @see     Object#toString()
+     */
+    @Override
+    public String toString() {
+        return toJSON();
+    }
+
+    /**
+     * Get the empty {@code JSONPersistentObject}.
+     *
+     * @return  the empty object
+     */
+    public static JSONPersistentObject empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create a {@code JSONPersistentObject} containing the entries of a {@link Map}, in the
+     * iteration order of the {@link Map}.
+     *
+     * @param   map     the {@link Map} (composite values will be frozen)
+     * @return  the new object
+     */
+    public static JSONPersistentObject from(Map<String, ? extends JSONValue> map) {
+        if (map instanceof JSONPersistentObject)
+            return (JSONPersistentObject)map;
+        JSONPersistentObject result = EMPTY;
+        for (Map.Entry<String, ? extends JSONValue> entry : map.entrySet())
+            result = result.with(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    private static JSONPersistentObject copy(JSONPersistentObject source) {
+        JSONPersistentObject result = EMPTY;
+        for (Entry entry : source.entries())
+            result = result.with(entry.key, entry.value);
+        result.entrySum = source.entrySum;
+        return result;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private Entry find(Object key) {
+        return key instanceof String ? find(key, hash((String)key)) : null;
+    }
+
+    private Entry find(Object key, int h) {
+        Object slot = root;
+        for (int shift = 0; slot instanceof Node; shift += BITS) {
+            Node node = (Node)slot;
+            int bit = 1 << ((h >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0)
+                return null;
+            slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+        }
+        if (slot instanceof Entry) {
+            Entry entry = (Entry)slot;
+            return entry.hash == h && entry.key.equals(key) ? entry : null;
+        }
+        if (slot instanceof Collision) {
+            Collision collision = (Collision)slot;
+            if (collision.hash == h)
+                for (Entry entry : collision.entries)
+                    if (entry.key.equals(key))
+                        return entry;
+        }
+        return null;
+    }
+
+    /**
+     * Add or replace an entry in a trie slot, returning the new slot contents.
+     *
+     * @param   slot    the slot contents ({@code null}, an {@link Entry}, a {@link Collision}
+     *                  or a {@link Node})
+     * @param   shift   the shift for the hash bits at this level
+     * @param   entry   the new entry
+     * @return  the new slot contents
+     */
+    private static Object put(Object slot, int shift, Entry entry) {
+        if (slot == null)
+            return entry;
+        if (slot instanceof Entry) {
+            Entry existing = (Entry)slot;
+            if (existing.hash != entry.hash)
+                return merge(shift, existing, existing.hash, entry);
+            if (existing.key.equals(entry.key))
+                return entry;
+            return new Collision(entry.hash, new Entry[] { existing, entry });
+        }
+        if (slot instanceof Collision) {
+            Collision collision = (Collision)slot;
+            if (collision.hash != entry.hash)
+                return merge(shift, collision, collision.hash, entry);
+            Entry[] entries = collision.entries;
+            for (int i = 0, n = entries.length; i < n; i++) {
+                if (entries[i].key.equals(entry.key)) {
+                    Entry[] newEntries = entries.clone();
+                    newEntries[i] = entry;
+                    return new Collision(entry.hash, newEntries);
+                }
+            }
+            Entry[] newEntries = new Entry[entries.length + 1];
+            System.arraycopy(entries, 0, newEntries, 0, entries.length);
+            newEntries[entries.length] = entry;
+            return new Collision(entry.hash, newEntries);
+        }
+        Node node = (Node)slot;
+        int bit = 1 << ((entry.hash >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        Object[] slots = node.slots;
+        if ((node.bitmap & bit) == 0) {
+            Object[] newSlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            newSlots[index] = entry;
+            System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+            return new Node(node.bitmap | bit, newSlots);
+        }
+        Object[] newSlots = slots.clone();
+        newSlots[index] = put(slots[index], shift + BITS, entry);
+        return new Node(node.bitmap, newSlots);
+    }
+
+    /**
+     * Create a node containing an existing slot value (an {@link Entry} or a {@link Collision})
+     * and a new entry with a different hash.
+     *
+     * @param   shift   the shift for the hash bits at this level
+     * @param   existing    the existing slot value
+     * @param   existingHash    the hash of the existing slot value
+     * @param   entry   the new entry
+     * @return  the new node
+     */
+    private static Node merge(int shift, Object existing, int existingHash, Entry entry) {
+        int existingBits = (existingHash >>> shift) & MASK;
+        int newBits = (entry.hash >>> shift) & MASK;
+        if (existingBits == newBits)
+            return new Node(1 << newBits,
+                    new Object[] { merge(shift + BITS, existing, existingHash, entry) });
+        return new Node((1 << existingBits) | (1 << newBits), existingBits < newBits ?
+                new Object[] { existing, entry } : new Object[] { entry, existing });
+    }
+
+    /**
+     * Remove an entry from a trie slot, returning the new slot contents.  A node left with a
+     * single {@link Entry} or {@link Collision} is replaced by that value.
+     *
+     * @param   slot    the slot contents
+     * @param   shift   the shift for the hash bits at this level
+     * @param   h       the hash of the key
+     * @param   key     the key
+     * @return  the new slot contents
+     */
+    private static Object remove(Object slot, int shift, int h, Object key) {
+        if (slot instanceof Entry)
+            return ((Entry)slot).key.equals(key) ? null : slot;
+        if (slot instanceof Collision) {
+            Entry[] entries = ((Collision)slot).entries;
+            for (int i = 0, n = entries.length; i < n; i++) {
+                if (entries[i].key.equals(key)) {
+                    if (n == 2)
+                        return entries[1 - i];
+                    Entry[] newEntries = new Entry[n - 1];
+                    System.arraycopy(entries, 0, newEntries, 0, i);
+                    System.arraycopy(entries, i + 1, newEntries, i, n - i - 1);
+                    return new Collision(h, newEntries);
+                }
+            }
+            return slot;
+        }
+        Node node = (Node)slot;
+        int bit = 1 << ((h >>> shift) & MASK);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+        Object[] slots = node.slots;
+        Object child = slots[index];
+        Object newChild = remove(child, shift + BITS, h, key);
+        if (newChild == child)
+            return node;
+        if (newChild == null) {
+            if (slots.length == 1)
+                return null;
+            if (slots.length == 2 && !(slots[1 - index] instanceof Node))
+                return slots[1 - index];
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new Node(node.bitmap & ~bit, newSlots);
+        }
+        if (slots.length == 1 && !(newChild instanceof Node))
+            return newChild;
+        Object[] newSlots = slots.clone();
+        newSlots[index] = newChild;
+        return new Node(node.bitmap, newSlots);
+    }
+
+    /**
+     * An entry in a {@code JSONPersistentObject}.
+     */
+    private static final class Entry implements Map.Entry<String, JSONValue>, Serializable {
+
+        private static final long serialVersionUID = 2914386113742609531L;
+
+        private final String key;
+        private final JSONValue value;
+        private final int hash;
+        private final int ordinal;
+        private transient long fingerprint;
+
+        private Entry(String key, JSONValue value, int hash, int ordinal) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public JSONValue getValue() {
+            return value;
+        }
+
+        @Override
+        public JSONValue setValue(JSONValue value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof Map.Entry<?, ?>))
+                return false;
+            Map.Entry<?, ?> otherEntry = (Map.Entry<?, ?>)other;
+            return key.equals(otherEntry.getKey()) && Objects.equals(value, otherEntry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+
+        private long fingerprint() {
+            long result = fingerprint;
+            if (result == 0) {
+                result = JSONFingerprint.ofEntry(key, value);
+                fingerprint = result;
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * The sum of the fingerprints of the entries of a {@code JSONPersistentObject}, excluding a
+     * pending entry whose fingerprint has not yet been calculated.
+     */
+    private static final class EntrySum {
+
+        private final long sum;
+        private final Entry pending;
+
+        private EntrySum(long sum, Entry pending) {
+            this.sum = sum;
+            this.pending = pending;
+        }
+
+        private long total() {
+            return pending == null ? sum : sum + pending.fingerprint();
+        }
+
+    }
+
+    /**
+     * A trie node: a bitmap of the occupied slots, and the slot contents (each an
+     * {@link Entry}, a {@link Collision} or a {@code Node}) in bit order.
+     */
+    private static final class Node implements Serializable {
+
+        private static final long serialVersionUID = -3372195440735493185L;
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+    }
+
+    /**
+     * A set of entries whose keys have the same hash.
+     */
+    private static final class Collision implements Serializable {
+
+        private static final long serialVersionUID = 6806011547620624006L;
+
+        private final int hash;
+        private final Entry[] entries;
+
+        private Collision(int hash, Entry[] entries) {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+    }
+
+    /**
+     * Iterator over the entries in insertion order, skipping the slots of removed entries.
+     *
+     * @param   <T>     the iterator type
+     */
+    private class EntryIterator<T extends Map.Entry<String, JSONValue>> implements Iterator<T> {
+
+        private int index;
+
+        private EntryIterator() {
+            skip();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < order.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (index >= order.size())
+                throw new NoSuchElementException();
+            Entry entry = order.get(index++);
+            skip();
+            return (T)entry;
+        }
+
+        private void skip() {
+            while (index < order.size() && order.get(index) == null)
+                index++;
+        }
+
+    }
+
+}
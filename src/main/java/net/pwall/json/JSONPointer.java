@@ -0,0 +1,522 @@
+/*
+ * @(#) JSONPointer.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled JSON Pointer (<a href="https://tools.ietf.org/html/rfc6901">RFC 6901</a>).  The
+ * pointer string is split into tokens and unescaped once, when the pointer is compiled, and
+ * tokens that are valid array indices are also converted to {@code int}, so that resolving the
+ * pointer against a {@link JSONValue} performs no parsing and no allocation.  A
+ * {@code JSONPointer} is immutable, and may be shared between threads.
+ *
+ * <pre>
+ *     private static final JSONPointer pointer = JSONPointer.compile("/a/b/0/c");
+ *     ...
+ *     JSONValue value = pointer.find(document);
+ * </pre>
+ *
+ * @author Peter Wall
+ */
+public final class JSONPointer implements Serializable {
+
+    private static final long serialVersionUID = -1927380521937478563L;
+
+    public static final String INVALID_POINTER = "Invalid JSON pointer";
+    public static final String NOT_FOUND = "JSON pointer not found";
+
+    /** The index value for a token that is not a valid array index. */
+    static final int NOT_INDEX = -1;
+    /** The index value for the token {@code "-"} (the position after the last array element). */
+    static final int END_INDEX = -2;
+
+    private static final String[] EMPTY_TOKENS = {};
+    private static final int[] EMPTY_INDICES = {};
+
+    /** The pointer to the root of a document (the empty string). */
+    public static final JSONPointer ROOT = new JSONPointer(EMPTY_TOKENS, EMPTY_INDICES);
+
+    private final String[] tokens;
+    private final int[] indices;
+    private transient String string;
+
+    private JSONPointer(String[] tokens, int[] indices) {
+        this.tokens = tokens;
+        this.indices = indices;
+    }
+
+    /**
+     * Compile a JSON pointer string.
+     *
+     * @param   pointer the pointer string (the empty string, or one or more tokens each
+     *                  preceded by a slash)
+     * @return  the {@code JSONPointer}
+     * @throws  JSONException if the pointer string is not valid
+     * @throws  NullPointerException if the pointer string is {@code null}
+     */
+    public static JSONPointer compile(String pointer) {
+        int n = pointer.length();
+        if (n == 0)
+            return ROOT;
+        if (pointer.charAt(0) != '/')
+            throw new JSONException(INVALID_POINTER + ": " + pointer);
+        int count = 0;
+        for (int i = 0; i < n; i++)
+            if (pointer.charAt(i) == '/')
+                count++;
+        String[] tokens = new String[count];
+        int start = 1;
+        for (int i = 0; i < count; i++) {
+            int end = pointer.indexOf('/', start);
+            if (end < 0)
+                end = n;
+            tokens[i] = unescape(pointer, start, end);
+            start = end + 1;
+        }
+        JSONPointer result = new JSONPointer(tokens, indices(tokens));
+        result.string = pointer;
+        return result;
+    }
+
+    /**
+     * Create a {@code JSONPointer} from a set of (unescaped) tokens.
+     *
+     * @param   tokens  the tokens
+     * @return  the {@code JSONPointer}
+     * @throws  NullPointerException if any of the tokens is {@code null}
+     */
+    public static JSONPointer of(String ... tokens) {
+        if (tokens.length == 0)
+            return ROOT;
+        String[] copy = tokens.clone();
+        for (String token : copy)
+            if (token == null)
+                throw new NullPointerException();
+        return new JSONPointer(copy, indices(copy));
+    }
+
+    private static String unescape(String pointer, int start, int end) {
+        int i = pointer.indexOf('~', start);
+        if (i < 0 || i >= end)
+            return pointer.substring(start, end);
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(pointer, start, i);
+        while (i < end) {
+            char ch = pointer.charAt(i++);
+            if (ch == '~') {
+                char next = i < end ? pointer.charAt(i++) : 0;
+                if (next == '0')
+                    ch = '~';
+                else if (next == '1')
+                    ch = '/';
+                else
+                    throw new JSONException(INVALID_POINTER + ": " + pointer);
+            }
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static int[] indices(String[] tokens) {
+        int[] result = new int[tokens.length];
+        for (int i = 0, n = tokens.length; i < n; i++)
+            result[i] = index(tokens[i]);
+        return result;
+    }
+
+    private static int index(String token) {
+        int n = token.length();
+        if (n == 1 && token.charAt(0) == '-')
+            return END_INDEX;
+        if (n == 0 || n > 10 || n > 1 && token.charAt(0) == '0')
+            return NOT_INDEX;
+        long result = 0;
+        for (int i = 0; i < n; i++) {
+            char ch = token.charAt(i);
+            if (ch < '0' || ch > '9')
+                return NOT_INDEX;
+            result = result * 10 + ch - '0';
+        }
+        return result > Integer.MAX_VALUE ? NOT_INDEX : (int)result;
+    }
+
+    /**
+     * Get the number of tokens in the pointer.
+     *
+     * @return  the number of tokens (zero for the root pointer)
+     */
+    public int depth() {
+        return tokens.length;
+    }
+
+    /**
+     * Get a token from the pointer.
+     *
+     * @param   index   the index of the token
+     * @return  the (unescaped) token
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    public String getToken(int index) {
+        return tokens[index];
+    }
+
+    /**
+     * Get the pointer to the parent of the value referenced by this pointer.
+     *
+     * @return  the parent pointer
+     * @throws  JSONException if this is the root pointer
+     */
+    public JSONPointer parent() {
+        int n = tokens.length;
+        if (n == 0)
+            throw new JSONException(NOT_FOUND + ": parent of root");
+        return n == 1 ? ROOT : new JSONPointer(Arrays.copyOf(tokens, n - 1),
+                Arrays.copyOf(indices, n - 1));
+    }
+
+    /**
+     * Get a pointer to a child (an object property) of the value referenced by this pointer.
+     *
+     * @param   token   the (unescaped) property name
+     * @return  the child pointer
+     * @throws  NullPointerException if the token is {@code null}
+     */
+    public JSONPointer child(String token) {
+        if (token == null)
+            throw new NullPointerException();
+        return child(token, index(token));
+    }
+
+    /**
+     * Get a pointer to a child (an array element) of the value referenced by this pointer.
+     *
+     * @param   index   the array index
+     * @return  the child pointer
+     * @throws  IllegalArgumentException if the index is negative
+     */
+    public JSONPointer child(int index) {
+        if (index < 0)
+            throw new IllegalArgumentException(String.valueOf(index));
+        return child(String.valueOf(index), index);
+    }
+
+    private JSONPointer child(String token, int index) {
+        int n = tokens.length;
+        String[] newTokens = Arrays.copyOf(tokens, n + 1);
+        newTokens[n] = token;
+        int[] newIndices = Arrays.copyOf(indices, n + 1);
+        newIndices[n] = index;
+        return new JSONPointer(newTokens, newIndices);
+    }
+
+    /**
+     * Find the value referenced by this pointer in a JSON document.
+     *
+     * @param   root    the root of the document
+     * @return  the value, or {@code null} if the value is {@code null} or is not present
+     */
+    public JSONValue find(JSONValue root) {
+        JSONValue value = root;
+        for (int i = 0, n = tokens.length; i < n && value != null; i++)
+            value = child(value, i);
+        return value;
+    }
+
+    /**
+     * Test whether the value referenced by this pointer exists in a JSON document (the value
+     * may be {@code null}).
+     *
+     * @param   root    the root of the document
+     * @return  {@code true} if the value exists
+     */
+    public boolean exists(JSONValue root) {
+        int n = tokens.length;
+        if (n == 0)
+            return true;
+        JSONValue parent = resolveParent(root);
+        if (parent instanceof Map)
+            return ((Map<?, ?>)parent).containsKey(tokens[n - 1]);
+        if (parent instanceof List) {
+            int index = indices[n - 1];
+            return index >= 0 && index < ((List<?>)parent).size();
+        }
+        return false;
+    }
+
+    /**
+     * Set the value referenced by this pointer in a JSON document.  The parent of the value must
+     * exist, and must be an object or an array; for an array, the final token must be the index
+     * of an existing element (which is replaced), or the index one past the last element or
+     * {@code "-"} (in which case the value is appended).  The document is modified in place.
+     *
+     * @param   root    the root of the document
+     * @param   value   the new value
+     * @return  the root of the document (which will be the new value if this is the root
+     *          pointer)
+     * @throws  JSONException if the parent does not exist or the index is not valid
+     * @throws  UnsupportedOperationException if the parent may not be modified
+     */
+    @SuppressWarnings("unchecked")
+    public JSONValue set(JSONValue root, JSONValue value) {
+        int n = tokens.length;
+        if (n == 0)
+            return value;
+        JSONValue parent = resolveParent(root);
+        if (parent instanceof Map)
+            ((Map<String, JSONValue>)parent).put(tokens[n - 1], value);
+        else if (parent instanceof List) {
+            List<JSONValue> list = (List<JSONValue>)parent;
+            int index = indices[n - 1];
+            int size = list.size();
+            if (index == END_INDEX || index == size)
+                list.add(value);
+            else if (index >= 0 && index < size)
+                list.set(index, value);
+            else
+                throw notFound();
+        }
+        else
+            throw notFound();
+        return root;
+    }
+
+    /**
+     * Remove the value referenced by this pointer from a JSON document.  The document is
+     * modified in place.
+     *
+     * @param   root    the root of the document
+     * @return  the value removed
+     * @throws  JSONException if the value does not exist, or this is the root pointer
+     * @throws  UnsupportedOperationException if the parent may not be modified
+     */
+    public JSONValue remove(JSONValue root) {
+        int n = tokens.length;
+        if (n == 0)
+            throw notFound();
+        JSONValue parent = resolveParent(root);
+        if (parent instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>)parent;
+            String key = tokens[n - 1];
+            if (map.containsKey(key))
+                return (JSONValue)map.remove(key);
+        }
+        else if (parent instanceof List) {
+            List<?> list = (List<?>)parent;
+            int index = indices[n - 1];
+            if (index >= 0 && index < list.size())
+                return (JSONValue)list.remove(index);
+        }
+        throw notFound();
+    }
+
+    /**
+     * Get the array index form of a token.
+     *
+     * @param   index   the index of the token
+     * @return  the array index, or {@link #NOT_INDEX} or {@link #END_INDEX}
+     */
+    int getIndex(int index) {
+        return indices[index];
+    }
+
+    /**
+     * Test whether this pointer refers to a value that contains the value referenced by another
+     * pointer (that is, whether this pointer is a proper prefix of the other).
+     *
+     * @param   other   the other pointer
+     * @return  {@code true} if the other pointer refers to a descendant of this pointer's value
+     */
+    boolean isAncestorOf(JSONPointer other) {
+        int n = tokens.length;
+        if (n >= other.tokens.length)
+            return false;
+        for (int i = 0; i < n; i++)
+            if (!tokens[i].equals(other.tokens[i]))
+                return false;
+        return true;
+    }
+
+    /**
+     * Find the parent of the value referenced by this pointer (the pointer must not be the root
+     * pointer).
+     *
+     * @param   root    the root of the document
+     * @return  the parent, or {@code null} if it does not exist
+     */
+    JSONValue resolveParent(JSONValue root) {
+        JSONValue value = root;
+        for (int i = 0, n = tokens.length - 1; i < n; i++) {
+            if (value == null)
+                break;
+            value = child(value, i);
+        }
+        return value;
+    }
+
+    private JSONValue child(JSONValue value, int i) {
+        if (value instanceof JSONMapping)
+            return (JSONValue)((JSONMapping<?>)value).get(tokens[i]);
+        if (value instanceof Map)
+            return (JSONValue)((Map<?, ?>)value).get(tokens[i]);
+        if (value instanceof List) {
+            List<?> list = (List<?>)value;
+            int index = indices[i];
+            return index >= 0 && index < list.size() ? (JSONValue)list.get(index) : null;
+        }
+        return null;
+    }
+
+    private JSONException notFound() {
+        return new JSONException(NOT_FOUND + ": " + this);
+    }
+
+    /**
+     * Get the string form of the pointer, with the tokens escaped as required.
+     *
+     * @return  the pointer string
+     */
+    @Override
+    public String toString() {
+        String result = string;
+        if (result == null) {
+            StringBuilder sb = new StringBuilder();
+            for (String token : tokens) {
+                sb.append('/');
+                for (int i = 0, n = token.length(); i < n; i++) {
+                    char ch = token.charAt(i);
+                    if (ch == '~')
+                        sb.append("~0");
+                    else if (ch == '/')
+                        sb.append("~1");
+                    else
+                        sb.append(ch);
+                }
+            }
+            result = sb.toString();
+            string = result;
+        }
+        return result;
+    }
+
+    /**
+     * Compare this {@code JSONPointer} with another object for equality.
+     *
+     * @param   other   the other object
+     * @return  {@code true} if the other object is a {@code JSONPointer} with the same tokens
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other == this || other instanceof JSONPointer &&
+                Arrays.equals(tokens, ((JSONPointer)other).tokens);
+    }
+
+    /**
+     * Get the hash code for this {@code JSONPointer}.
+     *
+     * @return  the hash code
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tokens);
+    }
+
+    /**
+     * A mutable location within a document that is being read sequentially, for use in error
+     * messages.  A parser allocates one {@code Location} for each nested object or array, and
+     * updates it with the current property name or array index as it proceeds; the location
+     * is converted to a {@link JSONPointer} only when an error is reported.  A {@code null}
+     * location represents the root of the document.
+     */
+    static final class Location {
+
+        private final Location parent;
+        private String key;
+        private int index;
+
+        /**
+         * Construct a {@code Location} nested within the given location.
+         *
+         * @param   parent  the parent location ({@code null} for the root)
+         */
+        Location(Location parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * Set the location to the given object property.
+         *
+         * @param   key     the property name
+         * @return  {@code this} (for chaining)
+         */
+        Location key(String key) {
+            this.key = key;
+            return this;
+        }
+
+        /**
+         * Set the location to the given array index.
+         *
+         * @param   index   the array index
+         * @return  {@code this} (for chaining)
+         */
+        Location index(int index) {
+            key = null;
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * Convert the location to a {@link JSONPointer}.
+         *
+         * @return  the {@link JSONPointer}
+         */
+        JSONPointer toPointer() {
+            int n = 0;
+            for (Location location = this; location != null; location = location.parent)
+                n++;
+            String[] tokens = new String[n];
+            int[] indices = new int[n];
+            for (Location location = this; location != null; location = location.parent) {
+                n--;
+                if (location.key != null) {
+                    tokens[n] = location.key;
+                    indices[n] = JSONPointer.index(location.key);
+                }
+                else {
+                    tokens[n] = String.valueOf(location.index);
+                    indices[n] = location.index;
+                }
+            }
+            return new JSONPointer(tokens, indices);
+        }
+
+    }
+
+}
@@ -0,0 +1,581 @@
+/*
+ * @(#) JSONPrimitiveArray.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Base class for the compact forms of {@link JSONArray} that hold their values in an array of
+ * primitives ({@link JSONIntArray}, {@link JSONLongArray} and {@link JSONDoubleArray}).  These
+ * classes create {@link JSONValue} objects only when an individual value is requested, so the
+ * memory required for each value is reduced to the size of the primitive.
+ *
+ * <p>The classes behave in all respects as a {@link JSONArray}; if a value that can not be
+ * represented in the primitive form is stored in the array, the array converts itself
+ * ("inflates") to the standard form, and from that point on it behaves as a normal
+ * {@link JSONArray}.</p>
+ *
+ * @author Peter Wall
+ */
+public abstract class JSONPrimitiveArray extends JSONArray {
+
+    private static final long serialVersionUID = 4190851736312549811L;
+
+    /** The number of values, while the array is in primitive form. */
+    protected int count;
+
+    /**
+     * Construct a {@code JSONPrimitiveArray}.
+     *
+     * @param   count   the initial number of values
+     */
+    protected JSONPrimitiveArray(int count) {
+        this.count = count;
+    }
+
+    /**
+     * Test whether the array is still in primitive form.
+     *
+     * @return  {@code true} if the array is in primitive form
+     */
+    public abstract boolean isPrimitive();
+
+    /**
+     * Get a value from the primitive form as a {@link JSONValue}.
+     *
+     * @param   index   the index of the value (already checked)
+     * @return  the value
+     */
+    protected abstract JSONValue primitiveGet(int index);
+
+    /**
+     * Test whether a value may be stored in the primitive form.
+     *
+     * @param   value   the value
+     * @return  {@code true} if the value may be stored in the primitive form
+     */
+    protected abstract boolean accepts(JSONValue value);
+
+    /**
+     * Store a value in the primitive form.
+     *
+     * @param   index   the index of the value (already checked)
+     * @param   value   the value (already checked by {@link #accepts(JSONValue)})
+     */
+    protected abstract void primitiveSet(int index, JSONValue value);
+
+    /**
+     * Make space in the primitive form for a new value, moving any following values up.
+     *
+     * @param   index   the index of the new value (already checked)
+     */
+    protected abstract void primitiveOpen(int index);
+
+    /**
+     * Remove a value from the primitive form, moving any following values down.
+     *
+     * @param   index   the index of the value (already checked)
+     */
+    protected abstract void primitiveClose(int index);
+
+    /**
+     * Release the primitive storage (after the values have been copied to the standard form).
+     */
+    protected abstract void release();
+
+    /**
+     * Convert the array to the standard {@link JSONArray} form.  This must only be called after
+     * the array has been checked as mutable.
+     */
+    protected void inflate() {
+        if (isPrimitive()) {
+            modCount++; // the elements are re-created, so any synchronized index must be rebuilt
+            int n = count;
+            JSONValue[] values = new JSONValue[n];
+            for (int i = 0; i < n; i++)
+                values[i] = primitiveGet(i);
+            release();
+            count = 0;
+            super.ensureCapacity(n);
+            for (int i = 0; i < n; i++)
+                super.add(values[i]);
+        }
+    }
+
+    /**
+     * Replace each nested composite value with a deep copy.  The primitive form can not hold
+     * composite values, so this is a no-op unless the array has been converted to the general
+     * form.
+     */
+    @Override
+    protected void copyNested() {
+        if (!isPrimitive())
+            super.copyNested();
+    }
+
+    /**
+     * Check an index for a get, set or remove operation on the primitive form.
+     *
+     * @param   index   the index
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    protected void checkIndex(int index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+    }
+
+    private void checkInsertIndex(int index) {
+        if (index < 0 || index > count)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+    }
+
+    @Override
+    public int size() {
+        return isPrimitive() ? count : super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public JSONValue get(int index) {
+        if (!isPrimitive())
+            return super.get(index);
+        checkIndex(index);
+        return primitiveGet(index);
+    }
+
+    @Override
+    public JSONValue set(int index, JSONValue value) {
+        checkMutable();
+        if (isPrimitive() && accepts(value)) {
+            checkIndex(index);
+            JSONValue result = primitiveGet(index);
+            primitiveSet(index, value);
+            replaced(result, value);
+            return result;
+        }
+        inflate();
+        return super.set(index, value);
+    }
+
+    @Override
+    public boolean add(JSONValue value) {
+        checkMutable();
+        if (isPrimitive() && accepts(value)) {
+            primitiveOpen(count);
+            primitiveSet(count++, value);
+            modCount++;
+            return true;
+        }
+        inflate();
+        return super.add(value);
+    }
+
+    @Override
+    public void add(int index, JSONValue value) {
+        checkMutable();
+        if (isPrimitive() && accepts(value)) {
+            checkInsertIndex(index);
+            primitiveOpen(index);
+            primitiveSet(index, value);
+            count++;
+            modCount++;
+            return;
+        }
+        inflate();
+        super.add(index, value);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends JSONValue> c) {
+        checkMutable();
+        if (!isPrimitive())
+            return super.addAll(c);
+        Object[] values = c.toArray();
+        for (Object value : values)
+            add((JSONValue)value);
+        return values.length > 0;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends JSONValue> c) {
+        checkMutable();
+        inflate();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public JSONValue remove(int index) {
+        checkMutable();
+        if (!isPrimitive())
+            return super.remove(index);
+        checkIndex(index);
+        JSONValue result = primitiveGet(index);
+        primitiveClose(index);
+        count--;
+        modCount++;
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        checkMutable();
+        if (!isPrimitive())
+            return super.remove(o);
+        int index = indexOf(o);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        checkMutable();
+        inflate();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        checkMutable();
+        inflate();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super JSONValue> filter) {
+        checkMutable();
+        inflate();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<JSONValue> operator) {
+        checkMutable();
+        inflate();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super JSONValue> c) {
+        checkMutable();
+        inflate();
+        super.sort(c);
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        if (!isPrimitive()) {
+            super.clear();
+            return;
+        }
+        count = 0;
+        modCount++;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        checkMutable();
+        inflate();
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (!isPrimitive())
+            return super.indexOf(o);
+        if (o != null)
+            for (int i = 0, n = count; i < n; i++)
+                if (o.equals(primitiveGet(i)))
+                    return i;
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        if (!isPrimitive())
+            return super.lastIndexOf(o);
+        if (o != null)
+            for (int i = count - 1; i >= 0; i--)
+                if (o.equals(primitiveGet(i)))
+                    return i;
+        return -1;
+    }
+
+    @Override
+    public Object[] toArray() {
+        if (!isPrimitive())
+            return super.toArray();
+        Object[] result = new Object[count];
+        for (int i = 0, n = count; i < n; i++)
+            result[i] = primitiveGet(i);
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (!isPrimitive())
+            return super.toArray(a);
+        int n = count;
+        T[] result = a.length >= n ? a :
+                (T[])Array.newInstance(a.getClass().getComponentType(), n);
+        for (int i = 0; i < n; i++)
+            result[i] = (T)primitiveGet(i);
+        if (result.length > n)
+            result[n] = null;
+        return result;
+    }
+
+    @Override
+    public void forEach(Consumer<? super JSONValue> action) {
+        if (!isPrimitive()) {
+            super.forEach(action);
+            return;
+        }
+        int expectedModCount = modCount;
+        for (int i = 0, n = count; i < n && modCount == expectedModCount; i++)
+            action.accept(primitiveGet(i));
+        if (modCount != expectedModCount)
+            throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public Iterator<JSONValue> iterator() {
+        return isPrimitive() ? new ValueIterator(0) : super.iterator();
+    }
+
+    @Override
+    public ListIterator<JSONValue> listIterator() {
+        return isPrimitive() ? new ValueIterator(0) : super.listIterator();
+    }
+
+    @Override
+    public ListIterator<JSONValue> listIterator(int index) {
+        if (!isPrimitive())
+            return super.listIterator(index);
+        checkInsertIndex(index);
+        return new ValueIterator(index);
+    }
+
+    /**
+     * Create a {@link Spliterator} over the values.  While the array is in primitive form the
+     * {@link java.util.ArrayList} storage is empty, so the values are taken from
+     * {@link #iterator()}, as for the other means of traversal.
+     *
+     * @return  the {@link Spliterator}
+     */
+    @Override
+    public Spliterator<JSONValue> spliterator() {
+        return isPrimitive() ? Spliterators.spliterator(this, Spliterator.ORDERED) : super.spliterator();
+    }
+
+    @Override
+    public List<JSONValue> subList(int fromIndex, int toIndex) {
+        if (!isPrimitive())
+            return super.subList(fromIndex, toIndex);
+        if (fromIndex < 0 || toIndex > count || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex +
+                    ", Size: " + count);
+        return new SubList(fromIndex, toIndex);
+    }
+
+    /**
+     * A {@link ListIterator} over the values of the array, valid in either form.
+     */
+    private class ValueIterator implements ListIterator<JSONValue> {
+
+        private int cursor;
+        private int lastReturned;
+        private int expectedModCount;
+
+        private ValueIterator(int index) {
+            cursor = index;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size();
+        }
+
+        @Override
+        public JSONValue next() {
+            checkForComodification();
+            if (cursor >= size())
+                throw new NoSuchElementException();
+            lastReturned = cursor++;
+            return get(lastReturned);
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public JSONValue previous() {
+            checkForComodification();
+            if (cursor <= 0)
+                throw new NoSuchElementException();
+            lastReturned = --cursor;
+            return get(lastReturned);
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            JSONPrimitiveArray.this.remove(lastReturned);
+            cursor = lastReturned;
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(JSONValue value) {
+            if (lastReturned < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            JSONPrimitiveArray.this.set(lastReturned, value);
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void add(JSONValue value) {
+            checkForComodification();
+            JSONPrimitiveArray.this.add(cursor++, value);
+            lastReturned = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+    }
+
+    /**
+     * A view of a portion of the array, valid in either form.
+     */
+    private class SubList extends AbstractList<JSONValue> {
+
+        private final int offset;
+        private int size;
+        private int expectedModCount;
+
+        private SubList(int fromIndex, int toIndex) {
+            offset = fromIndex;
+            size = toIndex - fromIndex;
+            expectedModCount = JSONPrimitiveArray.this.modCount;
+        }
+
+        @Override
+        public JSONValue get(int index) {
+            checkSubListIndex(index, size - 1);
+            return JSONPrimitiveArray.this.get(offset + index);
+        }
+
+        @Override
+        public JSONValue set(int index, JSONValue value) {
+            checkSubListIndex(index, size - 1);
+            JSONValue result = JSONPrimitiveArray.this.set(offset + index, value);
+            expectedModCount = JSONPrimitiveArray.this.modCount;
+            return result;
+        }
+
+        @Override
+        public void add(int index, JSONValue value) {
+            checkSubListIndex(index, size);
+            JSONPrimitiveArray.this.add(offset + index, value);
+            expectedModCount = JSONPrimitiveArray.this.modCount;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public JSONValue remove(int index) {
+            checkSubListIndex(index, size - 1);
+            JSONValue result = JSONPrimitiveArray.this.remove(offset + index);
+            expectedModCount = JSONPrimitiveArray.this.modCount;
+            size--;
+            modCount++;
+            return result;
+        }
+
+        @Override
+        public int size() {
+            if (JSONPrimitiveArray.this.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return size;
+        }
+
+        private void checkSubListIndex(int index, int max) {
+            if (JSONPrimitiveArray.this.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (index < 0 || index > max)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+    }
+
+}
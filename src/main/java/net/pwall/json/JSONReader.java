@@ -0,0 +1,303 @@
+/*
+ * @(#) JSONReader.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A buffered source of JSON characters read from a {@link Reader}, with the lexical operations
+ * needed to process JSON text as a stream of tokens.  Unlike the {@link JSON#parse(Reader)}
+ * functions, this class never holds more than a single buffer of the input in memory.
+ *
+ * <p>The error messages produced by this class are the same as those produced by
+ * {@link JSON#parse(CharSequence)}.</p>
+ *
+ * @author Peter Wall
+ */
+class JSONReader {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int index;
+    private int limit;
+
+    /**
+     * Construct a {@code JSONReader} reading from the given {@link Reader}.
+     *
+     * @param   reader  the {@link Reader}
+     */
+    JSONReader(Reader reader) {
+        this.reader = reader;
+        buffer = new char[BUFFER_SIZE];
+        index = 0;
+        limit = 0;
+    }
+
+    /**
+     * Get the next character without consuming it.
+     *
+     * @return  the next character, or {@code -1} at end of input
+     * @throws  IOException on any I/O errors
+     */
+    int peek() throws IOException {
+        if (index >= limit && !fill())
+            return -1;
+        return buffer[index];
+    }
+
+    /**
+     * Get the next character and consume it.
+     *
+     * @return  the next character, or {@code -1} at end of input
+     * @throws  IOException on any I/O errors
+     */
+    int read() throws IOException {
+        if (index >= limit && !fill())
+            return -1;
+        return buffer[index++];
+    }
+
+    /**
+     * Test whether the input is exhausted.
+     *
+     * @return  {@code true} if there are no more characters
+     * @throws  IOException on any I/O errors
+     */
+    boolean isExhausted() throws IOException {
+        return peek() < 0;
+    }
+
+    /**
+     * Skip any JSON whitespace characters.
+     *
+     * @return  {@code this} (for chaining)
+     * @throws  IOException on any I/O errors
+     */
+    JSONReader skipSpaces() throws IOException {
+        for (;;) {
+            int ch = peek();
+            if (ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r')
+                return this;
+            index++;
+        }
+    }
+
+    /**
+     * Consume the next character if it matches the given character.
+     *
+     * @param   ch  the character to match
+     * @return  {@code true} if the character matched
+     * @throws  IOException on any I/O errors
+     */
+    boolean match(char ch) throws IOException {
+        if (peek() != ch)
+            return false;
+        index++;
+        return true;
+    }
+
+    /**
+     * Consume a keyword ({@code true}, {@code false} or {@code null}).  The keyword must not be
+     * followed by a name continuation character.  Because the input can not be re-read, a
+     * partial match consumes the characters matched so far; this is not a concern because a
+     * partial match is always a syntax error.
+     *
+     * @param   name    the keyword
+     * @return  {@code true} if the keyword matched
+     * @throws  IOException on any I/O errors
+     */
+    boolean matchName(String name) throws IOException {
+        if (peek() != name.charAt(0))
+            return false;
+        for (int i = 0, n = name.length(); i < n; i++)
+            if (read() != name.charAt(i))
+                return false;
+        int ch = peek();
+        return !(ch >= 'A' && ch <= 'Z' || ch >= 'a' && ch <= 'z' || ch >= '0' && ch <= '9' ||
+                ch == '_' || ch == '$');
+    }
+
+    /**
+     * Copy a JSON string to an {@link Appendable}, checking the syntax of the string as it is
+     * copied.  The reader is assumed to be positioned just after the opening quote, and it is
+     * left positioned after the closing quote.  The string is copied as it appears in the input,
+     * including the enclosing quotes and any escape sequences.  If a {@link StringBuilder} is
+     * supplied, the decoded form of the string is also appended to it.
+     *
+     * @param   a           the {@link Appendable} (may be {@code null})
+     * @param   sb          a {@link StringBuilder} for the decoded string (may be {@code null})
+     * @param   location    the current location (for error messages)
+     * @throws  JSONException if the string is not valid, or not properly terminated
+     * @throws  IOException on any I/O errors
+     */
+    void copyString(Appendable a, StringBuilder sb, JSONPointer.Location location) throws IOException {
+        if (a != null)
+            a.append('"');
+        for (;;) {
+            int ch = read();
+            if (ch < 0)
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_STRING_TERM, location));
+            if (ch == '"')
+                break;
+            if (ch < 0x20)
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_STRING_CHAR, location));
+            if (a != null)
+                a.append((char)ch);
+            if (ch == '\\') {
+                ch = read();
+                if (ch < 0)
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_STRING_TERM,
+                            location));
+                char decoded;
+                if (ch == '"' || ch == '\\' || ch == '/')
+                    decoded = (char)ch;
+                else if (ch == 'b')
+                    decoded = '\b';
+                else if (ch == 'f')
+                    decoded = '\f';
+                else if (ch == 'n')
+                    decoded = '\n';
+                else if (ch == 'r')
+                    decoded = '\r';
+                else if (ch == 't')
+                    decoded = '\t';
+                else if (ch == 'u') {
+                    if (a != null)
+                        a.append('u');
+                    int n = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int hex = peek();
+                        int digit = hex >= '0' && hex <= '9' ? hex - '0' :
+                                hex >= 'A' && hex <= 'F' ? hex - 'A' + 10 :
+                                hex >= 'a' && hex <= 'f' ? hex - 'a' + 10 : -1;
+                        if (digit < 0)
+                            throw new JSONException(JSON.pointerMessage(
+                                    JSON.ILLEGAL_STRING_UNICODE, location));
+                        index++;
+                        if (a != null)
+                            a.append((char)hex);
+                        n = (n << 4) | digit;
+                    }
+                    if (sb != null)
+                        sb.append((char)n);
+                    continue;
+                }
+                else
+                    throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_STRING_ESCAPE,
+                            location));
+                if (a != null)
+                    a.append((char)ch);
+                if (sb != null)
+                    sb.append(decoded);
+            }
+            else if (sb != null)
+                sb.append((char)ch);
+        }
+        if (a != null)
+            a.append('"');
+    }
+
+    /**
+     * Read a JSON number, checking the syntax of the number and appending the characters of
+     * the number to a {@link StringBuilder}.
+     *
+     * @param   sb          the {@link StringBuilder}
+     * @param   location    the current location (for error messages)
+     * @return  {@code true} if a number was found; {@code false} if the next character can not
+     *          start a number
+     * @throws  JSONException if the number is not valid
+     * @throws  IOException on any I/O errors
+     */
+    boolean readNumber(StringBuilder sb, JSONPointer.Location location) throws IOException {
+        int ch = peek();
+        if (ch == '-') {
+            index++;
+            sb.append('-');
+            ch = peek();
+            if (!(ch >= '0' && ch <= '9'))
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+        }
+        else if (!(ch >= '0' && ch <= '9'))
+            return false;
+        if (ch == '0') {
+            index++;
+            sb.append('0');
+            ch = peek();
+            if (ch >= '0' && ch <= '9')
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+        }
+        else
+            copyDigits(sb);
+        if (peek() == '.') {
+            index++;
+            sb.append('.');
+            if (!copyDigits(sb))
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+        }
+        ch = peek();
+        if (ch == 'e' || ch == 'E') {
+            index++;
+            sb.append((char)ch);
+            ch = peek();
+            if (ch == '-' || ch == '+') {
+                index++;
+                sb.append((char)ch);
+            }
+            if (!copyDigits(sb))
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_NUMBER, location));
+        }
+        return true;
+    }
+
+    private boolean copyDigits(StringBuilder sb) throws IOException {
+        boolean found = false;
+        for (;;) {
+            int ch = peek();
+            if (!(ch >= '0' && ch <= '9'))
+                return found;
+            index++;
+            sb.append((char)ch);
+            found = true;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        for (;;) {
+            int n = reader.read(buffer, 0, buffer.length);
+            if (n < 0)
+                return false;
+            if (n > 0) {
+                index = 0;
+                limit = n;
+                return true;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,2034 @@
+/*
+ * @(#) JSONSchema.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A compiled JSON Schema.  The schema (itself a JSON value) is compiled once into a tree of
+ * specialized checkers &ndash; with, for example, the required property names, the property
+ * schemas and the regular expressions prepared in advance &ndash; which may then be used to
+ * validate any number of {@link JSONValue} trees.  A {@code JSONSchema} is immutable (apart
+ * from internal caches), and may be shared between threads.
+ *
+ * <p>Validation is performed in two stages: a fast test, which stops at the first failure and
+ * which does not allocate any objects in the case of most schemas, and, only if the value is
+ * not valid, a second pass to collect the failures, each identified by a {@link JSONPointer}
+ * to the failing value.  When an object shares a {@link JSONShape} with previously validated
+ * objects (as do the records of an array of objects parsed from JSON text), the schemas
+ * applicable to each property, and the validity of the set of property names, are taken from a
+ * cache held for the shape.</p>
+ *
+ * <p>A {@code JSONSchema} may also be used to validate a value while it is being parsed, using
+ * {@link JSON#parse(CharSequence, JSONSchema)}, so that invalid input is rejected (with a
+ * {@link ValidationException}) as soon as the failing value is found, without building the
+ * rest of the tree; optionally, properties not declared by the schema may be skipped without
+ * creating their values.</p>
+ *
+ * <p>A practical subset of JSON Schema draft 2020-12 is supported:</p>
+ * <ul>
+ *     <li>{@code true} and {@code false} schemas</li>
+ *     <li>{@code type}, {@code enum}, {@code const}</li>
+ *     <li>{@code minimum}, {@code maximum}, {@code exclusiveMinimum},
+ *         {@code exclusiveMaximum}, {@code multipleOf}</li>
+ *     <li>{@code minLength}, {@code maxLength}, {@code pattern}</li>
+ *     <li>{@code prefixItems}, {@code items}, {@code minItems}, {@code maxItems},
+ *         {@code uniqueItems}, {@code contains}, {@code minContains}, {@code maxContains}</li>
+ *     <li>{@code properties}, {@code patternProperties}, {@code additionalProperties},
+ *         {@code required}, {@code propertyNames}, {@code minProperties},
+ *         {@code maxProperties}, {@code dependentRequired}</li>
+ *     <li>{@code allOf}, {@code anyOf}, {@code oneOf}, {@code not}, {@code if} /
+ *         {@code then} / {@code else}</li>
+ *     <li>{@code $ref} to a location within the same schema ({@code "#"} or
+ *         {@code "#/json/pointer"}, for example {@code "#/$defs/name"}); a recursive reference
+ *         must apply to a property or item, not to the value itself</li>
+ * </ul>
+ * <p>Annotations and other keywords (including {@code format}) are ignored.  Regular
+ * expressions use the Java syntax, which is compatible with the ECMAScript syntax for most
+ * practical purposes.</p>
+ *
+ * @author Peter Wall
+ */
+public final class JSONSchema {
+
+    public static final String INVALID_SCHEMA = "Invalid JSON Schema";
+    public static final String VALIDATION_FAILED = "JSON Schema validation failed";
+
+    private static final int NULL = 1;
+    private static final int BOOLEAN = 2;
+    private static final int OBJECT = 4;
+    private static final int ARRAY = 8;
+    private static final int STRING = 16;
+    private static final int NUMBER = 32;
+    private static final int INTEGER = 64;
+
+    private static final String[] typeNames =
+            { "null", "boolean", "object", "array", "string", "number", "integer" };
+
+    private static final int UNIQUE_LIMIT = 16;
+
+    private static final Node TRUE_NODE = new Node(new Checker[0]);
+    private static final Node FALSE_NODE = new Node(new Checker[] { new FalseChecker() });
+
+    private final Node root;
+
+    private JSONSchema(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Compile a JSON Schema.
+     *
+     * @param   schema  the schema (a {@link JSONObject} or a {@link JSONBoolean})
+     * @return  the {@code JSONSchema}
+     * @throws  JSONException if the schema is not valid, or uses an unsupported form of
+     *          {@code $ref}
+     */
+    public static JSONSchema compile(JSONValue schema) {
+        Compiler compiler = new Compiler(schema);
+        Node root = compiler.compile(schema, JSONPointer.ROOT);
+        compiler.checkCycles();
+        return new JSONSchema(root);
+    }
+
+    /**
+     * Parse and compile a JSON Schema.
+     *
+     * @param   json    the schema in JSON form
+     * @return  the {@code JSONSchema}
+     * @throws  JSONException if the JSON or the schema is not valid
+     */
+    public static JSONSchema parse(String json) {
+        return compile(JSON.parse(json));
+    }
+
+    /**
+     * Test whether a value is valid according to the schema.
+     *
+     * @param   value   the value
+     * @return  {@code true} if the value is valid
+     */
+    public boolean isValid(JSONValue value) {
+        return root.test(value);
+    }
+
+    /**
+     * Get the form of the schema used to validate a value while it is being parsed (see
+     * {@link JSON#parse(CharSequence, JSONSchema, boolean)}).
+     *
+     * @param   prune   {@code true} if properties not declared by the schema are to be skipped
+     * @return  the {@link ParseNode}, or {@code null} if the schema accepts any value
+     */
+    ParseNode parseNode(boolean prune) {
+        return ParseNode.of(root, prune);
+    }
+
+    /**
+     * Validate a value against the schema, returning a list of the failures.
+     *
+     * @param   value   the value
+     * @return  the failures (an empty list if the value is valid)
+     */
+    public List<Failure> validate(JSONValue value) {
+        if (root.test(value))
+            return Collections.emptyList();
+        List<Failure> failures = new ArrayList<>();
+        root.collect(value, JSONPointer.ROOT, failures);
+        return failures;
+    }
+
+    /**
+     * A validation failure: the location of the failing value, the schema keyword that caused
+     * the failure, and a message.
+     */
+    public static final class Failure {
+
+        private final JSONPointer pointer;
+        private final String keyword;
+        private final String message;
+
+        Failure(JSONPointer pointer, String keyword, String message) {
+            this.pointer = pointer;
+            this.keyword = keyword;
+            this.message = message;
+        }
+
+        /**
+         * Get the location of the failing value.
+         *
+         * @return  the {@link JSONPointer}
+         */
+        public JSONPointer getPointer() {
+            return pointer;
+        }
+
+        /**
+         * Get the schema keyword that caused the failure.
+         *
+         * @return  the keyword
+         */
+        public String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * Get the failure message.
+         *
+         * @return  the message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return message + " at " + (pointer.depth() == 0 ? "root" : pointer.toString());
+        }
+
+    }
+
+    /**
+     * The exception thrown when a value is found to be invalid while it is being parsed (see
+     * {@link JSON#parse(CharSequence, JSONSchema, boolean)}).  Since the exception reports an
+     * error in the input rather than in the program, it does not record a stack trace (this
+     * makes the rejection of invalid input significantly cheaper).
+     */
+    public static final class ValidationException extends JSONException {
+
+        private static final long serialVersionUID = 5118016620387430962L;
+
+        private final transient Failure failure;
+
+        ValidationException(Failure failure) {
+            super(VALIDATION_FAILED + ": " + failure.getMessage() +
+                    (failure.getPointer().depth() == 0 ? "" : " at " + failure.getPointer()));
+            this.failure = failure;
+        }
+
+        /**
+         * Get the validation failure.
+         *
+         * @return  the {@link Failure}
+         */
+        public Failure getFailure() {
+            return failure;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+    }
+
+    /**
+     * Get the basic type of a value (not distinguishing between integer and other numbers).
+     *
+     * @param   value   the value
+     * @return  the type bit
+     */
+    private static int typeOf(JSONValue value) {
+        if (value == null)
+            return NULL;
+        if (value instanceof JSONString)
+            return STRING;
+        if (value instanceof JSONMapping || value instanceof JSONPersistentObject)
+            return OBJECT;
+        if (value instanceof JSONSequence || value instanceof JSONPersistentArray)
+            return ARRAY;
+        if (value instanceof JSONNumberValue)
+            return NUMBER;
+        if (value instanceof JSONBoolean)
+            return BOOLEAN;
+        return 0;
+    }
+
+    /**
+     * Test whether a number has an integer value (JSON Schema treats {@code 1.0} as an integer).
+     *
+     * @param   number  the number
+     * @return  {@code true} if the number is an integer
+     */
+    private static boolean isInteger(JSONNumberValue number) {
+        if (number instanceof JSONInteger || number instanceof JSONLong || number instanceof JSONZero)
+            return true;
+        if (number instanceof JSONDecimal) {
+            BigDecimal decimal = ((JSONDecimal)number).getValue();
+            return decimal.scale() <= 0 || decimal.signum() == 0 ||
+                    decimal.stripTrailingZeros().scale() <= 0;
+        }
+        double d = number.doubleValue();
+        return d == Math.rint(d) && !Double.isInfinite(d);
+    }
+
+    private static BigDecimal bigDecimalValue(JSONNumberValue number) {
+        if (number instanceof JSONDecimal)
+            return ((JSONDecimal)number).getValue();
+        if (number instanceof JSONDouble || number instanceof JSONFloat)
+            return BigDecimal.valueOf(number.doubleValue());
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+    private static String typeNames(int mask) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < typeNames.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                if (sb.length() > 0)
+                    sb.append(", ");
+                sb.append(typeNames[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A compiled schema: a set of checkers, all of which must be satisfied.
+     */
+    static final class Node {
+
+        private Checker[] checkers;
+        private volatile ParseNode parseNode;
+        private volatile ParseNode pruningParseNode;
+
+        Node(Checker[] checkers) {
+            this.checkers = checkers;
+        }
+
+        boolean test(JSONValue value) {
+            for (Checker checker : checkers)
+                if (!checker.test(value))
+                    return false;
+            return true;
+        }
+
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            for (Checker checker : checkers)
+                checker.collect(value, pointer, failures);
+        }
+
+    }
+
+    /**
+     * A checker for one or more related keywords.
+     */
+    abstract static class Checker {
+
+        final String keyword;
+
+        Checker(String keyword) {
+            this.keyword = keyword;
+        }
+
+        /**
+         * Test whether a value satisfies the checker.
+         *
+         * @param   value   the value
+         * @return  {@code true} if the value is valid
+         */
+        abstract boolean test(JSONValue value);
+
+        /**
+         * Add any failures for the value to a list.  The default implementation adds a single
+         * failure (using {@link #message(JSONValue)}) if {@link #test(JSONValue)} returns
+         * {@code false}.
+         *
+         * @param   value       the value
+         * @param   pointer     the location of the value
+         * @param   failures    the list of failures
+         */
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            if (!test(value))
+                failures.add(new Failure(pointer, keyword, message(value)));
+        }
+
+        /**
+         * Get the failure message for an invalid value.
+         *
+         * @param   value   the value
+         * @return  the message
+         */
+        String message(JSONValue value) {
+            return "Value does not satisfy " + keyword;
+        }
+
+    }
+
+    private static final class FalseChecker extends Checker {
+
+        FalseChecker() {
+            super("false");
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return false;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value not allowed by false schema";
+        }
+
+    }
+
+    private static final class TypeChecker extends Checker {
+
+        private final int mask;
+
+        TypeChecker(int mask) {
+            super("type");
+            this.mask = mask;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            int type = typeOf(value);
+            if ((mask & type) != 0)
+                return true;
+            return type == NUMBER && (mask & INTEGER) != 0 && isInteger((JSONNumberValue)value);
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value does not match type " + typeNames(mask);
+        }
+
+    }
+
+    private static final class ConstChecker extends Checker {
+
+        private final JSONValue constant;
+
+        ConstChecker(String keyword, JSONValue constant) {
+            super(keyword);
+            this.constant = constant;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return Objects.equals(constant, value);
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value does not match " + JSON.toJSON(constant);
+        }
+
+    }
+
+    private static final class StringEnumChecker extends Checker {
+
+        private final Set<String> strings;
+
+        StringEnumChecker(Set<String> strings) {
+            super("enum");
+            this.strings = strings;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return value instanceof JSONString && strings.contains(((JSONString)value).getValue());
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value is not one of the enumerated values";
+        }
+
+    }
+
+    private static final class EnumChecker extends Checker {
+
+        private final JSONValue[] values;
+
+        EnumChecker(JSONValue[] values) {
+            super("enum");
+            this.values = values;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            for (JSONValue v : values)
+                if (Objects.equals(v, value))
+                    return true;
+            return false;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value is not one of the enumerated values";
+        }
+
+    }
+
+    /**
+     * A number used as the argument of a numeric keyword, held in the forms required for
+     * comparison with each of the number classes.
+     */
+    private static final class Limit {
+
+        private final BigDecimal decimal;
+        private final double doubleValue;
+        private final long longValue;
+        private final boolean integral;
+
+        Limit(JSONNumberValue number) {
+            decimal = bigDecimalValue(number);
+            doubleValue = decimal.doubleValue();
+            BigDecimal stripped = decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+            integral = stripped.scale() <= 0 && stripped.precision() - stripped.scale() <= 18;
+            longValue = integral ? stripped.longValueExact() : 0;
+        }
+
+        /**
+         * Compare a number with the limit, without allocating any objects.
+         *
+         * @param   number  the number
+         * @return  a negative number, zero or a positive number as the number is less than,
+         *          equal to or greater than the limit
+         */
+        int compare(JSONNumberValue number) {
+            if (number instanceof JSONInteger || number instanceof JSONLong || number instanceof JSONZero) {
+                long n = number.longValue();
+                if (integral)
+                    return Long.compare(n, longValue);
+                if (n > -(1L << 53) && n < 1L << 53)
+                    return compare((double)n);
+                return BigDecimal.valueOf(n).compareTo(decimal);
+            }
+            if (number instanceof JSONDecimal)
+                return ((JSONDecimal)number).getValue().compareTo(decimal);
+            return compare(number.doubleValue());
+        }
+
+        private int compare(double d) {
+            return d < doubleValue ? -1 : d > doubleValue ? 1 : 0;
+        }
+
+        @Override
+        public String toString() {
+            return decimal.toString();
+        }
+
+    }
+
+    private static final class RangeChecker extends Checker {
+
+        private final Limit limit;
+        private final int lowest;
+        private final int highest;
+
+        /**
+         * Construct a {@code RangeChecker}, specifying the range of values of the comparison
+         * with the limit that are valid.
+         *
+         * @param   keyword the keyword
+         * @param   limit   the limit
+         * @param   lowest  the lowest valid comparison result (-1, 0 or 1)
+         * @param   highest the highest valid comparison result (-1, 0 or 1)
+         */
+        RangeChecker(String keyword, Limit limit, int lowest, int highest) {
+            super(keyword);
+            this.limit = limit;
+            this.lowest = lowest;
+            this.highest = highest;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            if (!(value instanceof JSONNumberValue))
+                return true;
+            int comparison = Integer.signum(limit.compare((JSONNumberValue)value));
+            return comparison >= lowest && comparison <= highest;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value " + JSON.toJSON(value) + " does not satisfy " + keyword + " " + limit;
+        }
+
+    }
+
+    private static final class MultipleOfChecker extends Checker {
+
+        private final Limit divisor;
+
+        MultipleOfChecker(Limit divisor) {
+            super("multipleOf");
+            this.divisor = divisor;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            if (!(value instanceof JSONNumberValue))
+                return true;
+            JSONNumberValue number = (JSONNumberValue)value;
+            if (divisor.integral && (number instanceof JSONInteger || number instanceof JSONLong ||
+                    number instanceof JSONZero))
+                return number.longValue() % divisor.longValue == 0;
+            return bigDecimalValue(number).remainder(divisor.decimal).signum() == 0;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value " + JSON.toJSON(value) + " is not a multiple of " + divisor;
+        }
+
+    }
+
+    private static final class LengthChecker extends Checker {
+
+        private final int minimum;
+        private final int maximum;
+
+        LengthChecker(String keyword, int minimum, int maximum) {
+            super(keyword);
+            this.minimum = minimum;
+            this.maximum = maximum;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            if (!(value instanceof JSONString))
+                return true;
+            String string = ((JSONString)value).getValue();
+            int n = string.length(); // the number of code points is between n / 2 and n
+            if (n < minimum || (n + 1) / 2 > maximum)
+                return false;
+            if (n / 2 >= minimum && n <= maximum)
+                return true;
+            int codePoints = string.codePointCount(0, n);
+            return codePoints >= minimum && codePoints <= maximum;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return minimum > 0 ? "String shorter than " + minimum : "String longer than " + maximum;
+        }
+
+    }
+
+    /**
+     * A regular expression, matched using the ECMAScript "search" semantics (the pattern may
+     * match any part of the string).  Patterns consisting only of literal characters, with or
+     * without anchors, are tested using string methods, and other patterns use a
+     * {@link Matcher} cached for each thread.  In ECMAScript, {@code $} matches only at the end
+     * of the string (Java also allows a final line terminator), so it is translated to
+     * {@code \z}.
+     */
+    private static final class Regex {
+
+        private final String source;
+        private final String literal;
+        private final boolean anchorStart;
+        private final boolean anchorEnd;
+        private final ThreadLocal<Matcher> matcher;
+
+        Regex(String source) {
+            this.source = source;
+            int start = source.startsWith("^") ? 1 : 0;
+            int end = source.endsWith("$") && !source.endsWith("\\$") && source.length() > start ?
+                    source.length() - 1 : source.length();
+            String body = source.substring(start, end);
+            if (isLiteral(body)) {
+                literal = body;
+                anchorStart = start == 1;
+                anchorEnd = end < source.length();
+                matcher = null;
+            }
+            else {
+                Pattern pattern = Pattern.compile(translateEnd(source));
+                literal = null;
+                anchorStart = false;
+                anchorEnd = false;
+                matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+            }
+        }
+
+        private static String translateEnd(String source) {
+            if (source.indexOf('$') < 0)
+                return source;
+            StringBuilder sb = new StringBuilder(source.length() + 4);
+            boolean inClass = false;
+            for (int i = 0, n = source.length(); i < n; i++) {
+                char ch = source.charAt(i);
+                if (ch == '\\' && i + 1 < n) {
+                    sb.append(ch).append(source.charAt(++i));
+                    continue;
+                }
+                if (inClass)
+                    inClass = ch != ']';
+                else if (ch == '[')
+                    inClass = true;
+                else if (ch == '$') {
+                    sb.append("\\z");
+                    continue;
+                }
+                sb.append(ch);
+            }
+            return sb.toString();
+        }
+
+        private static boolean isLiteral(String s) {
+            for (int i = 0, n = s.length(); i < n; i++)
+                if ("\\^$.|?*+()[]{}".indexOf(s.charAt(i)) >= 0)
+                    return false;
+            return true;
+        }
+
+        boolean find(String s) {
+            if (literal == null)
+                return matcher.get().reset(s).find();
+            if (anchorStart)
+                return anchorEnd ? s.equals(literal) : s.startsWith(literal);
+            return anchorEnd ? s.endsWith(literal) : s.contains(literal);
+        }
+
+        @Override
+        public String toString() {
+            return source;
+        }
+
+    }
+
+    private static final class PatternChecker extends Checker {
+
+        private final Regex regex;
+
+        PatternChecker(Regex regex) {
+            super("pattern");
+            this.regex = regex;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return !(value instanceof JSONString) || regex.find(((JSONString)value).getValue());
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "String does not match pattern " + regex;
+        }
+
+    }
+
+    /**
+     * The checker for all the array keywords of a schema.
+     */
+    private static final class ArrayChecker extends Checker {
+
+        private Node[] prefixItems;
+        private Node items;
+        private int minItems;
+        private int maxItems = Integer.MAX_VALUE;
+        private boolean uniqueItems;
+        private Node contains;
+        private int minContains = 1;
+        private int maxContains = Integer.MAX_VALUE;
+
+        ArrayChecker() {
+            super("items");
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            if (!testShallow(value))
+                return false;
+            if (!(value instanceof JSONSequence || value instanceof JSONPersistentArray))
+                return true;
+            List<?> list = (List<?>)value;
+            int n = list.size();
+            int prefix = prefixItems == null ? 0 : Math.min(prefixItems.length, n);
+            for (int i = 0; i < prefix; i++)
+                if (!prefixItems[i].test((JSONValue)list.get(i)))
+                    return false;
+            if (items != null)
+                for (int i = prefix; i < n; i++)
+                    if (!items.test((JSONValue)list.get(i)))
+                        return false;
+            return true;
+        }
+
+        /**
+         * Test the keywords that apply to the array as a whole, assuming that the items have
+         * already been validated against {@code prefixItems} and {@code items}.
+         *
+         * @param   value   the value
+         * @return  {@code true} if the value is valid
+         */
+        boolean testShallow(JSONValue value) {
+            if (!(value instanceof JSONSequence || value instanceof JSONPersistentArray))
+                return true;
+            List<?> list = (List<?>)value;
+            int n = list.size();
+            if (n < minItems || n > maxItems)
+                return false;
+            if (uniqueItems && findDuplicate(list) >= 0)
+                return false;
+            if (contains != null) {
+                int count = countContains(list);
+                if (count < minContains || count > maxContains)
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            if (!(value instanceof JSONSequence || value instanceof JSONPersistentArray))
+                return;
+            List<?> list = (List<?>)value;
+            int n = list.size();
+            if (n < minItems)
+                failures.add(new Failure(pointer, "minItems", "Array has fewer than " + minItems + " items"));
+            if (n > maxItems)
+                failures.add(new Failure(pointer, "maxItems", "Array has more than " + maxItems + " items"));
+            int prefix = prefixItems == null ? 0 : Math.min(prefixItems.length, n);
+            for (int i = 0; i < prefix; i++)
+                prefixItems[i].collect((JSONValue)list.get(i), pointer.child(i), failures);
+            if (items != null)
+                for (int i = prefix; i < n; i++)
+                    items.collect((JSONValue)list.get(i), pointer.child(i), failures);
+            if (uniqueItems) {
+                int duplicate = findDuplicate(list);
+                if (duplicate >= 0)
+                    failures.add(new Failure(pointer.child(duplicate), "uniqueItems",
+                            "Array item is not unique"));
+            }
+            if (contains != null) {
+                int count = countContains(list);
+                if (count < minContains)
+                    failures.add(new Failure(pointer, minContains == 1 ? "contains" : "minContains",
+                            "Array contains fewer than " + minContains + " matching items"));
+                if (count > maxContains)
+                    failures.add(new Failure(pointer, "maxContains",
+                            "Array contains more than " + maxContains + " matching items"));
+            }
+        }
+
+        private int countContains(List<?> list) {
+            int count = 0;
+            for (int i = 0, n = list.size(); i < n; i++) {
+                if (contains.test((JSONValue)list.get(i))) {
+                    count++;
+                    if (count >= minContains && maxContains == Integer.MAX_VALUE)
+                        break;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Find an item that is equal to an earlier item in the list.  Short lists are checked
+         * by comparing each pair of items; longer lists are checked by comparing the
+         * {@link JSONFingerprint fingerprints} of the items, and only the items with equal
+         * fingerprints are compared.
+         *
+         * @param   list    the list
+         * @return  the index of the duplicate item, or -1 if there is none
+         */
+        private static int findDuplicate(List<?> list) {
+            int n = list.size();
+            if (n <= UNIQUE_LIMIT) {
+                for (int i = 1; i < n; i++)
+                    for (int j = 0; j < i; j++)
+                        if (Objects.equals(list.get(i), list.get(j)))
+                            return i;
+                return -1;
+            }
+            long[] fingerprints = new long[n];
+            for (int i = 0; i < n; i++)
+                fingerprints[i] = JSONFingerprint.of((JSONValue)list.get(i));
+            long[] sorted = fingerprints.clone();
+            Arrays.sort(sorted);
+            int result = -1;
+            for (int k = 1; k < n; k++) {
+                if (sorted[k] == sorted[k - 1] && (k == 1 || sorted[k] != sorted[k - 2])) {
+                    long fingerprint = sorted[k];
+                    for (int i = 1; i < n; i++) {
+                        if (fingerprints[i] == fingerprint) {
+                            for (int j = 0; j < i; j++) {
+                                if (fingerprints[j] == fingerprint &&
+                                        Objects.equals(list.get(i), list.get(j))) {
+                                    if (result < 0 || i < result)
+                                        result = i;
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * The schemas and the validity of the property names for a particular {@link JSONShape}.
+     */
+    private static final class Binding {
+
+        private final JSONShape shape;
+        private final Node[][] nodes;
+        private final boolean namesValid;
+        private boolean used;
+
+        Binding(JSONShape shape, Node[][] nodes, boolean namesValid) {
+            this.shape = shape;
+            this.nodes = nodes;
+            this.namesValid = namesValid;
+        }
+
+    }
+
+    /**
+     * The checker for all the object keywords of a schema.
+     */
+    private static final class ObjectChecker extends Checker {
+
+        private static final Node[] NO_NODES = {};
+        private static final int REBIND_INTERVAL = 16;
+
+        private Map<String, Node> properties;
+        private Regex[] patterns;
+        private Node[] patternNodes;
+        private Node additional;
+        private String[] required;
+        private int minProperties;
+        private int maxProperties = Integer.MAX_VALUE;
+        private Node propertyNames;
+        private Map<String, String[]> dependentRequired;
+        private volatile Binding binding;
+        private int misses;
+
+        ObjectChecker() {
+            super("properties");
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            if (value instanceof JSONMapping) {
+                JSONMapping<?> mapping = (JSONMapping<?>)value;
+                int n = mapping.size();
+                if (n < minProperties || n > maxProperties)
+                    return false;
+                JSONShape shape = mapping.currentShape();
+                if (shape != null) {
+                    Binding b = bind(shape);
+                    if (b != null) {
+                        if (!b.namesValid)
+                            return false;
+                        Node[][] nodes = b.nodes;
+                        for (int i = 0; i < n; i++) {
+                            JSONValue child = mapping.valueAt(i);
+                            for (Node node : nodes[i])
+                                if (!node.test(child))
+                                    return false;
+                        }
+                        return true;
+                    }
+                }
+                if (!namesValid(null, mapping))
+                    return false;
+                for (int i = 0; i < n; i++)
+                    if (!testProperty(mapping.keyAt(i), mapping.valueAt(i)))
+                        return false;
+                return true;
+            }
+            if (value instanceof JSONPersistentObject) {
+                JSONPersistentObject object = (JSONPersistentObject)value;
+                int n = object.size();
+                if (n < minProperties || n > maxProperties || !namesValid(null, object))
+                    return false;
+                for (Map.Entry<String, JSONValue> entry : object.entrySet())
+                    if (!testProperty(entry.getKey(), entry.getValue()))
+                        return false;
+            }
+            return true;
+        }
+
+        @Override
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            Map<String, ?> map;
+            if (value instanceof JSONMapping)
+                map = (JSONMapping<?>)value;
+            else if (value instanceof JSONPersistentObject)
+                map = (JSONPersistentObject)value;
+            else
+                return;
+            int n = map.size();
+            if (n < minProperties)
+                failures.add(new Failure(pointer, "minProperties",
+                        "Object has fewer than " + minProperties + " properties"));
+            if (n > maxProperties)
+                failures.add(new Failure(pointer, "maxProperties",
+                        "Object has more than " + maxProperties + " properties"));
+            if (required != null)
+                for (String key : required)
+                    if (!map.containsKey(key))
+                        failures.add(new Failure(pointer, "required",
+                                "Required property \"" + key + "\" missing"));
+            if (dependentRequired != null) {
+                for (Map.Entry<String, String[]> entry : dependentRequired.entrySet())
+                    if (map.containsKey(entry.getKey()))
+                        for (String key : entry.getValue())
+                            if (!map.containsKey(key))
+                                failures.add(new Failure(pointer, "dependentRequired", "Property \"" + key +
+                                        "\" required by \"" + entry.getKey() + "\" missing"));
+            }
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                String key = entry.getKey();
+                JSONValue child = (JSONValue)entry.getValue();
+                JSONPointer childPointer = pointer.child(key);
+                if (propertyNames != null && !propertyNames.test(new JSONString(key)))
+                    failures.add(new Failure(childPointer, "propertyNames",
+                            "Property name \"" + key + "\" not valid"));
+                boolean matched = false;
+                Node node = properties == null ? null : properties.get(key);
+                if (node != null) {
+                    node.collect(child, childPointer, failures);
+                    matched = true;
+                }
+                if (patterns != null) {
+                    for (int i = 0; i < patterns.length; i++) {
+                        if (patterns[i].find(key)) {
+                            patternNodes[i].collect(child, childPointer, failures);
+                            matched = true;
+                        }
+                    }
+                }
+                if (!matched && additional != null) {
+                    if (additional == FALSE_NODE)
+                        failures.add(new Failure(childPointer, "additionalProperties",
+                                "Additional property \"" + key + "\" not allowed"));
+                    else
+                        additional.collect(child, childPointer, failures);
+                }
+            }
+        }
+
+        /**
+         * Test the keywords that apply to the set of property names, assuming that the property
+         * values have already been validated against the property schemas.
+         *
+         * @param   value   the value
+         * @return  {@code true} if the value is valid
+         */
+        boolean testShallow(JSONValue value) {
+            Map<String, ?> map;
+            if (value instanceof JSONMapping)
+                map = (JSONMapping<?>)value;
+            else if (value instanceof JSONPersistentObject)
+                map = (JSONPersistentObject)value;
+            else
+                return true;
+            int n = map.size();
+            if (n < minProperties || n > maxProperties || !namesValid(null, map))
+                return false;
+            if (propertyNames != null)
+                for (String key : map.keySet())
+                    if (!propertyNames.test(new JSONString(key)))
+                        return false;
+            return true;
+        }
+
+        /**
+         * Test whether a property name is named by {@code required} or {@code dependentRequired}.
+         *
+         * @param   key     the property name
+         * @return  {@code true} if the name is used
+         */
+        boolean names(String key) {
+            if (required != null)
+                for (String name : required)
+                    if (name.equals(key))
+                        return true;
+            if (dependentRequired != null) {
+                for (Map.Entry<String, String[]> entry : dependentRequired.entrySet()) {
+                    if (entry.getKey().equals(key))
+                        return true;
+                    for (String name : entry.getValue())
+                        if (name.equals(key))
+                            return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean testProperty(String key, JSONValue value) {
+            if (propertyNames != null && !propertyNames.test(new JSONString(key)))
+                return false;
+            boolean matched = false;
+            if (properties != null) {
+                Node node = properties.get(key);
+                if (node != null) {
+                    if (!node.test(value))
+                        return false;
+                    matched = true;
+                }
+            }
+            if (patterns != null) {
+                for (int i = 0; i < patterns.length; i++) {
+                    if (patterns[i].find(key)) {
+                        if (!patternNodes[i].test(value))
+                            return false;
+                        matched = true;
+                    }
+                }
+            }
+            return matched || additional == null || additional.test(value);
+        }
+
+        /**
+         * Test whether the {@code required} and {@code dependentRequired} keywords are satisfied
+         * by the keys of either a shape or a map.
+         *
+         * @param   shape   the shape (or {@code null} to use the map)
+         * @param   map     the map
+         * @return  {@code true} if all required keys are present
+         */
+        private boolean namesValid(JSONShape shape, Map<String, ?> map) {
+            if (required != null)
+                for (String key : required)
+                    if (!containsKey(shape, map, key))
+                        return false;
+            if (dependentRequired != null)
+                for (Map.Entry<String, String[]> entry : dependentRequired.entrySet())
+                    if (containsKey(shape, map, entry.getKey()))
+                        for (String key : entry.getValue())
+                            if (!containsKey(shape, map, key))
+                                return false;
+            return true;
+        }
+
+        private static boolean containsKey(JSONShape shape, Map<String, ?> map, String key) {
+            return shape != null ? shape.indexOf(key) >= 0 : map.containsKey(key);
+        }
+
+        /**
+         * Get the {@link Binding} for a shape.  A single binding is cached, and it is used for
+         * any shape with the same keys (objects in different arrays have different shapes, even
+         * when the keys are the same).  Otherwise a new binding is created to replace it only if
+         * the cached binding has been used more than once, or periodically (to avoid creating a
+         * new binding for every object when the shapes are not shared).
+         *
+         * @param   shape   the shape
+         * @return  the binding, or {@code null} if there is no binding for the shape
+         */
+        private Binding bind(JSONShape shape) {
+            Binding b = binding;
+            if (b != null && (b.shape == shape || Arrays.equals(b.shape.keys, shape.keys))) {
+                b.used = true;
+                return b;
+            }
+            if (b != null && !b.used && ++misses % REBIND_INTERVAL != 0)
+                return null;
+            String[] keys = shape.keys;
+            int n = keys.length;
+            Node[][] nodes = new Node[n][];
+            boolean namesValid = namesValid(shape, null);
+            for (int i = 0; i < n; i++) {
+                String key = keys[i];
+                if (propertyNames != null && !propertyNames.test(new JSONString(key)))
+                    namesValid = false;
+                List<Node> list = new ArrayList<>();
+                Node node = properties == null ? null : properties.get(key);
+                if (node != null)
+                    list.add(node);
+                if (patterns != null)
+                    for (int j = 0; j < patterns.length; j++)
+                        if (patterns[j].find(key))
+                            list.add(patternNodes[j]);
+                if (list.isEmpty() && additional != null)
+                    list.add(additional);
+                nodes[i] = list.isEmpty() ? NO_NODES : list.toArray(NO_NODES);
+            }
+            b = new Binding(shape, nodes, namesValid);
+            binding = b;
+            return b;
+        }
+
+    }
+
+    private static final class AllOfChecker extends Checker {
+
+        private final Node[] nodes;
+
+        AllOfChecker(Node[] nodes) {
+            super("allOf");
+            this.nodes = nodes;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            for (Node node : nodes)
+                if (!node.test(value))
+                    return false;
+            return true;
+        }
+
+        @Override
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            for (Node node : nodes)
+                node.collect(value, pointer, failures);
+        }
+
+    }
+
+    private static final class AnyOfChecker extends Checker {
+
+        private final Node[] nodes;
+
+        AnyOfChecker(Node[] nodes) {
+            super("anyOf");
+            this.nodes = nodes;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            for (Node node : nodes)
+                if (node.test(value))
+                    return true;
+            return false;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value does not match any of the schemas in anyOf";
+        }
+
+    }
+
+    private static final class OneOfChecker extends Checker {
+
+        private final Node[] nodes;
+
+        OneOfChecker(Node[] nodes) {
+            super("oneOf");
+            this.nodes = nodes;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return count(value) == 1;
+        }
+
+        private int count(JSONValue value) {
+            int count = 0;
+            for (Node node : nodes)
+                if (node.test(value) && ++count > 1)
+                    break;
+            return count;
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return count(value) == 0 ? "Value does not match any of the schemas in oneOf" :
+                    "Value matches more than one of the schemas in oneOf";
+        }
+
+    }
+
+    private static final class NotChecker extends Checker {
+
+        private final Node node;
+
+        NotChecker(Node node) {
+            super("not");
+            this.node = node;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return !node.test(value);
+        }
+
+        @Override
+        String message(JSONValue value) {
+            return "Value matches schema in not";
+        }
+
+    }
+
+    private static final class IfChecker extends Checker {
+
+        private final Node ifNode;
+        private final Node thenNode;
+        private final Node elseNode;
+
+        IfChecker(Node ifNode, Node thenNode, Node elseNode) {
+            super("if");
+            this.ifNode = ifNode;
+            this.thenNode = thenNode;
+            this.elseNode = elseNode;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return ifNode.test(value) ? thenNode.test(value) : elseNode.test(value);
+        }
+
+        @Override
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            if (ifNode.test(value))
+                thenNode.collect(value, pointer, failures);
+            else
+                elseNode.collect(value, pointer, failures);
+        }
+
+    }
+
+    private static final class RefChecker extends Checker {
+
+        private final Node target;
+
+        RefChecker(Node target) {
+            super("$ref");
+            this.target = target;
+        }
+
+        @Override
+        boolean test(JSONValue value) {
+            return target.test(value);
+        }
+
+        @Override
+        void collect(JSONValue value, JSONPointer pointer, List<Failure> failures) {
+            target.collect(value, pointer, failures);
+        }
+
+    }
+
+    /**
+     * A schema in the form used by the parser to validate a value while it is being parsed.  The
+     * checkers of the schema (including those reached through {@code allOf} and {@code $ref})
+     * are separated into the checks on the value as a whole, which are applied when the value is
+     * complete, and the schemas for the properties and items, which are applied to each property
+     * or item as it is parsed (and are not applied again).  A schema using {@code anyOf},
+     * {@code oneOf}, {@code not} or {@code if} can not be separated in this way, so a value to
+     * which such a schema applies is validated in full when it is complete.
+     *
+     * <p>If pruning is selected, the properties of an object that are not declared by the schema
+     * (not named in {@code properties}, not matching {@code patternProperties}, not covered by
+     * {@code additionalProperties} and not named in {@code required} or
+     * {@code dependentRequired}) are skipped.  Pruning is applied only to objects for which the
+     * schema declares properties and does not constrain the set of properties as a whole (with
+     * {@code minProperties}, {@code maxProperties} or {@code propertyNames}) or compare the
+     * object with {@code const} or {@code enum}.  Pruning is not applied within a value that is
+     * compared as a whole ({@code const}, {@code enum}, {@code uniqueItems} or
+     * {@code contains}), since the comparison must see all of the properties.</p>
+     */
+    static final class ParseNode {
+
+        /** Returned by {@link #property(String)} for a property that is to be skipped. */
+        static final ParseNode SKIP = new ParseNode(null, null);
+
+        private static final ParseNode NONE = new ParseNode(null, null);
+        private static final ParseNode ADDITIONAL = new ParseNode("additionalProperties",
+                "Additional property not allowed");
+        private static final Checker[] NO_CHECKERS = {};
+        private static final int CACHE_LIMIT = 1024;
+
+        private final String rejectionKeyword;
+        private final String rejection;
+        private final Node node;
+        private final boolean prune; // applies to the properties and items
+        private final boolean opaque;
+        private final boolean declares;
+        private final Checker[] checkers;
+        private final ObjectChecker[] objects;
+        private final ArrayChecker[] arrays;
+        private final int maxItems;
+        private final Map<String, ParseNode> properties;
+        private final ParseNode[] prefixItems;
+        private volatile ParseNode items;
+
+        private ParseNode(String rejectionKeyword, String rejection) {
+            this.rejectionKeyword = rejectionKeyword;
+            this.rejection = rejection;
+            node = null;
+            prune = false;
+            opaque = false;
+            declares = false;
+            checkers = NO_CHECKERS;
+            objects = null;
+            arrays = null;
+            maxItems = Integer.MAX_VALUE;
+            properties = null;
+            prefixItems = null;
+        }
+
+        private ParseNode(Node node, boolean prune) {
+            this.node = node;
+            List<Checker> list = new ArrayList<>();
+            opaque = flatten(node, list, new HashSet<>());
+            String rejected = null;
+            List<ObjectChecker> objectList = new ArrayList<>();
+            List<ArrayChecker> arrayList = new ArrayList<>();
+            List<Checker> checkerList = new ArrayList<>();
+            boolean comparesValue = false;
+            for (Checker checker : list) {
+                if (checker instanceof FalseChecker)
+                    rejected = ((FalseChecker)checker).message(null);
+                else if (checker instanceof ObjectChecker)
+                    objectList.add((ObjectChecker)checker);
+                else if (checker instanceof ArrayChecker)
+                    arrayList.add((ArrayChecker)checker);
+                else {
+                    checkerList.add(checker);
+                    comparesValue |= checker instanceof ConstChecker || checker instanceof EnumChecker;
+                }
+            }
+            rejectionKeyword = "false";
+            rejection = rejected;
+            checkers = opaque ? NO_CHECKERS : checkerList.toArray(NO_CHECKERS);
+            objects = opaque || objectList.isEmpty() ? null : objectList.toArray(new ObjectChecker[0]);
+            arrays = opaque || arrayList.isEmpty() ? null : arrayList.toArray(new ArrayChecker[0]);
+            boolean declaring = prune && objects != null && !comparesValue;
+            int prefix = 0;
+            int max = Integer.MAX_VALUE;
+            if (objects != null) {
+                boolean declared = false;
+                for (ObjectChecker object : objects) {
+                    declared |= object.properties != null || object.patterns != null;
+                    declaring &= object.minProperties == 0 && object.maxProperties == Integer.MAX_VALUE &&
+                            object.propertyNames == null;
+                }
+                declaring &= declared;
+            }
+            if (arrays != null) {
+                for (ArrayChecker array : arrays) {
+                    if (array.prefixItems != null)
+                        prefix = Math.max(prefix, array.prefixItems.length);
+                    max = Math.min(max, array.maxItems);
+                    comparesValue |= array.uniqueItems || array.contains != null;
+                }
+            }
+            this.prune = prune && !comparesValue;
+            declares = declaring;
+            maxItems = max;
+            properties = objects == null ? null : new ConcurrentHashMap<>();
+            prefixItems = arrays == null ? null : new ParseNode[prefix];
+        }
+
+        /**
+         * Get the {@code ParseNode} for a {@link Node} (cached in the node).
+         *
+         * @param   node    the node
+         * @param   prune   {@code true} if undeclared properties are to be skipped
+         * @return  the {@code ParseNode}, or {@code null} if the node accepts any value
+         */
+        static ParseNode of(Node node, boolean prune) {
+            ParseNode result = prune ? node.pruningParseNode : node.parseNode;
+            if (result == null) {
+                result = new ParseNode(node, prune);
+                if (prune)
+                    node.pruningParseNode = result;
+                else
+                    node.parseNode = result;
+            }
+            return result.rejection == null && !result.opaque && result.checkers.length == 0 &&
+                    result.objects == null && result.arrays == null ? null : result;
+        }
+
+        private static ParseNode of(List<Node> nodes, boolean prune) {
+            if (nodes.isEmpty())
+                return NONE;
+            ParseNode result = of(nodes.size() == 1 ? nodes.get(0) :
+                    new Node(new Checker[] { new AllOfChecker(nodes.toArray(new Node[0])) }), prune);
+            return result == null ? NONE : result;
+        }
+
+        /**
+         * Collect the checkers of a node, following {@code $ref} and {@code allOf}.
+         *
+         * @param   node    the node
+         * @param   list    the list of checkers
+         * @param   visited the nodes already visited
+         * @return  {@code true} if the node uses a keyword that prevents separation
+         */
+        private static boolean flatten(Node node, List<Checker> list, Set<Node> visited) {
+            if (!visited.add(node))
+                return false;
+            boolean opaque = false;
+            for (Checker checker : node.checkers) {
+                if (checker instanceof RefChecker)
+                    opaque |= flatten(((RefChecker)checker).target, list, visited);
+                else if (checker instanceof AllOfChecker) {
+                    for (Node n : ((AllOfChecker)checker).nodes)
+                        opaque |= flatten(n, list, visited);
+                }
+                else if (checker instanceof AnyOfChecker || checker instanceof OneOfChecker ||
+                        checker instanceof NotChecker || checker instanceof IfChecker)
+                    opaque = true;
+                else
+                    list.add(checker);
+            }
+            return opaque;
+        }
+
+        /**
+         * Reject the value at the given location before it is parsed, if the schema does not
+         * allow any value.
+         *
+         * @param   location    the location
+         * @throws  JSONException if no value is allowed
+         */
+        void checkAllowed(JSONPointer.Location location) {
+            if (rejection != null)
+                throw new ValidationException(new Failure(pointer(location), rejectionKeyword, rejection));
+        }
+
+        /**
+         * Check a completed value (the properties or items of which have already been checked).
+         *
+         * @param   value       the value
+         * @param   location    the location
+         * @throws  JSONException if the value is not valid
+         */
+        void check(JSONValue value, JSONPointer.Location location) {
+            if (opaque) {
+                if (!node.test(value))
+                    throw failure(value, location);
+                return;
+            }
+            for (Checker checker : checkers)
+                if (!checker.test(value))
+                    throw new ValidationException(new Failure(pointer(location), checker.keyword,
+                            checker.message(value)));
+            if (objects != null)
+                for (ObjectChecker object : objects)
+                    if (!object.testShallow(value))
+                        throw failure(value, location);
+            if (arrays != null)
+                for (ArrayChecker array : arrays)
+                    if (!array.testShallow(value))
+                        throw failure(value, location);
+        }
+
+        /**
+         * Get the {@code ParseNode} for an object property.
+         *
+         * @param   key     the property name
+         * @return  the {@code ParseNode}, {@code null} if the property is not checked, or
+         *          {@link #SKIP} if the property is to be skipped
+         */
+        ParseNode property(String key) {
+            if (properties == null)
+                return null;
+            ParseNode result = properties.get(key);
+            if (result == null) {
+                result = resolveProperty(key);
+                if (properties.size() < CACHE_LIMIT)
+                    properties.put(key, result);
+            }
+            return result == NONE ? null : result;
+        }
+
+        private ParseNode resolveProperty(String key) {
+            List<Node> nodes = new ArrayList<>();
+            boolean named = false;
+            for (ObjectChecker object : objects) {
+                boolean matched = false;
+                Node propertyNode = object.properties == null ? null : object.properties.get(key);
+                if (propertyNode != null) {
+                    nodes.add(propertyNode);
+                    matched = true;
+                }
+                if (object.patterns != null) {
+                    for (int i = 0; i < object.patterns.length; i++) {
+                        if (object.patterns[i].find(key)) {
+                            nodes.add(object.patternNodes[i]);
+                            matched = true;
+                        }
+                    }
+                }
+                if (!matched && object.additional != null) {
+                    if (object.additional == FALSE_NODE)
+                        return ADDITIONAL;
+                    nodes.add(object.additional);
+                    matched = true;
+                }
+                named |= matched || object.names(key);
+            }
+            if (!named && declares)
+                return SKIP;
+            return of(nodes, prune);
+        }
+
+        /**
+         * Get the {@code ParseNode} for an array item.
+         *
+         * @param   index   the index of the item
+         * @return  the {@code ParseNode}, or {@code null} if the item is not checked
+         */
+        ParseNode item(int index) {
+            if (arrays == null)
+                return null;
+            if (index >= maxItems)
+                return new ParseNode("maxItems", "Array has more than " + maxItems + " items");
+            ParseNode result;
+            if (index < prefixItems.length) {
+                result = prefixItems[index];
+                if (result == null)
+                    prefixItems[index] = result = resolveItem(index);
+            }
+            else {
+                result = items;
+                if (result == null)
+                    items = result = resolveItem(index);
+            }
+            return result == NONE ? null : result;
+        }
+
+        private ParseNode resolveItem(int index) {
+            List<Node> nodes = new ArrayList<>();
+            for (ArrayChecker array : arrays) {
+                if (array.prefixItems != null && index < array.prefixItems.length)
+                    nodes.add(array.prefixItems[index]);
+                else if (array.items != null)
+                    nodes.add(array.items);
+            }
+            return of(nodes, prune);
+        }
+
+        private ValidationException failure(JSONValue value, JSONPointer.Location location) {
+            JSONPointer pointer = pointer(location);
+            List<Failure> failures = new ArrayList<>();
+            node.collect(value, JSONPointer.ROOT, failures);
+            if (failures.isEmpty())
+                return new ValidationException(new Failure(pointer, "", "Value not valid"));
+            Failure failure = failures.get(0);
+            JSONPointer relative = failure.getPointer();
+            for (int i = 0, n = relative.depth(); i < n; i++)
+                pointer = pointer.child(relative.getToken(i));
+            return new ValidationException(new Failure(pointer, failure.getKeyword(), failure.getMessage()));
+        }
+
+        private static JSONPointer pointer(JSONPointer.Location location) {
+            return location == null ? JSONPointer.ROOT : location.toPointer();
+        }
+    }
+
+    /**
+     * Schema compiler.  Each schema location is compiled once (so that a {@code $ref} to a
+     * location that is also reached in another way shares the same {@link Node}, and recursive
+     * references are compiled to cyclic structures).
+     */
+    private static final class Compiler {
+
+        private final JSONValue rootSchema;
+        private final Map<String, Node> nodes = new HashMap<>();
+
+        Compiler(JSONValue rootSchema) {
+            this.rootSchema = rootSchema;
+        }
+
+        Node compile(JSONValue schema, JSONPointer pointer) {
+            if (schema instanceof JSONBoolean)
+                return ((JSONBoolean)schema).booleanValue() ? TRUE_NODE : FALSE_NODE;
+            if (!(schema instanceof JSONMapping))
+                throw error(pointer, "schema must be an object or a boolean");
+            String key = pointer.toString();
+            Node node = nodes.get(key);
+            if (node == null) {
+                node = new Node(null);
+                nodes.put(key, node);
+                node.checkers = checkers((JSONMapping<?>)schema, pointer);
+            }
+            return node;
+        }
+
+        /**
+         * Check that no schema applies itself to the same value, through {@code $ref} and the
+         * applicators that apply to the value itself ({@code allOf}, {@code anyOf} etc.), since
+         * validation would then never terminate.
+         *
+         * @throws  JSONException if such a cycle is found
+         */
+        void checkCycles() {
+            Map<Node, String> locations = new HashMap<>();
+            for (Map.Entry<String, Node> entry : nodes.entrySet())
+                locations.put(entry.getValue(), entry.getKey());
+            Set<Node> checked = new HashSet<>();
+            for (Node node : nodes.values())
+                checkCycles(node, new HashSet<>(), checked, locations);
+        }
+
+        private static void checkCycles(Node node, Set<Node> active, Set<Node> checked,
+                Map<Node, String> locations) {
+            if (checked.contains(node))
+                return;
+            if (!active.add(node))
+                throw error(JSONPointer.compile(locations.get(node)),
+                        "recursive reference does not apply to a property or item");
+            for (Checker checker : node.checkers) {
+                if (checker instanceof RefChecker)
+                    checkCycles(((RefChecker)checker).target, active, checked, locations);
+                else if (checker instanceof AllOfChecker)
+                    checkCycles(((AllOfChecker)checker).nodes, active, checked, locations);
+                else if (checker instanceof AnyOfChecker)
+                    checkCycles(((AnyOfChecker)checker).nodes, active, checked, locations);
+                else if (checker instanceof OneOfChecker)
+                    checkCycles(((OneOfChecker)checker).nodes, active, checked, locations);
+                else if (checker instanceof NotChecker)
+                    checkCycles(((NotChecker)checker).node, active, checked, locations);
+                else if (checker instanceof IfChecker) {
+                    IfChecker ifChecker = (IfChecker)checker;
+                    checkCycles(new Node[] { ifChecker.ifNode, ifChecker.thenNode, ifChecker.elseNode },
+                            active, checked, locations);
+                }
+            }
+            active.remove(node);
+            checked.add(node);
+        }
+
+        private static void checkCycles(Node[] nodes, Set<Node> active, Set<Node> checked,
+                Map<Node, String> locations) {
+            for (Node node : nodes)
+                checkCycles(node, active, checked, locations);
+        }
+
+        private Checker[] checkers(JSONMapping<?> schema, JSONPointer pointer) {
+            List<Checker> checkers = new ArrayList<>();
+            JSONValue value;
+            if ((value = schema.get("$ref")) != null)
+                checkers.add(new RefChecker(resolve(value, pointer.child("$ref"))));
+            if ((value = schema.get("type")) != null)
+                checkers.add(new TypeChecker(typeMask(value, pointer.child("type"))));
+            if (schema.containsKey("const"))
+                checkers.add(new ConstChecker("const", schema.get("const")));
+            if ((value = schema.get("enum")) != null)
+                checkers.add(enumChecker(value, pointer.child("enum")));
+            addRangeChecker(checkers, schema, pointer, "minimum", 0, 1);
+            addRangeChecker(checkers, schema, pointer, "maximum", -1, 0);
+            addRangeChecker(checkers, schema, pointer, "exclusiveMinimum", 1, 1);
+            addRangeChecker(checkers, schema, pointer, "exclusiveMaximum", -1, -1);
+            if ((value = schema.get("multipleOf")) != null) {
+                Limit divisor = limit(value, pointer.child("multipleOf"));
+                if (divisor.decimal.signum() <= 0)
+                    throw error(pointer.child("multipleOf"), "must be greater than 0");
+                checkers.add(new MultipleOfChecker(divisor));
+            }
+            if (schema.containsKey("minLength"))
+                checkers.add(new LengthChecker("minLength", count(schema, pointer, "minLength"),
+                        Integer.MAX_VALUE));
+            if (schema.containsKey("maxLength"))
+                checkers.add(new LengthChecker("maxLength", 0, count(schema, pointer, "maxLength")));
+            if ((value = schema.get("pattern")) != null)
+                checkers.add(new PatternChecker(regex(value, pointer.child("pattern"))));
+            ArrayChecker arrayChecker = arrayChecker(schema, pointer);
+            if (arrayChecker != null)
+                checkers.add(arrayChecker);
+            ObjectChecker objectChecker = objectChecker(schema, pointer);
+            if (objectChecker != null)
+                checkers.add(objectChecker);
+            if ((value = schema.get("allOf")) != null)
+                checkers.add(new AllOfChecker(schemaArray(value, pointer.child("allOf"))));
+            if ((value = schema.get("anyOf")) != null)
+                checkers.add(new AnyOfChecker(schemaArray(value, pointer.child("anyOf"))));
+            if ((value = schema.get("oneOf")) != null)
+                checkers.add(new OneOfChecker(schemaArray(value, pointer.child("oneOf"))));
+            if (schema.containsKey("not"))
+                checkers.add(new NotChecker(compile(schema.get("not"), pointer.child("not"))));
+            if (schema.containsKey("if")) {
+                Node thenNode = schema.containsKey("then") ?
+                        compile(schema.get("then"), pointer.child("then")) : TRUE_NODE;
+                Node elseNode = schema.containsKey("else") ?
+                        compile(schema.get("else"), pointer.child("else")) : TRUE_NODE;
+                if (thenNode != TRUE_NODE || elseNode != TRUE_NODE)
+                    checkers.add(new IfChecker(compile(schema.get("if"), pointer.child("if")),
+                            thenNode, elseNode));
+            }
+            return checkers.toArray(new Checker[0]);
+        }
+
+        private Node resolve(JSONValue ref, JSONPointer pointer) {
+            if (!(ref instanceof JSONString))
+                throw error(pointer, "must be a string");
+            String string = ((JSONString)ref).getValue();
+            if (!string.startsWith("#"))
+                throw error(pointer, "unsupported reference " + string);
+            JSONPointer target;
+            try {
+                target = JSONPointer.compile(percentDecode(string.substring(1)));
+            }
+            catch (JSONException e) {
+                throw error(pointer, "unsupported reference " + string);
+            }
+            if (!target.exists(rootSchema))
+                throw error(pointer, "reference not found " + string);
+            return compile(target.find(rootSchema), target);
+        }
+
+        private static String percentDecode(String s) {
+            if (s.indexOf('%') < 0)
+                return s;
+            byte[] bytes = new byte[s.length()];
+            int n = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                if (ch == '%' && i + 2 < s.length()) {
+                    bytes[n++] = (byte)Integer.parseInt(s.substring(i + 1, i + 3), 16);
+                    i += 2;
+                }
+                else
+                    bytes[n++] = (byte)ch;
+            }
+            return new String(bytes, 0, n, StandardCharsets.UTF_8);
+        }
+
+        private int typeMask(JSONValue value, JSONPointer pointer) {
+            if (value instanceof JSONString)
+                return typeBit(((JSONString)value).getValue(), pointer);
+            if (!(value instanceof JSONSequence))
+                throw error(pointer, "must be a string or an array");
+            int mask = 0;
+            for (JSONValue item : (JSONSequence<?>)value) {
+                if (!(item instanceof JSONString))
+                    throw error(pointer, "must be a string or an array of strings");
+                mask |= typeBit(((JSONString)item).getValue(), pointer);
+            }
+            return mask;
+        }
+
+        private int typeBit(String name, JSONPointer pointer) {
+            for (int i = 0; i < typeNames.length; i++)
+                if (typeNames[i].equals(name))
+                    return 1 << i;
+            throw error(pointer, "unknown type " + name);
+        }
+
+        private Checker enumChecker(JSONValue value, JSONPointer pointer) {
+            if (!(value instanceof JSONSequence))
+                throw error(pointer, "must be an array");
+            JSONSequence<?> sequence = (JSONSequence<?>)value;
+            Set<String> strings = new HashSet<>();
+            for (JSONValue item : sequence)
+                if (item instanceof JSONString)
+                    strings.add(((JSONString)item).getValue());
+            if (strings.size() == sequence.size())
+                return new StringEnumChecker(strings);
+            if (sequence.size() == 1)
+                return new ConstChecker("enum", sequence.get(0));
+            return new EnumChecker(sequence.toArray(new JSONValue[0]));
+        }
+
+        private void addRangeChecker(List<Checker> checkers, JSONMapping<?> schema, JSONPointer pointer,
+                String keyword, int lowest, int highest) {
+            JSONValue value = schema.get(keyword);
+            if (value != null)
+                checkers.add(new RangeChecker(keyword, limit(value, pointer.child(keyword)), lowest,
+                        highest));
+        }
+
+        private Limit limit(JSONValue value, JSONPointer pointer) {
+            if (!(value instanceof JSONNumberValue))
+                throw error(pointer, "must be a number");
+            return new Limit((JSONNumberValue)value);
+        }
+
+        private int count(JSONMapping<?> schema, JSONPointer pointer, String keyword) {
+            JSONValue value = schema.get(keyword);
+            if (!(value instanceof JSONNumberValue) || !isInteger((JSONNumberValue)value) ||
+                    ((JSONNumberValue)value).doubleValue() < 0)
+                throw error(pointer.child(keyword), "must be a non-negative integer");
+            long n = ((JSONNumberValue)value).longValue();
+            return n > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)n;
+        }
+
+        private Regex regex(JSONValue value, JSONPointer pointer) {
+            if (!(value instanceof JSONString))
+                throw error(pointer, "must be a string");
+            try {
+                return new Regex(((JSONString)value).getValue());
+            }
+            catch (PatternSyntaxException e) {
+                throw error(pointer, "invalid regular expression");
+            }
+        }
+
+        private Node[] schemaArray(JSONValue value, JSONPointer pointer) {
+            if (!(value instanceof JSONSequence) || ((JSONSequence<?>)value).isEmpty())
+                throw error(pointer, "must be a non-empty array");
+            JSONSequence<?> sequence = (JSONSequence<?>)value;
+            Node[] result = new Node[sequence.size()];
+            for (int i = 0; i < result.length; i++)
+                result[i] = compile(sequence.get(i), pointer.child(i));
+            return result;
+        }
+
+        private ArrayChecker arrayChecker(JSONMapping<?> schema, JSONPointer pointer) {
+            ArrayChecker checker = new ArrayChecker();
+            boolean used = false;
+            JSONValue value;
+            if ((value = schema.get("prefixItems")) != null) {
+                checker.prefixItems = schemaArray(value, pointer.child("prefixItems"));
+                used = true;
+            }
+            if (schema.containsKey("items")) {
+                Node items = compile(schema.get("items"), pointer.child("items"));
+                if (items != TRUE_NODE) {
+                    checker.items = items;
+                    used = true;
+                }
+            }
+            if (schema.containsKey("minItems")) {
+                checker.minItems = count(schema, pointer, "minItems");
+                used = true;
+            }
+            if (schema.containsKey("maxItems")) {
+                checker.maxItems = count(schema, pointer, "maxItems");
+                used = true;
+            }
+            if ((value = schema.get("uniqueItems")) != null) {
+                if (!(value instanceof JSONBoolean))
+                    throw error(pointer.child("uniqueItems"), "must be a boolean");
+                checker.uniqueItems = ((JSONBoolean)value).booleanValue();
+                used |= checker.uniqueItems;
+            }
+            if (schema.containsKey("contains")) {
+                checker.contains = compile(schema.get("contains"), pointer.child("contains"));
+                if (schema.containsKey("minContains"))
+                    checker.minContains = count(schema, pointer, "minContains");
+                if (schema.containsKey("maxContains"))
+                    checker.maxContains = count(schema, pointer, "maxContains");
+                used = true;
+            }
+            return used ? checker : null;
+        }
+
+        private ObjectChecker objectChecker(JSONMapping<?> schema, JSONPointer pointer) {
+            ObjectChecker checker = new ObjectChecker();
+            boolean used = false;
+            JSONValue value;
+            if ((value = schema.get("properties")) != null) {
+                JSONPointer propertiesPointer = pointer.child("properties");
+                if (!(value instanceof JSONMapping))
+                    throw error(propertiesPointer, "must be an object");
+                JSONMapping<?> mapping = (JSONMapping<?>)value;
+                checker.properties = new HashMap<>();
+                for (int i = 0, n = mapping.size(); i < n; i++) {
+                    String key = mapping.keyAt(i);
+                    checker.properties.put(key, compile(mapping.valueAt(i), propertiesPointer.child(key)));
+                }
+                used = true;
+            }
+            if ((value = schema.get("patternProperties")) != null) {
+                JSONPointer patternsPointer = pointer.child("patternProperties");
+                if (!(value instanceof JSONMapping))
+                    throw error(patternsPointer, "must be an object");
+                JSONMapping<?> mapping = (JSONMapping<?>)value;
+                int n = mapping.size();
+                checker.patterns = new Regex[n];
+                checker.patternNodes = new Node[n];
+                for (int i = 0; i < n; i++) {
+                    String key = mapping.keyAt(i);
+                    checker.patterns[i] = regex(new JSONString(key), patternsPointer.child(key));
+                    checker.patternNodes[i] = compile(mapping.valueAt(i), patternsPointer.child(key));
+                }
+                used = true;
+            }
+            if (schema.containsKey("additionalProperties")) {
+                Node additional = compile(schema.get("additionalProperties"),
+                        pointer.child("additionalProperties"));
+                if (additional != TRUE_NODE) {
+                    checker.additional = additional;
+                    used = true;
+                }
+            }
+            if ((value = schema.get("required")) != null) {
+                checker.required = strings(value, pointer.child("required"));
+                used |= checker.required.length > 0;
+            }
+            if (schema.containsKey("minProperties")) {
+                checker.minProperties = count(schema, pointer, "minProperties");
+                used = true;
+            }
+            if (schema.containsKey("maxProperties")) {
+                checker.maxProperties = count(schema, pointer, "maxProperties");
+                used = true;
+            }
+            if (schema.containsKey("propertyNames")) {
+                Node propertyNames = compile(schema.get("propertyNames"), pointer.child("propertyNames"));
+                if (propertyNames != TRUE_NODE) {
+                    checker.propertyNames = propertyNames;
+                    used = true;
+                }
+            }
+            if ((value = schema.get("dependentRequired")) != null) {
+                JSONPointer dependentPointer = pointer.child("dependentRequired");
+                if (!(value instanceof JSONMapping))
+                    throw error(dependentPointer, "must be an object");
+                JSONMapping<?> mapping = (JSONMapping<?>)value;
+                checker.dependentRequired = new HashMap<>();
+                for (int i = 0, n = mapping.size(); i < n; i++) {
+                    String key = mapping.keyAt(i);
+                    checker.dependentRequired.put(key, strings(mapping.valueAt(i),
+                            dependentPointer.child(key)));
+                }
+                used = true;
+            }
+            return used ? checker : null;
+        }
+
+        private String[] strings(JSONValue value, JSONPointer pointer) {
+            if (!(value instanceof JSONSequence))
+                throw error(pointer, "must be an array of strings");
+            JSONSequence<?> sequence = (JSONSequence<?>)value;
+            String[] result = new String[sequence.size()];
+            for (int i = 0; i < result.length; i++) {
+                JSONValue item = sequence.get(i);
+                if (!(item instanceof JSONString))
+                    throw error(pointer, "must be an array of strings");
+                result[i] = ((JSONString)item).getValue();
+            }
+            return result;
+        }
+
+        private static JSONException error(JSONPointer pointer, String detail) {
+            return new JSONException(INVALID_SCHEMA + " at " +
+                    (pointer.depth() == 0 ? "root" : pointer.toString()) + ": " + detail);
+        }
+
+    }
+
+}
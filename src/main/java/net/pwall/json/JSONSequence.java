@@ -2,7 +2,7 @@
  * @(#) JSONSequence.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2016, 2017, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2016, 2017, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -29,9 +29,24 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A JSON sequence (the base for {@link JSONArray}, and possibly other similar collections).
@@ -42,6 +57,14 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
 
     private static final long serialVersionUID = 34670706002893562L;
 
+    /** The size at which the aggregate operations (e.g. {@link #sumDouble()}) run in parallel. */
+    public static final int PARALLEL_THRESHOLD = 1 << 17;
+
+    /** The size of the blocks into which the aggregate operations divide the sequence. */
+    private static final int CHUNK_SIZE = 1 << 14;
+
+    private JSONFrozenCache frozen;
+
     /**
      * Construct an empty {@code JSONSequence}.
      */
@@ -378,6 +401,604 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
         };
     }
 
+    /**
+     * Get the sum of the numeric values in the {@code JSONSequence} as a {@code long} (each
+     * value as returned by {@link #getLong(int)}), ignoring {@code null} entries.  Overflow is
+     * not detected.  Large sequences (see {@link #PARALLEL_THRESHOLD}) are processed in
+     * parallel.
+     *
+     * @return  the sum
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public long sumLong() {
+        int n = size();
+        int chunks = chunks(n);
+        if (chunks == 1)
+            return sumLong(0, n);
+        long[] partial = new long[chunks];
+        forEachChunk(n, chunks, c -> partial[c] = sumLong(c * CHUNK_SIZE, chunkEnd(c, n)));
+        long result = 0;
+        for (long value : partial)
+            result += value;
+        return result;
+    }
+
+    /**
+     * Get the sum of the numeric values in the {@code JSONSequence} as a {@code double},
+     * ignoring {@code null} entries.  The values are summed in fixed-size blocks, and the block
+     * totals are combined in order, so the result does not depend on whether the sequence was
+     * processed in parallel.
+     *
+     * @return  the sum
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public double sumDouble() {
+        return summarize().sum;
+    }
+
+    /**
+     * Get the minimum of the numeric values in the {@code JSONSequence}, ignoring {@code null}
+     * entries.
+     *
+     * @return  the minimum, or {@link Double#NaN} if there are no numeric values
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public double min() {
+        Summary summary = summarize();
+        return summary.count == 0 ? Double.NaN : summary.min;
+    }
+
+    /**
+     * Get the maximum of the numeric values in the {@code JSONSequence}, ignoring {@code null}
+     * entries.
+     *
+     * @return  the maximum, or {@link Double#NaN} if there are no numeric values
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public double max() {
+        Summary summary = summarize();
+        return summary.count == 0 ? Double.NaN : summary.max;
+    }
+
+    /**
+     * Get the arithmetic mean of the numeric values in the {@code JSONSequence}, ignoring
+     * {@code null} entries.
+     *
+     * @return  the mean, or {@link Double#NaN} if there are no numeric values
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public double mean() {
+        Summary summary = summarize();
+        return summary.count == 0 ? Double.NaN : summary.sum / summary.count;
+    }
+
+    /**
+     * Count the numeric values in the {@code JSONSequence} falling into each of a number of
+     * equal-width bins between a minimum and a maximum, ignoring {@code null} entries.  Each
+     * bin includes its lower bound; the last bin also includes the maximum.  Values outside
+     * the range are not counted.
+     *
+     * @param   min     the lower bound of the first bin
+     * @param   max     the upper bound of the last bin
+     * @param   bins    the number of bins
+     * @return  the counts for each bin
+     * @throws  IllegalArgumentException if the number of bins is less than 1, or the maximum is
+     *          not greater than the minimum
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public int[] histogram(double min, double max, int bins) {
+        if (bins < 1 || !(max > min) || Double.isInfinite(max - min))
+            throw new IllegalArgumentException("Invalid histogram range or bins");
+        int n = size();
+        int chunks = chunks(n);
+        int[] result = new int[bins];
+        if (chunks == 1 || n < PARALLEL_THRESHOLD) {
+            histogram(0, n, min, max, result);
+            return result;
+        }
+        int[][] partial = new int[chunks][];
+        forEachChunk(n, chunks, c -> {
+            int[] counts = new int[bins];
+            histogram(c * CHUNK_SIZE, chunkEnd(c, n), min, max, counts);
+            partial[c] = counts;
+        });
+        for (int[] counts : partial)
+            for (int i = 0; i < bins; i++)
+                result[i] += counts[i];
+        return result;
+    }
+
+    /**
+     * Get the values of the {@code JSONSequence} as an array of {@code int} (each value as
+     * returned by {@link #getInt(int)}, so {@code null} entries are returned as zero).
+     *
+     * @return  the array
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public int[] toIntArray() {
+        int n = size();
+        int[] result = new int[n];
+        for (int i = 0; i < n; i++)
+            result[i] = getInt(i);
+        return result;
+    }
+
+    /**
+     * Get the values of the {@code JSONSequence} as an array of {@code long} (each value as
+     * returned by {@link #getLong(int)}, so {@code null} entries are returned as zero).
+     *
+     * @return  the array
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public long[] toLongArray() {
+        int n = size();
+        long[] result = new long[n];
+        for (int i = 0; i < n; i++)
+            result[i] = getLong(i);
+        return result;
+    }
+
+    /**
+     * Get the values of the {@code JSONSequence} as an array of {@code double} (each value as
+     * returned by {@link #getDouble(int)}, so {@code null} entries are returned as zero).
+     *
+     * @return  the array
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    public double[] toDoubleArray() {
+        int n = size();
+        double[] result = new double[n];
+        for (int i = 0; i < n; i++)
+            result[i] = getDouble(i);
+        return result;
+    }
+
+    /**
+     * Get a {@link PrimitiveIterator.OfInt} over the values of the {@code JSONSequence} (each
+     * value as returned by {@link #getInt(int)}), without creating an {@link Integer} for each
+     * value.
+     *
+     * @return  the iterator
+     */
+    public PrimitiveIterator.OfInt intIterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = 0;
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+            @Override
+            public int nextInt() {
+                if (index >= size())
+                    throw new NoSuchElementException();
+                return getInt(index++);
+            }
+        };
+    }
+
+    /**
+     * Get a {@link PrimitiveIterator.OfLong} over the values of the {@code JSONSequence} (each
+     * value as returned by {@link #getLong(int)}), without creating a {@link Long} for each
+     * value.
+     *
+     * @return  the iterator
+     */
+    public PrimitiveIterator.OfLong longIterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int index = 0;
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+            @Override
+            public long nextLong() {
+                if (index >= size())
+                    throw new NoSuchElementException();
+                return getLong(index++);
+            }
+        };
+    }
+
+    /**
+     * Get a {@link PrimitiveIterator.OfDouble} over the values of the {@code JSONSequence} (each
+     * value as returned by {@link #getDouble(int)}), without creating a {@link Double} for each
+     * value.
+     *
+     * @return  the iterator
+     */
+    public PrimitiveIterator.OfDouble doubleIterator() {
+        return new PrimitiveIterator.OfDouble() {
+            private int index = 0;
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+            @Override
+            public double nextDouble() {
+                if (index >= size())
+                    throw new NoSuchElementException();
+                return getDouble(index++);
+            }
+        };
+    }
+
+    /**
+     * Get an {@link IntStream} of the values of the {@code JSONSequence} (each value as returned
+     * by {@link #getInt(int)}).  The stream may be made parallel; the sequence must not be
+     * modified while the stream is in use.
+     *
+     * @return  the stream
+     */
+    public IntStream intStream() {
+        return StreamSupport.intStream(new IntSpliterator(0, size()), false);
+    }
+
+    /**
+     * Get a {@link LongStream} of the values of the {@code JSONSequence} (each value as returned
+     * by {@link #getLong(int)}).  The stream may be made parallel; the sequence must not be
+     * modified while the stream is in use.
+     *
+     * @return  the stream
+     */
+    public LongStream longStream() {
+        return StreamSupport.longStream(new LongSpliterator(0, size()), false);
+    }
+
+    /**
+     * Get a {@link DoubleStream} of the values of the {@code JSONSequence} (each value as
+     * returned by {@link #getDouble(int)}).  The stream may be made parallel; the sequence must
+     * not be modified while the stream is in use.
+     *
+     * @return  the stream
+     */
+    public DoubleStream doubleStream() {
+        return StreamSupport.doubleStream(new DoubleSpliterator(0, size()), false);
+    }
+
+    private Summary summarize() {
+        int n = size();
+        int chunks = chunks(n);
+        Summary result = new Summary();
+        if (chunks == 1) {
+            summarize(0, n, result);
+            return result;
+        }
+        Summary[] partial = new Summary[chunks];
+        forEachChunk(n, chunks, c -> {
+            Summary summary = new Summary();
+            summarize(c * CHUNK_SIZE, chunkEnd(c, n), summary);
+            partial[c] = summary;
+        });
+        for (Summary summary : partial) {
+            result.count += summary.count;
+            result.sum += summary.sum;
+            if (summary.min < result.min)
+                result.min = summary.min;
+            if (summary.max > result.max)
+                result.max = summary.max;
+        }
+        return result;
+    }
+
+    private static int chunks(int n) {
+        return n <= CHUNK_SIZE ? 1 : (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private static int chunkEnd(int chunk, int n) {
+        return Math.min(n, (chunk + 1) * CHUNK_SIZE);
+    }
+
+    /**
+     * Apply an action to each block of the sequence, in parallel if the sequence is large.  An
+     * exception thrown by the action is rethrown on the calling thread.
+     *
+     * @param   n       the size of the sequence
+     * @param   chunks  the number of blocks
+     * @param   action  the action
+     */
+    private static void forEachChunk(int n, int chunks, IntConsumer action) {
+        if (n < PARALLEL_THRESHOLD) {
+            for (int c = 0; c < chunks; c++)
+                action.accept(c);
+            return;
+        }
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            if (failure.get() == null) {
+                try {
+                    action.accept(c);
+                }
+                catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        });
+        RuntimeException e = failure.get();
+        if (e != null)
+            throw e;
+    }
+
+    /**
+     * Get the sum of the values in a range of the sequence as a {@code long}, ignoring
+     * {@code null} entries (overridden by the compact forms to operate on the primitive
+     * values).
+     *
+     * @param   from    the start index
+     * @param   to      the end index (exclusive)
+     * @return  the sum
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    long sumLong(int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            V value = get(i);
+            if (value instanceof JSONInteger)
+                result += ((JSONInteger)value).intValue();
+            else if (value != null)
+                result += numberValue(value).longValue();
+        }
+        return result;
+    }
+
+    /**
+     * Accumulate the count, sum, minimum and maximum of the values in a range of the sequence,
+     * ignoring {@code null} entries (overridden by the compact forms to operate on the
+     * primitive values).
+     *
+     * @param   from    the start index
+     * @param   to      the end index (exclusive)
+     * @param   summary the {@link Summary} to accumulate into
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    void summarize(int from, int to, Summary summary) {
+        int count = 0;
+        double sum = 0;
+        double min = summary.min;
+        double max = summary.max;
+        for (int i = from; i < to; i++) {
+            V value = get(i);
+            if (value != null) {
+                double d = value instanceof JSONInteger ? ((JSONInteger)value).intValue() :
+                        numberValue(value).doubleValue();
+                count++;
+                sum += d;
+                if (d < min)
+                    min = d;
+                if (d > max)
+                    max = d;
+            }
+        }
+        summary.count += count;
+        summary.sum += sum;
+        summary.min = min;
+        summary.max = max;
+    }
+
+    /**
+     * Count the values in a range of the sequence falling into each bin of a histogram,
+     * ignoring {@code null} entries (overridden by the compact forms to operate on the
+     * primitive values).
+     *
+     * @param   from    the start index
+     * @param   to      the end index (exclusive)
+     * @param   min     the lower bound of the first bin
+     * @param   max     the upper bound of the last bin
+     * @param   counts  the counts to be incremented
+     * @throws  JSONException if any entry is not a number or {@code null}
+     */
+    void histogram(int from, int to, double min, double max, int[] counts) {
+        for (int i = from; i < to; i++) {
+            V value = get(i);
+            if (value != null)
+                addToHistogram(numberValue(value).doubleValue(), min, max, counts);
+        }
+    }
+
+    static void addToHistogram(double value, double min, double max, int[] counts) {
+        if (value >= min && value <= max) {
+            int bins = counts.length;
+            int bin = (int)((value - min) / (max - min) * bins);
+            counts[bin < bins ? bin : bins - 1]++;
+        }
+    }
+
+    private static JSONNumberValue numberValue(JSONValue value) {
+        if (!(value instanceof JSONNumberValue))
+            throw new JSONException(JSON.NOT_A_NUMBER);
+        return (JSONNumberValue)value;
+    }
+
+    /**
+     * Freeze the {@code JSONSequence}, and all composites nested within it.
+     *
+     * @return  {@code this} (for chaining)
+     * @see     JSONComposite#freeze()
+     */
+    @Override
+    public JSONSequence<V> freeze() {
+        if (frozen == null) {
+            frozen = new JSONFrozenCache();
+            for (int i = 0, n = size(); i < n; i++) {
+                V value = get(i);
+                if (value instanceof JSONComposite)
+                    ((JSONComposite)value).freeze();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Create a deep copy of the {@code JSONSequence}.  Nested composites are copied, but
+     * immutable values are shared.
+     *
+     * @return  the copy
+     * @see     JSONComposite#deepCopy()
+     */
+    @Override
+    public JSONSequence<V> deepCopy() {
+        JSONSequence<V> result = clone();
+        result.copyNested();
+        return result;
+    }
+
+    /**
+     * Replace each nested composite value with a deep copy (for use by {@link #deepCopy()}
+     * implementations after creating a shallow copy).
+     */
+    @SuppressWarnings("unchecked")
+    protected void copyNested() {
+        for (int i = 0, n = size(); i < n; i++) {
+            V value = get(i);
+            if (value instanceof JSONComposite)
+                set(i, (V)((JSONComposite)value).deepCopy());
+        }
+    }
+
+    /**
+     * Test whether the {@code JSONSequence} has been frozen.
+     *
+     * @return  {@code true} if the sequence is frozen
+     * @see     JSONComposite#isFrozen()
+     */
+    @Override
+    public boolean isFrozen() {
+        return frozen != null;
+    }
+
+    /**
+     * Check that the {@code JSONSequence} may be modified.
+     *
+     * @throws  UnsupportedOperationException if the sequence is frozen
+     */
+    protected void checkMutable() {
+        if (frozen != null)
+            throw new UnsupportedOperationException(JSON.FROZEN);
+    }
+
+    @Override
+    public boolean add(V value) {
+        checkMutable();
+        return super.add(value);
+    }
+
+    @Override
+    public void add(int index, V value) {
+        checkMutable();
+        super.add(index, value);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends V> c) {
+        checkMutable();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends V> c) {
+        checkMutable();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public V set(int index, V value) {
+        checkMutable();
+        return super.set(index, value);
+    }
+
+    @Override
+    public V remove(int index) {
+        checkMutable();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        checkMutable();
+        return super.remove(o);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        checkMutable();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        checkMutable();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super V> filter) {
+        checkMutable();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<V> operator) {
+        checkMutable();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(Comparator<? super V> c) {
+        checkMutable();
+        super.sort(c);
+    }
+
+    @Override
+    public void clear() {
+        checkMutable();
+        super.clear();
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        checkMutable();
+        super.removeRange(fromIndex, toIndex);
+    }
+
+    @Override
+    public List<V> subList(int fromIndex, int toIndex) {
+        List<V> subList = super.subList(fromIndex, toIndex);
+        return frozen != null ? Collections.unmodifiableList(subList) : subList;
+    }
+
+    /**
+     * Create a shallow copy of the {@code JSONSequence}.  The copy is not frozen, even if the
+     * original is.
+     *
+     * @return  the copy
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public JSONSequence<V> clone() {
+        JSONSequence<V> result = (JSONSequence<V>)super.clone();
+        result.frozen = null;
+        return result;
+    }
+
+    /**
+     * Create the JSON representation for the {@code JSONSequence}.  If the sequence is frozen,
+     * the result is cached.
+     *
+     * @return  the JSON string
+     * @see     JSONValue#toJSON()
+     */
+    @Override
+    public String toJSON() {
+        JSONFrozenCache cache = frozen;
+        if (cache == null)
+            return JSONComposite.super.toJSON();
+        String result = cache.json;
+        if (result == null) {
+            result = JSONComposite.super.toJSON();
+            cache.json = result;
+        }
+        return result;
+    }
+
     /**
      * Append the JSON representation for the {@code JSONSequence} to a given
      * {@link Appendable}.
@@ -388,6 +1009,11 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
      */
     @Override
     public void appendJSON(Appendable a) throws IOException {
+        String cached = frozen == null ? null : frozen.json;
+        if (cached != null) {
+            a.append(cached);
+            return;
+        }
         a.append('[');
         if (size() > 0) {
             int i = 0;
@@ -401,6 +1027,26 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
         a.append(']');
     }
 
+    /**
+     * Get the length of the JSON representation for the {@code JSONSequence}.
+     *
+     * @return  the length of the JSON representation
+     * @see     JSONValue#jsonLength()
+     */
+    @Override
+    public int jsonLength() {
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.length > 0)
+            return cache.length;
+        int n = size();
+        int result = n > 0 ? n + 1 : 2;
+        for (int i = 0; i < n; i++)
+            result += JSON.jsonLength(get(i));
+        if (cache != null)
+            cache.length = result;
+        return result;
+    }
+
     /**
      * Test whether the composite is "simple", i.e. it contains only non-composite values (to
      * assist with formatting).
@@ -435,9 +1081,30 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
      */
     @Override
     public int hashCode() {
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.hash != 0)
+            return cache.hash;
         int result = 0;
         for (int i = 0, n = size(); i < n; i++)
-            result ^= get(i).hashCode();
+            result ^= Objects.hashCode(get(i));
+        if (cache != null)
+            cache.hash = result;
+        return result;
+    }
+
+    /**
+     * Get the content fingerprint for this {@code JSONSequence} (see {@link JSONFingerprint}).
+     * If the sequence is frozen, the fingerprint is cached.
+     *
+     * @return  the fingerprint
+     */
+    long fingerprint() {
+        JSONFrozenCache cache = frozen;
+        if (cache != null && cache.fingerprint != 0)
+            return cache.fingerprint;
+        long result = JSONFingerprint.ofArray(this);
+        if (cache != null)
+            cache.fingerprint = result;
         return result;
     }
 
@@ -445,8 +1112,8 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
      * Compare this {@code JSONSequence} with another object for equality.
      *
      * @param   other   the other object
-     * @return  {@code true} if the other object is a {@code JSONSequence} and has identical contents to
-     *          this object
+     * @return  {@code true} if the other object is a {@code JSONSequence} (or a {@link JSONPersistentArray}) and
+     *          has identical contents to this object
      * @see     Object#equals(Object)
      */
     @Override
@@ -454,10 +1121,12 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
         if (other == this)
             return true;
         if (!(other instanceof JSONSequence<?>))
-            return false;
+            return other instanceof JSONPersistentArray && other.equals(this);
         JSONSequence<?> otherSequence = (JSONSequence<?>)other;
         if (size() != otherSequence.size())
             return false;
+        if (frozen != null && otherSequence.frozen != null && hashCode() != otherSequence.hashCode())
+            return false;
         for (int i = 0, n = size(); i < n; i++)
             if (!Objects.equals(get(i), otherSequence.get(i)))
                 return false;
@@ -577,4 +1246,154 @@ public class JSONSequence<V extends JSONValue> extends ArrayList<V> implements J
 
     }
 
+    /**
+     * Accumulator for the count, sum, minimum and maximum of a set of values.
+     */
+    static final class Summary {
+
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+    }
+
+    private class IntSpliterator implements Spliterator.OfInt {
+
+        private int index;
+        private final int end;
+
+        private IntSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index)
+                return null;
+            Spliterator.OfInt prefix = new IntSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= end)
+                return false;
+            action.accept(getInt(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            while (index < end)
+                action.accept(getInt(index++));
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+
+    }
+
+    private class LongSpliterator implements Spliterator.OfLong {
+
+        private int index;
+        private final int end;
+
+        private LongSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index)
+                return null;
+            Spliterator.OfLong prefix = new LongSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= end)
+                return false;
+            action.accept(getLong(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            while (index < end)
+                action.accept(getLong(index++));
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+
+    }
+
+    private class DoubleSpliterator implements Spliterator.OfDouble {
+
+        private int index;
+        private final int end;
+
+        private DoubleSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        @Override
+        public Spliterator.OfDouble trySplit() {
+            int mid = (index + end) >>> 1;
+            if (mid <= index)
+                return null;
+            Spliterator.OfDouble prefix = new DoubleSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (index >= end)
+                return false;
+            action.accept(getDouble(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            while (index < end)
+                action.accept(getDouble(index++));
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+
+    }
+
 }
@@ -0,0 +1,208 @@
+/*
+ * @(#) JSONSerialForm.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Serialization proxy for {@link JSONObject}, {@link JSONArray} and the primitive array
+ * classes.  Instead of the default serialization of the {@code ListMap} or {@code ArrayList}
+ * internals, the serialized form is a single block of CBOR (see {@link JSONCBOR}) for the
+ * entire tree, or for the primitive arrays, the primitive values themselves.  The tree is
+ * rebuilt on deserialization, and the frozen state of the outermost composite is restored.
+ *
+ * <p>Nested composites are rebuilt as {@link JSONObject} or {@link JSONArray}, so object
+ * identity (including shared references to the same nested composite) is not preserved.
+ * Subclasses of the above classes use the default serialization.</p>
+ *
+ * @author Peter Wall
+ */
+final class JSONSerialForm implements Externalizable {
+
+    private static final long serialVersionUID = 4710958862334706051L;
+
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;
+    private static final int INT_ARRAY = 2;
+    private static final int LONG_ARRAY = 3;
+    private static final int DOUBLE_ARRAY = 4;
+    private static final int GENERAL_INT_ARRAY = 5;
+    private static final int GENERAL_LONG_ARRAY = 6;
+    private static final int GENERAL_DOUBLE_ARRAY = 7;
+
+    private static final int FROZEN_FLAG = 0x80;
+
+    private JSONComposite composite;
+
+    /**
+     * Construct an empty {@code JSONSerialForm} (for use by deserialization only).
+     */
+    public JSONSerialForm() {
+    }
+
+    private JSONSerialForm(JSONComposite composite) {
+        this.composite = composite;
+    }
+
+    /**
+     * Get the object to be serialized in place of a composite.
+     *
+     * @param   composite   the composite
+     * @return  a {@code JSONSerialForm}, or the composite itself if it is of a class not
+     *          handled by this form
+     */
+    static Object replace(JSONComposite composite) {
+        return kind(composite) < 0 ? composite : new JSONSerialForm(composite);
+    }
+
+    private static int kind(JSONComposite composite) {
+        Class<?> compositeClass = composite.getClass();
+        if (compositeClass == JSONObject.class)
+            return OBJECT;
+        if (compositeClass == JSONArray.class)
+            return ARRAY;
+        if (compositeClass == JSONIntArray.class)
+            return ((JSONIntArray)composite).isPrimitive() ? INT_ARRAY : GENERAL_INT_ARRAY;
+        if (compositeClass == JSONLongArray.class)
+            return ((JSONLongArray)composite).isPrimitive() ? LONG_ARRAY : GENERAL_LONG_ARRAY;
+        if (compositeClass == JSONDoubleArray.class)
+            return ((JSONDoubleArray)composite).isPrimitive() ? DOUBLE_ARRAY :
+                    GENERAL_DOUBLE_ARRAY;
+        return -1;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        int kind = kind(composite);
+        out.writeByte(composite.isFrozen() ? kind | FROZEN_FLAG : kind);
+        switch (kind) {
+        case INT_ARRAY:
+            JSONIntArray intArray = (JSONIntArray)composite;
+            out.writeInt(intArray.size());
+            for (int i = 0, n = intArray.size(); i < n; i++)
+                out.writeInt(intArray.getInt(i));
+            break;
+        case LONG_ARRAY:
+            JSONLongArray longArray = (JSONLongArray)composite;
+            out.writeInt(longArray.size());
+            for (int i = 0, n = longArray.size(); i < n; i++)
+                out.writeLong(longArray.getLong(i));
+            break;
+        case DOUBLE_ARRAY:
+            JSONDoubleArray doubleArray = (JSONDoubleArray)composite;
+            out.writeInt(doubleArray.size());
+            for (int i = 0, n = doubleArray.size(); i < n; i++)
+                out.writeDouble(doubleArray.getDouble(i));
+            break;
+        default:
+            byte[] bytes = JSONCBOR.encode(composite);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            break;
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int flags = in.readUnsignedByte();
+        int kind = flags & ~FROZEN_FLAG;
+        int n = in.readInt();
+        if (n < 0)
+            throw new InvalidObjectException("Invalid length");
+        switch (kind) {
+        case INT_ARRAY:
+            int[] ints = new int[n];
+            for (int i = 0; i < n; i++)
+                ints[i] = in.readInt();
+            composite = new JSONIntArray(ints, n);
+            break;
+        case LONG_ARRAY:
+            long[] longs = new long[n];
+            for (int i = 0; i < n; i++)
+                longs[i] = in.readLong();
+            composite = new JSONLongArray(longs, n);
+            break;
+        case DOUBLE_ARRAY:
+            double[] doubles = new double[n];
+            for (int i = 0; i < n; i++)
+                doubles[i] = in.readDouble();
+            composite = new JSONDoubleArray(doubles, n);
+            break;
+        default:
+            byte[] bytes = new byte[n];
+            in.readFully(bytes);
+            composite = decode(kind, bytes);
+            break;
+        }
+        if ((flags & FROZEN_FLAG) != 0)
+            composite.freeze();
+    }
+
+    private static JSONComposite decode(int kind, byte[] bytes) throws IOException {
+        JSONValue value;
+        try {
+            value = JSONCBOR.decode(bytes);
+        }
+        catch (JSONException e) {
+            throw (IOException)new InvalidObjectException(e.getMessage()).initCause(e);
+        }
+        if (kind == OBJECT && value instanceof JSONObject)
+            return (JSONObject)value;
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray)value;
+            switch (kind) {
+            case ARRAY:
+                return array;
+            case GENERAL_INT_ARRAY:
+                return addAll(new JSONIntArray(), array);
+            case GENERAL_LONG_ARRAY:
+                return addAll(new JSONLongArray(), array);
+            case GENERAL_DOUBLE_ARRAY:
+                return addAll(new JSONDoubleArray(), array);
+            }
+        }
+        throw new InvalidObjectException("Invalid serialized JSON value");
+    }
+
+    private static JSONArray addAll(JSONArray target, JSONArray source) {
+        target.addAll(source);
+        return target;
+    }
+
+    /**
+     * Resolve the deserialized proxy to the composite it represents.
+     *
+     * @return  the composite
+     */
+    private Object readResolve() {
+        return composite;
+    }
+
+}
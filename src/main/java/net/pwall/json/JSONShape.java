@@ -0,0 +1,132 @@
+/*
+ * @(#) JSONShape.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.Serializable;
+
+/**
+ * The "shape" of a {@link JSONMapping}: an immutable ordered set of keys, with an index for
+ * fast lookup.  Mappings with the same keys in the same order (for example, the records in an
+ * array of objects parsed from JSON) may share a single {@code JSONShape}, each mapping holding
+ * only an array of values.  A mapping that shares a shape takes a private copy of the keys if
+ * its set of keys is modified.
+ *
+ * @author Peter Wall
+ */
+final class JSONShape implements Serializable {
+
+    private static final long serialVersionUID = -1839412752187426052L;
+
+    /** Shapes with more keys than this use a hash table for lookup. */
+    static final int INDEX_THRESHOLD = 8;
+
+    final String[] keys;
+    private final int[] table;
+    private transient int[] sortedOrder;
+
+    /**
+     * Construct a {@code JSONShape} with the given keys.  The array is not copied, so it must not
+     * be modified subsequently; the keys must be unique.
+     *
+     * @param   keys    the keys
+     */
+    JSONShape(String[] keys) {
+        this.keys = keys;
+        int n = keys.length;
+        if (n <= INDEX_THRESHOLD)
+            table = null;
+        else {
+            int tableSize = Integer.highestOneBit(n * 2 - 1) << 1;
+            int[] t = new int[tableSize];
+            int mask = tableSize - 1;
+            for (int i = 0; i < n; i++) {
+                int h = hash(keys[i]) & mask;
+                while (t[h] != 0)
+                    h = (h + 1) & mask;
+                t[h] = i + 1;
+            }
+            table = t;
+        }
+    }
+
+    /**
+     * Get the number of keys in the shape.
+     *
+     * @return  the number of keys
+     */
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * Find the index of a key in the shape.
+     *
+     * @param   key     the key
+     * @return  the index, or -1 if the key is not present
+     */
+    int indexOf(Object key) {
+        String[] k = keys;
+        int[] t = table;
+        if (t == null) {
+            for (int i = 0, n = k.length; i < n; i++)
+                if (k[i] == key || k[i].equals(key))
+                    return i;
+            return -1;
+        }
+        int mask = t.length - 1;
+        int h = hash(key) & mask;
+        for (;;) {
+            int entry = t[h];
+            if (entry == 0)
+                return -1;
+            String candidate = k[entry - 1];
+            if (candidate == key || candidate.equals(key))
+                return entry - 1;
+            h = (h + 1) & mask;
+        }
+    }
+
+    /**
+     * Get the indices of the keys in sorted order (for {@link JSONCanonical}).  The order is
+     * calculated when first required, and then cached.
+     *
+     * @return  the indices of the keys in sorted order (must not be modified)
+     */
+    int[] sortedOrder() {
+        int[] result = sortedOrder;
+        if (result == null) {
+            result = JSONCanonical.sortedOrder(keys);
+            sortedOrder = result;
+        }
+        return result;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+}
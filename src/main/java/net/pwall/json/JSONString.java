@@ -2,7 +2,7 @@
  * @(#) JSONString.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -110,6 +110,11 @@ public class JSONString implements JSONValue, CharSequence {
         a.append('"');
     }
 
+    @Override
+    public int jsonLength() {
+        return JSON.stringLength(value);
+    }
+
     @Override
     public String toString() {
         return value;
@@ -126,4 +131,40 @@ public class JSONString implements JSONValue, CharSequence {
                 other instanceof JSONString && value.equals(((JSONString)other).value);
     }
 
+    /**
+     * Get a {@code JSONString} for the given {@link CharSequence}.  The empty string and strings
+     * consisting of a single ASCII character are returned from a cache of preallocated instances.
+     *
+     * @param   cs      the {@link CharSequence}
+     * @return  the {@code JSONString}
+     * @throws  NullPointerException if the value is {@code null}
+     */
+    public static JSONString valueOf(CharSequence cs) {
+        int length = cs.length();
+        if (length == 0)
+            return Cache.values[Cache.values.length - 1];
+        if (length == 1) {
+            char ch = cs.charAt(0);
+            if (ch < 0x80)
+                return Cache.values[ch];
+        }
+        return new JSONString(cs);
+    }
+
+    /**
+     * The cache of preallocated instances (initialised on first use): the single-character
+     * ASCII strings, followed by the empty string.
+     */
+    private static class Cache {
+
+        static final JSONString[] values = new JSONString[0x81];
+
+        static {
+            for (int i = 0; i < 0x80; i++)
+                values[i] = new JSONString(String.valueOf((char)i));
+            values[0x80] = new JSONString("");
+        }
+
+    }
+
 }
@@ -0,0 +1,792 @@
+/*
+ * @(#) JSONTape.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A compact representation of a JSON document as a "tape" in a {@link ByteBuffer}.  The buffer
+ * may be a heap buffer, a direct buffer (outside the garbage-collected heap), or a buffer mapped
+ * from a file previously written by {@link #writeTo(WritableByteChannel)}.  The document is
+ * navigated with a {@link Cursor}, and any part of it may be converted to the usual
+ * {@link JSONValue} form.
+ *
+ * <p>Each value on the tape starts with a one-byte tag:</p>
+ * <ul>
+ *   <li>{@code null}, {@code false} and {@code true} consist of the tag alone</li>
+ *   <li>integers that fit in an {@code int} or {@code long} are followed by a 4 or 8-byte
+ *   binary value</li>
+ *   <li>strings, and numbers not held in binary form, are followed by a 4-byte length and the
+ *   UTF-8 bytes of the string or the number</li>
+ *   <li>arrays and objects are followed by a 4-byte count and the 4-byte offset of the end of the
+ *   array or object (so that the contents may be skipped), and then the array elements, or the
+ *   object members as key string followed by value</li>
+ * </ul>
+ *
+ * <p>Offsets are 32-bit, so a tape is limited to 2GB.</p>
+ *
+ * @author Peter Wall
+ */
+public class JSONTape {
+
+    /** The type of a value on the tape. */
+    public enum Type { NULL, BOOLEAN, NUMBER, STRING, ARRAY, OBJECT }
+
+    public static final String INVALID_TAPE = "Invalid JSON tape";
+    public static final String TAPE_TOO_LARGE = "JSON tape too large";
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_INT = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_DECIMAL = 5;
+    private static final byte TAG_STRING = 6;
+    private static final byte TAG_ARRAY = 7;
+    private static final byte TAG_OBJECT = 8;
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private final ByteBuffer buffer;
+    private final int length;
+
+    private JSONTape(ByteBuffer buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * Get the length of the tape in bytes.
+     *
+     * @return  the length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Create a {@link Cursor} positioned at the root value of the tape.
+     *
+     * @return  the {@link Cursor}
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Convert the entire document to a {@link JSONValue}.
+     *
+     * @return  the {@link JSONValue}
+     */
+    public JSONValue toJSONValue() {
+        return convert(0);
+    }
+
+    /**
+     * Write the tape to a {@link WritableByteChannel} (for example, a file to be mapped later
+     * using {@link java.nio.channels.FileChannel#map}).
+     *
+     * @param   channel the {@link WritableByteChannel}
+     * @throws  IOException on any I/O errors
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer source = buffer.duplicate();
+        ((Buffer)source).position(0).limit(length);
+        while (source.hasRemaining())
+            channel.write(source);
+    }
+
+    /**
+     * Create a {@code JSONTape} using the contents of a {@link ByteBuffer} (from position zero to
+     * the limit) previously written by {@link #writeTo(WritableByteChannel)}.
+     *
+     * @param   buffer  the {@link ByteBuffer}
+     * @return  the {@code JSONTape}
+     * @throws  JSONException if the buffer does not start with a valid tape value
+     */
+    public static JSONTape wrap(ByteBuffer buffer) {
+        int length = buffer.limit();
+        JSONTape tape = new JSONTape(buffer, length);
+        if (length == 0 || tape.skip(0) != length)
+            throw new JSONException(INVALID_TAPE);
+        return tape;
+    }
+
+    /**
+     * Parse a {@link CharSequence} to a {@code JSONTape} in a heap buffer.
+     *
+     * @param   cs      the {@link CharSequence}
+     * @return  the {@code JSONTape}
+     * @throws  JSONException if the JSON is invalid
+     */
+    public static JSONTape parse(CharSequence cs) {
+        try {
+            return parse(new StringReader(cs.toString()), false);
+        }
+        catch (IOException e) {
+            throw new JSONException("Unexpected exception reading string", e);
+        }
+    }
+
+    /**
+     * Parse an {@link InputStream} to a {@code JSONTape}, optionally in a direct buffer.
+     *
+     * @param   is      the {@link InputStream}
+     * @param   charSet the character set of the input
+     * @param   direct  if {@code true}, use a direct buffer
+     * @return  the {@code JSONTape}
+     * @throws  JSONException if the JSON is invalid
+     * @throws  IOException on any I/O errors
+     */
+    public static JSONTape parse(InputStream is, Charset charSet, boolean direct)
+            throws IOException {
+        return parse(new InputStreamReader(is, charSet), direct);
+    }
+
+    /**
+     * Parse the text from a {@link Reader} to a {@code JSONTape}, optionally in a direct buffer.
+     * The text is read in blocks, and is not held in memory in its entirety.
+     *
+     * @param   reader  the {@link Reader}
+     * @param   direct  if {@code true}, use a direct buffer
+     * @return  the {@code JSONTape}
+     * @throws  JSONException if the JSON is invalid
+     * @throws  IOException on any I/O errors
+     */
+    public static JSONTape parse(Reader reader, boolean direct) throws IOException {
+        Builder builder = new Builder(direct);
+        JSONReader jsonReader = new JSONReader(reader);
+        builder.copyValue(jsonReader, null, 0, new StringBuilder());
+        if (!jsonReader.skipSpaces().isExhausted())
+            throw new JSONException(JSON.EXCESS_CHARS);
+        return new JSONTape(builder.buffer, builder.position);
+    }
+
+    private int readInt(int offset) {
+        return buffer.getInt(offset);
+    }
+
+    private String readString(int offset) {
+        int n = readInt(offset + 1);
+        byte[] bytes = new byte[n];
+        int start = offset + 5;
+        for (int i = 0; i < n; i++)
+            bytes[i] = buffer.get(start + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean stringEquals(int offset, byte[] bytes) {
+        int n = bytes.length;
+        if (readInt(offset + 1) != n)
+            return false;
+        int start = offset + 5;
+        for (int i = 0; i < n; i++)
+            if (buffer.get(start + i) != bytes[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Get the offset following the value at the given offset.
+     *
+     * @param   offset  the offset of the value
+     * @return  the offset of the next value
+     * @throws  JSONException if the tag is invalid
+     */
+    private int skip(int offset) {
+        switch (buffer.get(offset)) {
+        case TAG_NULL:
+        case TAG_FALSE:
+        case TAG_TRUE:
+            return offset + 1;
+        case TAG_INT:
+            return offset + 5;
+        case TAG_LONG:
+            return offset + 9;
+        case TAG_DECIMAL:
+        case TAG_STRING:
+            return offset + 5 + readInt(offset + 1);
+        case TAG_ARRAY:
+        case TAG_OBJECT:
+            return readInt(offset + 5);
+        default:
+            throw new JSONException(INVALID_TAPE);
+        }
+    }
+
+    private JSONValue convert(int offset) {
+        switch (buffer.get(offset)) {
+        case TAG_NULL:
+            return null;
+        case TAG_FALSE:
+            return JSONBoolean.FALSE;
+        case TAG_TRUE:
+            return JSONBoolean.TRUE;
+        case TAG_INT:
+            int i = readInt(offset + 1);
+            return i == 0 ? JSONZero.ZERO : JSONInteger.valueOf(i);
+        case TAG_LONG:
+            return JSONLong.valueOf(buffer.getLong(offset + 1));
+        case TAG_DECIMAL:
+            return new JSONDecimal(readString(offset));
+        case TAG_STRING:
+            return JSONString.valueOf(readString(offset));
+        case TAG_ARRAY: {
+            int n = readInt(offset + 1);
+            JSONArray array = new JSONArray(n);
+            int child = offset + 9;
+            for (int j = 0; j < n; j++) {
+                array.add(convert(child));
+                child = skip(child);
+            }
+            return array;
+        }
+        case TAG_OBJECT: {
+            int n = readInt(offset + 1);
+            JSONObject object = new JSONObject(n);
+            int child = offset + 9;
+            for (int j = 0; j < n; j++) {
+                int valueOffset = skip(child);
+                object.put(readString(child), convert(valueOffset));
+                child = skip(valueOffset);
+            }
+            return object;
+        }
+        default:
+            throw new JSONException(INVALID_TAPE);
+        }
+    }
+
+    /**
+     * A cursor for navigating a {@link JSONTape}.  The cursor is positioned at a value, and it
+     * may be moved down to a child of that value (an array element or an object member), along
+     * to the next sibling, or back up to the parent.  Navigation does not create any objects
+     * (other than to enlarge the cursor's stack for deeply nested documents).
+     */
+    public class Cursor {
+
+        private int offset;
+        private int keyOffset;
+        private int index;
+        private int depth;
+        private int[] stack;
+
+        private Cursor() {
+            stack = new int[24];
+            reset();
+        }
+
+        /**
+         * Reset the cursor to the root value of the tape.
+         *
+         * @return  {@code this} (for chaining)
+         */
+        public Cursor reset() {
+            offset = 0;
+            keyOffset = -1;
+            index = 0;
+            depth = 0;
+            return this;
+        }
+
+        /**
+         * Get the type of the current value.
+         *
+         * @return  the {@link Type}
+         */
+        public Type getType() {
+            switch (buffer.get(offset)) {
+            case TAG_NULL:
+                return Type.NULL;
+            case TAG_FALSE:
+            case TAG_TRUE:
+                return Type.BOOLEAN;
+            case TAG_INT:
+            case TAG_LONG:
+            case TAG_DECIMAL:
+                return Type.NUMBER;
+            case TAG_STRING:
+                return Type.STRING;
+            case TAG_ARRAY:
+                return Type.ARRAY;
+            case TAG_OBJECT:
+                return Type.OBJECT;
+            default:
+                throw new JSONException(INVALID_TAPE);
+            }
+        }
+
+        /**
+         * Test whether the current value is {@code null}.
+         *
+         * @return  {@code true} if the value is {@code null}
+         */
+        public boolean isNull() {
+            return buffer.get(offset) == TAG_NULL;
+        }
+
+        /**
+         * Get the number of elements or members of the current value, if it is an array or an
+         * object.
+         *
+         * @return  the size
+         * @throws  JSONException if the value is not an array or an object
+         */
+        public int size() {
+            byte tag = buffer.get(offset);
+            if (tag != TAG_ARRAY && tag != TAG_OBJECT)
+                throw new JSONException(JSON.NOT_AN_ARRAY);
+            return readInt(offset + 1);
+        }
+
+        /**
+         * Get the depth of the current value (the root is at depth 0).
+         *
+         * @return  the depth
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Get the index of the current value within its parent array or object.
+         *
+         * @return  the index (0 for the root)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Get the key of the current value, if it is a member of an object.
+         *
+         * @return  the key, or {@code null} if the value is not an object member
+         */
+        public String getKey() {
+            return keyOffset < 0 ? null : readString(keyOffset);
+        }
+
+        /**
+         * Get the current value as a {@link String}.
+         *
+         * @return  the value
+         * @throws  JSONException if the value is not a string
+         */
+        public String getString() {
+            if (buffer.get(offset) != TAG_STRING)
+                throw new JSONException(JSON.NOT_A_STRING);
+            return readString(offset);
+        }
+
+        /**
+         * Get the current value as a {@code boolean}.
+         *
+         * @return  the value
+         * @throws  JSONException if the value is not a boolean
+         */
+        public boolean getBoolean() {
+            byte tag = buffer.get(offset);
+            if (tag != TAG_TRUE && tag != TAG_FALSE)
+                throw new JSONException(JSON.NOT_A_BOOLEAN);
+            return tag == TAG_TRUE;
+        }
+
+        /**
+         * Get the current value as an {@code int}.
+         *
+         * @return  the value
+         * @throws  JSONException if the value is not a number
+         */
+        public int getInt() {
+            byte tag = buffer.get(offset);
+            return tag == TAG_INT ? readInt(offset + 1) : (int)getLong();
+        }
+
+        /**
+         * Get the current value as a {@code long}.
+         *
+         * @return  the value
+         * @throws  JSONException if the value is not a number
+         */
+        public long getLong() {
+            switch (buffer.get(offset)) {
+            case TAG_INT:
+                return readInt(offset + 1);
+            case TAG_LONG:
+                return buffer.getLong(offset + 1);
+            case TAG_DECIMAL:
+                return getDecimal().longValue();
+            default:
+                throw new JSONException(JSON.NOT_A_NUMBER);
+            }
+        }
+
+        /**
+         * Get the current value as a {@code double}.
+         *
+         * @return  the value
+         * @throws  JSONException if the value is not a number
+         */
+        public double getDouble() {
+            byte tag = buffer.get(offset);
+            return tag == TAG_DECIMAL ? Double.parseDouble(readString(offset)) :
+                    getLong();
+        }
+
+        /**
+         * Get the current value as a {@link BigDecimal}.
+         *
+         * @return  the value
+         * @throws  JSONException if the value is not a number
+         */
+        public BigDecimal getDecimal() {
+            byte tag = buffer.get(offset);
+            return tag == TAG_DECIMAL ? new BigDecimal(readString(offset)) :
+                    BigDecimal.valueOf(getLong());
+        }
+
+        /**
+         * Convert the current value (and all of its descendants) to a {@link JSONValue}.
+         *
+         * @return  the {@link JSONValue}
+         */
+        public JSONValue toJSONValue() {
+            return convert(offset);
+        }
+
+        /**
+         * Move down to an element of the current array, or a member of the current object, by
+         * index.
+         *
+         * @param   n       the index
+         * @return  {@code true} if successful; {@code false} if the current value is not an array
+         *          or object, or the index is out of range (the cursor is not moved)
+         */
+        public boolean down(int n) {
+            byte tag = buffer.get(offset);
+            if (tag != TAG_ARRAY && tag != TAG_OBJECT || n < 0 || n >= readInt(offset + 1))
+                return false;
+            int child = offset + 9;
+            for (int i = 0; i < n; i++) {
+                if (tag == TAG_OBJECT)
+                    child = skip(child);
+                child = skip(child);
+            }
+            push();
+            index = n;
+            if (tag == TAG_OBJECT) {
+                keyOffset = child;
+                offset = skip(child);
+            }
+            else {
+                keyOffset = -1;
+                offset = child;
+            }
+            return true;
+        }
+
+        /**
+         * Move down to a member of the current object, by key.
+         *
+         * @param   key     the key
+         * @return  {@code true} if successful; {@code false} if the current value is not an object
+         *          or the key is not found (the cursor is not moved)
+         */
+        public boolean down(String key) {
+            if (buffer.get(offset) != TAG_OBJECT)
+                return false;
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            int child = offset + 9;
+            for (int i = 0, n = readInt(offset + 1); i < n; i++) {
+                int valueOffset = skip(child);
+                if (stringEquals(child, bytes)) {
+                    push();
+                    index = i;
+                    keyOffset = child;
+                    offset = valueOffset;
+                    return true;
+                }
+                child = skip(valueOffset);
+            }
+            return false;
+        }
+
+        /**
+         * Move to the next sibling of the current value (the next element of the parent array or
+         * member of the parent object).
+         *
+         * @return  {@code true} if successful; {@code false} if there are no more siblings (the
+         *          cursor is not moved)
+         */
+        public boolean next() {
+            if (depth == 0)
+                return false;
+            int parent = stack[(depth - 1) * 3];
+            if (index + 1 >= readInt(parent + 1))
+                return false;
+            int following = skip(offset);
+            index++;
+            if (keyOffset >= 0) {
+                keyOffset = following;
+                offset = skip(following);
+            }
+            else
+                offset = following;
+            return true;
+        }
+
+        /**
+         * Move up to the parent of the current value.
+         *
+         * @return  {@code true} if successful; {@code false} if the cursor is at the root
+         */
+        public boolean up() {
+            if (depth == 0)
+                return false;
+            int base = --depth * 3;
+            offset = stack[base];
+            keyOffset = stack[base + 1];
+            index = stack[base + 2];
+            return true;
+        }
+
+        private void push() {
+            int base = depth * 3;
+            if (base + 3 > stack.length)
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[base] = offset;
+            stack[base + 1] = keyOffset;
+            stack[base + 2] = index;
+            depth++;
+        }
+
+    }
+
+    /**
+     * Builder to create the tape from JSON text.
+     */
+    private static class Builder {
+
+        private final boolean direct;
+        private ByteBuffer buffer;
+        private int position;
+
+        private Builder(boolean direct) {
+            this.direct = direct;
+            buffer = allocate(INITIAL_CAPACITY);
+            position = 0;
+        }
+
+        private ByteBuffer allocate(int capacity) {
+            return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+
+        private void ensureCapacity(int n) {
+            int required = position + n;
+            if (required < 0)
+                throw new JSONException(TAPE_TOO_LARGE);
+            int capacity = buffer.capacity();
+            if (required > capacity) {
+                int newCapacity = capacity << 1;
+                if (newCapacity < required)
+                    newCapacity = required;
+                if (newCapacity < 0)
+                    newCapacity = Integer.MAX_VALUE;
+                ByteBuffer newBuffer = allocate(newCapacity);
+                ByteBuffer source = buffer.duplicate();
+                ((Buffer)source).position(0).limit(position);
+                newBuffer.put(source);
+                buffer = newBuffer;
+            }
+        }
+
+        private void putTag(byte tag) {
+            ensureCapacity(1);
+            buffer.put(position++, tag);
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            buffer.putInt(position, value);
+            position += 4;
+        }
+
+        private void putLong(long value) {
+            ensureCapacity(8);
+            buffer.putLong(position, value);
+            position += 8;
+        }
+
+        private void putString(byte tag, String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            putTag(tag);
+            putInt(bytes.length);
+            ensureCapacity(bytes.length);
+            for (byte b : bytes)
+                buffer.put(position++, b);
+        }
+
+        private void putNumber(String number) {
+            boolean floating = false;
+            for (int i = 0, n = number.length(); i < n; i++) {
+                char ch = number.charAt(i);
+                if (ch == '.' || ch == 'e' || ch == 'E') {
+                    floating = true;
+                    break;
+                }
+            }
+            if (!floating && number.length() <= 20) {
+                try {
+                    long value = Long.parseLong(number);
+                    if (value == (int)value) {
+                        putTag(TAG_INT);
+                        putInt((int)value);
+                    }
+                    else {
+                        putTag(TAG_LONG);
+                        putLong(value);
+                    }
+                    return;
+                }
+                catch (NumberFormatException ignore) {
+                    // too large for long - store as decimal
+                }
+            }
+            putString(TAG_DECIMAL, number);
+        }
+
+        private void copyValue(JSONReader reader, JSONPointer.Location location, int depth, StringBuilder sb)
+                throws IOException {
+            if (depth > JSON.getMaxDepth())
+                throw new JSONException(JSON.MAX_DEPTH_EXCEEDED);
+            reader.skipSpaces();
+
+            // check for object
+
+            if (reader.match('{')) {
+                int start = position;
+                putTag(TAG_OBJECT);
+                putInt(0);
+                putInt(0);
+                int count = 0;
+                if (!reader.skipSpaces().match('}')) {
+                    Set<String> keys = new HashSet<>();
+                    JSONPointer.Location child = new JSONPointer.Location(location);
+                    for (;;) {
+                        if (!reader.match('"'))
+                            throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_KEY, location));
+                        sb.setLength(0);
+                        reader.copyString(null, sb, location);
+                        String key = sb.toString();
+                        if (!keys.add(key))
+                            throw new JSONException(JSON.pointerMessage(JSON.DUPLICATE_KEY +
+                                    ": \"" + key + '"', location));
+                        if (!reader.skipSpaces().match(':'))
+                            throw new JSONException(JSON.pointerMessage(JSON.MISSING_COLON,
+                                    location));
+                        putString(TAG_STRING, key);
+                        copyValue(reader, child.key(key), depth + 1, sb);
+                        count++;
+                        if (!reader.skipSpaces().match(','))
+                            break;
+                        reader.skipSpaces();
+                    }
+                    if (!reader.match('}'))
+                        throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACE,
+                                location));
+                }
+                buffer.putInt(start + 1, count);
+                buffer.putInt(start + 5, position);
+                return;
+            }
+
+            // check for array
+
+            if (reader.match('[')) {
+                int start = position;
+                putTag(TAG_ARRAY);
+                putInt(0);
+                putInt(0);
+                int count = 0;
+                if (!reader.skipSpaces().match(']')) {
+                    JSONPointer.Location child = new JSONPointer.Location(location);
+                    do {
+                        copyValue(reader, child.index(count++), depth + 1, sb);
+                    } while (reader.skipSpaces().match(','));
+                    if (!reader.match(']'))
+                        throw new JSONException(JSON.pointerMessage(JSON.MISSING_CLOSING_BRACKET,
+                                location));
+                }
+                buffer.putInt(start + 1, count);
+                buffer.putInt(start + 5, position);
+                return;
+            }
+
+            // check for string
+
+            if (reader.match('"')) {
+                sb.setLength(0);
+                reader.copyString(null, sb, location);
+                putString(TAG_STRING, sb.toString());
+                return;
+            }
+
+            // check for number
+
+            sb.setLength(0);
+            if (reader.readNumber(sb, location)) {
+                putNumber(sb.toString());
+                return;
+            }
+
+            // check for keywords (true, false, null)
+
+            if (reader.matchName("true"))
+                putTag(TAG_TRUE);
+            else if (reader.matchName("false"))
+                putTag(TAG_FALSE);
+            else if (reader.matchName("null"))
+                putTag(TAG_NULL);
+            else
+                throw new JSONException(JSON.pointerMessage(JSON.ILLEGAL_SYNTAX, location));
+        }
+
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONValue.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015 Peter Wall
+ * Copyright (c) 2014, 2015, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -45,12 +45,38 @@ public interface JSONValue extends Serializable {
     void appendJSON(Appendable a) throws IOException;
 
     /**
-     * Create the appropriate external representation for this JSON value.
+     * Get the length of the external representation for this JSON value, as it would be
+     * output by {@link #appendJSON(Appendable)}.  The JSON representation is always pure ASCII
+     * (all other characters are escaped), so the length is also the number of bytes in the
+     * representation in UTF-8 or any other ASCII-compatible encoding, allowing (for example) a
+     * {@code Content-Length} header to be set before the value is serialized.
+     *
+     * <p>The default implementation counts the characters output by
+     * {@link #appendJSON(Appendable)}; all the classes in this library override this with a
+     * direct calculation.</p>
+     *
+     * @return  the length of the JSON representation for this value
+     */
+    default int jsonLength() {
+        JSONLengthCounter counter = new JSONLengthCounter();
+        try {
+            appendJSON(counter);
+        }
+        catch (IOException e) {
+            // can't happen - JSONLengthCounter does not throw IOException
+        }
+        return counter.getLength();
+    }
+
+    /**
+     * Create the appropriate external representation for this JSON value.  The
+     * {@link StringBuilder} used to build the result is allocated with the exact length
+     * required (see {@link #jsonLength()}).
      *
      * @return  the JSON representation for this value
      */
     default String toJSON() {
-        StringBuilder sb = new StringBuilder(12);
+        StringBuilder sb = new StringBuilder(jsonLength());
         try {
             appendJSON(sb);
         }
@@ -0,0 +1,249 @@
+/*
+ * @(#) JSONVector.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent (immutable, structurally shared) vector, implemented as a 32-way trie with a
+ * separate tail block.  Operations that modify the vector return a new vector, copying only
+ * the path from the root to the affected leaf (at most 7 blocks of 32 references), so that
+ * {@link #get(int)}, {@link #set(int, Object)}, {@link #append(Object)} and {@link #pop()} are
+ * all effectively constant time.  This is the storage for {@link JSONPersistentArray}, and for
+ * the insertion order of the entries of {@link JSONPersistentObject}.
+ *
+ * @author Peter Wall
+ * @param   <T>     the element type
+ */
+final class JSONVector<T> implements Serializable {
+
+    private static final long serialVersionUID = -2860839582404154170L;
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final Object[] EMPTY_TAIL = {};
+
+    private static final JSONVector<?> EMPTY = new JSONVector<>(0, BITS, EMPTY_NODE, EMPTY_TAIL);
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private JSONVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    /**
+     * Get the empty vector.
+     *
+     * @param   <T>     the element type
+     * @return  the empty vector
+     */
+    @SuppressWarnings("unchecked")
+    static <T> JSONVector<T> empty() {
+        return (JSONVector<T>)EMPTY;
+    }
+
+    /**
+     * Get the number of elements in the vector.
+     *
+     * @return  the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get an element from the vector.
+     *
+     * @param   index   the index
+     * @return  the element
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) {
+        return (T)blockFor(index)[index & MASK];
+    }
+
+    /**
+     * Create a new vector with the element at the given index replaced.
+     *
+     * @param   index   the index
+     * @param   value   the new element
+     * @return  the new vector
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    JSONVector<T> set(int index, T value) {
+        checkIndex(index);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = value;
+            return new JSONVector<>(size, shift, root, newTail);
+        }
+        return new JSONVector<>(size, shift, set(shift, root, index, value), tail);
+    }
+
+    private static Object[] set(int level, Object[] node, int index, Object value) {
+        Object[] result = node.clone();
+        if (level == 0)
+            result[index & MASK] = value;
+        else {
+            int i = (index >>> level) & MASK;
+            result[i] = set(level - BITS, (Object[])node[i], index, value);
+        }
+        return result;
+    }
+
+    /**
+     * Create a new vector with an element added at the end.
+     *
+     * @param   value   the new element
+     * @return  the new vector
+     */
+    JSONVector<T> append(T value) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = value;
+            return new JSONVector<>(size + 1, shift, root, newTail);
+        }
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) { // root is full - add a level
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        }
+        else
+            newRoot = pushTail(shift, root, tail);
+        return new JSONVector<>(size + 1, newShift, newRoot, new Object[] { value });
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int i = ((size - 1) >>> level) & MASK;
+        Object[] result = parent.clone();
+        if (level == BITS)
+            result[i] = tailNode;
+        else {
+            Object[] child = (Object[])parent[i];
+            result[i] = child != null ? pushTail(level - BITS, child, tailNode) :
+                    newPath(level - BITS, tailNode);
+        }
+        return result;
+    }
+
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0)
+            return node;
+        Object[] result = new Object[WIDTH];
+        result[0] = newPath(level - BITS, node);
+        return result;
+    }
+
+    /**
+     * Create a new vector with the last element removed.
+     *
+     * @return  the new vector
+     * @throws  NoSuchElementException if the vector is empty
+     */
+    JSONVector<T> pop() {
+        if (size == 0)
+            throw new NoSuchElementException();
+        if (size == 1)
+            return empty();
+        if (size - tailOffset() > 1)
+            return new JSONVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        Object[] newTail = blockFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null)
+            newRoot = EMPTY_NODE;
+        if (shift > BITS && newRoot[1] == null) { // root has only one child - remove a level
+            newRoot = (Object[])newRoot[0];
+            newShift -= BITS;
+        }
+        return new JSONVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    private Object[] popTail(int level, Object[] node) {
+        int i = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[])node[i]);
+            if (newChild == null && i == 0)
+                return null;
+            Object[] result = node.clone();
+            result[i] = newChild;
+            return result;
+        }
+        if (i == 0)
+            return null;
+        Object[] result = node.clone();
+        result[i] = null;
+        return result;
+    }
+
+    /**
+     * Get the block of (up to) 32 elements containing the element at the given index; the
+     * element is at offset {@code index & 31} in the block.  This allows iteration without
+     * descending the trie for every element.
+     *
+     * @param   index   the index
+     * @return  the block
+     * @throws  IndexOutOfBoundsException if the index is out of range
+     */
+    Object[] blockFor(int index) {
+        checkIndex(index);
+        if (index >= tailOffset())
+            return tail;
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = (Object[])node[(index >>> level) & MASK];
+        return node;
+    }
+
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+    }
+
+    private Object readResolve() {
+        return size == 0 ? EMPTY : this;
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) JSONZero.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2020 Peter Wall
+ * Copyright (c) 2014, 2015, 2020, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -96,6 +96,11 @@ public class JSONZero extends JSONNumberValue {
         a.append('0');
     }
 
+    @Override
+    public int jsonLength() {
+        return 1;
+    }
+
     @Override
     public String toString() {
         return "0";
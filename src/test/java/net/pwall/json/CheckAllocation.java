@@ -0,0 +1,60 @@
+/*
+ * @(#) CheckAllocation.java
+ */
+
+package net.pwall.json;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Check the memory allocated when parsing a telemetry-shaped corpus (an array of records
+ * containing status codes, small counts, flags and single-character codes).  Run with the
+ * system properties {@code net.pwall.json.cache.low} and {@code net.pwall.json.cache.high}
+ * set to {@code 0} to compare with the behaviour without the small-value caches.
+ */
+public class CheckAllocation {
+
+    private static final int RECORDS = 10000;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        String json = corpus();
+        System.out.println("Corpus: " + RECORDS + " records, " + json.length() + " characters");
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < ITERATIONS; i++) // warm up
+            JSON.parse(json);
+        long bytesBefore = bean.getThreadAllocatedBytes(threadId);
+        long timeBefore = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            JSON.parse(json);
+        long time = System.nanoTime() - timeBefore;
+        long bytes = bean.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.println("Allocated per parse: " + bytes / ITERATIONS + " bytes (" +
+                bytes / ITERATIONS / RECORDS + " per record)");
+        System.out.println("Time per parse: " + time / ITERATIONS / 1000 + " us");
+    }
+
+    private static String corpus() {
+        Random random = new Random(12345);
+        String[] statusCodes = { "200", "200", "200", "201", "204", "304", "400", "404", "500" };
+        JSONArray array = new JSONArray(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            JSONObject record = new JSONObject();
+            record.putValue("ts", 1700000000000L + i * 250L);
+            record.putValue("status", Integer.parseInt(statusCodes[random.nextInt(statusCodes.length)]));
+            record.putValue("retries", random.nextInt(4));
+            record.putValue("queue", random.nextInt(64));
+            record.putValue("latency", random.nextInt(2000));
+            record.putValue("level", String.valueOf("DIWE".charAt(random.nextInt(4))));
+            record.putValue("region", "eu-west-" + (random.nextInt(3) + 1));
+            record.putValue("cached", random.nextBoolean());
+            record.putValue("tag", "");
+            array.add(record);
+        }
+        return array.toJSON();
+    }
+
+}
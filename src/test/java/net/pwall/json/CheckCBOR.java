@@ -0,0 +1,73 @@
+/*
+ * @(#) CheckCBOR.java
+ */
+
+package net.pwall.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Compare the size and the encode and decode throughput of the CBOR form of a document with
+ * those of the JSON text form.
+ */
+public class CheckCBOR {
+
+    private static final int RECORDS = 10000;
+    private static final int ITERATIONS = 50;
+
+    public static void main(String[] args) {
+        JSONValue value = corpus();
+        String json = value.toJSON();
+        byte[] cbor = JSONCBOR.encode(value);
+        System.out.println("Text: " + json.getBytes(StandardCharsets.UTF_8).length + " bytes");
+        System.out.println("CBOR: " + cbor.length + " bytes");
+        for (int i = 0; i < ITERATIONS; i++) { // warm up
+            value.toJSON();
+            JSONCBOR.encode(value);
+            JSON.parse(json);
+            JSONCBOR.decode(cbor);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            value.toJSON().getBytes(StandardCharsets.UTF_8);
+        report("Text encode", start);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            JSONCBOR.encode(value);
+        report("CBOR encode", start);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            JSON.parse(json);
+        report("Text decode", start);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            JSONCBOR.decode(cbor);
+        report("CBOR decode", start);
+    }
+
+    private static void report(String name, long start) {
+        long time = System.nanoTime() - start;
+        System.out.println(name + ": " + time / ITERATIONS / 1000 + " us");
+    }
+
+    private static JSONValue corpus() {
+        Random random = new Random(12345);
+        JSONArray array = new JSONArray(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            JSONObject record = new JSONObject();
+            record.putValue("id", 100000 + i);
+            record.putValue("ts", 1700000000000L + i * 250L);
+            record.putValue("name", "item-" + random.nextInt(1000));
+            record.putValue("price", random.nextInt(100000) / 100.0);
+            record.putValue("active", random.nextBoolean());
+            JSONArray tags = new JSONArray();
+            for (int j = random.nextInt(4); j > 0; j--)
+                tags.addValue("tag" + random.nextInt(20));
+            record.put("tags", tags);
+            array.add(record);
+        }
+        return array;
+    }
+
+}
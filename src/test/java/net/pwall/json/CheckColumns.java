@@ -0,0 +1,87 @@
+/*
+ * @(#) CheckColumns.java
+ */
+
+package net.pwall.json;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measure the time taken to parse an array of records to {@link JSONColumns} (directly, and by
+ * way of a {@link JSONArray}), compared with parsing to a {@link JSONArray}, and the time taken
+ * to aggregate values from the columns, compared with aggregating them from the objects.
+ */
+public class CheckColumns {
+
+    private static final int RECORDS = 1000000;
+    private static final int ITERATIONS = 5;
+
+    private static double sink;
+
+    public static void main(String[] args) {
+        String json = corpus();
+        JSONArray array = JSON.parseArray(json);
+        JSONColumns columns = JSONColumns.from(array);
+        System.out.println("Records: " + RECORDS + ", " + json.length() + " characters");
+        time("Parse to JSONArray", () -> sink += JSON.parseArray(json).size());
+        time("Parse to JSONColumns", () -> sink += JSONColumns.parse(json).size());
+        time("Convert JSONArray to JSONColumns", () -> sink += JSONColumns.from(array).size());
+        time("Convert JSONColumns to JSONArray", () -> sink += columns.toJSONArray().size());
+        time("Sum, min, max of field (JSONArray)", () -> {
+            double sum = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (JSONValue value : array) {
+                double amount = ((JSONObject)value).getDouble("amount");
+                sum += amount;
+                min = Math.min(min, amount);
+                max = Math.max(max, amount);
+            }
+            sink += sum + min + max;
+        });
+        JSONColumns.Column amount = columns.getColumn("amount");
+        time("Sum, min, max of field (JSONColumns)",
+                () -> sink += amount.sumDouble() + amount.min() + amount.max());
+        time("Count by string field (JSONArray)", () -> {
+            Map<String, int[]> counts = new HashMap<>();
+            for (JSONValue value : array)
+                counts.computeIfAbsent(((JSONObject)value).getString("region"), k -> new int[1])[0]++;
+            sink += counts.size();
+        });
+        JSONColumns.Column region = columns.getColumn("region");
+        time("Count by string field (JSONColumns)", () -> {
+            int[] counts = new int[region.getDictionary().size()];
+            for (int i = 0, n = region.size(); i < n; i++)
+                counts[region.getCode(i)]++;
+            sink += counts.length;
+        });
+    }
+
+    private static void time(String name, Runnable runnable) {
+        for (int i = 0; i < ITERATIONS; i++) // warm up
+            runnable.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            runnable.run();
+        System.out.println(name + ": " + (System.nanoTime() - start) / ITERATIONS / 1000 + " us");
+    }
+
+    private static String corpus() {
+        Random random = new Random(12345);
+        StringBuilder sb = new StringBuilder(RECORDS * 80);
+        sb.append('[');
+        for (int i = 0; i < RECORDS; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append("{\"id\":").append(100000 + i).append(",\"region\":\"R").append(random.nextInt(20))
+                    .append("\",\"amount\":").append(random.nextInt(100000) / 100.0)
+                    .append(",\"quantity\":").append(1 + random.nextInt(10)).append(",\"paid\":")
+                    .append(random.nextBoolean()).append('}');
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * @(#) CheckPatch.java
+ */
+
+package net.pwall.json;
+
+/**
+ * Compare the throughput of applying a {@link JSONPatch} in place (with its undo log) with that
+ * of applying the same changes by hand using {@code put} and {@code remove}, and with that of
+ * copying the target before applying the patch, for a narrow and a wide object.  Each iteration
+ * applies a patch and then its inverse, so that the target returns to its original content.
+ */
+public class CheckPatch {
+
+    private static final int ITERATIONS = 200000;
+
+    public static void main(String[] args) {
+        run("Narrow (6 properties)", 6);
+        run("Wide (2000 properties)", 2000);
+    }
+
+    private static void run(String title, int width) {
+        System.out.println(title);
+        JSONObject target = new JSONObject();
+        for (int i = 0; i < width; i++)
+            target.putValue("k" + i, i);
+        String first = "k" + width / 2;
+        String last = "k" + (width - 1);
+        JSONPatch patch = JSONPatch.parse("[{\"op\":\"test\",\"path\":\"/" + last + "\",\"value\":" +
+                (width - 1) + "},{\"op\":\"remove\",\"path\":\"/" + first + "\"}," +
+                "{\"op\":\"replace\",\"path\":\"/" + last + "\",\"value\":-1}," +
+                "{\"op\":\"add\",\"path\":\"/extra\",\"value\":[1,2]}]");
+        JSONPatch inverse = JSONPatch.parse("[{\"op\":\"remove\",\"path\":\"/extra\"}," +
+                "{\"op\":\"replace\",\"path\":\"/" + last + "\",\"value\":" + (width - 1) + "}," +
+                "{\"op\":\"add\",\"path\":\"/" + first + "\",\"value\":" + width / 2 + "}]");
+        int iterations = ITERATIONS * 10 / (width / 10 + 10);
+        for (int i = 0; i < iterations; i++) { // warm up
+            byHand(target, first, last, width);
+            inverse.apply(patch.apply(target));
+            patch.applyToCopy(target);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            byHand(target, first, last, width);
+        report("By hand", start, iterations);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            inverse.apply(patch.apply(target));
+        report("JSONPatch in place", start, iterations);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+            inverse.applyToCopy(patch.applyToCopy(target));
+        report("JSONPatch on copy", start, iterations);
+    }
+
+    private static void byHand(JSONObject target, String first, String last, int width) {
+        if (target.getInt(last) != width - 1)
+            throw new IllegalStateException();
+        target.remove(first);
+        target.putValue(last, -1);
+        target.put("extra", new JSONIntArray(1, 2));
+        target.remove("extra");
+        target.putValue(last, width - 1);
+        target.putValue(first, width / 2);
+    }
+
+    private static void report(String name, long start, int iterations) {
+        long time = System.nanoTime() - start;
+        System.out.println("  " + name + ": " + time / iterations + " ns");
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * @(#) CheckPath.java
+ */
+
+package net.pwall.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compare the throughput of a compiled {@link JSONPath} with that of a naive recursive
+ * evaluator, which interprets the expression text on each evaluation, builds an intermediate
+ * list at each step and compares numbers by way of {@link java.math.BigDecimal}.
+ */
+public class CheckPath {
+
+    private static final int ORDERS = 2000;
+    private static final int ITERATIONS = 200;
+    private static final String EXPRESSION = "$.orders[*].lines[?(@.qty > 10)].sku";
+
+    public static void main(String[] args) {
+        JSONValue value = corpus();
+        JSONPath path = JSONPath.compile(EXPRESSION);
+        int expected = path.evaluate(value).size();
+        if (naive(EXPRESSION, value).size() != expected)
+            throw new IllegalStateException("Results differ");
+        System.out.println("Results: " + expected);
+        for (int i = 0; i < ITERATIONS; i++) { // warm up
+            path.evaluate(value);
+            naive(EXPRESSION, value);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            naive(EXPRESSION, value);
+        report("Naive", start);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            JSONPath.compile(EXPRESSION).evaluate(value);
+        report("Compiled (including compile)", start);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            path.evaluate(value);
+        report("Compiled", start);
+        int[] count = new int[1];
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            path.evaluate(value, v -> count[0]++);
+        report("Compiled (consumer)", start);
+    }
+
+    private static void report(String name, long start) {
+        long time = System.nanoTime() - start;
+        System.out.println(name + ": " + time / ITERATIONS / 1000 + " us");
+    }
+
+    /**
+     * Naive evaluation: supports {@code .name}, {@code [*]} and
+     * {@code [?(@.name op number)]}.
+     */
+    private static List<JSONValue> naive(String expression, JSONValue root) {
+        List<JSONValue> current = new ArrayList<>();
+        current.add(root);
+        String rest = expression.substring(1);
+        while (!rest.isEmpty()) {
+            List<JSONValue> next = new ArrayList<>();
+            if (rest.startsWith(".")) {
+                int end = 1;
+                while (end < rest.length() && rest.charAt(end) != '.' && rest.charAt(end) != '[')
+                    end++;
+                String name = rest.substring(1, end);
+                rest = rest.substring(end);
+                for (JSONValue node : current)
+                    if (node instanceof Map && ((Map<?, ?>)node).containsKey(name))
+                        next.add((JSONValue)((Map<?, ?>)node).get(name));
+            }
+            else {
+                int end = rest.indexOf(']');
+                String selector = rest.substring(1, end);
+                rest = rest.substring(end + 1);
+                for (JSONValue node : current)
+                    for (JSONValue child : children(node))
+                        if (selector.equals("*") || test(selector.substring(2, selector.length() - 1), child))
+                            next.add(child);
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static List<JSONValue> children(JSONValue node) {
+        List<JSONValue> result = new ArrayList<>();
+        if (node instanceof Map)
+            for (Object child : ((Map<?, ?>)node).values())
+                result.add((JSONValue)child);
+        else if (node instanceof List)
+            for (Object child : (List<?>)node)
+                result.add((JSONValue)child);
+        return result;
+    }
+
+    private static boolean test(String filter, JSONValue node) {
+        String[] parts = filter.trim().split("\\s+");
+        List<JSONValue> operand = naive("$" + parts[0].substring(1), node);
+        if (operand.size() != 1 || !(operand.get(0) instanceof JSONNumberValue))
+            return false;
+        int comparison = ((JSONNumberValue)operand.get(0)).bigDecimalValue().compareTo(
+                new java.math.BigDecimal(parts[2]));
+        switch (parts[1]) {
+        case "==":
+            return comparison == 0;
+        case "<":
+            return comparison < 0;
+        case ">":
+            return comparison > 0;
+        default:
+            throw new IllegalArgumentException(parts[1]);
+        }
+    }
+
+    private static JSONValue corpus() {
+        Random random = new Random(12345);
+        JSONArray orders = new JSONArray(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            JSONObject order = new JSONObject();
+            order.putValue("id", 100000 + i);
+            order.putValue("customer", "cust-" + random.nextInt(500));
+            JSONArray lines = new JSONArray();
+            for (int j = random.nextInt(8) + 1; j > 0; j--) {
+                JSONObject line = new JSONObject();
+                line.putValue("sku", "sku-" + random.nextInt(5000));
+                line.putValue("qty", random.nextInt(20));
+                line.putValue("price", random.nextInt(10000) / 100.0);
+                lines.add(line);
+            }
+            order.put("lines", lines);
+            orders.add(order);
+        }
+        return JSONObject.create().putJSON("orders", orders);
+    }
+
+}
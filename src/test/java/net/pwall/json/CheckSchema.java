@@ -0,0 +1,120 @@
+/*
+ * @(#) CheckSchema.java
+ */
+
+package net.pwall.json;
+
+import java.util.Random;
+
+/**
+ * Measure the time taken by {@link JSONSchema} to validate a set of small documents, compared
+ * with the time taken to parse them, for parsed documents (sharing key shapes) and for
+ * individually constructed documents; and the time taken to parse the documents with
+ * validation during the parse (with and without skipping undeclared properties), and to reject
+ * a batch of documents with an invalid document near the start.
+ */
+public class CheckSchema {
+
+    private static final int RECORDS = 50000;
+    private static final int ITERATIONS = 20;
+    private static final int INVALID_RECORD = 100;
+
+    private static final String schemaJSON = "{\"type\":\"object\"," +
+            "\"required\":[\"type\",\"id\",\"amount\"]," +
+            "\"properties\":{\"type\":{\"enum\":[\"order.created\",\"order.updated\"]}," +
+            "\"id\":{\"type\":\"integer\",\"minimum\":1}," +
+            "\"customer\":{\"type\":\"string\",\"maxLength\":40}," +
+            "\"amount\":{\"type\":\"number\",\"minimum\":0},\"currency\":{\"pattern\":\"^[A-Z]{3}$\"}," +
+            "\"items\":{\"type\":\"array\",\"items\":{\"type\":\"object\",\"required\":[\"sku\"]," +
+            "\"properties\":{\"sku\":{\"type\":\"string\",\"pattern\":\"^SKU-\"}," +
+            "\"qty\":{\"type\":\"integer\",\"minimum\":1}},\"additionalProperties\":false}}}," +
+            "\"additionalProperties\":false}";
+
+    private static final String partialSchemaJSON = "{\"type\":\"object\",\"required\":[\"id\"]," +
+            "\"properties\":{\"id\":{\"type\":\"integer\"},\"amount\":{\"type\":\"number\"}}}";
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        JSONSchema schema = JSONSchema.parse(schemaJSON);
+        JSONSchema partialSchema = JSONSchema.parse(partialSchemaJSON);
+        JSONArray constructed = corpus();
+        String[] texts = new String[RECORDS];
+        for (int i = 0; i < RECORDS; i++)
+            texts[i] = constructed.get(i).toJSON();
+        String batch = constructed.toJSON();
+        JSONArray parsed = (JSONArray)JSON.parse(batch);
+        JSONSchema batchSchema = JSONSchema.parse("{\"type\":\"array\",\"items\":" + schemaJSON + "}");
+        String invalidId = "\"id\":" + (100000 + INVALID_RECORD) + ',';
+        String invalidBatch = batch.replace(invalidId, invalidId.replace(":", ":-"));
+        System.out.println("Documents: " + RECORDS + ", " + constructed.jsonLength() + " characters");
+        time("Parse", () -> {
+            for (String text : texts)
+                sink += ((JSONObject)JSON.parse(text)).size();
+        });
+        time("Validate (parsed, shared shapes)", () -> validate(schema, parsed));
+        time("Validate (constructed)", () -> validate(schema, constructed));
+        time("Parse, then validate", () -> {
+            for (String text : texts)
+                if (!schema.isValid(JSON.parse(text)))
+                    throw new IllegalStateException("Document not valid: " + text);
+        });
+        time("Parse with schema", () -> {
+            for (String text : texts)
+                sink += ((JSONObject)JSON.parse(text, schema)).size();
+        });
+        time("Parse with partial schema, skipping undeclared", () -> {
+            for (String text : texts)
+                sink += ((JSONObject)JSON.parse(text, partialSchema, true)).size();
+        });
+        time("Parse invalid batch, then validate", () -> {
+            if (batchSchema.isValid(JSON.parse(invalidBatch)))
+                throw new IllegalStateException("Batch valid");
+        });
+        time("Parse invalid batch with schema", () -> {
+            try {
+                JSON.parse(invalidBatch, batchSchema);
+                throw new IllegalStateException("Batch valid");
+            }
+            catch (JSONSchema.ValidationException e) {
+                sink++;
+            }
+        });
+    }
+
+    private static void time(String name, Runnable runnable) {
+        for (int i = 0; i < ITERATIONS; i++) // warm up
+            runnable.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++)
+            runnable.run();
+        System.out.println(name + ": " + (System.nanoTime() - start) / ITERATIONS / 1000 + " us");
+    }
+
+    private static void validate(JSONSchema schema, JSONArray documents) {
+        for (JSONValue document : documents)
+            if (!schema.isValid(document))
+                throw new IllegalStateException("Document not valid: " + document);
+    }
+
+    private static JSONArray corpus() {
+        Random random = new Random(12345);
+        JSONArray array = new JSONArray(RECORDS);
+        for (int i = 0; i < RECORDS; i++) {
+            JSONObject record = new JSONObject();
+            record.putValue("type", "order.updated");
+            record.putValue("id", 100000 + i);
+            record.putValue("customer", "Customer " + random.nextInt(1000));
+            record.putValue("amount", random.nextInt(100000) / 100.0);
+            record.putValue("currency", "EUR");
+            JSONArray items = new JSONArray();
+            for (int j = random.nextInt(4); j > 0; j--)
+                items.add(JSONObject.create().putValue("sku", "SKU-" + random.nextInt(500))
+                        .putValue("qty", 1 + random.nextInt(5)));
+            record.putJSON("items", items);
+            array.add(record);
+        }
+        return array;
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * @(#) TestAggregate.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the aggregate operations of JSONSequence.
+ *
+ * @author Peter Wall
+ */
+class TestAggregate {
+
+    @Test
+    void shouldAggregateMixedNumbers() {
+        JSONArray array = JSON.parseArray("[3,null,-2,12345678901,2.5,0]");
+        array.add(JSONDouble.valueOf(-0.5));
+        array.add(JSONFloat.valueOf(1.5F));
+        assertEquals(12345678905L, array.sumLong());
+        assertEquals(12345678905.5, array.sumDouble());
+        assertEquals(-2.0, array.min());
+        assertEquals(12345678901.0, array.max());
+        assertEquals(12345678905.5 / 7, array.mean());
+        JSONArray empty = JSON.parseArray("[null]");
+        assertEquals(0, empty.sumLong());
+        assertEquals(0.0, empty.sumDouble());
+        assertTrue(Double.isNaN(empty.min()));
+        assertTrue(Double.isNaN(empty.max()));
+        assertTrue(Double.isNaN(new JSONArray().mean()));
+        JSONArray invalid = JSON.parseArray("[1,\"2\"]");
+        JSONException e = assertThrows(JSONException.class, invalid::sumLong);
+        assertEquals(JSON.NOT_A_NUMBER, e.getMessage());
+        assertThrows(JSONException.class, invalid::mean);
+        assertThrows(JSONException.class, () -> invalid.histogram(0, 1, 1));
+    }
+
+    @Test
+    void shouldAggregatePrimitiveArrays() {
+        JSONIntArray ints = new JSONIntArray(5, -3, 7, 0);
+        assertEquals(9, ints.sumLong());
+        assertEquals(9.0, ints.sumDouble());
+        assertEquals(-3.0, ints.min());
+        assertEquals(7.0, ints.max());
+        assertEquals(2.25, ints.mean());
+        assertArrayEquals(new int[] { 5, -3, 7, 0 }, ints.toIntArray());
+        JSONLongArray longs = new JSONLongArray(5000000000L, -1, 2);
+        assertEquals(5000000001L, longs.sumLong());
+        assertEquals(-1.0, longs.min());
+        assertEquals(5.0E9, longs.max());
+        assertArrayEquals(new long[] { 5000000000L, -1, 2 }, longs.toLongArray());
+        JSONDoubleArray doubles = new JSONDoubleArray(1.5, -2.25, 4.0);
+        assertEquals(3, doubles.sumLong());
+        assertEquals(3.25, doubles.sumDouble());
+        assertEquals(-2.25, doubles.min());
+        assertEquals(4.0, doubles.max());
+        assertArrayEquals(new double[] { 1.5, -2.25, 4.0 }, doubles.toDoubleArray());
+        ints.add(null);
+        assertFalse(ints.isPrimitive());
+        assertEquals(9, ints.sumLong());
+        assertEquals(2.25, ints.mean());
+        assertArrayEquals(new int[] { 5, -3, 7, 0, 0 }, ints.toIntArray());
+    }
+
+    @Test
+    void shouldCountValuesInHistogram() {
+        JSONArray array = JSON.parseArray("[0,1.5,2,9.99,10,-1,11,null,5]");
+        assertArrayEquals(new int[] { 2, 1, 1, 0, 2 }, array.histogram(0, 10, 5));
+        JSONIntArray ints = new JSONIntArray(0, 1, 2, 9, 10, -1, 11, 5);
+        assertArrayEquals(new int[] { 2, 1, 1, 0, 2 }, ints.histogram(0, 10, 5));
+        assertArrayEquals(new int[] { 6 }, ints.histogram(0, 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> ints.histogram(0, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> ints.histogram(10, 10, 2));
+        assertThrows(IllegalArgumentException.class, () -> ints.histogram(0, Double.NaN, 2));
+    }
+
+    @Test
+    void shouldIterateAndStreamPrimitiveValues() {
+        JSONArray array = JSON.parseArray("[1,null,3.5,4]");
+        assertArrayEquals(new int[] { 1, 0, 3, 4 }, array.toIntArray());
+        assertArrayEquals(new long[] { 1, 0, 3, 4 }, array.toLongArray());
+        assertArrayEquals(new double[] { 1, 0, 3.5, 4 }, array.toDoubleArray());
+        assertEquals(8, array.intStream().sum());
+        assertEquals(8, array.longStream().sum());
+        assertEquals(8.5, array.doubleStream().sum());
+        assertEquals(4, array.intStream().parallel().max().getAsInt());
+        PrimitiveIterator.OfDouble iterator = array.doubleIterator();
+        assertEquals(1.0, iterator.nextDouble());
+        assertEquals(0.0, iterator.nextDouble());
+        assertEquals(3.5, iterator.nextDouble());
+        assertEquals(4.0, iterator.nextDouble());
+        assertFalse(iterator.hasNext());
+        PrimitiveIterator.OfInt ints = new JSONIntArray(7, 8).intIterator();
+        assertEquals(7, ints.nextInt());
+        assertEquals(8, ints.nextInt());
+        assertFalse(ints.hasNext());
+        assertEquals(3, new JSONLongArray(1, 2).longIterator().nextLong() + 2);
+        JSONArray invalid = JSON.parseArray("[1,true]");
+        assertThrows(JSONException.class, () -> invalid.intStream().sum());
+    }
+
+    @Test
+    void shouldAggregateLargeArraysInParallel() {
+        int n = JSONSequence.PARALLEL_THRESHOLD * 2 + 123;
+        Random random = new Random(12345);
+        double[] values = new double[n];
+        JSONArray array = new JSONArray(n);
+        long expectedLong = 0;
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextInt(2000000) / 100.0 - 10000;
+            array.add(JSONDouble.valueOf(values[i]));
+            expectedLong += (long)values[i];
+        }
+        JSONDoubleArray doubles = new JSONDoubleArray(values);
+        assertEquals(doubles.sumDouble(), array.sumDouble());
+        assertEquals(array.sumDouble(), array.sumDouble());
+        assertEquals(expectedLong, array.sumLong());
+        assertEquals(expectedLong, doubles.sumLong());
+        assertEquals(array.doubleStream().min().getAsDouble(), array.min());
+        assertEquals(array.doubleStream().max().getAsDouble(), doubles.max());
+        assertEquals(doubles.mean(), array.mean());
+        int[] histogram = doubles.histogram(-10000, 10000, 16);
+        assertArrayEquals(histogram, array.histogram(-10000, 10000, 16));
+        int total = 0;
+        for (int count : histogram)
+            total += count;
+        assertEquals(n, total);
+        array.set(n - 7, new JSONString("x"));
+        JSONException e = assertThrows(JSONException.class, array::sumDouble);
+        assertEquals(JSON.NOT_A_NUMBER, e.getMessage());
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * @(#) TestArrayIndex.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONArrayIndex.
+ *
+ * @author Peter Wall
+ */
+class TestArrayIndex {
+
+    private static final String products = "[{\"sku\":\"A1\",\"price\":10,\"warehouse\":\"X\",\"bin\":1}," +
+            "{\"sku\":\"B2\",\"price\":2.5,\"warehouse\":\"X\",\"bin\":2}," +
+            "{\"sku\":\"C3\",\"price\":7,\"warehouse\":\"Y\",\"bin\":1}," +
+            "{\"sku\":\"D4\",\"price\":10.0,\"warehouse\":\"Y\",\"bin\":2}," +
+            "{\"sku\":\"E5\",\"warehouse\":\"X\",\"bin\":1},null,3]";
+
+    @Test
+    void shouldFindElementsByKey() {
+        JSONArray array = JSON.parseArray(products);
+        JSONArrayIndex index = JSONArrayIndex.build(array, "/sku");
+        assertEquals(5, index.size());
+        assertSame(array.get(2), index.get(new JSONString("C3")));
+        assertNull(index.get(new JSONString("Z9")));
+        assertNull(index.get((JSONValue)null));
+        JSONArrayIndex byPrice = JSONArrayIndex.build(array, "/price");
+        assertEquals(Arrays.asList(array.get(0), array.get(3)), byPrice.getAll(new JSONInteger(10)));
+        assertEquals(Collections.singletonList(array.get(1)), byPrice.getAll(new JSONDecimal("2.50")));
+        assertEquals(Collections.emptyList(), byPrice.getAll(new JSONInteger(99)));
+        JSONException e = assertThrows(JSONException.class,
+                () -> index.get(new JSONString("A1"), new JSONString("X")));
+        assertEquals(JSONArrayIndex.KEY_MISMATCH, e.getMessage());
+        assertThrows(UnsupportedOperationException.class, () -> index.range(null, true, null, true));
+    }
+
+    @Test
+    void shouldFindElementsByCompositeKey() {
+        JSONArray array = JSON.parseArray(products);
+        JSONArrayIndex index = JSONArrayIndex.build(array, "/warehouse", "/bin");
+        assertEquals(5, index.size());
+        assertEquals(Arrays.asList(array.get(0), array.get(4)),
+                index.getAll(new JSONString("X"), new JSONInteger(1)));
+        assertSame(array.get(3), index.get(new JSONString("Y"), new JSONInteger(2)));
+        assertNull(index.get(new JSONString("Y"), new JSONInteger(3)));
+    }
+
+    @Test
+    void shouldFindNumericKeysOfDifferentTypes() {
+        JSONArray array = JSON.parseArray("[{\"k\":10000000000},{\"k\":2.5},{\"k\":2.75},{\"k\":1e30}," +
+                "{\"k\":3},{\"k\":\"3\"},{\"k\":9223372036854775807}]");
+        JSONArrayIndex index = JSONArrayIndex.build(array, "/k");
+        assertSame(array.get(0), index.get(JSONDouble.valueOf(1e10)));
+        assertSame(array.get(0), index.get(new JSONDecimal("1.0E10")));
+        assertSame(array.get(0), index.get(new JSONLong(10000000000L)));
+        assertSame(array.get(1), index.get(JSONFloat.valueOf(2.5F)));
+        assertSame(array.get(1), index.get(new JSONDecimal("2.500")));
+        assertSame(array.get(2), index.get(JSONDouble.valueOf(2.75)));
+        assertNull(index.get(JSONDouble.valueOf(2.0)));
+        assertSame(array.get(3), index.get(JSONDouble.valueOf(1e30)));
+        assertSame(array.get(3), index.get(new JSONDecimal("1000000000000000000000000000000")));
+        assertSame(array.get(4), index.get(JSONDouble.valueOf(3.0)));
+        assertSame(array.get(5), index.get(new JSONString("3")));
+        assertSame(array.get(6), index.get(new JSONDecimal("9223372036854775807.00")));
+        assertNull(index.get(new JSONDecimal("9223372036854775808")));
+        JSONArrayIndex composite = JSONArrayIndex.build(array, "/k", "/k");
+        assertSame(array.get(0), composite.get(JSONDouble.valueOf(1e10), new JSONLong(10000000000L)));
+        assertSame(array.get(2), composite.get(new JSONDecimal("2.750"), JSONDouble.valueOf(2.75)));
+        array.add(JSON.parseObject("{\"k\":2.50}"));
+        index.rebuild();
+        assertEquals(2, index.getAll(JSONDouble.valueOf(2.5)).size());
+    }
+
+    @Test
+    void shouldFindElementsByRange() {
+        JSONArray array = JSON.parseArray(products);
+        JSONArrayIndex index = JSONArrayIndex.buildSorted(array, "/price");
+        assertTrue(index.isSorted());
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(array.get(1), array.get(2)),
+                index.range(null, true, new JSONInteger(10), false));
+        assertEquals(Arrays.asList(array.get(2), array.get(0), array.get(3)),
+                index.range(JSONDouble.valueOf(2.5), false, new JSONLong(10), true));
+        assertEquals(Arrays.asList(array.get(0), array.get(3)),
+                index.range(new JSONDecimal("10"), true, null, true));
+        assertEquals(Collections.emptyList(),
+                index.range(new JSONInteger(8), true, new JSONInteger(7), true));
+        assertSame(array.get(2), index.get(new JSONDecimal("7.00")));
+        assertNull(index.get(new JSONString("7")));
+    }
+
+    @Test
+    void shouldKeepInSyncWithModifications() {
+        JSONArray array = JSON.parseArray(products);
+        JSONArrayIndex index = JSONArrayIndex.build(array, "/sku").sync();
+        JSONArrayIndex sorted = JSONArrayIndex.buildSorted(array, "/price").sync();
+        JSONObject f6 = JSONObject.create().putValue("sku", "F6").putValue("price", 1);
+        array.add(f6);
+        assertSame(f6, index.get(new JSONString("F6")));
+        assertSame(f6, sorted.range(null, true, null, true).get(0));
+        JSONValue a1 = array.remove(0);
+        assertNull(index.get(new JSONString("A1")));
+        assertEquals(Collections.singletonList(array.get(2)), sorted.getAll(new JSONInteger(10)));
+        JSONObject b2 = JSONObject.create().putValue("sku", "B2").putValue("price", 3);
+        JSONValue oldB2 = array.set(0, b2);
+        assertSame(b2, index.get(new JSONString("B2")));
+        assertFalse(array.remove(a1));
+        array.add(2, a1);
+        assertSame(a1, index.get(new JSONString("A1")));
+        assertTrue(array.remove(a1));
+        assertNull(index.get(new JSONString("A1")));
+        for (Iterator<JSONValue> i = array.iterator(); i.hasNext(); )
+            if (b2.equals(i.next()))
+                i.remove();
+        assertNull(index.get(new JSONString("B2")));
+        array.addAll(Arrays.asList(oldB2, a1));
+        assertSame(oldB2, index.get(new JSONString("B2")));
+        assertEquals(6, index.size());
+        array.removeIf(v -> v instanceof JSONObject &&
+                ((JSONObject)v).getString("sku").compareTo("C") < 0);
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(array.get(0), array.get(1)),
+                sorted.range(new JSONInteger(7), true, new JSONInteger(10), true));
+        array.clear();
+        assertEquals(0, index.size());
+        index.unsync();
+        array.add(f6);
+        assertEquals(0, index.size());
+        assertEquals(1, sorted.size());
+    }
+
+    @Test
+    void shouldKeepInSyncWithPrimitiveArray() {
+        JSONArray array = new JSONIntArray(1, 2, 3, 2);
+        JSONArrayIndex index = JSONArrayIndex.build(array, "").sync();
+        assertEquals(2, index.getAll(new JSONInteger(2)).size());
+        array.set(1, new JSONInteger(5));
+        assertEquals(1, index.getAll(new JSONInteger(2)).size());
+        assertNotNull(index.get(new JSONInteger(5)));
+        array.add(new JSONString("x"));
+        assertNotNull(index.get(new JSONString("x")));
+        assertEquals(1, index.getAll(new JSONInteger(2)).size());
+        array.set(0, new JSONInteger(2));
+        List<JSONValue> twos = index.getAll(new JSONInteger(2));
+        assertEquals(2, twos.size());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void shouldKeepInSyncWithSubListModifications() {
+        JSONArray array = JSON.parseArray("[{\"id\":\"A\"},{\"id\":\"B\"},{\"id\":\"C\"}]");
+        JSONArrayIndex index = JSONArrayIndex.build(array, "/id").sync();
+        JSONValue d = JSON.parse("{\"id\":\"D\"}");
+        List<JSONValue> subList = array.subList(0, 2);
+        subList.set(0, d);
+        assertNull(index.get(new JSONString("A")));
+        assertSame(d, index.get(new JSONString("D")));
+        JSONValue e = JSON.parse("{\"id\":\"E\"}");
+        subList.subList(1, 2).set(0, e);
+        assertNull(index.get(new JSONString("B")));
+        assertSame(e, index.get(new JSONString("E")));
+        subList.remove(0);
+        assertNull(index.get(new JSONString("D")));
+        assertEquals(2, index.size());
+    }
+
+}
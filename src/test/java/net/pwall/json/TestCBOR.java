@@ -0,0 +1,136 @@
+/*
+ * @(#) TestCBOR.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONCBOR.
+ *
+ * @author Peter Wall
+ */
+class TestCBOR {
+
+    private static final String example = "{\"id\":12345,\"name\":\"Caf\\u00e9\",\"price\":12.50," +
+            "\"big\":-12345678901234,\"huge\":123456789012345678901234,\"tags\":[\"a\",\"b\",[],{}]," +
+            "\"stock\":{\"count\":0,\"ok\":true,\"hold\":false,\"note\":null,\"ints\":[1,2,3]}}";
+
+    @Test
+    void shouldRoundTripParsedValue() throws IOException {
+        JSONValue value = JSON.parse(example);
+        byte[] bytes = JSONCBOR.encode(value);
+        JSONValue decoded = JSONCBOR.decode(bytes);
+        assertEquals(value, decoded);
+        assertEquals(value.toJSON(), decoded.toJSON());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JSONCBOR.encode(value, baos);
+        assertArrayEquals(bytes, baos.toByteArray());
+        assertEquals(value, JSONCBOR.decode(new ByteArrayInputStream(bytes)));
+        assertTrue(bytes.length < value.toJSON().length());
+    }
+
+    @Test
+    void shouldRoundTripAllValueClasses() {
+        JSONArray array = JSONArray.create().addValue(Integer.MIN_VALUE).addValue(Long.MAX_VALUE)
+                .addValue(Long.MIN_VALUE).addValue(1.5e-300).addValue(-2.25F).addValue(true)
+                .addNull().addValue("").addValue(new BigDecimal("-1.23E-45"))
+                .addValue(new BigDecimal("98765432109876543210.5"));
+        JSONValue decoded = JSONCBOR.decode(JSONCBOR.encode(array));
+        assertEquals(array, decoded);
+        JSONArray decodedArray = (JSONArray)decoded;
+        assertTrue(decodedArray.get(3) instanceof JSONDouble);
+        assertTrue(decodedArray.get(4) instanceof JSONFloat);
+        assertTrue(decodedArray.get(8) instanceof JSONDecimal);
+        assertNull(JSONCBOR.decode(JSONCBOR.encode(null)));
+    }
+
+    @Test
+    void shouldEncodeStandardForms() {
+        assertArrayEquals(bytes(0x19, 0x03, 0xE8), JSONCBOR.encode(JSONInteger.valueOf(1000)));
+        assertArrayEquals(bytes(0x39, 0x03, 0xE7), JSONCBOR.encode(JSONInteger.valueOf(-1000)));
+        assertArrayEquals(bytes(0xC4, 0x82, 0x21, 0x19, 0x6A, 0xB3),
+                JSONCBOR.encode(new JSONDecimal("273.15")));
+        assertArrayEquals(bytes(0xA2, 0x61, 0x61, 0x01, 0x61, 0x62, 0x82, 0x02, 0x03),
+                JSONCBOR.encode(JSON.parse("{\"a\":1,\"b\":[2,3]}")));
+        assertArrayEquals(bytes(0x62, 0xC3, 0xBC), JSONCBOR.encode(new JSONString("\u00FC")));
+    }
+
+    @Test
+    void shouldDecodeStandardForms() {
+        assertEquals(new JSONLong(Long.MAX_VALUE),
+                JSONCBOR.decode(bytes(0x1B, 0x7F, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF)));
+        assertEquals(new JSONDecimal("18446744073709551615"),
+                JSONCBOR.decode(bytes(0x1B, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF)));
+        assertEquals(new JSONDecimal("-18446744073709551616"),
+                JSONCBOR.decode(bytes(0x3B, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF)));
+        assertEquals(new JSONDecimal("18446744073709551616"),
+                JSONCBOR.decode(bytes(0xC2, 0x49, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00)));
+        assertEquals(JSONFloat.valueOf(1.5F), JSONCBOR.decode(bytes(0xF9, 0x3E, 0x00)));
+        assertEquals(JSONFloat.valueOf(5.9604645e-8F), JSONCBOR.decode(bytes(0xF9, 0x00, 0x01)));
+        assertEquals(JSON.parse("[1,[2,3],[4,5]]"),
+                JSONCBOR.decode(bytes(0x9F, 0x01, 0x82, 0x02, 0x03, 0x9F, 0x04, 0x05, 0xFF, 0xFF)));
+        assertEquals(JSON.parse("{\"a\":1,\"b\":[2,3]}"),
+                JSONCBOR.decode(bytes(0xBF, 0x61, 0x61, 0x01, 0x61, 0x62, 0x9F, 0x02, 0x03, 0xFF, 0xFF)));
+        assertEquals(new JSONString("streaming"), JSONCBOR.decode(bytes(0x7F, 0x65, 0x73, 0x74, 0x72,
+                0x65, 0x61, 0x64, 0x6D, 0x69, 0x6E, 0x67, 0xFF)));
+        assertEquals(new JSONString("2013-03-21T20:04:00Z"), JSONCBOR.decode(bytes(0xC0, 0x74, 0x32,
+                0x30, 0x31, 0x33, 0x2D, 0x30, 0x33, 0x2D, 0x32, 0x31, 0x54, 0x32, 0x30, 0x3A, 0x30,
+                0x34, 0x3A, 0x30, 0x30, 0x5A)));
+    }
+
+    @Test
+    void shouldRejectInvalidData() {
+        JSONException e = assertThrows(JSONException.class, () -> JSONCBOR.decode(bytes(0x82, 0x01)));
+        assertEquals(JSONCBOR.UNEXPECTED_END, e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONCBOR.decode(bytes(0x41, 0x01)));
+        assertEquals(JSONCBOR.UNSUPPORTED_CBOR, e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONCBOR.decode(bytes(0xA1, 0x01, 0x02)));
+        assertEquals(JSONCBOR.UNSUPPORTED_CBOR, e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONCBOR.decode(bytes(0x1C)));
+        assertEquals(JSONCBOR.INVALID_CBOR, e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONCBOR.decode(bytes(0x01, 0x02)));
+        assertEquals(JSON.EXCESS_CHARS, e.getMessage());
+        byte[] tags = new byte[100000];
+        Arrays.fill(tags, (byte)0xC6);
+        e = assertThrows(JSONException.class, () -> JSONCBOR.decode(tags));
+        assertEquals(JSON.MAX_DEPTH_EXCEEDED, e.getMessage());
+    }
+
+    private static byte[] bytes(int ... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++)
+            result[i] = (byte)values[i];
+        return result;
+    }
+
+}
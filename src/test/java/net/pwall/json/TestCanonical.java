@@ -0,0 +1,193 @@
+/*
+ * @(#) TestCanonical.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONCanonical.
+ *
+ * @author Peter Wall
+ */
+class TestCanonical {
+
+    @Test
+    void shouldCanonicalizeRFC8785Example() {
+        JSONValue json = JSON.parse("{\n" +
+                "  \"numbers\": [333333333.33333329, 1E30, 4.50, 2e-3, 0.000000000000000000000000001],\n" +
+                "  \"string\": \"\\u20ac$\\u000F\\u000aA'\\u0042\\u0022\\u005c\\\\\\\"\\/\",\n" +
+                "  \"literals\": [null, true, false]\n" +
+                "}");
+        assertEquals("{\"literals\":[null,true,false]," +
+                "\"numbers\":[333333333.3333333,1e+30,4.5,0.002,1e-27]," +
+                "\"string\":\"\u20ac$\\u000f\\nA'B\\\"\\\\\\\\\\\"/\"}", JSONCanonical.toJSON(json));
+    }
+
+    @Test
+    void shouldSortPropertiesByUTF16CodeUnits() {
+        JSONValue json = JSON.parse("{\"\\u20ac\":\"Euro Sign\",\"\\r\":\"Carriage Return\"," +
+                "\"\\ufb33\":\"Hebrew Letter Dalet With Dagesh\",\"1\":\"One\"," +
+                "\"\\ud83d\\ude00\":\"Emoji: Grinning Face\",\"\\u0080\":\"Control\"," +
+                "\"\\u00f6\":\"Latin Small Letter O With Diaeresis\"}");
+        String expected = "{\"\\r\":\"Carriage Return\",\"1\":\"One\",\"\u0080\":\"Control\"," +
+                "\"\u00f6\":\"Latin Small Letter O With Diaeresis\",\"\u20ac\":\"Euro Sign\"," +
+                "\"\ud83d\ude00\":\"Emoji: Grinning Face\",\"\ufb33\":\"Hebrew Letter Dalet With Dagesh\"}";
+        assertEquals(expected, JSONCanonical.toJSON(json));
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), JSONCanonical.toBytes(json));
+        assertEquals(expected, JSONCanonical.toJSON(((JSONObject)json).deepCopy().freeze()));
+        assertEquals(expected, JSONCanonical.toJSON(JSONPersistentObject.from((JSONObject)json)));
+    }
+
+    @Test
+    void shouldFormatNumbersAsECMAScript() {
+        checkDouble(0x0000000000000000L, "0");
+        checkDouble(0x8000000000000000L, "0");
+        checkDouble(0x0000000000000001L, "5e-324");
+        checkDouble(0x8000000000000001L, "-5e-324");
+        checkDouble(0x7fefffffffffffffL, "1.7976931348623157e+308");
+        checkDouble(0xffefffffffffffffL, "-1.7976931348623157e+308");
+        checkDouble(0x4340000000000000L, "9007199254740992");
+        checkDouble(0xc340000000000000L, "-9007199254740992");
+        checkDouble(0x4430000000000000L, "295147905179352830000");
+        checkDouble(0x44b52d02c7e14af5L, "9.999999999999997e+22");
+        checkDouble(0x44b52d02c7e14af6L, "1e+23");
+        checkDouble(0x44b52d02c7e14af7L, "1.0000000000000001e+23");
+        checkDouble(0x444b1ae4d6e2ef4eL, "999999999999999700000");
+        checkDouble(0x444b1ae4d6e2ef4fL, "999999999999999900000");
+        checkDouble(0x444b1ae4d6e2ef50L, "1e+21");
+        checkDouble(0x3eb0c6f7a0b5ed8cL, "9.999999999999997e-7");
+        checkDouble(0x3eb0c6f7a0b5ed8dL, "0.000001");
+        checkDouble(0x41b3de4355555553L, "333333333.3333332");
+        checkDouble(0x41b3de4355555554L, "333333333.33333325");
+        checkDouble(0x41b3de4355555555L, "333333333.3333333");
+        checkDouble(0x41b3de4355555556L, "333333333.3333334");
+        checkDouble(0x41b3de4355555557L, "333333333.33333343");
+        checkDouble(0xbecbf647612f3696L, "-0.0000033333333333333333");
+        checkDouble(0x43143ff3c1cb0959L, "1424953923781206.2");
+        assertEquals("[0,-7,9223372036854776000,0.1,1e+21,1.5,100,0.1]",
+                JSONCanonical.toJSON(JSONArray.create().addJSON(JSONZero.ZERO).addValue(-7)
+                        .addValue(Long.MAX_VALUE).addJSON(JSONFloat.valueOf(0.1F))
+                        .addJSON(new JSONDecimal("1000000000000000000000")).addJSON(new JSONDecimal("1.50"))
+                        .addJSON(new JSONDecimal("1E2"))
+                        .addJSON(new JSONDecimal("0.1000000000000000000001"))));
+    }
+
+    @Test
+    void shouldFormatRandomNumbersSameAsShortestDecimal() {
+        Random random = new Random(2468);
+        for (int i = 0; i < 20000; i++) {
+            double d = i % 2 == 0 ? Double.longBitsToDouble(random.nextLong()) :
+                    (random.nextInt(2000000) - 1000000) / Math.pow(10, random.nextInt(12));
+            if (Double.isNaN(d) || Double.isInfinite(d))
+                continue;
+            String result = JSONCanonical.toJSON(JSONDouble.valueOf(d));
+            assertEquals(d, Double.parseDouble(result), result);
+            String digits = result.replaceFirst("e.*", "").replace("-", "").replace(".", "")
+                    .replaceFirst("^0+", "").replaceFirst("0+$", "");
+            String expected = new java.math.BigDecimal(Double.toString(d)).stripTrailingZeros()
+                    .unscaledValue().abs().toString();
+            assertTrue(digits.length() <= expected.length(), d + " " + result);
+        }
+    }
+
+    @Test
+    void shouldFormatPowersOfTwoAsShortestDecimal() {
+        checkDouble(0x3e70000000000000L, "5.960464477539063e-8");
+        checkDouble(0x0010000000000000L, "2.2250738585072014e-308");
+        checkDouble(0x7fe0000000000000L, "8.98846567431158e+307");
+        for (int exponent = -1074; exponent <= 1023; exponent++) {
+            double d = Math.scalb(1.0, exponent);
+            String result = JSONCanonical.toJSON(JSONDouble.valueOf(d));
+            assertEquals(d, Double.parseDouble(result), result);
+            BigDecimal exact = new BigDecimal(d);
+            int digits = 1;
+            while (!roundsTo(exact, digits, RoundingMode.FLOOR, d) &&
+                    !roundsTo(exact, digits, RoundingMode.CEILING, d))
+                digits++;
+            String resultDigits = new BigDecimal(result).stripTrailingZeros().unscaledValue().toString();
+            assertEquals(digits, resultDigits.length(), result);
+        }
+    }
+
+    @Test
+    void shouldRejectValuesThatCanNotBeCanonicalized() {
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONCanonical.toJSON(new JSONDecimal("1E400")));
+        assertEquals(JSONCanonical.NON_FINITE_NUMBER, e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONCanonical.toJSON(new JSONString("a\ud800b")));
+        assertEquals(JSONCanonical.UNPAIRED_SURROGATE, e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONCanonical.toJSON(new JSONString("\udc00")));
+        assertEquals(JSONCanonical.UNPAIRED_SURROGATE, e.getMessage());
+    }
+
+    @Test
+    void shouldWriteToOutputStreamUsingSortOrderOfShape() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append("{\"z\":").append(i).append(",\"k").append(i % 20).append("\":\"\\u00e9").append(i)
+                    .append("\",\"a\":[true,null]}");
+        }
+        JSONArray array = (JSONArray)JSON.parse(sb.append(']').toString());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JSONCanonical.write(array, baos);
+        byte[] bytes = baos.toByteArray();
+        assertArrayEquals(JSONCanonical.toBytes(array), bytes);
+        JSONArray result = (JSONArray)JSON.parse(new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(array, result);
+        assertTrue(new String(bytes, StandardCharsets.UTF_8).startsWith(
+                "[{\"a\":[true,null],\"k0\":\"\u00e90\",\"z\":0}," +
+                "{\"a\":[true,null],\"k1\":\"\u00e91\",\"z\":1}"));
+        JSONObject wide = new JSONObject();
+        for (int i = 999; i >= 0; i--)
+            wide.putValue(Integer.toString(i * 7919 % 1000), i);
+        String canonical = JSONCanonical.toJSON(wide);
+        String previous = null;
+        for (String key : ((JSONObject)JSON.parse(canonical)).keySet()) {
+            assertTrue(previous == null || previous.compareTo(key) < 0);
+            previous = key;
+        }
+    }
+
+    private static boolean roundsTo(BigDecimal exact, int digits, RoundingMode mode, double d) {
+        return Double.parseDouble(exact.round(new MathContext(digits, mode)).toString()) == d;
+    }
+
+    private static void checkDouble(long bits, String expected) {
+        assertEquals(expected, JSONCanonical.toJSON(JSONDouble.valueOf(Double.longBitsToDouble(bits))));
+    }
+
+}
@@ -0,0 +1,227 @@
+/*
+ * @(#) TestColumns.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONColumns.
+ *
+ * @author Peter Wall
+ */
+class TestColumns {
+
+    private static final String records = "[" +
+            "{\"id\":1,\"big\":1,\"price\":2.5,\"flag\":true,\"name\":\"alpha\",\"tags\":[1,2]}," +
+            "{\"id\":2,\"big\":12345678901,\"price\":3,\"flag\":false,\"name\":\"beta\",\"tags\":null}," +
+            "{\"id\":3,\"big\":-5,\"price\":null,\"flag\":true,\"name\":\"alpha\",\"tags\":{\"a\":1}}," +
+            "{\"name\":\"gamma\",\"id\":4,\"extra\":\"x\",\"price\":0.0}]";
+
+    @Test
+    void shouldConvertArrayToColumns() {
+        JSONArray array = JSON.parseArray(records);
+        JSONColumns columns = JSONColumns.from(array);
+        checkRecords(columns);
+        assertEquals(array, columns.toJSONArray());
+        JSONArray constructed = new JSONArray();
+        for (JSONValue value : array)
+            constructed.add(new JSONObject((JSONObject)value));
+        constructed.set(0, JSONPersistentObject.from((JSONObject)array.get(0)));
+        JSONColumns columns2 = JSONColumns.from(constructed);
+        checkRecords(columns2);
+        assertEquals(array, columns2.toJSONArray());
+        assertEquals(0, JSONColumns.from(new JSONArray()).size());
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONColumns.from(JSON.parseArray("[{\"a\":1},2]")));
+        assertEquals(JSON.NOT_AN_OBJECT + " at /1", e.getMessage());
+    }
+
+    @Test
+    void shouldParseDirectlyToColumns() {
+        JSONColumns columns = JSONColumns.parse(records);
+        checkRecords(columns);
+        assertEquals(JSON.parse(records), columns.toJSONArray());
+        assertEquals(0, JSONColumns.parse(" [ ] ").size());
+        assertEquals(2, JSONColumns.parse("[{},{}]").size());
+        checkError("[{\"a\":1,\"a\":2}]");
+        checkError("[{\"a\":01}]");
+        checkError("[{\"a\":-}]");
+        checkError("[{\"a\":1.}]");
+        checkError("[{\"a\" 1}]");
+        checkError("[{\"a\":1]");
+        checkError("[{\"a\":[1,}]");
+        checkError("[{\"a\":tru}]");
+        checkError("[{\"a\":1}");
+        checkError("[{\"a\":1}] 2");
+        JSONException e = assertThrows(JSONException.class, () -> JSONColumns.parse("[{\"a\":1},2]"));
+        assertEquals(JSON.NOT_AN_OBJECT + " at /1", e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONColumns.parse("{\"a\":1}"));
+        assertEquals(JSON.NOT_AN_ARRAY, e.getMessage());
+    }
+
+    @Test
+    void shouldWidenColumnsAsRequired() {
+        String json = "[{\"a\":1,\"b\":1,\"c\":\"x\",\"d\":1.5,\"e\":true,\"f\":9007199254740993}," +
+                "{\"a\":4294967296,\"b\":2.5,\"c\":1,\"d\":1.23456789012345678,\"e\":1,\"f\":0.5}]";
+        for (JSONColumns columns : Arrays.asList(JSONColumns.parse(json),
+                JSONColumns.from(JSON.parseArray(json)))) {
+            assertEquals(JSONColumns.Type.LONG, columns.getColumn("a").getType());
+            assertEquals(JSONColumns.Type.DOUBLE, columns.getColumn("b").getType());
+            assertEquals(JSONColumns.Type.VALUE, columns.getColumn("c").getType());
+            assertEquals(JSONColumns.Type.VALUE, columns.getColumn("d").getType());
+            assertEquals(JSONColumns.Type.VALUE, columns.getColumn("e").getType());
+            assertEquals(JSONColumns.Type.VALUE, columns.getColumn("f").getType());
+            assertEquals(4294967296L, columns.getColumn("a").getLong(1));
+            assertEquals(1.0, columns.getColumn("b").getDouble(0));
+            assertEquals(JSON.parse(json), columns.toJSONArray());
+        }
+    }
+
+    @Test
+    void shouldKeepDecimalsThatDoNotConvertBackExactly() {
+        String json = "[{\"a\":1e23,\"b\":2.5e-3},{\"a\":0.5,\"b\":1E2}]";
+        for (JSONColumns columns : Arrays.asList(JSONColumns.parse(json),
+                JSONColumns.from(JSON.parseArray(json)))) {
+            JSONValue value = columns.getColumn("a").get(0);
+            assertEquals(new JSONDecimal("1e23"), value);
+            assertEquals(0, new BigDecimal("1e23").compareTo(((JSONNumberValue)value).bigDecimalValue()));
+            assertEquals(JSONColumns.Type.DOUBLE, columns.getColumn("b").getType());
+            assertEquals(0.0025, columns.getColumn("b").getDouble(0));
+            assertEquals(JSON.parse(json), columns.toJSONArray());
+        }
+    }
+
+    @Test
+    void shouldReadRows() {
+        JSONColumns columns = JSONColumns.parse(records);
+        JSONColumns.Row row = columns.getRow(3);
+        assertEquals(3, row.getIndex());
+        assertEquals(4, row.size());
+        assertTrue(row.containsKey("extra"));
+        assertFalse(row.containsKey("flag"));
+        assertFalse(row.containsKey("missing"));
+        assertEquals(new JSONString("gamma"), row.get("name"));
+        assertEquals("x", row.getString("extra"));
+        assertEquals(4, row.getInt("id"));
+        assertEquals(0, row.getLong("big"));
+        assertEquals(0.0, row.getDouble("price"));
+        assertFalse(row.getBoolean("flag"));
+        assertNull(row.getString("missing"));
+        assertThrows(JSONException.class, () -> row.getInt("name"));
+        Iterator<Map.Entry<String, JSONValue>> entries = row.entrySet().iterator();
+        assertEquals("id", entries.next().getKey());
+        assertEquals("price", entries.next().getKey());
+        assertEquals("name", entries.next().getKey());
+        assertEquals("extra", entries.next().getKey());
+        assertFalse(entries.hasNext());
+        assertEquals(JSON.parse("{\"id\":4,\"price\":0.0,\"name\":\"gamma\",\"extra\":\"x\"}"),
+                row.toJSONObject());
+        assertEquals("{\"id\":4,\"price\":0.0,\"name\":\"gamma\",\"extra\":\"x\"}", row.toString());
+        JSONColumns.Row row0 = columns.getRow(0);
+        assertEquals(12345678901L, columns.getRow(1).getLong("big"));
+        assertTrue(row0.getBoolean("flag"));
+        assertEquals(2, row0.getArray("tags").size());
+        assertEquals(1, columns.getRow(2).getObject("tags").getInt("a"));
+        int count = 0;
+        for (JSONColumns.Row r : columns)
+            assertEquals(count++, r.getIndex());
+        assertEquals(4, count);
+        assertThrows(IndexOutOfBoundsException.class, () -> columns.getRow(4));
+    }
+
+    @Test
+    void shouldAggregateColumns() {
+        JSONColumns columns = JSONColumns.parse(records);
+        JSONColumns.Column id = columns.getColumn("id");
+        assertEquals(4, id.count());
+        assertEquals(10, id.sumLong());
+        assertEquals(10.0, id.sumDouble());
+        assertEquals(1.0, id.min());
+        assertEquals(4.0, id.max());
+        assertTrue(id.toJSONArray() instanceof JSONIntArray);
+        assertEquals(JSON.parse("[1,2,3,4]"), id.toJSONArray());
+        JSONColumns.Column big = columns.getColumn("big");
+        assertEquals(3, big.count());
+        assertEquals(12345678897L, big.sumLong());
+        assertEquals(-5.0, big.min());
+        JSONColumns.Column price = columns.getColumn("price");
+        assertEquals(3, price.count());
+        assertEquals(5.5, price.sumDouble());
+        assertEquals(0.0, price.min());
+        assertEquals(3.0, price.max());
+        assertEquals(JSON.parse("[2.5,3,null,0]"), price.toJSONArray());
+        JSONColumns.Column name = columns.getColumn("name");
+        assertEquals(Arrays.asList("alpha", "beta", "gamma"), name.getDictionary());
+        assertEquals(0, name.getCode(2));
+        assertEquals(2, name.getCode(3));
+        assertThrows(JSONException.class, name::sumDouble);
+        assertEquals(-1, columns.getColumn("flag").getCode(0));
+        assertTrue(Double.isNaN(JSONColumns.parse("[{\"a\":null}]").getColumn("a").max()));
+    }
+
+    private static void checkRecords(JSONColumns columns) {
+        assertEquals(4, columns.size());
+        assertEquals(Arrays.asList("id", "big", "price", "flag", "name", "tags", "extra"),
+                Arrays.asList(columns.getColumns().stream().map(JSONColumns.Column::getName).toArray()));
+        JSONColumns.Column id = columns.getColumn("id");
+        assertEquals(JSONColumns.Type.INT, id.getType());
+        assertEquals(3, id.getInt(2));
+        JSONColumns.Column big = columns.getColumn("big");
+        assertEquals(JSONColumns.Type.LONG, big.getType());
+        assertEquals(12345678901L, big.getLong(1));
+        assertFalse(big.isPresent(3));
+        assertTrue(big.isNull(3));
+        JSONColumns.Column price = columns.getColumn("price");
+        assertEquals(JSONColumns.Type.DOUBLE, price.getType());
+        assertEquals(2.5, price.getDouble(0));
+        assertTrue(price.isPresent(2));
+        assertTrue(price.isNull(2));
+        assertNull(price.get(2));
+        assertEquals(JSONColumns.Type.BOOLEAN, columns.getColumn("flag").getType());
+        assertFalse(columns.getColumn("flag").getBoolean(1));
+        JSONColumns.Column name = columns.getColumn("name");
+        assertEquals(JSONColumns.Type.STRING, name.getType());
+        assertEquals("alpha", name.getString(2));
+        assertSame(name.get(0), name.get(2));
+        assertEquals(JSONColumns.Type.VALUE, columns.getColumn("tags").getType());
+        assertEquals(JSONColumns.Type.STRING, columns.getColumn("extra").getType());
+        assertFalse(columns.getColumn("extra").isPresent(0));
+        assertNull(columns.getColumn("missing"));
+    }
+
+    private static void checkError(String json) {
+        JSONException expected = assertThrows(JSONException.class, () -> JSON.parse(json));
+        JSONException e = assertThrows(JSONException.class, () -> JSONColumns.parse(json));
+        assertEquals(expected.getMessage(), e.getMessage());
+    }
+
+}
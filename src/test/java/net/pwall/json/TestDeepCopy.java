@@ -0,0 +1,126 @@
+/*
+ * @(#) TestDeepCopy.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@code deepCopy()} functions.
+ *
+ * @author Peter Wall
+ */
+class TestDeepCopy {
+
+    private static final String example = "{\"a\":\"text\",\"b\":[1,2,{\"c\":true,\"d\":[1.5,\"x\"]}]," +
+            "\"e\":{\"f\":null,\"g\":[]},\"h\":[10000000000,1]}";
+
+    @Test
+    void shouldCopyNestedCompositesAndShareLeaves() {
+        JSONObject original = JSON.parseObject(example);
+        JSONObject copy = original.deepCopy();
+        assertEquals(original, copy);
+        assertNotSame(original.getArray("b"), copy.getArray("b"));
+        assertNotSame(original.getArray("b").getObject(2), copy.getArray("b").getObject(2));
+        assertSame(original.get("a"), copy.get("a"));
+        assertSame(original.getArray("b").getObject(2).getArray("d").get(1),
+                copy.getArray("b").getObject(2).getArray("d").get(1));
+        copy.getArray("b").getObject(2).putValue("c", false);
+        copy.getObject("e").getArray("g").addValue(1);
+        copy.getArray("h").addValue(2);
+        assertEquals(JSON.parseObject(example), original);
+        assertNotEquals(original, copy);
+    }
+
+    @Test
+    void shouldReturnMutableCopyOfFrozenComposite() {
+        JSONObject original = JSON.parseObject(example).freeze();
+        JSONObject copy = original.deepCopy();
+        assertFalse(copy.isFrozen());
+        assertFalse(copy.getArray("b").isFrozen());
+        copy.getArray("b").getObject(2).putValue("z", 0);
+        assertTrue(original.isFrozen());
+        assertEquals(JSON.parseObject(example), original);
+    }
+
+    @Test
+    void shouldCopyOtherCompositeUsingDefault() {
+        JSONComposite other = new JSONComposite() {
+            @Override
+            public boolean isSimple() {
+                return true;
+            }
+            @Override
+            public void appendJSON(Appendable a) throws IOException {
+                a.append("{\"a\":[1,\"x\"]}");
+            }
+            @Override
+            public Object toSimpleValue() {
+                return null;
+            }
+        };
+        JSONComposite copy = other.deepCopy();
+        assertTrue(copy instanceof JSONObject);
+        assertEquals(JSON.parse("{\"a\":[1,\"x\"]}"), copy);
+        assertFalse(copy.isFrozen());
+    }
+
+    @Test
+    void shouldShareShape() {
+        JSONArray array = JSON.parseArray("[{\"x\":1,\"y\":2},{\"x\":3,\"y\":4}]");
+        JSONArray copy = array.deepCopy();
+        assertTrue(((JSONObject)copy.get(0)).sharesShape((JSONObject)array.get(1)));
+        assertEquals(array, copy);
+    }
+
+    @Test
+    void shouldCopyPrimitiveArrays() {
+        JSONIntArray original = new JSONIntArray(1, 2, 3);
+        JSONIntArray copy = original.deepCopy();
+        copy.addValue(4);
+        assertEquals(3, original.size());
+        assertTrue(copy.isPrimitive());
+        JSONDoubleArray doubles = new JSONDoubleArray(1.5);
+        doubles.freeze();
+        assertFalse(doubles.deepCopy().isFrozen());
+        JSONLongArray longs = new JSONLongArray(1L, 2L);
+        longs.addJSON(new JSONObject());
+        JSONLongArray longsCopy = longs.deepCopy();
+        assertNotSame(longs.get(2), longsCopy.get(2));
+        assertEquals(longs, longsCopy);
+    }
+
+    @Test
+    void shouldSharePersistentComposites() {
+        JSONPersistentObject persistent = JSONPersistentObject.empty().with("a", JSONInteger.valueOf(1));
+        JSONObject object = JSONObject.create().putJSON("p", persistent);
+        assertSame(persistent, object.deepCopy().get("p"));
+        assertSame(persistent, persistent.deepCopy());
+    }
+
+}
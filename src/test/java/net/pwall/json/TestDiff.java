@@ -0,0 +1,181 @@
+/*
+ * @(#) TestDiff.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONDiff.
+ *
+ * @author Peter Wall
+ */
+class TestDiff {
+
+    @Test
+    void shouldProduceEmptyPatchForEqualTrees() {
+        JSONValue a = JSON.parse("{\"a\":[1,2,{\"b\":null}],\"c\":\"x\"}");
+        assertEquals(0, JSONDiff.diff(a, JSON.parse(a.toJSON())).size());
+        assertEquals(0, JSONDiff.diff(a, a).size());
+        assertEquals(0, JSONDiff.diff(null, null).size());
+    }
+
+    @Test
+    void shouldDiffObjects() {
+        check("{\"a\":1,\"b\":{\"c\":2,\"d\":3},\"e\":4}", "{\"a\":1,\"b\":{\"c\":2,\"d\":5},\"f\":null}",
+                "[{\"op\":\"remove\",\"path\":\"/e\"},{\"op\":\"replace\",\"path\":\"/b/d\",\"value\":5}," +
+                "{\"op\":\"add\",\"path\":\"/f\",\"value\":null}]");
+        check("{\"a~b\":1}", "{\"a/b\":1}",
+                "[{\"op\":\"remove\",\"path\":\"/a~0b\"},{\"op\":\"add\",\"path\":\"/a~1b\",\"value\":1}]");
+        check("{\"a\":1}", "[1]", "[{\"op\":\"replace\",\"path\":\"\",\"value\":[1]}]");
+        check("{\"a\":{\"x\":null}}", "{\"a\":{\"y\":null}}",
+                "[{\"op\":\"remove\",\"path\":\"/a/x\"},{\"op\":\"add\",\"path\":\"/a/y\",\"value\":null}]");
+    }
+
+    @Test
+    void shouldDiffArrays() {
+        check("[1,2,3,4,5]", "[1,2,9,3,4,5]", "[{\"op\":\"add\",\"path\":\"/2\",\"value\":9}]");
+        check("[1,2,3,4,5]", "[1,2,4,5]", "[{\"op\":\"remove\",\"path\":\"/2\"}]");
+        check("[1,2,3]", "[1,2,3,4]", "[{\"op\":\"add\",\"path\":\"/3\",\"value\":4}]");
+        check("[{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"b\"},{\"id\":3,\"v\":\"c\"}]",
+                "[{\"id\":1,\"v\":\"a\"},{\"id\":2,\"v\":\"B\"},{\"id\":3,\"v\":\"c\"}]",
+                "[{\"op\":\"replace\",\"path\":\"/1/v\",\"value\":\"B\"}]");
+        check("[\"a\",\"b\",\"c\",\"d\",\"e\"]", "[\"x\",\"b\",\"d\",\"c\",\"y\"]", null);
+        check("[[1,2],[2,1]]", "[[2,1],[1,2]]", null);
+    }
+
+    @Test
+    void shouldUseSharedShapeAndFrozenHashes() {
+        JSONArray a = JSON.parseArray("[{\"x\":1,\"y\":2},{\"x\":3,\"y\":4}]");
+        JSONArray b = JSON.parseArray("[{\"x\":1,\"y\":2},{\"x\":3,\"y\":5}]");
+        a.freeze();
+        b.freeze();
+        assertEquals("[{\"op\":\"replace\",\"path\":\"/1/y\",\"value\":5}]", JSONDiff.diff(a, b).toString());
+        JSONPersistentObject p1 = JSONPersistentObject.from(JSON.parseObject("{\"a\":[1,2],\"b\":{\"c\":1}}"));
+        JSONPersistentObject p2 = p1.with("d", JSONBoolean.TRUE);
+        assertEquals("[{\"op\":\"add\",\"path\":\"/d\",\"value\":true}]", JSONDiff.diff(p1, p2).toString());
+        assertEquals(p2, JSONDiff.diff(p1, p2).applyToCopy(JSON.parse(p1.toJSON())));
+    }
+
+    @Test
+    void shouldDiffLargeArraysByKeyedMatching() {
+        JSONArray a = new JSONArray();
+        JSONArray b = new JSONArray();
+        for (int i = 0; i < 3000; i++) {
+            a.add(JSONObject.create().putValue("id", i).putValue("v", "x"));
+            if (i % 100 != 7)
+                b.add(JSONObject.create().putValue("id", i).putValue("v", i % 500 == 3 ? "y" : "x"));
+            if (i % 1000 == 999)
+                b.add(JSONObject.create().putValue("id", -i));
+        }
+        JSONPatch patch = JSONDiff.diff(a, b);
+        assertEquals(b, patch.applyToCopy(a));
+        assertTrue(patch.size() <= 30 + 6 + 3 + 6, patch.toString());
+    }
+
+    @Test
+    void shouldRoundTripRandomChanges() {
+        Random random = new Random(4321);
+        for (int n = 0; n < 200; n++) {
+            JSONValue a = randomValue(random, 0);
+            JSONValue b = mutate(random, a instanceof JSONComposite ? ((JSONComposite)a).deepCopy() : a, 0);
+            JSONPatch patch = JSONDiff.diff(a, b);
+            assertEquals(b, patch.applyToCopy(a), a + " -> " + b + ": " + patch);
+        }
+    }
+
+    private static JSONValue randomValue(Random random, int depth) {
+        int type = random.nextInt(depth > 3 ? 4 : 7);
+        switch (type) {
+        case 0:
+            return null;
+        case 1:
+            return JSONInteger.valueOf(random.nextInt(5));
+        case 2:
+            return JSONString.valueOf("s" + random.nextInt(5));
+        case 3:
+            return JSONBoolean.valueOf(random.nextBoolean());
+        case 4:
+        case 5: {
+            JSONArray array = new JSONArray();
+            for (int i = random.nextInt(6); i > 0; i--)
+                array.add(randomValue(random, depth + 1));
+            return array;
+        }
+        default: {
+            JSONObject object = new JSONObject();
+            for (int i = random.nextInt(12); i > 0; i--)
+                object.put("k" + random.nextInt(12), randomValue(random, depth + 1));
+            return object;
+        }
+        }
+    }
+
+    private static JSONValue mutate(Random random, JSONValue value, int depth) {
+        if (random.nextInt(8) == 0)
+            return randomValue(random, depth);
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray)value;
+            for (int i = random.nextInt(3); i > 0; i--) {
+                int action = random.nextInt(3);
+                if (action == 0)
+                    array.add(random.nextInt(array.size() + 1), randomValue(random, depth + 1));
+                else if (!array.isEmpty()) {
+                    int index = random.nextInt(array.size());
+                    if (action == 1)
+                        array.remove(index);
+                    else
+                        array.set(index, mutate(random, array.get(index), depth + 1));
+                }
+            }
+        }
+        else if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject)value;
+            for (int i = random.nextInt(3); i > 0; i--) {
+                String key = "k" + random.nextInt(12);
+                int action = random.nextInt(3);
+                if (action == 0)
+                    object.remove(key);
+                else
+                    object.put(key, object.containsKey(key) && action == 1 ?
+                            mutate(random, object.get(key), depth + 1) : randomValue(random, depth + 1));
+            }
+        }
+        return value;
+    }
+
+    private static void check(String a, String b, String expected) {
+        JSONValue valueA = JSON.parse(a);
+        JSONValue valueB = JSON.parse(b);
+        JSONPatch patch = JSONDiff.diff(valueA, valueB);
+        if (expected != null)
+            assertEquals(expected, patch.toString());
+        assertEquals(valueB, patch.apply(valueA));
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * @(#) TestFingerprint.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONFingerprint.
+ *
+ * @author Peter Wall
+ */
+class TestFingerprint {
+
+    @Test
+    void shouldGiveSameFingerprintToEqualNumbers() {
+        long one = JSONFingerprint.of(new JSONInteger(1));
+        assertEquals(one, JSONFingerprint.of(new JSONLong(1)));
+        assertEquals(one, JSONFingerprint.of(JSONDouble.valueOf(1.0)));
+        assertEquals(one, JSONFingerprint.of(JSONFloat.valueOf(1.0F)));
+        assertEquals(one, JSONFingerprint.of(new JSONDecimal("1.00")));
+        assertEquals(one, JSONFingerprint.of(new JSONDecimal("0.1E1")));
+        long zero = JSONFingerprint.of(JSONZero.ZERO);
+        assertEquals(zero, JSONFingerprint.of(new JSONInteger(0)));
+        assertEquals(zero, JSONFingerprint.of(JSONDouble.valueOf(-0.0)));
+        assertEquals(zero, JSONFingerprint.of(new JSONDecimal("0.000")));
+        assertEquals(JSONFingerprint.of(JSONDouble.valueOf(0.1)),
+                JSONFingerprint.of(new JSONDecimal("0.10")));
+        assertEquals(JSONFingerprint.of(JSONDouble.valueOf(1e20)),
+                JSONFingerprint.of(new JSONDecimal("1E+20")));
+        assertEquals(JSONFingerprint.of(JSONDouble.valueOf(-2.5)),
+                JSONFingerprint.of(JSONFloat.valueOf(-2.5F)));
+        assertEquals(JSONFingerprint.of(new JSONLong(Long.MAX_VALUE)),
+                JSONFingerprint.of(new JSONDecimal("9223372036854775807.0")));
+        assertEquals(JSONFingerprint.of(new JSONLong(-1L << 53)),
+                JSONFingerprint.of(JSONDouble.valueOf(-0x1p53)));
+        assertNotEquals(one, JSONFingerprint.of(new JSONDecimal("1.000000000000000000001")));
+        assertNotEquals(JSONFingerprint.of(new JSONDecimal("9223372036854775808")),
+                JSONFingerprint.of(new JSONLong(Long.MIN_VALUE)));
+        assertNotEquals(one, JSONFingerprint.of(new JSONString("1")));
+        Random random = new Random(5678);
+        for (int i = 0; i < 10000; i++) {
+            double d = i % 3 == 0 ? Double.longBitsToDouble(random.nextLong()) :
+                    (random.nextInt(2000000) - 1000000) / Math.pow(10, random.nextInt(12));
+            if (Double.isNaN(d) || Double.isInfinite(d) || d == Math.rint(d) && Math.abs(d) >= 0x1p53)
+                continue;
+            BigDecimal bigDecimal = BigDecimal.valueOf(d);
+            JSONDecimal decimal = new JSONDecimal(bigDecimal.setScale(bigDecimal.scale() + 2));
+            assertTrue(decimal.valueEquals(d));
+            assertEquals(JSONFingerprint.of(decimal), JSONFingerprint.of(JSONDouble.valueOf(d)),
+                    Double.toString(d));
+        }
+    }
+
+    @Test
+    void shouldGiveSameFingerprintToLargeIntegralNumbers() {
+        for (int shift = 53; shift < 63; shift++) {
+            long n = 1L << shift;
+            long expected = JSONFingerprint.of(new JSONLong(n));
+            assertEquals(expected, JSONFingerprint.of(JSONDouble.valueOf((double)n)), Long.toString(n));
+            assertEquals(expected, JSONFingerprint.of(JSONFloat.valueOf((float)n)), Long.toString(n));
+            assertEquals(expected, JSONFingerprint.of(new JSONDecimal(new BigDecimal(n))), Long.toString(n));
+            assertEquals(JSONFingerprint.of(new JSONLong(-n)),
+                    JSONFingerprint.of(JSONDouble.valueOf(-(double)n)));
+        }
+        assertEquals(JSONFingerprint.of(new JSONLong(Long.MIN_VALUE)),
+                JSONFingerprint.of(JSONDouble.valueOf(-0x1p63)));
+        assertEquals(JSONFingerprint.of(new JSONDecimal("9.223372036854776E18")),
+                JSONFingerprint.of(JSONDouble.valueOf(0x1p63)));
+        assertEquals(JSONFingerprint.of(new JSONLong(123456789012345680L)),
+                JSONFingerprint.of(JSONDouble.valueOf(123456789012345680.0)));
+    }
+
+    @Test
+    void shouldDistinguishDifferentValues() {
+        long[] fingerprints = {
+            JSONFingerprint.of(null),
+            JSONFingerprint.of(JSONBoolean.FALSE),
+            JSONFingerprint.of(JSONBoolean.TRUE),
+            JSONFingerprint.of(JSONZero.ZERO),
+            JSONFingerprint.of(new JSONString("")),
+            JSONFingerprint.of(new JSONString("a")),
+            JSONFingerprint.of(new JSONString("a\u0000")),
+            JSONFingerprint.of(JSON.parse("[]")),
+            JSONFingerprint.of(JSON.parse("{}")),
+            JSONFingerprint.of(JSON.parse("[[]]")),
+            JSONFingerprint.of(JSON.parse("[null]")),
+            JSONFingerprint.of(JSON.parse("[1,2]")),
+            JSONFingerprint.of(JSON.parse("[2,1]")),
+            JSONFingerprint.of(JSON.parse("[[1],2]")),
+            JSONFingerprint.of(JSON.parse("[1,[2]]")),
+            JSONFingerprint.of(JSON.parse("{\"a\":1}")),
+            JSONFingerprint.of(JSON.parse("{\"a\":[1]}")),
+            JSONFingerprint.of(JSON.parse("{\"b\":1}")),
+            JSONFingerprint.of(JSON.parse("{\"a\":1,\"b\":1}")),
+            JSONFingerprint.of(JSON.parse("{\"a\":{\"b\":1}}")),
+            JSONFingerprint.of(JSON.parse("[\"a\",1]")),
+        };
+        for (int i = 0; i < fingerprints.length; i++)
+            for (int j = i + 1; j < fingerprints.length; j++)
+                assertNotEquals(fingerprints[i], fingerprints[j], i + " / " + j);
+    }
+
+    @Test
+    void shouldIgnoreOrderOfProperties() {
+        assertEquals(JSONFingerprint.of(JSON.parse("{\"a\":1,\"b\":[true,\"x\"]}")),
+                JSONFingerprint.of(JSON.parse("{\"b\":[true,\"x\"],\"a\":1.0}")));
+    }
+
+    @Test
+    void shouldGiveSameFingerprintToAllFormsOfComposite() {
+        JSONValue json = JSON.parse("{\"a\":[1,2,3],\"b\":[1.5,-2.5],\"c\":{\"d\":[\"x\",null]}}");
+        long expected = JSONFingerprint.of(json);
+        JSONObject primitive = JSONObject.create().putJSON("a", new JSONIntArray(1, 2, 3))
+                .putJSON("b", new JSONDoubleArray(1.5, -2.5)).putJSON("c", ((JSONObject)json).get("c"));
+        assertEquals(expected, JSONFingerprint.of(primitive));
+        assertEquals(expected, JSONFingerprint.of(JSONObject.create().putJSON("a", new JSONLongArray(1, 2, 3))
+                .putJSON("b", new JSONDoubleArray(1.5, -2.5)).putJSON("c", ((JSONObject)json).get("c"))));
+        assertEquals(expected, JSONFingerprint.of(((JSONComposite)json).deepCopy().freeze()));
+        assertEquals(expected, JSONFingerprint.of(JSONPersistentObject.from((JSONObject)json)));
+        assertEquals(JSONFingerprint.of(JSON.parse("[1,{\"a\":[]}]")),
+                JSONFingerprint.of(JSONPersistentArray.of(new JSONInteger(1),
+                        JSONPersistentObject.empty().with("a", JSONPersistentArray.empty()))));
+    }
+
+    @Test
+    void shouldBeStable() {
+        assertEquals("880bd5c62780f411",
+                JSONFingerprint.toHex(JSONFingerprint.of(JSON.parse("{\"a\":[1,2.5,\"x\",null,true]}"))));
+        assertEquals("0000000000000abc", JSONFingerprint.toHex(0xABC));
+    }
+
+    @Test
+    void shouldUpdateFingerprintOfNewVersionOfPersistentObject() {
+        JSONPersistentObject b = JSONPersistentObject.empty().with("c", new JSONInteger(1))
+                .with("d", JSONPersistentArray.of(new JSONInteger(1), new JSONInteger(2)));
+        JSONPersistentObject a = JSONPersistentObject.empty().with("b", b).with("e", new JSONString("x"));
+        JSONPersistentObject original = JSONPersistentObject.empty().with("a", a)
+                .with("f", JSONPersistentArray.of(new JSONInteger(3)));
+        long fingerprint = JSONFingerprint.of(original);
+        String json = "{\"a\":{\"b\":{\"c\":1,\"d\":[1,2]},\"e\":\"x\"},\"f\":[3]}";
+        assertEquals(JSONFingerprint.of(JSON.parse(json)), fingerprint);
+        JSONPersistentObject modified = original.with("a", a.with("b", b.with("c", new JSONInteger(2))));
+        assertNotEquals(fingerprint, JSONFingerprint.of(modified));
+        assertEquals(JSONFingerprint.of(JSON.parse(modified.toJSON())), JSONFingerprint.of(modified));
+        JSONPersistentObject restored = modified.with("a", a);
+        assertEquals(fingerprint, JSONFingerprint.of(restored));
+        assertEquals(fingerprint, JSONFingerprint.of(original.without("f").with("f", original.get("f"))));
+        Random random = new Random(2468);
+        JSONPersistentObject object = JSONPersistentObject.empty().with("k0", JSONZero.ZERO);
+        JSONFingerprint.of(object);
+        for (int i = 0; i < 2000; i++) {
+            String key = "k" + random.nextInt(50);
+            object = random.nextInt(3) == 0 ? object.without(key) :
+                    object.with(key, new JSONInteger(random.nextInt(10)));
+            if (random.nextInt(4) == 0)
+                assertEquals(JSONFingerprint.of(object.toJSONObject()), JSONFingerprint.of(object));
+        }
+        assertEquals(JSONFingerprint.of(object.toJSONObject()), JSONFingerprint.of(object));
+    }
+
+    @Test
+    void shouldUpdateFingerprintOfNewVersionOfPersistentArray() {
+        JSONPersistentArray array = JSONPersistentArray.empty();
+        JSONArray expected = new JSONArray();
+        for (int i = 0; i < 100; i++) {
+            array = array.append(new JSONInteger(i));
+            expected.addValue(i);
+            assertEquals(JSONFingerprint.of(expected), JSONFingerprint.of(array));
+        }
+        long fingerprint = JSONFingerprint.of(array);
+        for (int i = 0; i < 100; i += 7) {
+            array = array.with(i, new JSONString("x"));
+            expected.set(i, new JSONString("x"));
+            assertEquals(JSONFingerprint.of(expected), JSONFingerprint.of(array));
+        }
+        assertNotEquals(fingerprint, JSONFingerprint.of(array));
+        while (array.size() > 30) {
+            array = array.withoutLast();
+            expected.remove(expected.size() - 1);
+            assertEquals(JSONFingerprint.of(expected), JSONFingerprint.of(array));
+        }
+    }
+
+    @Test
+    void shouldGiveSameFingerprintAfterRoundTrip() {
+        Random random = new Random(1234);
+        for (int i = 0; i < 200; i++) {
+            JSONValue value = randomValue(random, 4);
+            JSONValue copy = JSON.parse(JSON.toJSON(value));
+            assertEquals(JSONFingerprint.of(value), JSONFingerprint.of(copy));
+            if (value instanceof JSONArray && ((JSONArray)value).size() > 1) {
+                JSONArray reversed = new JSONArray();
+                for (int j = ((JSONArray)value).size(); j > 0; )
+                    reversed.add(((JSONArray)value).get(--j));
+                assertEquals(value.equals(reversed),
+                        JSONFingerprint.of(value) == JSONFingerprint.of(reversed));
+            }
+        }
+    }
+
+    private static JSONValue randomValue(Random random, int depth) {
+        switch (random.nextInt(depth > 0 ? 8 : 5)) {
+        case 0:
+            return null;
+        case 1:
+            return JSONBoolean.valueOf(random.nextBoolean());
+        case 2:
+            return new JSONInteger(random.nextInt(10));
+        case 3:
+            return JSONDouble.valueOf(random.nextInt(100) / 8.0);
+        case 4:
+            return new JSONString(Integer.toString(random.nextInt(5), 36));
+        case 5:
+        case 6: {
+            JSONArray array = new JSONArray();
+            for (int i = random.nextInt(5); i > 0; i--)
+                array.add(randomValue(random, depth - 1));
+            return array;
+        }
+        default: {
+            JSONObject object = new JSONObject();
+            for (int i = random.nextInt(5); i > 0; i--)
+                object.put(Integer.toString(random.nextInt(6), 36), randomValue(random, depth - 1));
+            return object;
+        }
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * @(#) TestFormat.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONFormat.
+ *
+ * @author Peter Wall
+ */
+class TestFormat {
+
+    private static final String example = " { \"first\" : 123, \"second\":[ true,false , null,[],{}],\n" +
+            "\"third\":{\"a\\\"b\":\"x\\ty\",\"c\":[ -1.5e3 ,0,\"\"]}, \"fourth\": {} }";
+
+    @Test
+    void shouldReformatTextSameAsFormattedValue() throws IOException {
+        JSONFormat format = JSONFormat.create();
+        StringBuilder sb = new StringBuilder();
+        format.reformat(new StringReader(example), sb);
+        assertEquals(format.format(JSON.parse(example)), sb.toString());
+    }
+
+    @Test
+    void shouldReformatTextWithNewLine() throws IOException {
+        JSONFormat format = JSONFormat.create().indent().newLineAfter();
+        StringBuilder sb = new StringBuilder();
+        format.reformat(new ByteArrayInputStream(example.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, sb);
+        assertEquals(format.format(JSON.parse(example)), sb.toString());
+    }
+
+    @Test
+    void shouldMinifyText() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        JSONFormat.minify(new StringReader(example), sb);
+        assertEquals(JSON.parse(example).toJSON(), sb.toString());
+        sb.setLength(0);
+        JSONFormat.minify(new StringReader(" \"abc\\u00e9\" "), sb);
+        assertEquals("\"abc\\u00e9\"", sb.toString());
+        sb.setLength(0);
+        JSONFormat.minify(new StringReader("[ 1 , 2 ]"), sb);
+        assertEquals("[1,2]", sb.toString());
+    }
+
+    @Test
+    void shouldReportErrorsSameAsParse() {
+        checkError("{\"a\":1,\"a\":2}");
+        checkError("{\"a\":[1,2,}");
+        checkError("{\"a\":[1,2");
+        checkError("{\"a\" 1}");
+        checkError("{\"a\":1");
+        checkError("{a:1}");
+        checkError("{\"a\":01}");
+        checkError("{\"a\":-}");
+        checkError("{\"a\":1.}");
+        checkError("{\"a\":1e}");
+        checkError("{\"a\":\"abc}");
+        checkError("{\"a\":\"a\\qb\"}");
+        checkError("{\"a\":\"a\\u00zz\"}");
+        checkError("{\"a\":\"a\u0001b\"}");
+        checkError("{\"a\":truex}");
+        checkError("{\"a\":[{\"b\":nul}]}");
+        checkError("[1] 2");
+    }
+
+    @Test
+    void shouldThrowExceptionOnExcessiveNesting() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1001; i++)
+            sb.append('[');
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONFormat.minify(new StringReader(sb.toString()), new StringBuilder()));
+        assertEquals(JSON.MAX_DEPTH_EXCEEDED, e.getMessage());
+    }
+
+    @Test
+    void shouldCalculateExactLength() {
+        checkLength(JSON.parse(example));
+        checkLength(new JSONString("a\"b\\c\n\u0001\u00e9\ud83d\ude00/"));
+        checkLength(new JSONInteger(Integer.MIN_VALUE));
+        checkLength(new JSONInteger(Integer.MAX_VALUE));
+        checkLength(new JSONInteger(-7));
+        checkLength(new JSONLong(Long.MIN_VALUE));
+        checkLength(new JSONLong(Long.MAX_VALUE));
+        checkLength(new JSONLong(1234567890123L));
+        checkLength(JSONDouble.valueOf(1.5e-20));
+        checkLength(JSONFloat.valueOf(-2.25F));
+        checkLength(new JSONDecimal("123.4500"));
+        checkLength(JSONBoolean.TRUE);
+        checkLength(JSONBoolean.FALSE);
+        checkLength(JSONZero.ZERO);
+        checkLength(new JSONArray());
+        checkLength(new JSONObject());
+        checkLength(JSONObject.create().putValue("\u00e9t\u00e9", "x").putNull("n").putJSON("a",
+                JSONArray.create().addValue(1).addNull().addJSON(new JSONObject())));
+        assertEquals(4, JSON.jsonLength(null));
+        assertEquals(6, JSONDouble.valueOf(1.0E-7).jsonLength());
+        assertEquals(3, JSONFloat.valueOf(0.1F).jsonLength());
+        for (double d : new double[] { 0.0, -0.0, 1.0, -1.0, 12.0, -9999999.0, 1e7, 123456.5, 1e30 }) {
+            assertEquals(String.valueOf(d).length(), new JSONDouble(d).jsonLength(), String.valueOf(d));
+            assertEquals(String.valueOf((float)d).length(), new JSONFloat((float)d).jsonLength(),
+                    String.valueOf((float)d));
+        }
+    }
+
+    private static void checkLength(JSONValue value) {
+        assertEquals(value.toJSON().length(), value.jsonLength());
+        JSONFormat format = JSONFormat.create();
+        assertEquals(format.format(value).length(), format.length(value));
+        format = format.indent().newLineAfter();
+        assertEquals(format.format(value).length(), format.length(value));
+    }
+
+    private static void checkError(String json) {
+        JSONException expected = assertThrows(JSONException.class, () -> JSON.parse(json));
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONFormat.minify(new StringReader(json), new StringBuilder()));
+        assertEquals(expected.getMessage(), e.getMessage());
+        e = assertThrows(JSONException.class,
+                () -> JSONFormat.create().reformat(new StringReader(json), new StringBuilder()));
+        assertEquals(expected.getMessage(), e.getMessage());
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * @(#) TestFreeze.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package net.pwall.json;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for frozen composites.
+ *
+ * @author Peter Wall
+ */
+class TestFreeze {
+
+    private static final String example = "{\"a\":1,\"b\":[1,2,{\"c\":\"x\"}],\"d\":{\"e\":null}}";
+
+    @Test
+    void shouldFreezeNestedComposites() {
+        JSONObject object = JSON.parseObject(example);
+        assertFalse(object.isFrozen());
+        assertSame(object, object.freeze());
+        assertTrue(object.isFrozen());
+        assertTrue(object.getArray("b").isFrozen());
+        assertTrue(object.getArray("b").getObject(2).isFrozen());
+        assertTrue(object.getObject("d").isFrozen());
+    }
+
+    @Test
+    void shouldRejectModificationOfFrozenObject() {
+        JSONObject object = JSON.parseObject(example).freeze();
+        assertThrows(UnsupportedOperationException.class, () -> object.putValue("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> object.put("a", null));
+        assertThrows(UnsupportedOperationException.class, () -> object.remove("a"));
+        assertThrows(UnsupportedOperationException.class, object::clear);
+        assertThrows(UnsupportedOperationException.class, () -> object.putAll(new JSONObject()));
+        assertThrows(UnsupportedOperationException.class,
+                () -> object.getEntry(0).setValue(null));
+        Map.Entry<String, JSONValue> entry = object.entrySet().iterator().next();
+        assertThrows(UnsupportedOperationException.class, () -> entry.setValue(null));
+        JSONObject nested = object.getArray("b").getObject(2);
+        assertThrows(UnsupportedOperationException.class, () -> nested.putValue("c", "y"));
+        assertEquals(JSON.parse(example), object);
+    }
+
+    @Test
+    void shouldRejectModificationOfFrozenArray() {
+        JSONArray array = JSON.parseObject(example).getArray("b").freeze();
+        assertThrows(UnsupportedOperationException.class, () -> array.addValue(1));
+        assertThrows(UnsupportedOperationException.class, () -> array.add(0, null));
+        assertThrows(UnsupportedOperationException.class, () -> array.set(0, null));
+        assertThrows(UnsupportedOperationException.class, () -> array.remove(0));
+        assertThrows(UnsupportedOperationException.class, array::clear);
+        assertThrows(UnsupportedOperationException.class, () -> array.removeIf(v -> true));
+        assertThrows(UnsupportedOperationException.class, () -> array.sort(null));
+        assertThrows(UnsupportedOperationException.class, () -> array.subList(0, 1).set(0, null));
+        Iterator<JSONValue> iterator = array.iterator();
+        iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertEquals(3, array.size());
+    }
+
+    @Test
+    void shouldCacheHashCodeAndJSON() {
+        JSONObject object = JSON.parseObject(example);
+        int hash = object.hashCode();
+        String json = object.toJSON();
+        object.freeze();
+        assertEquals(hash, object.hashCode());
+        assertEquals(json, object.toJSON());
+        assertSame(object.toJSON(), object.toJSON());
+        assertEquals(json.length(), object.jsonLength());
+        JSONArray array = JSONArray.create().addJSON(object).addNull().freeze();
+        assertEquals('[' + json + ",null]", array.toJSON());
+        assertEquals(array.toJSON().length(), array.jsonLength());
+        assertEquals(JSON.parseObject(example).freeze(), object);
+        assertNotEquals(JSON.parseObject("{\"a\":1}").freeze(), object);
+    }
+
+    @Test
+    void shouldCreateMutableClone() {
+        JSONArray array = JSONArray.create().addValue(1).addValue(2).freeze();
+        assertEquals("[1,2]", array.toJSON());
+        JSONArray clone = array.clone();
+        assertFalse(clone.isFrozen());
+        clone.addValue(3);
+        assertEquals(3, clone.size());
+        assertEquals(2, array.size());
+        assertEquals("[1,2,3]", clone.toJSON());
+        assertEquals(7, clone.jsonLength());
+        clone.freeze();
+        assertEquals("[1,2,3]", clone.toJSON());
+        assertEquals("[1,2]", array.toJSON());
+        JSONObject copy = new JSONObject(JSON.parseObject(example).freeze());
+        assertFalse(copy.isFrozen());
+        copy.putValue("x", 1);
+        assertEquals(4, copy.size());
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) TestInteger.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2016 Peter Wall
+ * Copyright (c) 2016, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -199,4 +199,17 @@ class TestInteger {
         assertFalse(int1.valueEquals(122));
     }
 
+    @Test
+    void shouldReturnCachedInstancesForSmallValues() {
+        assertSame(JSONInteger.valueOf(404), JSONInteger.valueOf(404));
+        assertSame(JSONInteger.valueOf(-128), JSONInteger.valueOf(-128));
+        assertSame(JSONInteger.ZERO, JSONInteger.valueOf(0));
+        assertNotSame(JSONInteger.valueOf(100000), JSONInteger.valueOf(100000));
+        JSONArray array = JSON.parseArray("[200,\"x\",200,-5,-5]");
+        assertSame(array.get(0), array.get(2));
+        assertSame(array.get(3), array.get(4));
+        assertEquals(-5, array.getInt(3));
+        assertSame(JSONObject.create().putValue("a", 3).get("a"), JSONInteger.valueOf(3));
+    }
+
 }
@@ -2,7 +2,7 @@
  * @(#) TestLong.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2016 Peter Wall
+ * Copyright (c) 2016, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -171,4 +171,12 @@ class TestLong {
         assertFalse(long1.valueEquals(122));
     }
 
+    @Test
+    void shouldReturnCachedInstancesForSmallValues() {
+        assertSame(JSONLong.valueOf(1023), JSONLong.valueOf(1023));
+        assertSame(JSONLong.ZERO, JSONLong.valueOf(0));
+        assertNotSame(JSONLong.valueOf(1024), JSONLong.valueOf(1024));
+        assertSame(JSONArray.create().addValue(7L).get(0), JSONLong.valueOf(7L));
+    }
+
 }
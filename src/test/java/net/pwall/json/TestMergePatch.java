@@ -0,0 +1,121 @@
+/*
+ * @(#) TestMergePatch.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONMergePatch.
+ *
+ * @author Peter Wall
+ */
+class TestMergePatch {
+
+    private static final String[][] examples = {
+        { "{\"a\":\"b\"}", "{\"a\":\"c\"}", "{\"a\":\"c\"}" },
+        { "{\"a\":\"b\"}", "{\"b\":\"c\"}", "{\"a\":\"b\",\"b\":\"c\"}" },
+        { "{\"a\":\"b\"}", "{\"a\":null}", "{}" },
+        { "{\"a\":\"b\",\"b\":\"c\"}", "{\"a\":null}", "{\"b\":\"c\"}" },
+        { "{\"a\":[\"b\"]}", "{\"a\":\"c\"}", "{\"a\":\"c\"}" },
+        { "{\"a\":\"c\"}", "{\"a\":[\"b\"]}", "{\"a\":[\"b\"]}" },
+        { "{\"a\":{\"b\":\"c\"}}", "{\"a\":{\"b\":\"d\",\"c\":null}}", "{\"a\":{\"b\":\"d\"}}" },
+        { "{\"a\":[{\"b\":\"c\"}]}", "{\"a\":[1]}", "{\"a\":[1]}" },
+        { "[\"a\",\"b\"]", "[\"c\",\"d\"]", "[\"c\",\"d\"]" },
+        { "{\"a\":\"b\"}", "[\"c\"]", "[\"c\"]" },
+        { "{\"a\":\"foo\"}", "null", "null" },
+        { "{\"a\":\"foo\"}", "\"bar\"", "\"bar\"" },
+        { "{\"e\":null}", "{\"a\":1}", "{\"e\":null,\"a\":1}" },
+        { "[1,2]", "{\"a\":\"b\",\"c\":null}", "{\"a\":\"b\"}" },
+        { "{}", "{\"a\":{\"bb\":{\"ccc\":null}}}", "{\"a\":{\"bb\":{}}}" },
+    };
+
+    @Test
+    void shouldApplyRFCExamples() {
+        for (String[] example : examples) {
+            JSONValue result = JSONMergePatch.apply(JSON.parse(example[0]), JSON.parse(example[1]));
+            assertEquals(example[2], JSON.toJSON(result), example[1]);
+        }
+    }
+
+    @Test
+    void shouldModifyTargetInPlace() {
+        JSONObject target = (JSONObject)JSON.parse("{\"a\":{\"b\":1,\"c\":[1,2]},\"d\":{\"e\":2}}");
+        JSONObject a = target.getObject("a");
+        JSONArray c = a.getArray("c");
+        JSONObject d = target.getObject("d");
+        JSONObject patch = (JSONObject)JSON.parse("{\"a\":{\"b\":2,\"x\":{\"y\":[3]}}}");
+        assertSame(target, JSONMergePatch.apply(target, patch));
+        assertSame(a, target.getObject("a"));
+        assertSame(c, a.getArray("c"));
+        assertSame(d, target.getObject("d"));
+        assertEquals("{\"a\":{\"b\":2,\"c\":[1,2],\"x\":{\"y\":[3]}},\"d\":{\"e\":2}}", target.toJSON());
+        assertNotSame(patch.getObject("a").getObject("x").getArray("y"),
+                a.getObject("x").getArray("y"));
+    }
+
+    @Test
+    void shouldTreatExplicitNullAsRemoval() {
+        JSONObject target = JSONObject.create().putValue("a", 1).putNull("b").putValue("c", "x");
+        JSONObject patch = JSONObject.create().putAlways("a", null).putNull("b").putAlways("d", null);
+        JSONMergePatch.apply(target, patch);
+        assertEquals("{\"c\":\"x\"}", target.toJSON());
+    }
+
+    @Test
+    void shouldApplyToPersistentObject() {
+        JSONPersistentObject target = JSONPersistentObject.empty().with("a", JSONInteger.valueOf(1))
+                .with("b", JSONPersistentObject.empty().with("c", JSONInteger.valueOf(2)));
+        JSONValue result = JSONMergePatch.apply(target, JSON.parse("{\"a\":null,\"b\":{\"d\":3}}"));
+        assertEquals("{\"a\":1,\"b\":{\"c\":2}}", target.toJSON());
+        assertEquals(JSON.parse("{\"b\":{\"c\":2,\"d\":3}}"), result);
+    }
+
+    @Test
+    void shouldGenerateMinimalDiff() {
+        String from = "{\"a\":1,\"b\":{\"c\":[1,2],\"d\":\"x\",\"e\":{\"f\":true}},\"g\":null,\"h\":5}";
+        String to = "{\"a\":1,\"b\":{\"c\":[1,3],\"d\":\"x\",\"e\":{\"f\":false}},\"g\":null,\"i\":{\"j\":1}}";
+        JSONValue patch = JSONMergePatch.diff(JSON.parse(from), JSON.parse(to));
+        assertEquals("{\"h\":null,\"b\":{\"c\":[1,3],\"e\":{\"f\":false}},\"i\":{\"j\":1}}", patch.toJSON());
+        assertEquals(JSON.parse(to), JSONMergePatch.apply(JSON.parse(from), patch));
+        assertEquals("{}", JSONMergePatch.diff(JSON.parse(from), JSON.parse(from)).toJSON());
+        assertEquals("[1]", JSONMergePatch.diff(JSON.parse(from), JSON.parse("[1]")).toJSON());
+    }
+
+    @Test
+    void shouldRejectDiffRequiringNull() {
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONMergePatch.diff(JSON.parse("{\"a\":1}"), JSON.parse("{\"a\":null}")));
+        assertEquals(JSONMergePatch.NULL_NOT_REPRESENTABLE + ": a", e.getMessage());
+        assertThrows(JSONException.class,
+                () -> JSONMergePatch.diff(JSON.parse("{}"), JSON.parse("{\"a\":{\"b\":null}}")));
+        assertThrows(JSONException.class,
+                () -> JSONMergePatch.diff(JSON.parse("[]"), JSON.parse("{\"b\":null}")));
+        assertEquals("{\"a\":[null]}",
+                JSONMergePatch.diff(JSON.parse("{}"), JSON.parse("{\"a\":[null]}")).toJSON());
+    }
+
+}
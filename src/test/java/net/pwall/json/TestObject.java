@@ -2,7 +2,7 @@
  * @(#) TestObject.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2014, 2015, 2016 Peter Wall
+ * Copyright (c) 2014, 2015, 2016, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -330,6 +330,39 @@ class TestObject {
         assertFalse(object.containsKey("second"));
     }
 
+    @Test
+    void testWideObject() {
+        JSONObject object = new JSONObject();
+        int n = JSONMapping.INDEX_THRESHOLD * 4;
+        for (int i = 0; i < n; i++)
+            object.putValue("k" + i, i);
+        assertEquals(n, object.size());
+        assertEquals(17, object.getInt("k17"));
+        object.putValue("k17", -17);
+        assertEquals(-17, object.getInt("k17"));
+        assertEquals(17, object.findIndex("k17"));
+        assertNull(object.remove("missing"));
+        object.remove("k0");
+        object.remove("k16");
+        assertFalse(object.containsKey("k16"));
+        assertEquals(15, object.findIndex("k17"));
+        assertEquals(-1, object.findIndex("k16"));
+        object.insert(0, "k0", JSONInteger.valueOf(0));
+        assertEquals(0, object.findIndex("k0"));
+        assertEquals(16, object.findIndex("k17"));
+        assertEquals(JSONInteger.valueOf(0), object.removeAt(0));
+        assertFalse(object.containsKey("k0"));
+        JSONObject copy = new JSONObject(object);
+        assertEquals(object, copy);
+        assertEquals(object.toJSON(), copy.toJSON());
+        copy.freeze();
+        assertEquals(-17, copy.getInt("k17"));
+        object.clear();
+        assertFalse(object.containsKey("k17"));
+        object.putValue("x", 1);
+        assertEquals(1, object.getInt("x"));
+    }
+
     @SuppressWarnings("SimplifiableJUnitAssertion")
     @Test
     void testMapActions() {
@@ -365,6 +398,45 @@ class TestObject {
         assertTrue(object2.entrySet().equals(entrySet));
     }
 
+    @Test
+    void shouldUseCompactFormForSmallObjects() {
+        JSONObject object = new JSONObject();
+        for (int i = 0; i < JSONMapping.COMPACT_LIMIT; i++)
+            object.putValue("k" + i, i);
+        assertTrue(object.isCompact());
+        Set<String> keySet = object.keySet();
+        Map.Entry<String, JSONValue> entry = object.getEntry(1);
+        assertEquals("k1", entry.getKey());
+        assertEquals(new JSONInteger(1), entry.setValue(new JSONInteger(99)));
+        assertEquals(99, object.getInt("k1"));
+        object.putValue("k0", "x");
+        assertEquals(JSONMapping.COMPACT_LIMIT, object.size());
+        JSONObject copy = new JSONObject(object);
+        object.putValue("k8", 8);
+        assertFalse(object.isCompact());
+        assertEquals(JSONMapping.COMPACT_LIMIT + 1, keySet.size());
+        assertTrue(keySet.contains("k8"));
+        assertEquals("k8", object.getEntry(8).getKey());
+        assertEquals("{\"k0\":\"x\",\"k1\":99,\"k2\":2,\"k3\":3,\"k4\":4,\"k5\":5,\"k6\":6," +
+                "\"k7\":7,\"k8\":8}", object.toJSON());
+        assertTrue(copy.isCompact());
+        assertNotEquals(copy, object);
+        object.remove("k8");
+        assertEquals(copy, object);
+        assertEquals(object, copy);
+        assertEquals(copy.hashCode(), object.hashCode());
+        assertEquals(copy.entrySet(), object.entrySet());
+        assertEquals(new JSONInteger(3), copy.remove("k3"));
+        assertNull(copy.get("k3"));
+        assertEquals("{\"k0\":\"x\",\"k1\":99,\"k2\":2,\"k4\":4,\"k5\":5,\"k6\":6,\"k7\":7}",
+                copy.toJSON());
+        assertThrows(UnsupportedOperationException.class, () -> copy.keySet().remove("k1"));
+        copy.freeze();
+        assertThrows(UnsupportedOperationException.class, () -> copy.putValue("k1", 1));
+        assertThrows(UnsupportedOperationException.class,
+                () -> copy.entrySet().iterator().next().setValue(null));
+    }
+
     @Test
     void testOutput() {
         JSONObject object = new JSONObject();
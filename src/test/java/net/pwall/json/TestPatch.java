@@ -0,0 +1,160 @@
+/*
+ * @(#) TestPatch.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONPatch.
+ *
+ * @author Peter Wall
+ */
+class TestPatch {
+
+    @Test
+    void shouldApplyRFCExamples() {
+        check("{\"foo\":\"bar\"}", "[{\"op\":\"add\",\"path\":\"/baz\",\"value\":\"qux\"}]",
+                "{\"foo\":\"bar\",\"baz\":\"qux\"}");
+        check("{\"foo\":[\"bar\",\"baz\"]}", "[{\"op\":\"add\",\"path\":\"/foo/1\",\"value\":\"qux\"}]",
+                "{\"foo\":[\"bar\",\"qux\",\"baz\"]}");
+        check("{\"baz\":\"qux\",\"foo\":\"bar\"}", "[{\"op\":\"remove\",\"path\":\"/baz\"}]",
+                "{\"foo\":\"bar\"}");
+        check("{\"foo\":[\"bar\",\"qux\",\"baz\"]}", "[{\"op\":\"remove\",\"path\":\"/foo/1\"}]",
+                "{\"foo\":[\"bar\",\"baz\"]}");
+        check("{\"baz\":\"qux\",\"foo\":\"bar\"}",
+                "[{\"op\":\"replace\",\"path\":\"/baz\",\"value\":\"boo\"}]",
+                "{\"baz\":\"boo\",\"foo\":\"bar\"}");
+        check("{\"foo\":{\"bar\":\"baz\",\"waldo\":\"fred\"},\"qux\":{\"corge\":\"grault\"}}",
+                "[{\"op\":\"move\",\"from\":\"/foo/waldo\",\"path\":\"/qux/thud\"}]",
+                "{\"foo\":{\"bar\":\"baz\"},\"qux\":{\"corge\":\"grault\",\"thud\":\"fred\"}}");
+        check("{\"foo\":[\"all\",\"grass\",\"cows\",\"eat\"]}",
+                "[{\"op\":\"move\",\"from\":\"/foo/1\",\"path\":\"/foo/3\"}]",
+                "{\"foo\":[\"all\",\"cows\",\"eat\",\"grass\"]}");
+        check("{\"baz\":\"qux\",\"foo\":[\"a\",2,\"c\"]}",
+                "[{\"op\":\"test\",\"path\":\"/baz\",\"value\":\"qux\"}," +
+                "{\"op\":\"test\",\"path\":\"/foo/1\",\"value\":2}]",
+                "{\"baz\":\"qux\",\"foo\":[\"a\",2,\"c\"]}");
+        check("{\"foo\":\"bar\"}", "[{\"op\":\"add\",\"path\":\"/child\",\"value\":{\"grandchild\":{}}}]",
+                "{\"foo\":\"bar\",\"child\":{\"grandchild\":{}}}");
+        check("{\"foo\":[\"bar\"]}", "[{\"op\":\"add\",\"path\":\"/foo/-\",\"value\":[\"abc\",\"def\"]}]",
+                "{\"foo\":[\"bar\",[\"abc\",\"def\"]]}");
+        check("{\"/\":9,\"~1\":10}", "[{\"op\":\"test\",\"path\":\"/~01\",\"value\":10}]",
+                "{\"/\":9,\"~1\":10}");
+        check("{\"a\":{\"b\":1}}", "[{\"op\":\"copy\",\"from\":\"/a\",\"path\":\"/c\"}]",
+                "{\"a\":{\"b\":1},\"c\":{\"b\":1}}");
+        check("{\"a\":1}", "[{\"op\":\"replace\",\"path\":\"\",\"value\":[1]}]", "[1]");
+    }
+
+    @Test
+    void shouldRollBackOnFailure() {
+        String original = "{\"a\":1,\"b\":[1,2,3],\"c\":{\"d\":\"x\",\"e\":\"y\"},\"f\":true}";
+        JSONValue target = JSON.parse(original);
+        JSONPatch patch = JSONPatch.parse("[{\"op\":\"remove\",\"path\":\"/a\"}," +
+                "{\"op\":\"add\",\"path\":\"/b/1\",\"value\":9}," +
+                "{\"op\":\"remove\",\"path\":\"/c/d\"}," +
+                "{\"op\":\"replace\",\"path\":\"/f\",\"value\":false}," +
+                "{\"op\":\"move\",\"from\":\"/b/0\",\"path\":\"/g\"}," +
+                "{\"op\":\"add\",\"path\":\"/h\",\"value\":0}," +
+                "{\"op\":\"test\",\"path\":\"/h\",\"value\":1}]");
+        JSONException e = assertThrows(JSONException.class, () -> patch.apply(target));
+        assertEquals(JSONPatch.TEST_FAILED + ": /h", e.getMessage());
+        assertEquals(original, target.toJSON());
+    }
+
+    @Test
+    void shouldRollBackWideObjectPreservingOrder() {
+        JSONObject target = new JSONObject();
+        for (int i = 0; i < 100; i++)
+            target.putValue("k" + i, i);
+        String original = target.toJSON();
+        JSONPatch patch = JSONPatch.parse("[{\"op\":\"remove\",\"path\":\"/k10\"}," +
+                "{\"op\":\"remove\",\"path\":\"/k50\"},{\"op\":\"replace\",\"path\":\"/k99\",\"value\":0}," +
+                "{\"op\":\"remove\",\"path\":\"/missing\"}]");
+        JSONException e = assertThrows(JSONException.class, () -> patch.apply(target));
+        assertEquals(JSONPointer.NOT_FOUND + ": /missing", e.getMessage());
+        assertEquals(original, target.toJSON());
+    }
+
+    @Test
+    void shouldRollBackWhenTargetIsFrozen() {
+        JSONObject target = (JSONObject)JSON.parse("{\"a\":[1,2],\"b\":{\"c\":1}}");
+        target.getObject("b").freeze();
+        JSONPatch patch = JSONPatch.parse("[{\"op\":\"add\",\"path\":\"/a/-\",\"value\":3}," +
+                "{\"op\":\"add\",\"path\":\"/b/d\",\"value\":2}]");
+        assertThrows(UnsupportedOperationException.class, () -> patch.apply(target));
+        assertEquals("{\"a\":[1,2],\"b\":{\"c\":1}}", target.toJSON());
+    }
+
+    @Test
+    void shouldApplyToCopy() {
+        JSONValue target = JSON.parse("{\"a\":{\"b\":[1]}}");
+        JSONPatch patch = JSONPatch.parse("[{\"op\":\"add\",\"path\":\"/a/b/0\",\"value\":{\"x\":0}}]");
+        JSONValue result = patch.applyToCopy(target);
+        assertEquals("{\"a\":{\"b\":[{\"x\":0},1]}}", result.toJSON());
+        assertEquals("{\"a\":{\"b\":[1]}}", target.toJSON());
+        JSONValue second = patch.applyToCopy(target);
+        assertNotSame(((JSONObject)result).getObject("a").getArray("b").get(0),
+                ((JSONObject)second).getObject("a").getArray("b").get(0));
+    }
+
+    @Test
+    void shouldRejectInvalidPatches() {
+        checkInvalid("{}");
+        checkInvalid("[1]");
+        checkInvalid("[{\"path\":\"/a\"}]");
+        checkInvalid("[{\"op\":\"frob\",\"path\":\"/a\"}]");
+        checkInvalid("[{\"op\":\"add\",\"path\":\"a\",\"value\":1}]");
+        checkInvalid("[{\"op\":\"add\",\"path\":\"/a\"}]");
+        checkInvalid("[{\"op\":\"move\",\"from\":\"/a\",\"path\":\"/a/b\"}]");
+        checkInvalid("[{\"op\":\"copy\",\"path\":\"/a\"}]");
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONPatch.parse("[{\"op\":\"add\",\"path\":\"/a/5\",\"value\":1}]")
+                        .apply(JSON.parse("{\"a\":[]}")));
+        assertEquals(JSONPointer.NOT_FOUND + ": /a/5", e.getMessage());
+    }
+
+    @Test
+    void shouldConvertBackToDocument() {
+        String text = "[{\"op\":\"add\",\"path\":\"/a~1b\",\"value\":[1]},{\"op\":\"remove\",\"path\":\"/c\"}," +
+                "{\"op\":\"move\",\"path\":\"/d\",\"from\":\"/e\"}]";
+        JSONPatch patch = JSONPatch.parse(text);
+        assertEquals(3, patch.size());
+        assertEquals(text, patch.toString());
+    }
+
+    private static void checkInvalid(String patch) {
+        JSONException e = assertThrows(JSONException.class, () -> JSONPatch.parse(patch));
+        assertTrue(e.getMessage().startsWith(JSONPatch.INVALID_PATCH));
+    }
+
+    private static void check(String target, String patch, String expected) {
+        JSONValue value = JSON.parse(target);
+        assertEquals(expected, JSON.toJSON(JSONPatch.parse(patch).apply(value)));
+        assertEquals(expected, JSON.toJSON(JSONPatch.parse(patch).applyToCopy(JSON.parse(target))));
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * @(#) TestPath.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONPath.
+ *
+ * @author Peter Wall
+ */
+class TestPath {
+
+    private static final String store = "{\"store\":{\"book\":[" +
+            "{\"category\":\"reference\",\"author\":\"Nigel Rees\",\"title\":\"Sayings\",\"price\":8.95}," +
+            "{\"category\":\"fiction\",\"author\":\"Evelyn Waugh\",\"title\":\"Sword\",\"price\":12.99}," +
+            "{\"category\":\"fiction\",\"author\":\"Herman Melville\",\"title\":\"Moby Dick\"," +
+            "\"isbn\":\"0-553-21311-3\",\"price\":8.99}," +
+            "{\"category\":\"fiction\",\"author\":\"J. R. R. Tolkien\",\"title\":\"Rings\"," +
+            "\"isbn\":\"0-395-19395-8\",\"price\":22}]," +
+            "\"bicycle\":{\"color\":\"red\",\"price\":19.95}},\"limit\":10}";
+
+    @Test
+    void shouldSelectByNameAndIndex() {
+        JSONValue root = JSON.parse(store);
+        assertEquals("[\"Nigel Rees\"]", eval("$.store.book[0].author", root));
+        assertEquals("[\"Rings\"]", eval("$['store']['book'][-1].title", root));
+        assertEquals("[\"red\"]", eval("$.store.bicycle.color", root));
+        assertEquals("[]", eval("$.store.book[4]", root));
+        assertEquals("[]", eval("$.store.missing", root));
+        assertEquals("[\"Sayings\",\"Rings\"]", eval("$.store.book[0,3].title", root));
+    }
+
+    @Test
+    void shouldSelectWildcardsSlicesAndDescendants() {
+        JSONValue root = JSON.parse(store);
+        assertEquals("[\"Nigel Rees\",\"Evelyn Waugh\",\"Herman Melville\",\"J. R. R. Tolkien\"]",
+                eval("$.store.book[*].author", root));
+        assertEquals("[\"Nigel Rees\",\"Evelyn Waugh\",\"Herman Melville\",\"J. R. R. Tolkien\"]",
+                eval("$..author", root));
+        assertEquals("[8.95,12.99,8.99,22,19.95]", eval("$.store..price", root));
+        assertEquals("[\"Sayings\",\"Sword\"]", eval("$.store.book[:2].title", root));
+        assertEquals("[\"Moby Dick\",\"Rings\"]", eval("$.store.book[-2:].title", root));
+        assertEquals("[\"Sayings\",\"Moby Dick\"]", eval("$.store.book[::2].title", root));
+        assertEquals("[\"Rings\",\"Moby Dick\",\"Sword\",\"Sayings\"]",
+                eval("$.store.book[::-1].title", root));
+        assertEquals("[\"Sword\"]", eval("$..book[1].title", root));
+    }
+
+    @Test
+    void shouldDistinguishAbsentMemberFromNull() {
+        JSONValue array = JSON.parse("[{\"id\":1,\"qty\":null},{\"id\":2},{\"id\":3,\"qty\":0}]");
+        assertEquals("[1]", eval("$[?(@.qty == null)].id", array));
+        assertEquals("[2,3]", eval("$[?(@.qty != null)].id", array));
+        assertEquals("[2]", eval("$[?(@.qty == @.missing)].id", array));
+        assertEquals("[1,3]", eval("$[?(@.qty != @.missing)].id", array));
+        assertEquals("[1,2,3]", eval("$[?(@.none == @.missing)].id", array));
+    }
+
+    @Test
+    void shouldClampSliceBoundsForNegativeStep() {
+        JSONValue array = JSON.parse("[0,1,2]");
+        assertEquals("[2,1,0]", eval("$[5:-10:-1]", array));
+        assertEquals("[1,0]", eval("$[1:-10:-1]", array));
+        assertEquals("[]", eval("$[-10::-1]", array));
+        assertEquals("[2]", eval("$[5:1:-1]", array));
+        assertEquals("[2,0]", eval("$[::-2]", array));
+        assertEquals("[0,1,2]", eval("$[-10:10]", array));
+    }
+
+    @Test
+    void shouldApplyFilters() {
+        JSONValue root = JSON.parse(store);
+        assertEquals("[\"Sayings\",\"Moby Dick\"]", eval("$.store.book[?(@.price < 10)].title", root));
+        assertEquals("[\"Rings\"]", eval("$.store.book[?(@.price >= 22)].title", root));
+        assertEquals("[\"Rings\"]", eval("$.store.book[?(22.0 == @.price)].title", root));
+        assertEquals("[\"Moby Dick\",\"Rings\"]", eval("$.store.book[?(@.isbn)].title", root));
+        assertEquals("[\"Sayings\",\"Sword\"]", eval("$.store.book[?(!@.isbn)].title", root));
+        assertEquals("[\"Moby Dick\"]",
+                eval("$.store.book[?(@.category == \"fiction\" && @.price < $.limit)].title", root));
+        assertEquals("[\"Sayings\",\"Rings\"]",
+                eval("$.store.book[?(@.price > 20 || (@.category != 'fiction'))].title", root));
+        assertEquals("[12.99,22]", eval("$..book[?(@.price > 1.2e1)].price", root));
+        JSONValue big = JSON.parse("[{\"n\":12345678901234567890.5},{\"n\":3},{\"n\":\"x\"}]");
+        assertEquals("[{\"n\":12345678901234567890.5}]", eval("$[?(@.n > 9223372036854775807)]", big));
+        assertEquals("[{\"n\":3}]", eval("$[?(@.n == 3)]", big));
+        assertEquals("[{\"n\":3}]", eval("$[?(@.n == 3.0)]", big));
+        assertEquals("[{\"n\":12345678901234567890.5},{\"n\":\"x\"}]", eval("$[?(@.n != 3)]", big));
+    }
+
+    @Test
+    void shouldReturnReferencesIntoTree() {
+        JSONObject root = (JSONObject)JSON.parse(store);
+        JSONPath path = JSONPath.compile("$.store.bicycle");
+        assertSame(root.getObject("store").get("bicycle"), path.first(root));
+        assertNull(JSONPath.compile("$.nothing").first(root));
+        List<JSONValue> results = new ArrayList<>();
+        JSONPath.compile("$..price").evaluate(root, results::add);
+        assertEquals(5, results.size());
+        assertEquals("$..price", JSONPath.compile("$..price").toString());
+    }
+
+    @Test
+    void shouldEvaluatePrimitiveArraysAndPersistentValues() {
+        JSONIntArray ints = new JSONIntArray(5, 10, 15, 20);
+        assertEquals("[15,20]", eval("$[?(@ > 12)]", ints));
+        JSONPersistentObject object = JSONPersistentObject.empty().with("a",
+                JSONPersistentArray.of(new JSONInteger(1), new JSONInteger(2)));
+        assertEquals("[2]", eval("$.a[1]", object));
+        assertEquals("[[1,2],1,2]", eval("$..*", object));
+    }
+
+    @Test
+    void shouldRejectInvalidExpressions() {
+        checkInvalid("");
+        checkInvalid("store");
+        checkInvalid("$.");
+        checkInvalid("$[");
+        checkInvalid("$[0");
+        checkInvalid("$[?(@.a ==)]");
+        checkInvalid("$[?(@.a == 'x)]");
+        checkInvalid("$[::0]");
+        checkInvalid("$[?(1)]");
+        checkInvalid("$x");
+    }
+
+    private static void checkInvalid(String expression) {
+        JSONException e = assertThrows(JSONException.class, () -> JSONPath.compile(expression));
+        assertTrue(e.getMessage().startsWith(JSONPath.INVALID_PATH));
+    }
+
+    private static String eval(String expression, JSONValue root) {
+        JSONArray array = new JSONArray();
+        array.addAll(JSONPath.compile(expression).evaluate(root));
+        return array.toJSON();
+    }
+
+}
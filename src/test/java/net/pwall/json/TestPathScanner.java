@@ -0,0 +1,148 @@
+/*
+ * @(#) TestPathScanner.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONPathScanner.
+ *
+ * @author Peter Wall
+ */
+class TestPathScanner {
+
+    private static final String store = "{\"store\":{\"book\":[" +
+            "{\"category\":\"reference\",\"author\":\"Nigel Rees\",\"title\":\"Sayings\",\"price\":8.95}," +
+            "{\"category\":\"fiction\",\"author\":\"Evelyn Waugh\",\"title\":\"Sword\",\"price\":12.99}," +
+            "{\"category\":\"fiction\",\"author\":\"Herman Melville\",\"title\":\"Moby Dick\"," +
+            "\"isbn\":\"0-553-21311-3\",\"price\":8.99}," +
+            "{\"category\":\"fiction\",\"author\":\"J. R. R. Tolkien\",\"title\":\"Rings\"," +
+            "\"isbn\":\"0-395-19395-8\",\"price\":22}]," +
+            "\"bicycle\":{\"color\":\"red\",\"price\":19.95}},\"limit\":10,\"codes\":[0,-0,1e2,3]}";
+
+    private static final String[] expressions = { "$", "$.store.book[0].author",
+            "$['store']['book'][-1].title", "$.store.book[0,3].title", "$.store.book[*].author",
+            "$..author", "$.store..price", "$.store.book[:2].title", "$.store.book[-2:].title",
+            "$.store.book[::2].title", "$.store.book[::-1].title", "$..book[1].title",
+            "$.store.book[?(@.price < 10)].title", "$.store.book[?(@.isbn)]", "$..[?(@.price > 15)]",
+            "$..*", "$.store.*", "$.codes[*]", "$.missing", "$.limit" };
+
+    @Test
+    void shouldMatchTreeEvaluation() throws IOException {
+        JSONValue root = JSON.parse(store);
+        for (String expression : expressions) {
+            List<JSONValue> results = new ArrayList<>();
+            new JSONPathScanner().add(expression, results::add).scan(new StringReader(store));
+            assertEquals(sorted(JSONPath.compile(expression).evaluate(root)), sorted(results),
+                    expression);
+        }
+    }
+
+    @Test
+    void shouldEvaluateMultipleExpressionsInOnePass() throws IOException {
+        JSONValue root = JSON.parse(store);
+        JSONPathScanner scanner = new JSONPathScanner();
+        List<List<JSONValue>> results = new ArrayList<>();
+        for (String expression : expressions) {
+            List<JSONValue> list = new ArrayList<>();
+            results.add(list);
+            scanner.add(expression, list::add);
+        }
+        scanner.scan(new ByteArrayInputStream(store.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8);
+        for (int i = 0; i < expressions.length; i++)
+            assertEquals(sorted(JSONPath.compile(expressions[i]).evaluate(root)),
+                    sorted(results.get(i)), expressions[i]);
+    }
+
+    @Test
+    void shouldDeliverValuesInDocumentOrder() throws IOException {
+        List<JSONValue> results = new ArrayList<>();
+        new JSONPathScanner().add("$.store.book[3,0].title", results::add)
+                .scan(new StringReader(store));
+        assertEquals(2, results.size());
+        assertEquals(new JSONString("Sayings"), results.get(0));
+        assertEquals(new JSONString("Rings"), results.get(1));
+    }
+
+    @Test
+    void shouldRejectRootReferenceInFilter() {
+        JSONException e = assertThrows(JSONException.class,
+                () -> new JSONPathScanner().add("$.store.book[?(@.price < $.limit)]", v -> {}));
+        assertEquals(JSONPathScanner.ROOT_REFERENCE, e.getMessage());
+    }
+
+    @Test
+    void shouldLimitNumberOfExpressionsAndSteps() throws IOException {
+        List<JSONValue> results = new ArrayList<>();
+        JSONPathScanner scanner = new JSONPathScanner();
+        JSONPath path = JSONPath.compile("$.a");
+        for (int i = 0; i < JSONPathScanner.MAX_PATHS; i++)
+            scanner.add(path, results::add);
+        assertThrows(IllegalArgumentException.class, () -> scanner.add(path, results::add));
+        scanner.scan(new StringReader("{\"a\":1}"));
+        assertEquals(JSONPathScanner.MAX_PATHS, results.size());
+        StringBuilder sb = new StringBuilder("$");
+        for (int i = 0; i <= JSONPathScanner.MAX_STEPS; i++)
+            sb.append(".a");
+        JSONPath longPath = JSONPath.compile(sb.toString());
+        assertThrows(IllegalArgumentException.class, () -> new JSONPathScanner().add(longPath, v -> {}));
+    }
+
+    @Test
+    void shouldReportErrorsInSkippedValues() {
+        checkError("{\"a\":[1,2,}");
+        checkError("{\"a\":1,\"b\":[tru]}");
+        checkError("{\"a\":{\"x\":01}}");
+        checkError("{\"b\":1,\"a\":{\"x\":1,\"x\":2}}");
+        checkError("{\"a\":1} 2");
+    }
+
+    private static void checkError(String json) {
+        JSONException expected = assertThrows(JSONException.class, () -> JSON.parse(json));
+        JSONException e = assertThrows(JSONException.class,
+                () -> new JSONPathScanner().add("$.a", v -> {}).scan(new StringReader(json)));
+        assertEquals(expected.getMessage(), e.getMessage());
+    }
+
+    private static List<String> sorted(List<JSONValue> values) {
+        List<String> result = new ArrayList<>();
+        for (JSONValue value : values)
+            result.add(JSON.toJSON(value));
+        Collections.sort(result);
+        return result;
+    }
+
+}
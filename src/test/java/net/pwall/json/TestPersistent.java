@@ -0,0 +1,174 @@
+/*
+ * @(#) TestPersistent.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONPersistentObject and JSONPersistentArray.
+ *
+ * @author Peter Wall
+ */
+class TestPersistent {
+
+    @Test
+    void shouldCreateNewVersionsOfObject() {
+        JSONPersistentObject v1 = JSONPersistentObject.empty().with("a", JSONInteger.valueOf(1))
+                .with("b", new JSONString("x"));
+        JSONPersistentObject v2 = v1.with("a", JSONInteger.valueOf(2)).with("c", JSONBoolean.TRUE);
+        JSONPersistentObject v3 = v2.without("b");
+        assertEquals("{\"a\":1,\"b\":\"x\"}", v1.toJSON());
+        assertEquals("{\"a\":2,\"b\":\"x\",\"c\":true}", v2.toJSON());
+        assertEquals("{\"a\":2,\"c\":true}", v3.toJSON());
+        assertEquals(v3.toJSON().length(), v3.jsonLength());
+        assertSame(v3, v3.without("b"));
+        assertEquals(2, v3.size());
+        assertNull(v3.get("b"));
+        assertFalse(v3.containsKey("b"));
+        assertSame(JSONPersistentObject.empty(), v3.without("a").without("c"));
+        assertThrows(UnsupportedOperationException.class, () -> v1.put("z", null));
+    }
+
+    @Test
+    void shouldMatchMutableObject() {
+        Random random = new Random(12345);
+        Map<String, JSONValue> expected = new LinkedHashMap<>();
+        JSONPersistentObject object = JSONPersistentObject.empty();
+        List<JSONPersistentObject> versions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = "k" + random.nextInt(400);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                object = object.without(key);
+            }
+            else {
+                JSONValue value = JSONInteger.valueOf(i);
+                expected.put(key, value);
+                object = object.with(key, value);
+            }
+            if (i % 1000 == 0)
+                versions.add(object);
+        }
+        assertEquals(expected.size(), object.size());
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(object.entrySet()));
+        for (String key : expected.keySet())
+            assertEquals(expected.get(key), object.get(key));
+        assertEquals(1, versions.get(0).size());
+        JSONObject mutable = object.toJSONObject();
+        assertEquals(object, mutable);
+        assertEquals(mutable, object);
+        assertEquals(mutable.hashCode(), object.hashCode());
+        assertEquals(mutable.toJSON(), object.toJSON());
+    }
+
+    @Test
+    void shouldHandleHashCollisions() {
+        // "Aa" and "BB" have the same hash code
+        JSONPersistentObject object = JSONPersistentObject.empty().with("Aa", JSONInteger.valueOf(1))
+                .with("BB", JSONInteger.valueOf(2)).with("AaAa", JSONInteger.valueOf(3))
+                .with("BBBB", JSONInteger.valueOf(4)).with("AaBB", JSONInteger.valueOf(5));
+        assertEquals(5, object.size());
+        assertEquals(JSONInteger.valueOf(2), object.get("BB"));
+        assertEquals(JSONInteger.valueOf(5), object.get("AaBB"));
+        object = object.with("BB", JSONInteger.valueOf(22)).without("Aa").without("BBBB");
+        assertEquals("{\"BB\":22,\"AaAa\":3,\"AaBB\":5}", object.toJSON());
+        assertNull(object.get("Aa"));
+    }
+
+    @Test
+    void shouldFreezeStoredComposites() {
+        JSONObject nested = JSONObject.create().putValue("x", 1);
+        JSONPersistentObject object = JSONPersistentObject.empty().with("n", nested);
+        assertTrue(nested.isFrozen());
+        assertTrue(object.isFrozen());
+        assertSame(object, object.freeze());
+        JSONPersistentObject copy = JSONPersistentObject.from((JSONObject)JSON.parse("{\"a\":[1,2],\"b\":{}}"));
+        assertTrue(((JSONComposite)copy.get("a")).isFrozen());
+        assertFalse(copy.isSimple());
+    }
+
+    @Test
+    void shouldCreateNewVersionsOfArray() {
+        JSONPersistentArray v1 = JSONPersistentArray.of(JSONInteger.valueOf(1), new JSONString("a"));
+        JSONPersistentArray v2 = v1.append(null).with(0, JSONInteger.valueOf(9));
+        assertEquals("[1,\"a\"]", v1.toJSON());
+        assertEquals("[9,\"a\",null]", v2.toJSON());
+        assertEquals("[9]", v2.withoutLast().withoutLast().toJSON());
+        assertSame(JSONPersistentArray.empty(), v1.withoutLast().withoutLast());
+        assertThrows(IndexOutOfBoundsException.class, () -> v1.get(2));
+        assertThrows(UnsupportedOperationException.class, () -> v1.add(null));
+        assertEquals(v2.toJSON().length(), v2.jsonLength());
+        assertEquals(JSON.parse("[9,\"a\",null]"), v2);
+        assertEquals(v2, JSON.parse("[9,\"a\",null]"));
+    }
+
+    @Test
+    void shouldMatchMutableArray() {
+        List<JSONValue> expected = new ArrayList<>();
+        JSONPersistentArray array = JSONPersistentArray.empty();
+        List<JSONPersistentArray> versions = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) {
+            expected.add(JSONInteger.valueOf(i));
+            array = array.append(JSONInteger.valueOf(i));
+            if (i == 1056)
+                versions.add(array);
+        }
+        for (int i = 0; i < 40000; i += 97) {
+            expected.set(i, JSONLong.valueOf(-i));
+            array = array.with(i, JSONLong.valueOf(-i));
+        }
+        assertEquals(expected, new ArrayList<>(array));
+        Iterator<JSONValue> iterator = array.iterator();
+        for (JSONValue value : expected)
+            assertEquals(value, iterator.next());
+        assertFalse(iterator.hasNext());
+        for (int i = 0; i < 39000; i++) {
+            expected.remove(expected.size() - 1);
+            array = array.withoutLast();
+        }
+        assertEquals(expected, new ArrayList<>(array));
+        assertEquals(1057, versions.get(0).size());
+        assertEquals(JSONInteger.valueOf(1056), versions.get(0).get(1056));
+        assertEquals(array, array.toJSONArray());
+        assertEquals(array.toJSONArray().hashCode(), array.hashCode());
+    }
+
+    @Test
+    void shouldEncodeAsCBOR() {
+        JSONPersistentObject object = JSONPersistentObject.empty().with("a",
+                JSONPersistentArray.of(JSONInteger.valueOf(1), JSONBoolean.FALSE));
+        assertEquals(object, JSONCBOR.decode(JSONCBOR.encode(object)));
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * @(#) TestPointer.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONPointer.
+ *
+ * @author Peter Wall
+ */
+class TestPointer {
+
+    private static final String example = "{\"foo\":[\"bar\",\"baz\"],\"\":0,\"a/b\":1,\"c%d\":2," +
+            "\"e^f\":3,\"g|h\":4,\"i\\\\j\":5,\"k\\\"l\":6,\" \":7,\"m~n\":8}";
+
+    @Test
+    void shouldResolveRFC6901Examples() {
+        JSONValue document = JSON.parse(example);
+        assertSame(document, JSONPointer.compile("").find(document));
+        assertEquals(JSON.parse("[\"bar\",\"baz\"]"), JSONPointer.compile("/foo").find(document));
+        assertEquals(new JSONString("bar"), JSONPointer.compile("/foo/0").find(document));
+        assertEquals(JSONZero.ZERO, JSONPointer.compile("/").find(document));
+        assertEquals(JSONInteger.valueOf(1), JSONPointer.compile("/a~1b").find(document));
+        assertEquals(JSONInteger.valueOf(2), JSONPointer.compile("/c%d").find(document));
+        assertEquals(JSONInteger.valueOf(3), JSONPointer.compile("/e^f").find(document));
+        assertEquals(JSONInteger.valueOf(4), JSONPointer.compile("/g|h").find(document));
+        assertEquals(JSONInteger.valueOf(5), JSONPointer.compile("/i\\j").find(document));
+        assertEquals(JSONInteger.valueOf(6), JSONPointer.compile("/k\"l").find(document));
+        assertEquals(JSONInteger.valueOf(7), JSONPointer.compile("/ ").find(document));
+        assertEquals(JSONInteger.valueOf(8), JSONPointer.compile("/m~0n").find(document));
+    }
+
+    @Test
+    void shouldHandleMissingValues() {
+        JSONValue document = JSON.parse(example);
+        assertNull(JSONPointer.compile("/foo/2").find(document));
+        assertNull(JSONPointer.compile("/foo/01").find(document));
+        assertNull(JSONPointer.compile("/foo/-").find(document));
+        assertNull(JSONPointer.compile("/xxx/yyy").find(document));
+        assertNull(JSONPointer.compile("/foo/0/x").find(document));
+        assertTrue(JSONPointer.compile("/foo/1").exists(document));
+        assertFalse(JSONPointer.compile("/foo/2").exists(document));
+        assertTrue(JSONPointer.compile("/m~0n").exists(document));
+        assertFalse(JSONPointer.compile("/m~1n").exists(document));
+    }
+
+    @Test
+    void shouldRejectInvalidPointers() {
+        JSONException e = assertThrows(JSONException.class, () -> JSONPointer.compile("foo"));
+        assertEquals(JSONPointer.INVALID_POINTER + ": foo", e.getMessage());
+        assertThrows(JSONException.class, () -> JSONPointer.compile("/a~2"));
+        assertThrows(JSONException.class, () -> JSONPointer.compile("/a~"));
+    }
+
+    @Test
+    void shouldCreateAndConvertPointers() {
+        JSONPointer pointer = JSONPointer.of("a/b", "m~n", "3");
+        assertEquals("/a~1b/m~0n/3", pointer.toString());
+        assertEquals(pointer, JSONPointer.compile("/a~1b/m~0n/3"));
+        assertEquals(pointer.hashCode(), JSONPointer.compile("/a~1b/m~0n/3").hashCode());
+        assertEquals(pointer, JSONPointer.ROOT.child("a/b").child("m~n").child(3));
+        assertEquals(JSONPointer.of("a/b", "m~n"), pointer.parent());
+        assertSame(JSONPointer.ROOT, JSONPointer.of("x").parent());
+        assertEquals(3, pointer.depth());
+        assertEquals("m~n", pointer.getToken(1));
+        assertEquals("", JSONPointer.ROOT.toString());
+    }
+
+    @Test
+    void shouldSetAndRemoveValues() {
+        JSONObject document = JSON.parseObject(example);
+        JSONPointer.compile("/foo/1").set(document, new JSONString("qux"));
+        JSONPointer.compile("/foo/-").set(document, new JSONString("end"));
+        JSONPointer.compile("/foo/3").set(document, JSONBoolean.TRUE);
+        JSONPointer.compile("/new").set(document, new JSONObject());
+        JSONPointer.compile("/new/x").set(document, null);
+        assertEquals(JSON.parse("[\"bar\",\"qux\",\"end\",true]"), document.get("foo"));
+        assertTrue(JSONPointer.compile("/new/x").exists(document));
+        assertThrows(JSONException.class, () -> JSONPointer.compile("/foo/5").set(document, null));
+        assertThrows(JSONException.class, () -> JSONPointer.compile("/zz/x").set(document, null));
+        assertEquals(new JSONString("bar"), JSONPointer.compile("/foo/0").remove(document));
+        assertEquals(JSON.parse("[\"qux\",\"end\",true]"), document.get("foo"));
+        assertNull(JSONPointer.compile("/new/x").remove(document));
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONPointer.compile("/new/x").remove(document));
+        assertEquals(JSONPointer.NOT_FOUND + ": /new/x", e.getMessage());
+        JSONValue replacement = new JSONString("root");
+        assertSame(replacement, JSONPointer.ROOT.set(document, replacement));
+        assertThrows(UnsupportedOperationException.class,
+                () -> JSONPointer.compile("/a").set(JSONPersistentObject.empty(), null));
+    }
+
+    @Test
+    void shouldReportEscapedPointerInParseErrors() {
+        String json = "{\"a/b\":[1,{\"c~d\":[true,]}]}";
+        JSONException e = assertThrows(JSONException.class, () -> JSON.parse(json));
+        assertEquals(JSON.ILLEGAL_SYNTAX + " at /a~1b/1/c~0d/1", e.getMessage());
+        e = assertThrows(JSONException.class,
+                () -> JSONFormat.minify(new StringReader(json), new StringBuilder()));
+        assertEquals(JSON.ILLEGAL_SYNTAX + " at /a~1b/1/c~0d/1", e.getMessage());
+    }
+
+}
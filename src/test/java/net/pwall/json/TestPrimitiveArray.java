@@ -0,0 +1,162 @@
+/*
+ * @(#) TestPrimitiveArray.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the primitive forms of JSONArray.
+ *
+ * @author Peter Wall
+ */
+class TestPrimitiveArray {
+
+    @Test
+    void shouldParseIntegerArrayAsIntArray() {
+        JSONValue value = JSON.parse("[1, -2, 0, 2147483647]");
+        assertTrue(value instanceof JSONIntArray);
+        JSONIntArray array = (JSONIntArray)value;
+        assertTrue(array.isPrimitive());
+        assertEquals(4, array.size());
+        assertEquals(-2, array.getInt(1));
+        assertEquals(2147483647.0, array.getDouble(3));
+        assertEquals(new JSONInteger(1), array.get(0));
+        assertEquals("[1,-2,0,2147483647]", array.toJSON());
+        assertEquals(array.toJSON().length(), array.jsonLength());
+        assertEquals(new JSONArray(new JSONInteger(1), new JSONInteger(-2), JSONZero.ZERO,
+                new JSONInteger(2147483647)), array);
+    }
+
+    @Test
+    void shouldParseMixedIntegerArrayAsLongArray() {
+        JSONValue value = JSON.parse("[1,12345678901234]");
+        assertTrue(value instanceof JSONLongArray);
+        JSONLongArray array = (JSONLongArray)value;
+        assertTrue(array.get(0) instanceof JSONInteger);
+        assertTrue(array.get(1) instanceof JSONLong);
+        assertEquals(12345678901234L, array.getLong(1));
+        assertEquals("[1,12345678901234]", array.toJSON());
+        assertEquals(array.toJSON().length(), array.jsonLength());
+    }
+
+    @Test
+    void shouldParseOtherArraysAsStandardArray() {
+        JSONValue value = JSON.parse("[1,2,1.5,3]");
+        assertEquals(JSONArray.class, value.getClass());
+        JSONArray array = (JSONArray)value;
+        assertEquals(new JSONInteger(2), array.get(1));
+        assertEquals(new JSONDecimal("1.5"), array.get(2));
+        assertEquals(JSONArray.class, JSON.parse("[]").getClass());
+        assertEquals(JSONArray.class, JSON.parse("[\"a\",1]").getClass());
+    }
+
+    @Test
+    void shouldReportErrorsInNumericArrays() {
+        JSONException e = assertThrows(JSONException.class, () -> JSON.parse("[1,2,01]"));
+        assertEquals(JSON.ILLEGAL_NUMBER + " at /2", e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSON.parse("[1,2"));
+        assertEquals(JSON.MISSING_CLOSING_BRACKET, e.getMessage());
+    }
+
+    @Test
+    void shouldStreamValuesInPrimitiveForm() {
+        JSONArray array = JSON.parseArray("[1,2,3]");
+        assertTrue(array instanceof JSONIntArray);
+        assertEquals(3, array.stream().count());
+        assertEquals(6, array.stream().mapToInt(v -> ((JSONInteger)v).intValue()).sum());
+        assertEquals(6, array.parallelStream().mapToInt(v -> ((JSONInteger)v).intValue()).sum());
+        JSONArray collected = array.stream().collect(Collectors.toCollection(JSONArray::new));
+        assertEquals(JSON.parseArray("[1,2,3]"), collected);
+        JSONLongArray longs = new JSONLongArray(5000000000L, 7);
+        assertEquals(2, longs.stream().count());
+        longs.add(new JSONString("x"));
+        assertFalse(longs.isPrimitive());
+        assertEquals(3, longs.stream().count());
+        assertEquals(1, longs.subList(1, 2).stream().count());
+    }
+
+    @Test
+    void shouldAddAndRemoveInPrimitiveForm() {
+        JSONIntArray array = new JSONIntArray(1, 2, 3);
+        array.addValue(4).addValue(5);
+        array.add(0, new JSONInteger(0));
+        array.remove(2);
+        array.set(1, new JSONInteger(10));
+        assertTrue(array.isPrimitive());
+        assertEquals("[0,10,3,4,5]", array.toJSON());
+        assertTrue(array.contains(new JSONInteger(4)));
+        assertEquals(3, array.indexOf(new JSONLong(4)));
+        List<JSONValue> subList = array.subList(1, 3);
+        assertEquals(2, subList.size());
+        assertEquals(new JSONInteger(3), subList.get(1));
+        Iterator<JSONValue> iterator = array.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals("[10,3,4,5]", array.toJSON());
+        assertTrue(array.isPrimitive());
+    }
+
+    @Test
+    void shouldInflateWhenIncompatibleValueAdded() {
+        JSONIntArray array = new JSONIntArray(1, 2, 3);
+        array.addValue("abc");
+        assertFalse(array.isPrimitive());
+        assertEquals(4, array.size());
+        assertEquals(2, array.getInt(1));
+        assertEquals("[1,2,3,\"abc\"]", array.toJSON());
+        array.addValue(4);
+        assertEquals("[1,2,3,\"abc\",4]", array.toJSON());
+        JSONDoubleArray doubles = new JSONDoubleArray(1.5, 2.5);
+        doubles.addValue(3.5);
+        assertTrue(doubles.isPrimitive());
+        assertEquals(2.5, doubles.getDouble(1));
+        assertEquals(JSONDouble.valueOf(3.5), doubles.get(2));
+        doubles.set(0, new JSONInteger(1));
+        assertFalse(doubles.isPrimitive());
+        assertEquals("[1,2.5,3.5]", doubles.toJSON());
+    }
+
+    @Test
+    void shouldCloneAndFreezePrimitiveArray() {
+        JSONLongArray array = new JSONLongArray(1L, 2L);
+        JSONLongArray clone = array.clone();
+        clone.addValue(3L);
+        assertEquals(2, array.size());
+        assertEquals(3, clone.size());
+        array.freeze();
+        assertThrows(UnsupportedOperationException.class, () -> array.addValue(5L));
+        assertThrows(UnsupportedOperationException.class, () -> array.add(new JSONString("x")));
+        assertThrows(UnsupportedOperationException.class, () -> array.subList(0, 1).clear());
+        assertTrue(array.isPrimitive());
+        assertEquals("[1,2]", array.toJSON());
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * @(#) TestSchema.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONSchema.
+ *
+ * @author Peter Wall
+ */
+class TestSchema {
+
+    private static final String personSchema = "{\"type\":\"object\",\"required\":[\"id\",\"name\"]," +
+            "\"properties\":{\"id\":{\"type\":\"integer\",\"minimum\":1}," +
+            "\"name\":{\"type\":\"string\",\"minLength\":1,\"maxLength\":10}," +
+            "\"email\":{\"type\":\"string\",\"pattern\":\"^[^@]+@[^@]+$\"}," +
+            "\"tags\":{\"type\":\"array\",\"items\":{\"enum\":[\"a\",\"b\",\"c\"]},\"uniqueItems\":true}," +
+            "\"score\":{\"type\":\"number\",\"exclusiveMaximum\":100,\"multipleOf\":0.5}}," +
+            "\"additionalProperties\":false}";
+
+    @Test
+    void shouldValidateTypes() {
+        JSONSchema schema = JSONSchema.parse("{\"type\":[\"integer\",\"null\"]}");
+        assertTrue(schema.isValid(new JSONInteger(5)));
+        assertTrue(schema.isValid(JSONDouble.valueOf(5.0)));
+        assertTrue(schema.isValid(new JSONDecimal("5.000")));
+        assertTrue(schema.isValid(null));
+        assertFalse(schema.isValid(JSONDouble.valueOf(5.5)));
+        assertFalse(schema.isValid(new JSONString("5")));
+        assertTrue(JSONSchema.compile(JSONBoolean.TRUE).isValid(new JSONString("x")));
+        assertFalse(JSONSchema.compile(JSONBoolean.FALSE).isValid(new JSONString("x")));
+    }
+
+    @Test
+    void shouldValidateObjects() {
+        JSONSchema schema = JSONSchema.parse(personSchema);
+        assertTrue(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Fred\",\"email\":\"f@x\"," +
+                "\"tags\":[\"a\",\"c\"],\"score\":99.5}")));
+        assertTrue(schema.validate(JSON.parse("{\"name\":\"Fred\",\"id\":2}")).isEmpty());
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1}")));
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Fred\",\"extra\":0}")));
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Fred\",\"score\":100}")));
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Fred\",\"score\":1.25}")));
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Fred\",\"email\":\"fred\"}")));
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Fred\",\"tags\":[\"a\",\"a\"]}")));
+        assertFalse(schema.isValid(JSON.parse("{\"id\":1,\"name\":\"Frederick the Great\"}")));
+    }
+
+    @Test
+    void shouldValidateRecordsSharingShape() {
+        JSONSchema schema = JSONSchema.parse("{\"type\":\"array\",\"items\":" + personSchema + "}");
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 1; i <= 100; i++)
+            sb.append("{\"id\":").append(i).append(",\"name\":\"N").append(i).append("\"},");
+        String valid = sb.substring(0, sb.length() - 1) + "]";
+        String invalid = sb.append("{\"id\":0,\"name\":\"N0\"}]").toString();
+        assertTrue(schema.isValid(JSON.parse(valid)));
+        assertTrue(schema.isValid(JSON.parse(valid)));
+        List<JSONSchema.Failure> failures = schema.validate(JSON.parse(invalid));
+        assertEquals(1, failures.size());
+        assertEquals("/100/id", failures.get(0).getPointer().toString());
+        assertEquals("minimum", failures.get(0).getKeyword());
+    }
+
+    @Test
+    void shouldReportFailuresWithPointers() {
+        JSONSchema schema = JSONSchema.parse(personSchema);
+        List<JSONSchema.Failure> failures = schema.validate(JSON.parse("{\"id\":\"x\"," +
+                "\"tags\":[\"a\",\"d\"],\"other\":true}"));
+        assertEquals(4, failures.size());
+        assertEquals("required", failures.get(0).getKeyword());
+        assertEquals("Required property \"name\" missing at root", failures.get(0).toString());
+        assertEquals("/id", failures.get(1).getPointer().toString());
+        assertEquals("type", failures.get(1).getKeyword());
+        assertEquals("/tags/1", failures.get(2).getPointer().toString());
+        assertEquals("enum", failures.get(2).getKeyword());
+        assertEquals("/other", failures.get(3).getPointer().toString());
+        assertEquals("additionalProperties", failures.get(3).getKeyword());
+    }
+
+    @Test
+    void shouldValidateCombinatorsAndReferences() {
+        JSONSchema schema = JSONSchema.parse("{\"$defs\":{\"node\":{\"type\":\"object\"," +
+                "\"properties\":{\"value\":{\"oneOf\":[{\"type\":\"integer\"},{\"minimum\":10}]}," +
+                "\"children\":{\"type\":\"array\",\"items\":{\"$ref\":\"#/$defs/node\"}}}," +
+                "\"if\":{\"required\":[\"children\"]},\"then\":{\"not\":{\"required\":[\"value\"]}}}}," +
+                "\"$ref\":\"#/$defs/node\"}");
+        assertTrue(schema.isValid(JSON.parse("{\"children\":[{\"value\":1}," +
+                "{\"children\":[{\"value\":12.5}]}]}")));
+        assertFalse(schema.isValid(JSON.parse("{\"children\":[{\"value\":12}]}")));
+        assertFalse(schema.isValid(JSON.parse("{\"value\":1,\"children\":[]}")));
+        List<JSONSchema.Failure> failures = schema.validate(JSON.parse("{\"children\":[{\"children\":" +
+                "[{\"value\":5.5}]}]}"));
+        assertEquals(1, failures.size());
+        assertEquals("/children/0/children/0/value", failures.get(0).getPointer().toString());
+        assertEquals("oneOf", failures.get(0).getKeyword());
+        JSONSchema anyOf = JSONSchema.parse("{\"anyOf\":[{\"type\":\"string\"},{\"const\":1}]," +
+                "\"contains\":{\"const\":2}}");
+        assertTrue(anyOf.isValid(new JSONString("x")));
+        assertTrue(anyOf.isValid(new JSONDecimal("1.0")));
+        assertFalse(anyOf.isValid(new JSONInteger(2)));
+    }
+
+    @Test
+    void shouldValidateWhileParsing() {
+        JSONSchema schema = JSONSchema.parse("{\"type\":\"array\",\"items\":" + personSchema + "}");
+        String json = "[{\"id\":1,\"name\":\"A\"},{\"id\":2,\"name\":\"B\",\"tags\":[\"a\",\"b\"]}]";
+        assertEquals(JSON.parse(json), JSON.parse(json, schema));
+        JSONException e = assertThrows(JSONException.class, () -> JSON.parse("[{\"id\":1," +
+                "\"name\":\"A\"},{\"id\":2,\"name\":\"B\",\"tags\":[\"a\",\"x\"]}, \"not valid JSON",
+                schema));
+        assertEquals(JSONSchema.VALIDATION_FAILED + ": Value is not one of the enumerated values" +
+                " at /1/tags/1", e.getMessage());
+        JSONSchema.ValidationException ve = assertThrows(JSONSchema.ValidationException.class,
+                () -> JSON.parse("[{\"id\":1,\"extra\":[", schema));
+        assertEquals(JSONSchema.VALIDATION_FAILED + ": Additional property not allowed at /0/extra",
+                ve.getMessage());
+        assertEquals("/0/extra", ve.getFailure().getPointer().toString());
+        assertEquals("additionalProperties", ve.getFailure().getKeyword());
+        e = assertThrows(JSONException.class, () -> JSON.parse("[{\"id\":1}]", schema));
+        assertEquals(JSONSchema.VALIDATION_FAILED + ": Required property \"name\" missing at /0",
+                e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSON.parse("{}", schema));
+        assertEquals(JSONSchema.VALIDATION_FAILED + ": Value does not match type array", e.getMessage());
+        JSONSchema anyOf = JSONSchema.parse("{\"items\":{\"anyOf\":[{\"type\":\"integer\"}," +
+                "{\"properties\":{\"a\":{\"type\":\"string\"}}}]}}");
+        assertEquals(JSON.parse("[1,{\"a\":\"x\"}]"), JSON.parse("[1,{\"a\":\"x\"}]", anyOf));
+        e = assertThrows(JSONException.class, () -> JSON.parse("[1,{\"a\":2}]", anyOf));
+        assertEquals(JSONSchema.VALIDATION_FAILED + ": Value does not match any of the schemas in anyOf" +
+                " at /1", e.getMessage());
+    }
+
+    @Test
+    void shouldSkipUndeclaredPropertiesWhileParsing() {
+        JSONSchema schema = JSONSchema.parse("{\"properties\":{\"a\":{\"type\":\"integer\"}," +
+                "\"b\":{\"properties\":{\"c\":true}}},\"required\":[\"d\"]}");
+        String json = "{\"x\":{\"y\":[1,\"\\u00e9\\n\",{}]},\"a\":1,\"b\":{\"c\":[2],\"z\":null}," +
+                "\"d\":{\"e\":3},\"w\":\"\"}";
+        assertEquals(JSON.parse(json), JSON.parse(json, schema, false));
+        assertEquals(JSON.parse("{\"a\":1,\"b\":{\"c\":[2]},\"d\":{\"e\":3}}"),
+                JSON.parse(json, schema, true));
+        String invalid = "{\"x\":{\"y\":[1,}},\"d\":0}";
+        JSONException expected = assertThrows(JSONException.class, () -> JSON.parse(invalid));
+        JSONException e = assertThrows(JSONException.class, () -> JSON.parse(invalid, schema, true));
+        assertEquals(expected.getMessage(), e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSON.parse("{\"x\":\"\\q\",\"d\":0}", schema, true));
+        assertEquals(JSON.ILLEGAL_STRING_ESCAPE + " at /x", e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSON.parse("{\"x\":0}", schema, true));
+        assertEquals(JSONSchema.VALIDATION_FAILED + ": Required property \"d\" missing", e.getMessage());
+    }
+
+    @Test
+    void shouldNotSkipPropertiesOfValuesComparedAsWhole() {
+        String json = "[{\"a\":1,\"b\":1},{\"a\":1,\"b\":2}]";
+        JSONSchema unique = JSONSchema.parse("{\"type\":\"array\",\"items\":{\"properties\":" +
+                "{\"a\":{\"type\":\"integer\"}}},\"uniqueItems\":true}");
+        assertTrue(unique.validate(JSON.parse(json)).isEmpty());
+        assertEquals(JSON.parse(json), JSON.parse(json, unique, true));
+        JSONSchema contains = JSONSchema.parse("{\"items\":{\"properties\":{\"a\":true}}," +
+                "\"contains\":{\"required\":[\"b\"],\"properties\":{\"b\":{\"const\":2}}}}");
+        assertEquals(JSON.parse(json), JSON.parse(json, contains, true));
+        JSONSchema constant = JSONSchema.parse("{\"properties\":{\"x\":{\"properties\":{\"a\":true}}}," +
+                "\"const\":{\"x\":{\"a\":1,\"b\":2}}}");
+        String object = "{\"x\":{\"a\":1,\"b\":2}}";
+        assertEquals(JSON.parse(object), JSON.parse(object, constant, true));
+        JSONSchema nested = JSONSchema.parse("{\"properties\":{\"x\":{\"properties\":{\"a\":true}}}}");
+        assertEquals(JSON.parse("{\"x\":{\"a\":1}}"), JSON.parse(object, nested, true));
+    }
+
+    @Test
+    void shouldRejectInvalidSchema() {
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSONSchema.parse("{\"properties\":{\"a\":{\"minimum\":\"x\"}}}"));
+        assertEquals(JSONSchema.INVALID_SCHEMA + " at /properties/a/minimum: must be a number",
+                e.getMessage());
+        e = assertThrows(JSONException.class, () -> JSONSchema.parse("{\"$ref\":\"other.json#/a\"}"));
+        assertEquals(JSONSchema.INVALID_SCHEMA + " at /$ref: unsupported reference other.json#/a",
+                e.getMessage());
+        assertThrows(JSONException.class, () -> JSONSchema.parse("{\"type\":\"float\"}"));
+        assertThrows(JSONException.class, () -> JSONSchema.parse("{\"pattern\":\"[\"}"));
+    }
+
+    @Test
+    void shouldRejectReferenceCycleOnSameValue() {
+        JSONException e = assertThrows(JSONException.class, () -> JSONSchema.parse("{\"$ref\":\"#\"}"));
+        assertEquals(JSONSchema.INVALID_SCHEMA +
+                " at root: recursive reference does not apply to a property or item", e.getMessage());
+        assertThrows(JSONException.class, () -> JSONSchema.parse("{\"allOf\":[{\"$ref\":\"#\"}]}"));
+        assertThrows(JSONException.class, () -> JSONSchema.parse("{\"$defs\":{" +
+                "\"a\":{\"$ref\":\"#/$defs/b\"},\"b\":{\"not\":{\"$ref\":\"#/$defs/a\"}}}," +
+                "\"$ref\":\"#/$defs/a\"}"));
+        JSONSchema schema = JSONSchema.parse("{\"anyOf\":[{\"type\":\"integer\"}," +
+                "{\"type\":\"array\",\"items\":{\"$ref\":\"#\"}}]}");
+        assertTrue(schema.isValid(JSON.parse("[1,[2,[3]]]")));
+        assertFalse(schema.isValid(JSON.parse("[1,[\"x\"]]")));
+    }
+
+    @Test
+    void shouldMatchEndAnchorOnlyAtEndOfString() {
+        JSONSchema schema = JSONSchema.parse("{\"pattern\":\"^a.c$\"}");
+        assertTrue(schema.isValid(new JSONString("abc")));
+        assertFalse(schema.isValid(new JSONString("abc\n")));
+        JSONSchema literal = JSONSchema.parse("{\"pattern\":\"abc$\"}");
+        assertFalse(literal.isValid(new JSONString("abc\n")));
+        JSONSchema escaped = JSONSchema.parse("{\"pattern\":\"^a[$]b\\\\$.$\"}");
+        assertTrue(escaped.isValid(new JSONString("a$b$x")));
+        assertFalse(escaped.isValid(new JSONString("a$b$x\n")));
+    }
+
+}
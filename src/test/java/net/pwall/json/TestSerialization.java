@@ -0,0 +1,157 @@
+/*
+ * @(#) TestSerialization.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the serialization of JSON values.
+ *
+ * @author Peter Wall
+ */
+class TestSerialization {
+
+    private static final String example = "{\"id\":12345,\"name\":\"Caf\\u00e9\",\"price\":12.50," +
+            "\"ratio\":1.5e-20,\"big\":-12345678901234,\"tags\":[\"a\",\"b\",[],{}]," +
+            "\"stock\":{\"count\":0,\"ok\":true,\"hold\":false,\"note\":null,\"ints\":[1,2,3]}}";
+
+    @Test
+    void shouldRoundTripObject() throws Exception {
+        JSONObject object = (JSONObject)JSON.parse(example);
+        Object result = roundTrip(object);
+        assertEquals(JSONObject.class, result.getClass());
+        assertEquals(object, result);
+        assertFalse(((JSONObject)result).isFrozen());
+    }
+
+    @Test
+    void shouldRoundTripArray() throws Exception {
+        JSONArray array = JSONArray.create().addValue("abc").addValue(-2.25F).addNull()
+                .addJSON(JSON.parse(example)).addValue(Long.MIN_VALUE);
+        Object result = roundTrip(array);
+        assertEquals(JSONArray.class, result.getClass());
+        assertEquals(array, result);
+        assertTrue(((JSONArray)result).get(1) instanceof JSONFloat);
+    }
+
+    @Test
+    void shouldPreserveFrozenState() throws Exception {
+        JSONObject object = ((JSONObject)JSON.parse(example)).freeze();
+        JSONObject result = (JSONObject)roundTrip(object);
+        assertTrue(result.isFrozen());
+        assertTrue(result.getObject("stock").isFrozen());
+        assertEquals(object, result);
+    }
+
+    @Test
+    void shouldRoundTripPrimitiveArrays() throws Exception {
+        JSONIntArray intArray = new JSONIntArray(1, -2, Integer.MAX_VALUE);
+        Object result = roundTrip(intArray);
+        assertEquals(JSONIntArray.class, result.getClass());
+        assertTrue(((JSONIntArray)result).isPrimitive());
+        assertEquals(intArray, result);
+        JSONLongArray longArray = new JSONLongArray(Long.MIN_VALUE, 0, 5);
+        result = roundTrip(longArray.freeze());
+        assertEquals(JSONLongArray.class, result.getClass());
+        assertTrue(((JSONLongArray)result).isFrozen());
+        assertEquals(longArray, result);
+        JSONDoubleArray doubleArray = new JSONDoubleArray(1.5, -0.0, 1e300);
+        result = roundTrip(doubleArray);
+        assertEquals(JSONDoubleArray.class, result.getClass());
+        assertEquals(doubleArray, result);
+        intArray.addValue("not an int");
+        assertFalse(intArray.isPrimitive());
+        result = roundTrip(intArray);
+        assertEquals(JSONIntArray.class, result.getClass());
+        assertEquals(intArray, result);
+    }
+
+    @Test
+    void shouldSerializeNestedInOtherObjects() throws Exception {
+        Holder holder = new Holder();
+        holder.object = (JSONObject)JSON.parse(example);
+        holder.array = new JSONIntArray(7, 8, 9);
+        Holder result = (Holder)roundTrip(holder);
+        assertEquals(holder.object, result.object);
+        assertEquals(holder.array, result.array);
+        assertEquals(JSONIntArray.class, result.array.getClass());
+    }
+
+    @Test
+    void shouldUseDefaultSerializationForSubclasses() throws Exception {
+        CustomObject object = new CustomObject();
+        object.putValue("a", 1);
+        Object result = roundTrip(object);
+        assertEquals(CustomObject.class, result.getClass());
+        assertEquals(object, result);
+    }
+
+    @Test
+    void shouldBeSmallerThanText() throws Exception {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < 100; i++)
+            array.add(JSON.parse(example));
+        assertTrue(serialize(array).length < array.toJSON().length());
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(object);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Object roundTrip(Object object) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialize(object)))) {
+            return ois.readObject();
+        }
+    }
+
+    static class Holder implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        JSONObject object;
+        JSONArray array;
+
+    }
+
+    static class CustomObject extends JSONObject {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+}
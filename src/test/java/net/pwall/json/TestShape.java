@@ -0,0 +1,120 @@
+/*
+ * @(#) TestShape.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONShape.
+ *
+ * @author Peter Wall
+ */
+class TestShape {
+
+    @Test
+    void shouldShareShapeBetweenObjectsInArray() {
+        JSONArray array = JSON.parseArray("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}," +
+                "{\"id\":3},{\"name\":\"c\",\"id\":4},{\"name\":\"d\",\"id\":5}]");
+        JSONObject first = array.getObject(0);
+        JSONObject second = array.getObject(1);
+        assertTrue(first.sharesShape(second));
+        assertEquals("b", second.getString("name"));
+        assertFalse(second.sharesShape(array.getObject(2)));
+        assertEquals("{\"id\":3}", array.getObject(2).toJSON());
+        assertFalse(second.sharesShape(array.getObject(3)));
+        assertTrue(array.getObject(3).sharesShape(array.getObject(4)));
+        assertEquals("{\"name\":\"d\",\"id\":5}", array.getObject(4).toJSON());
+    }
+
+    @Test
+    void shouldNotCreateShapesForHeterogeneousArray() {
+        JSONArray array = JSON.parseArray("[{\"a\":1},{\"b\":2},{\"c\":3}," +
+                "{\"d\":4,\"e\":5},{\"d\":6,\"e\":7},{\"d\":8,\"e\":9}]");
+        for (int i = 0; i < 3; i++)
+            assertNull(array.getObject(i).currentShape());
+        assertNotNull(array.getObject(3).currentShape());
+        assertTrue(array.getObject(3).sharesShape(array.getObject(4)));
+        assertTrue(array.getObject(4).sharesShape(array.getObject(5)));
+        assertEquals("{\"d\":4,\"e\":5}", array.getObject(3).toJSON());
+    }
+
+    @Test
+    void shouldCopyKeysWhenSharedObjectModified() {
+        JSONArray array = JSON.parseArray("[{\"a\":1,\"b\":2},{\"a\":3,\"b\":4}]");
+        JSONObject first = array.getObject(0);
+        JSONObject second = array.getObject(1);
+        first.putValue("a", 5);
+        assertTrue(first.sharesShape(second));
+        first.remove("a");
+        assertFalse(first.sharesShape(second));
+        assertEquals("{\"b\":2}", first.toJSON());
+        assertEquals("{\"a\":3,\"b\":4}", second.toJSON());
+        second.putValue("c", 6);
+        assertEquals("{\"a\":3,\"b\":4,\"c\":6}", second.toJSON());
+        JSONObject copy = new JSONObject(array.getObject(1));
+        assertEquals(second, copy);
+    }
+
+    @Test
+    void shouldReportDuplicateKeyInObjectMatchingShape() {
+        JSONException e = assertThrows(JSONException.class,
+                () -> JSON.parse("[{\"a\":1,\"b\":2},{\"a\":3,\"a\":4}]"));
+        assertEquals(JSON.DUPLICATE_KEY + ": \"a\" at /1", e.getMessage());
+    }
+
+    @Test
+    void shouldShareLargeShapes() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 3; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append('{');
+            for (int j = 0; j < 20; j++) {
+                if (j > 0)
+                    sb.append(',');
+                sb.append("\"key").append(j).append("\":").append(i * 100 + j);
+            }
+            sb.append('}');
+        }
+        sb.append(']');
+        JSONArray array = JSON.parseArray(sb.toString());
+        JSONObject first = array.getObject(0);
+        JSONObject third = array.getObject(2);
+        assertTrue(first.sharesShape(third));
+        assertEquals(20, third.size());
+        for (int j = 0; j < 20; j++)
+            assertEquals(200 + j, third.getInt("key" + j));
+        assertNull(third.get("key20"));
+        assertEquals(JSON.parse(third.toJSON()), third);
+        third.putValue("extra", true);
+        assertFalse(third.isCompact());
+        assertTrue(third.getBoolean("extra"));
+        assertEquals(219, third.getInt("key19"));
+        assertEquals(19, first.getInt("key19"));
+    }
+
+}
@@ -2,7 +2,7 @@
  * @(#) TestString.java
  *
  * jsonutil JSON Utility Library
- * Copyright (c) 2015, 2016 Peter Wall
+ * Copyright (c) 2015, 2016, 2026 Peter Wall
  *
  * Permission is hereby granted, free of charge, to any person obtaining a copy
  * of this software and associated documentation files (the "Software"), to deal
@@ -187,4 +187,17 @@ class TestString {
         assertEquals("String with mdash \u2014.", JSON.unescape(str));
     }
 
+    @Test
+    void shouldReturnCachedInstancesForShortStrings() {
+        assertSame(JSONString.valueOf(""), JSONString.valueOf(new StringBuilder()));
+        assertSame(JSONString.valueOf("a"), JSONString.valueOf("a"));
+        assertEquals("a", JSONString.valueOf("a").getValue());
+        assertNotSame(JSONString.valueOf("\u00e9"), JSONString.valueOf("\u00e9"));
+        assertNotSame(JSONString.valueOf("ab"), JSONString.valueOf("ab"));
+        JSONArray array = JSON.parseArray("[\"\",\"W\",\"\",\"W\"]");
+        assertSame(array.get(0), array.get(2));
+        assertSame(array.get(1), array.get(3));
+        assertNull(JSONArray.create().addAlways(null).get(0));
+    }
+
 }
@@ -0,0 +1,153 @@
+/*
+ * @(#) TestTape.java
+ *
+ * jsonutil JSON Utility Library
+ * Copyright (c) 2026 Peter Wall
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.pwall.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for JSONTape.
+ *
+ * @author Peter Wall
+ */
+class TestTape {
+
+    private static final String example = "{\"id\":12345,\"name\":\"Caf\\u00e9 \\\"A\\\"\",\"price\":12.50," +
+            "\"big\":12345678901234,\"huge\":123456789012345678901234,\"tags\":[\"a\",\"b\",[],{}]," +
+            "\"stock\":{\"count\":0,\"ok\":true,\"hold\":false,\"note\":null}}";
+
+    @Test
+    void shouldConvertTapeToSameValueAsParse() throws IOException {
+        JSONValue expected = JSON.parse(example);
+        assertEquals(expected, JSONTape.parse(example).toJSONValue());
+        JSONTape tape = JSONTape.parse(new ByteArrayInputStream(example.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, true);
+        assertEquals(expected, tape.toJSONValue());
+        assertEquals(expected.toJSON(), tape.toJSONValue().toJSON());
+    }
+
+    @Test
+    void shouldNavigateWithCursor() {
+        JSONTape.Cursor cursor = JSONTape.parse(example).cursor();
+        assertEquals(JSONTape.Type.OBJECT, cursor.getType());
+        assertEquals(7, cursor.size());
+        assertTrue(cursor.down("name"));
+        assertEquals("Caf\u00e9 \"A\"", cursor.getString());
+        assertEquals("name", cursor.getKey());
+        assertEquals(1, cursor.getIndex());
+        assertTrue(cursor.next());
+        assertEquals("price", cursor.getKey());
+        assertEquals(12.5, cursor.getDouble());
+        assertEquals(new JSONDecimal("12.50"), cursor.toJSONValue());
+        assertTrue(cursor.next());
+        assertEquals(12345678901234L, cursor.getLong());
+        assertTrue(cursor.up());
+        assertFalse(cursor.down("missing"));
+        assertTrue(cursor.down(5));
+        assertEquals("tags", cursor.getKey());
+        assertEquals(JSONTape.Type.ARRAY, cursor.getType());
+        assertTrue(cursor.down(1));
+        assertEquals("b", cursor.getString());
+        assertNull(cursor.getKey());
+        assertTrue(cursor.next());
+        assertEquals(0, cursor.size());
+        assertTrue(cursor.next());
+        assertEquals(new JSONObject(), cursor.toJSONValue());
+        assertFalse(cursor.next());
+        assertEquals(2, cursor.getDepth());
+        cursor.reset();
+        assertTrue(cursor.down("stock"));
+        assertEquals(JSON.parse("{\"count\":0,\"ok\":true,\"hold\":false,\"note\":null}"),
+                cursor.toJSONValue());
+        assertTrue(cursor.down(0));
+        assertEquals(0, cursor.getInt());
+        assertTrue(cursor.next());
+        assertTrue(cursor.getBoolean());
+        assertTrue(cursor.next());
+        assertFalse(cursor.getBoolean());
+        assertTrue(cursor.next());
+        assertTrue(cursor.isNull());
+        assertFalse(cursor.next());
+        assertTrue(cursor.up());
+        assertTrue(cursor.up());
+        assertFalse(cursor.up());
+        assertEquals(0, cursor.getDepth());
+    }
+
+    @Test
+    void shouldWriteAndWrapTape() throws IOException {
+        JSONTape tape = JSONTape.parse(example);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        tape.writeTo(Channels.newChannel(baos));
+        assertEquals(tape.getLength(), baos.size());
+        JSONTape copy = JSONTape.wrap(ByteBuffer.wrap(baos.toByteArray()));
+        assertEquals(JSON.parse(example), copy.toJSONValue());
+        assertThrows(JSONException.class, () -> JSONTape.wrap(ByteBuffer.wrap(new byte[] { 99 })));
+    }
+
+    @Test
+    void shouldReportErrorsSameAsParse() {
+        checkError("{\"a\":1,\"a\":2}");
+        checkError("{\"a\":[1,2,}");
+        checkError("{\"a\" 1}");
+        checkError("[1,2");
+        checkError("{\"a\":01}");
+        checkError("[1] 2");
+    }
+
+    @Test
+    void shouldHandleLargeDocuments() throws IOException {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append("{\"n\":").append(i).append(",\"s\":\"value ").append(i).append("\"}");
+        }
+        sb.append(']');
+        JSONTape tape = JSONTape.parse(new StringReader(sb.toString()), false);
+        JSONTape.Cursor cursor = tape.cursor();
+        assertEquals(5000, cursor.size());
+        assertTrue(cursor.down(4321));
+        assertTrue(cursor.down("s"));
+        assertEquals("value 4321", cursor.getString());
+        assertEquals(JSON.parse(sb), tape.toJSONValue());
+    }
+
+    private static void checkError(String json) {
+        JSONException expected = assertThrows(JSONException.class, () -> JSON.parse(json));
+        JSONException e = assertThrows(JSONException.class, () -> JSONTape.parse(json));
+        assertEquals(expected.getMessage(), e.getMessage());
+    }
+
+}